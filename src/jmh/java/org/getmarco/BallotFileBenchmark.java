@@ -0,0 +1,81 @@
+package org.getmarco;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.bulk.BallotFileTally;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tallying a file of ballots on a fork/join pool, by pool size.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BallotFileBenchmark {
+    private static final int NUM_RESTAURANTS = 1000;
+    private static final int NUM_BALLOTS = 2000000;
+
+    @Param({"1", "2", "4", "8"})
+    protected int parallelism;
+
+    private Path path;
+    private Set<String> restaurants;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.restaurants = new LinkedHashSet<>();
+        for (int i = 0; i < NUM_RESTAURANTS; i++)
+            this.restaurants.add("Restaurant " + i);
+        Random random = new Random(0);
+        this.path = Files.createTempFile("ballots", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < NUM_BALLOTS; i++) {
+                int first = random.nextInt(NUM_RESTAURANTS);
+                writer.write("Restaurant " + first + ",Restaurant " + (first + 1) % NUM_RESTAURANTS + ",Restaurant "
+                  + (first + 2) % NUM_RESTAURANTS + "\n");
+            }
+        }
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.pool.shutdown();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public Game tally() {
+        Game game = new Game();
+        game.setNumPlayers(NUM_RESTAURANTS);
+        game.setNumRestaurantsPerPlayer(1);
+        game.addRestaurants(this.restaurants);
+        new BallotFileTally(this.pool, BallotFileTally.DEFAULT_SPLIT_SIZE).tally(this.path, game);
+        return game;
+    }
+}
@@ -0,0 +1,71 @@
+package org.getmarco;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.bulk.BulkImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk importing a CSV file of players, each suggesting a few restaurants.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkImportBenchmark {
+    private static final int NUM_SUGGESTIONS = 3;
+    private static final int NUM_RESTAURANTS = 50000;
+
+    @Param({"1000000"})
+    protected int numPlayers;
+
+    @Param({"1", "4"})
+    protected int parallelism;
+
+    private Path path;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.path = Files.createTempFile("players", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8)) {
+            writer.write("player,restaurant 1,restaurant 2,restaurant 3\n");
+            for (int i = 0; i < this.numPlayers; i++) {
+                writer.write("Player " + i);
+                for (int j = 0; j < NUM_SUGGESTIONS; j++)
+                    writer.write(",Restaurant " + (i * 31 + j * 7919) % NUM_RESTAURANTS);
+                writer.write('\n');
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public Game importFile() {
+        Game game = new Game();
+        new BulkImporter(BulkImporter.DEFAULT_CHUNK_SIZE, this.parallelism).importFile(this.path, game);
+        return game;
+    }
+}
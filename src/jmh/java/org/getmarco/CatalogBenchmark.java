@@ -0,0 +1,80 @@
+package org.getmarco;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.catalog.RestaurantCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Opening a memory-mapped restaurant catalog and prefix lookups in it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+    private static final int NUM_PREFIXES = 1024;
+    private static final int NUM_SUGGESTIONS = 10;
+
+    @Param({"1000", "1000000"})
+    protected int numRestaurants;
+
+    private Path path;
+    private RestaurantCatalog catalog;
+    private String[] prefixes;
+    private int nextPrefix;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> restaurants = new ArrayList<>(this.numRestaurants);
+        for (int i = 0; i < this.numRestaurants; i++)
+            restaurants.add(String.format("Restaurant %07d", i));
+        this.path = Files.createTempFile("restaurants", ".catalog");
+        RestaurantCatalog.write(this.path, restaurants);
+        this.catalog = RestaurantCatalog.open(this.path);
+
+        // Prefixes as typed so far, from a couple of letters to most of a name
+        Random random = new Random(0);
+        this.prefixes = new String[NUM_PREFIXES];
+        for (int i = 0; i < NUM_PREFIXES; i++) {
+            String name = restaurants.get(random.nextInt(this.numRestaurants));
+            this.prefixes[i] = name.substring(0, 2 + random.nextInt(name.length() - 2)).toLowerCase();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public RestaurantCatalog open() {
+        return RestaurantCatalog.open(this.path);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        this.nextPrefix = (this.nextPrefix + 1) & (NUM_PREFIXES - 1);
+        return this.catalog.complete(this.prefixes[this.nextPrefix], NUM_SUGGESTIONS);
+    }
+}
@@ -0,0 +1,81 @@
+package org.getmarco;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.tally.TallyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Many threads voting into one {@link TallyType#CONCURRENT concurrent} game,
+ * on their own or while another thread keeps reading the top restaurants.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ConcurrentVoteBenchmark {
+    private static final int TOP_K = 10;
+
+    @Param({"10", "1000", "100000"})
+    protected int numRestaurants;
+
+    private String[] names;
+    private Game game;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Set<String> restaurants = new LinkedHashSet<>();
+        for (int i = 0; i < this.numRestaurants; i++)
+            restaurants.add(String.format("Restaurant %07d", i));
+        this.names = restaurants.toArray(new String[0]);
+
+        this.game = new Game(TallyType.CONCURRENT);
+        this.game.setNumPlayers(this.numRestaurants);
+        this.game.setNumRestaurantsPerPlayer(1);
+        this.game.addRestaurants(restaurants);
+    }
+
+    @Benchmark
+    public void vote() {
+        this.game.vote(this.names[ThreadLocalRandom.current().nextInt(this.names.length)]);
+    }
+
+    @Benchmark
+    public void voteSameRestaurant() {
+        this.game.vote(this.names[0]);
+    }
+
+    @Benchmark
+    @Group("voteWhileReading")
+    @GroupThreads(3)
+    public void voter() {
+        this.vote();
+    }
+
+    @Benchmark
+    @Group("voteWhileReading")
+    public List<String> reader() {
+        return this.game.getTopRestaurants(TOP_K);
+    }
+}
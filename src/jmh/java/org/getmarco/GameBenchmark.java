@@ -0,0 +1,131 @@
+package org.getmarco;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Game} vote tally and ranking methods at increasing
+ * numbers of restaurants. Run with {@code ./gradlew jmh} (throughput plus the
+ * gc profiler allocation rate).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    private static final long SEED = 42L;
+    private static final int MAX_INITIAL_VOTES = 10;
+    private static final int TOP_K = 10;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    protected int numRestaurants;
+
+    private Set<String> names;
+    private String[] voteOrder;
+    private int nextVote;
+    private Game game;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        this.names = new LinkedHashSet<>();
+        for (int i = 0; i < this.numRestaurants; i++)
+            this.names.add(String.format("Restaurant %07d", i));
+
+        // Vote in a shuffled order so the tally is not walked sequentially
+        this.voteOrder = this.names.toArray(new String[0]);
+        Random random = new Random(SEED);
+        for (int i = this.voteOrder.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String tmp = this.voteOrder[i];
+            this.voteOrder[i] = this.voteOrder[j];
+            this.voteOrder[j] = tmp;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        this.game = newGame();
+        this.game.addRestaurants(this.names);
+
+        // Spread some votes around so the ranking has more than one bucket
+        Random random = new Random(SEED);
+        for (String restaurant : this.voteOrder) {
+            int votes = random.nextInt(MAX_INITIAL_VOTES);
+            for (int i = 0; i < votes; i++)
+                this.game.vote(restaurant);
+        }
+        this.nextVote = 0;
+    }
+
+    private Game newGame() {
+        Game newGame = new Game();
+        newGame.setNumPlayers(this.numRestaurants);
+        newGame.setNumRestaurantsPerPlayer(1);
+        return newGame;
+    }
+
+    @Benchmark
+    public void vote() {
+        this.game.vote(this.voteOrder[this.nextVote]);
+        if (++this.nextVote == this.voteOrder.length)
+            this.nextVote = 0;
+    }
+
+    @Benchmark
+    public void voteById() {
+        this.game.vote(this.game.getRestaurantId(this.voteOrder[this.nextVote]));
+        if (++this.nextVote == this.voteOrder.length)
+            this.nextVote = 0;
+    }
+
+    @Benchmark
+    public List<String> getVoteSortedRestaurants() {
+        return this.game.getVoteSortedRestaurants();
+    }
+
+    @Benchmark
+    public List<String> getTopRestaurants() {
+        return this.game.getTopRestaurants(TOP_K);
+    }
+
+    @Benchmark
+    public List<String> voteThenGetTopRestaurants() {
+        this.vote();
+        return this.game.getTopRestaurants(TOP_K);
+    }
+
+    @Benchmark
+    public boolean isWin() {
+        return this.game.isWin();
+    }
+
+    @Benchmark
+    public int getMaxVoteCount() {
+        return this.game.getMaxVoteCount();
+    }
+
+    @Benchmark
+    public Game addRestaurants() {
+        Game newGame = newGame();
+        newGame.addRestaurants(this.names);
+        return newGame;
+    }
+}
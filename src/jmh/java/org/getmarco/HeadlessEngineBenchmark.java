@@ -0,0 +1,59 @@
+package org.getmarco;
+
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.engine.GameScript;
+import org.getmarco.engine.HeadlessEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Complete games (START through QUIT) per second through the headless engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HeadlessEngineBenchmark {
+    private static final int RESTAURANTS_PER_PLAYER = 3;
+
+    @Param({"3", "10", "100"})
+    protected int numPlayers;
+
+    private GameScript script;
+
+    @Setup
+    public void setup() {
+        GameScript.Builder builder = new GameScript.Builder()
+          .setNumPlayers(this.numPlayers)
+          .setNumRestaurantsPerPlayer(RESTAURANTS_PER_PLAYER);
+        for (int i = 0; i < this.numPlayers; i++) {
+            String player = "Player " + i;
+            String[] restaurants = new String[RESTAURANTS_PER_PLAYER];
+            for (int j = 0; j < RESTAURANTS_PER_PLAYER; j++)
+                restaurants[j] = "Restaurant " + (i + j);
+            // Odd players eliminate an odd numbered restaurant, everyone votes for even numbered ones
+            int even = i - i % 2;
+            builder.addPlayer(player, restaurants)
+              .setElimination(player, i % 2 == 0 ? null : "Restaurant " + i)
+              .setBallot(player, "Restaurant " + even, "Restaurant " + (even + 2));
+        }
+        this.script = builder.build();
+    }
+
+    @Benchmark
+    public Game playGame() {
+        return HeadlessEngine.play(this.script);
+    }
+}
@@ -0,0 +1,181 @@
+package org.getmarco;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.getmarco.http.GameHttpServer;
+import org.getmarco.metrics.LatencyHistogram;
+import org.getmarco.metrics.LatencySummary;
+import org.getmarco.session.SessionThreads;
+
+/**
+ * Load generator for {@link GameHttpServer}: many concurrent voters, each on
+ * its own thread with a keep-alive connection, vote for random restaurants
+ * as fast as the server answers. Reports the requests per second and the
+ * latency percentiles of the votes, measured after a warmup. Run with
+ * {@code ./gradlew loadTest -Pvoters=N -Pseconds=S}; the server runs in the
+ * same process unless {@code -Purl=http://host:port} points at one already
+ * running, which is then set up for a new game.
+ * <p>
+ * By default the game has no players and every request is a single vote
+ * (the shared lock path). With {@code -Pballots} every voter is a player
+ * submitting ballots of {@link #BALLOT_SIZE} random restaurants, each
+ * replacing the last (the exclusive lock path).
+ */
+public final class HttpLoadTest {
+    private static final int DEFAULT_VOTERS = 2000;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int WARMUP_SECONDS = 3;
+    private static final int NUM_RESTAURANTS = 20;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final int TOP_RESTAURANTS = 3;
+    private static final int BALLOT_SIZE = 3;
+    // Players added per request, keeping the request body small
+    private static final int PLAYERS_PER_REQUEST = 1000;
+    private static final String BALLOTS = "ballots";
+
+    private static final LatencyHistogram LATENCIES = new LatencyHistogram();
+    private static final LongAdder ERRORS = new LongAdder();
+    private static volatile boolean running = true;
+
+    private HttpLoadTest() {
+        // Not used
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numVoters = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_VOTERS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        boolean ballots = args.length > 2 && BALLOTS.equals(args[2]);
+        // Keep a connection per voter instead of the default handful
+        System.setProperty("http.maxConnections", String.valueOf(numVoters));
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(numVoters));
+
+        GameHttpServer server = null;
+        String url;
+        if (args.length > 3) {
+            url = args[3];
+        } else {
+            // Small responses shouldn't wait for delayed acks (see GameHttpServer)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            server = new GameHttpServer(new InetSocketAddress("localhost", 0));
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+        try {
+            StringBuilder restaurants = new StringBuilder();
+            for (int i = 0; i < NUM_RESTAURANTS; i++)
+                restaurants.append(i == 0 ? "" : ",").append("\"Restaurant ").append(i).append('"');
+            int numPlayers = Math.max(numVoters, NUM_RESTAURANTS);
+            request(url + "/setup", "{\"numPlayers\": " + numPlayers + ", \"numRestaurantsPerPlayer\": 1}");
+            request(url + "/restaurants", "{\"restaurants\": [" + restaurants + "]}");
+            for (int first = 0; ballots && first < numVoters; first += PLAYERS_PER_REQUEST) {
+                StringBuilder players = new StringBuilder();
+                for (int i = first; i < Math.min(first + PLAYERS_PER_REQUEST, numVoters); i++)
+                    players.append(i == first ? "" : ",").append("\"Voter ").append(i).append('"');
+                request(url + "/players", "{\"players\": [" + players + "]}");
+            }
+
+            ThreadFactory threadFactory = SessionThreads.newThreadFactory("voter-");
+            CountDownLatch done = new CountDownLatch(numVoters);
+            String voteUrl = url + "/vote";
+            SplittableRandom seeds = new SplittableRandom();
+            for (int i = 0; i < numVoters; i++) {
+                SplittableRandom random = seeds.split();
+                String player = ballots ? "Voter " + i : null;
+                threadFactory.newThread(() -> {
+                    try {
+                        vote(voteUrl, player, random);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+
+            Thread.sleep(WARMUP_SECONDS * MILLIS_PER_SECOND);
+            LATENCIES.reset();
+            ERRORS.reset();
+            long start = System.nanoTime();
+            Thread.sleep(seconds * MILLIS_PER_SECOND);
+            LatencySummary summary = LATENCIES.getSummary();
+            long elapsed = System.nanoTime() - start;
+            running = false;
+            done.await();
+
+            System.out.printf("%d voters (%s threads, %s) for %d s: %.0f requests/s, %d errors%n", numVoters,
+              SessionThreads.isVirtual() ? "virtual" : "platform", ballots ? "ballots" : "votes", seconds,
+              summary.getCount() * (double)NANOS_PER_SECOND / elapsed, ERRORS.sum());
+            System.out.printf("vote latency: mean %.0f us, p50 %.0f us, p90 %.0f us, p99 %.0f us, max %.0f us%n",
+              summary.getMeanMicros(), summary.getP50Micros(), summary.getP90Micros(), summary.getP99Micros(),
+              summary.getMaxMicros());
+            System.out.printf("results: %s%n", request(url + "/results?limit=" + TOP_RESTAURANTS, null));
+        } finally {
+            if (server != null)
+                server.close();
+        }
+    }
+
+    // Single votes, or the player's ballots if given
+    private static void vote(String url, String player, SplittableRandom random) {
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < NUM_RESTAURANTS; i++) {
+            if (player == null) {
+                bodies.add("{\"restaurant\": \"Restaurant " + i + "\"}");
+                continue;
+            }
+            // Consecutive restaurants, so every ballot is valid
+            StringBuilder ballot = new StringBuilder();
+            for (int j = 0; j < BALLOT_SIZE; j++)
+                ballot.append(j == 0 ? "" : ",").append("\"Restaurant ").append((i + j) % NUM_RESTAURANTS).append('"');
+            bodies.add("{\"player\": \"" + player + "\", \"restaurants\": [" + ballot + "]}");
+        }
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                request(url, bodies.get(random.nextInt(NUM_RESTAURANTS)));
+                LATENCIES.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                ERRORS.increment();
+            }
+        }
+    }
+
+    // GET, or POST a JSON body; the response is read to the end so the connection is kept alive
+    private static String request(String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() :
+          connection.getErrorStream()) {
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                response.write(buffer, 0, read);
+        }
+        String text = new String(response.toByteArray(), StandardCharsets.UTF_8);
+        if (status != HttpURLConnection.HTTP_OK)
+            throw new IOException("HTTP " + status + " from '" + url + "': " + text);
+        return text;
+    }
+}
@@ -0,0 +1,118 @@
+package org.getmarco;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.getmarco.persist.VoteJournal;
+import org.getmarco.tally.TallyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Journaled voting from many threads, and replay of a journal of one million votes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    private static final int NUM_RESTAURANTS = 1000;
+    private static final int NUM_VOTES = 1_000_000;
+
+    private String[] names;
+    private Path journalDirectory;
+    private Path replayDirectory;
+    private Game game;
+    private VoteJournal journal;
+
+    private Game newGame() {
+        Set<String> restaurants = new LinkedHashSet<>();
+        for (String name : this.names)
+            restaurants.add(name);
+        Game newGame = new Game(TallyType.CONCURRENT);
+        newGame.setNumPlayers(NUM_RESTAURANTS);
+        newGame.setNumRestaurantsPerPlayer(1);
+        newGame.addRestaurants(restaurants);
+        return newGame;
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupReplay() throws IOException {
+        this.names = new String[NUM_RESTAURANTS];
+        for (int i = 0; i < NUM_RESTAURANTS; i++)
+            this.names[i] = String.format("Restaurant %07d", i);
+
+        this.replayDirectory = Files.createTempDirectory("journal-replay");
+        Game recorded = new Game();
+        try (VoteJournal recording = VoteJournal.recover(this.replayDirectory, recorded)) {
+            recorded.setNumPlayers(NUM_RESTAURANTS);
+            recorded.setNumRestaurantsPerPlayer(1);
+            Set<String> restaurants = new LinkedHashSet<>();
+            for (String name : this.names)
+                restaurants.add(name);
+            recorded.addRestaurants(restaurants);
+            for (int i = 0; i < NUM_VOTES; i++)
+                recorded.vote(i % NUM_RESTAURANTS);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupAppend() throws IOException {
+        this.journalDirectory = Files.createTempDirectory("journal-append");
+        this.game = this.newGame();
+        this.journal = VoteJournal.recover(this.journalDirectory, this.game);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownAppend() {
+        this.journal.close();
+        delete(this.journalDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownReplay() {
+        delete(this.replayDirectory);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void journaledVote() {
+        this.game.vote(ThreadLocalRandom.current().nextInt(NUM_RESTAURANTS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VOTES)
+    public long replay() {
+        return VoteJournal.replay(this.replayDirectory, new Game());
+    }
+}
@@ -0,0 +1,70 @@
+package org.getmarco;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.tally.InstantRunoff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A complete instant runoff over a large electorate with three ranked choices per ballot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RunoffBenchmark {
+    private static final long SEED = 42L;
+    private static final int CHOICES = 3;
+
+    @Param({"10000", "1000000"})
+    protected int numBallots;
+
+    @Param({"10", "1000", "20000"})
+    protected int numRestaurants;
+
+    private InstantRunoff runoff;
+    private BitSet candidates;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.runoff = new InstantRunoff();
+        int[] ballot = new int[CHOICES];
+        for (int b = 0; b < this.numBallots; b++) {
+            // Skewed preferences, so the runoff takes many rounds rather than being a landslide
+            for (int i = 0; i < CHOICES; i++) {
+                int id;
+                boolean duplicate;
+                do {
+                    id = (int)(this.numRestaurants * Math.pow(random.nextDouble(), 2));
+                    duplicate = false;
+                    for (int j = 0; j < i; j++)
+                        duplicate |= ballot[j] == id;
+                } while (duplicate);
+                ballot[i] = id;
+            }
+            this.runoff.addBallot(ballot, 0, CHOICES);
+        }
+        this.candidates = new BitSet();
+        this.candidates.set(0, this.numRestaurants);
+    }
+
+    @Benchmark
+    public int run() {
+        return this.runoff.run(this.candidates);
+    }
+}
@@ -0,0 +1,71 @@
+package org.getmarco;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.tally.BallotMatrix;
+import org.getmarco.tally.ScoringRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting every kept ballot again under a scoring rule, as a game does when
+ * its rule changes, and filling the ballot matrix in the first place. Ballots
+ * mark a few restaurants each, so the matrix's cost should follow the marks
+ * rather than the number of restaurants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+    private static final long SEED = 42L;
+    private static final int CHOICES = 3;
+
+    @Param({"100000"})
+    protected int numBallots;
+
+    @Param({"20", "200", "2000"})
+    protected int numRestaurants;
+
+    @Param({"PLURALITY", "BORDA", "SCORE"})
+    protected ScoringRule rule;
+
+    private BallotMatrix ballots;
+
+    @Setup
+    public void setup() {
+        this.ballots = this.addBallots();
+    }
+
+    @Benchmark
+    public int[] score() {
+        return this.rule.score(this.ballots, CHOICES);
+    }
+
+    @Benchmark
+    public BallotMatrix addBallots() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        BallotMatrix matrix = new BallotMatrix();
+        for (int b = 0; b < this.numBallots; b++) {
+            int row = matrix.addBallot();
+            for (int i = 0; i < CHOICES; i++) {
+                int id = random.nextInt(this.numRestaurants);
+                if (matrix.getMark(row, id) == 0)
+                    matrix.mark(row, id, this.rule.isScored() ? 1 + random.nextInt(ScoringRule.MAX_SCORE) : i + 1);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,87 @@
+package org.getmarco;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.engine.GameScript;
+import org.getmarco.engine.HeadlessFrontEnd;
+import org.getmarco.session.Session;
+import org.getmarco.session.SessionHost;
+import org.getmarco.session.SessionThreads;
+import org.getmarco.tally.TallyType;
+
+/**
+ * Measures how many idle sessions (games waiting on their players) fit in a
+ * GB of heap, and the mean session creation latency. Run with
+ * {@code ./gradlew sessionFootprint -Psessions=N}. Virtual thread stacks live
+ * on the heap and are included; platform thread stacks are not.
+ */
+public final class SessionFootprint {
+    private static final int DEFAULT_SESSIONS = 10000;
+    private static final double BYTES_PER_GB = 1024.0 * 1024.0 * 1024.0;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private SessionFootprint() {
+        // Not used
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        GameScript script = new GameScript.Builder()
+          .setNumPlayers(2)
+          .setNumRestaurantsPerPlayer(1)
+          .addPlayer("Bart", "Krusty Burger")
+          .addPlayer("Lisa", "Thai Kitchen")
+          .build();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (SessionHost host = new SessionHost()) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            for (int i = 0; i < numSessions; i++)
+                host.open("session-" + i, new Game(TallyType.SEQUENTIAL, new IdleFrontEnd(script, release)));
+            long elapsed = System.nanoTime() - start;
+            long after = usedHeap();
+
+            double bytesPerSession = (after - before) / (double)numSessions;
+            System.out.printf("%d sessions (%s threads): %.0f bytes/session, %.0f sessions/GB, %.2f us/session created%n",
+              numSessions, SessionThreads.isVirtual() ? "virtual" : "platform", bytesPerSession,
+              BYTES_PER_GB / bytesPerSession, elapsed / NANOS_PER_MICRO / numSessions);
+
+            release.countDown();
+            for (Session session : host.getSessions())
+                session.getCompletion().get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Front end parking its session until released, like a game waiting on its players
+     */
+    private static class IdleFrontEnd extends HeadlessFrontEnd {
+        private final CountDownLatch release;
+
+        IdleFrontEnd(GameScript script, CountDownLatch release) {
+            super(script);
+            this.release = release;
+        }
+
+        @Override
+        public void start(Game game) {
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                game.quit();
+            }
+        }
+    }
+}
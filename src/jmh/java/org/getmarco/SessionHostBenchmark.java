@@ -0,0 +1,73 @@
+package org.getmarco;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.getmarco.engine.GameScript;
+import org.getmarco.engine.HeadlessFrontEnd;
+import org.getmarco.session.SessionHost;
+import org.getmarco.tally.TallyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Session creation latency on a {@link SessionHost}. See SessionFootprint for
+ * the number of idle sessions per GB of heap.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionHostBenchmark {
+    private final AtomicLong ids = new AtomicLong();
+    private SessionHost host;
+    private GameScript script;
+
+    @Setup
+    public void setup() {
+        this.host = new SessionHost();
+        this.script = new GameScript.Builder()
+          .setNumPlayers(2)
+          .setNumRestaurantsPerPlayer(1)
+          .addPlayer("Bart", "Krusty Burger")
+          .addPlayer("Lisa", "Thai Kitchen")
+          .setBallot("Bart", "Krusty Burger")
+          .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.host.close();
+    }
+
+    private Game newGame() {
+        return new Game(TallyType.SEQUENTIAL, new HeadlessFrontEnd(this.script));
+    }
+
+    /**
+     * Time to create a session and start its thread (the game finishes in the background)
+     */
+    @Benchmark
+    public Object openSession() {
+        return this.host.open("session-" + this.ids.incrementAndGet(), newGame());
+    }
+
+    /**
+     * Time for a complete session lifecycle, from creation to its game finishing
+     */
+    @Benchmark
+    public Object openAndCompleteSession() throws Exception {
+        return this.host.open("session-" + this.ids.incrementAndGet(), newGame()).getCompletion().get();
+    }
+}
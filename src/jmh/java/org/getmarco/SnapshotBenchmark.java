@@ -0,0 +1,78 @@
+package org.getmarco;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.persist.GameSnapshot;
+import org.getmarco.tally.TallyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading a snapshot of a game with many restaurants.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+    @Param({"1000", "1000000"})
+    protected int numRestaurants;
+
+    @Param({"SEQUENTIAL", "CONCURRENT"})
+    protected TallyType tallyType;
+
+    private Game game;
+    private Path path;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Set<String> restaurants = new LinkedHashSet<>();
+        for (int i = 0; i < this.numRestaurants; i++)
+            restaurants.add(String.format("Restaurant %07d", i));
+
+        this.game = new Game(this.tallyType);
+        this.game.setNumPlayers(this.numRestaurants);
+        this.game.setNumRestaurantsPerPlayer(1);
+        this.game.addRestaurants(restaurants);
+        for (int i = 0; i < this.numRestaurants; i += 3)
+            this.game.vote(i);
+
+        this.path = Files.createTempFile("game", ".snapshot");
+        GameSnapshot.save(this.game, this.path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public void save() {
+        GameSnapshot.save(this.game, this.path);
+    }
+
+    @Benchmark
+    public Game load() {
+        Game loaded = new Game(this.tallyType);
+        GameSnapshot.load(this.path, loaded);
+        return loaded;
+    }
+}
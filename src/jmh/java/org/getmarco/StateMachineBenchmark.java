@@ -0,0 +1,93 @@
+package org.getmarco;
+
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.metrics.GameMetrics;
+import org.getmarco.state.GameFrontEnd;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.TallyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Raw state machine transitions, driven through a front end that does nothing,
+ * with and without {@link GameMetrics} recording every turn.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StateMachineBenchmark {
+    @Param({"false", "true"})
+    protected boolean metrics;
+
+    private Game game;
+
+    @Setup
+    public void setup() {
+        this.game = new Game(TallyType.SEQUENTIAL, new NoOpFrontEnd());
+        if (this.metrics)
+            new GameMetrics().attach(this.game);
+    }
+
+    @Benchmark
+    public StateType transition() {
+        if (this.game.getStateType() == StateType.QUIT)
+            this.game.changeState(StateType.START);
+        else
+            this.game.play();
+        return this.game.getStateType();
+    }
+
+    /**
+     * Front end with no players and no input
+     */
+    private static class NoOpFrontEnd implements GameFrontEnd {
+        @Override
+        public void start(Game game) {
+        }
+
+        @Override
+        public void setup(Game game) {
+        }
+
+        @Override
+        public void enterData(Game game) {
+        }
+
+        @Override
+        public void showData(Game game) {
+        }
+
+        @Override
+        public void eliminate(Game game, String player) {
+        }
+
+        @Override
+        public void vote(Game game, String player) {
+        }
+
+        @Override
+        public void showResults(Game game) {
+        }
+
+        @Override
+        public void finish(Game game) {
+        }
+
+        @Override
+        public void quit(Game game) {
+        }
+    }
+}
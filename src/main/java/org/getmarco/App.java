@@ -1,15 +1,28 @@
 package org.getmarco;
 
+import java.nio.file.Paths;
+
+import org.getmarco.catalog.RestaurantCatalog;
+import org.getmarco.metrics.GameMetrics;
+import org.getmarco.tally.TallyType;
+import org.getmarco.view.ConsoleFrontEnd;
+
 /**
- * Main for Lunch Game application.
+ * Main for Lunch Game application. Set the 'lunch.catalog' system property to
+ * the path of a {@link RestaurantCatalog} file to suggest restaurant names.
  */
 public class App {
+    public static final String CATALOG_PROPERTY = "lunch.catalog";
+
     public static void main(String[] args) {
         new App().start();
     }
 
     public void start() {
-        Game game = new Game();
+        String catalogPath = System.getProperty(CATALOG_PROPERTY);
+        RestaurantCatalog catalog = catalogPath == null ? null : RestaurantCatalog.open(Paths.get(catalogPath));
+        Game game = new Game(TallyType.SEQUENTIAL, new ConsoleFrontEnd(catalog));
+        GameMetrics.install().attach(game);
         while (true)
             game.play();
     }
@@ -1,36 +1,116 @@
 package org.getmarco;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.getmarco.state.GameFrontEnd;
 import org.getmarco.state.GameState;
 import org.getmarco.state.GameStateFactory;
 import org.getmarco.state.StateType;
+import org.getmarco.tally.BallotMatrix;
+import org.getmarco.tally.InstantRunoff;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.tally.TallyType;
+import org.getmarco.tally.VoteTally;
+import org.getmarco.tally.VoteTallyFactory;
+import org.getmarco.util.NameIndex;
+import org.getmarco.view.ConsoleFrontEnd;
 
 /**
  * This class maintains the data and state of the current game run
  */
 public class Game {
-    private static final int NUM_VOTES_PER_PLAYER = 3; //hard-code this rule for now (positive integer)
+    public static final int DEFAULT_NUM_VOTES_PER_PLAYER = 3;
 
     private final Logger logger = LogManager.getLogger(this.getClass());
 
+    private final GameFrontEnd frontEnd;
     private boolean gameOver;
     private GameState state;
+    private StateType stateType;
+    private long generation;
     private int numPlayers;
     private int numRestaurantsPerPlayer;
+    private int numVotesPerPlayer = DEFAULT_NUM_VOTES_PER_PLAYER;
+    private ScoringRule scoringRule = ScoringRule.PLURALITY;
+    private final BallotMatrix ballots = new BallotMatrix();
+    private boolean votesWithoutBallots;
+    // Each player's ballot: its row in the ballots, and its number in the ranked ballots (or -1)
+    private final Map<String, int[]> playerBallots = new HashMap<>();
     private SortedSet<String> players = new TreeSet<>();
-    private SortedMap<String, Integer> restaurants = new TreeMap<>();
+    private NameIndex playerNames = new NameIndex();
+    private final VoteTally restaurants;
+    private NameIndex restaurantNames = new NameIndex();
+    // Eliminated restaurant ids, hidden from reads while still in the tally, and the id each player eliminated
+    private final BitSet eliminated = new BitSet();
+    private final Map<String, Integer> eliminations = new HashMap<>();
+    private boolean rankedChoice;
+    private final InstantRunoff rankedBallots = new InstantRunoff();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Read-only view of the restaurants that are not eliminated
+    private final Set<String> activeRestaurants = new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+            Set<String> names = Game.this.restaurants.getRestaurants();
+            if (Game.this.eliminations.isEmpty())
+                return names.iterator();
+            return names.stream().filter(name -> !Game.this.isEliminated(Game.this.restaurants.getId(name))).iterator();
+        }
+
+        @Override
+        public int size() {
+            return Game.this.restaurants.getRestaurants().size() - Game.this.eliminations.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return Game.this.restaurants.getRestaurants().contains(o)
+              && !Game.this.isEliminated(Game.this.restaurants.getId((String)o));
+        }
+    };
 
     public Game() {
+        this(TallyType.SEQUENTIAL);
+    }
+
+    /**
+     * Create a game using a particular vote tally. Use {@link TallyType#CONCURRENT}
+     * when votes will be cast from several threads at once (setup and
+     * restaurant changes are still expected to happen from one thread).
+     * @param tallyType the vote tally implementation
+     */
+    public Game(TallyType tallyType) {
+        this(tallyType, new ConsoleFrontEnd());
+    }
+
+    /**
+     * Create a game played through a particular front end, e.g. a headless one
+     * supplying input programmatically.
+     * @param tallyType the vote tally implementation
+     * @param frontEnd the front end the game's states use for input and output
+     */
+    public Game(TallyType tallyType, GameFrontEnd frontEnd) {
+        if (tallyType == null)
+            throw new IllegalArgumentException("null tally type");
+        if (frontEnd == null)
+            throw new IllegalArgumentException("null front end");
+        this.restaurants = VoteTallyFactory.create(tallyType);
+        this.frontEnd = frontEnd;
         this.changeState(StateType.START);
     }
 
@@ -39,40 +119,56 @@ public class Game {
      */
     public void play() {
         GameState currentState = this.state;
-        logger.trace("Begin turn, state is '" + currentState.getClass().getSimpleName() + "'");
+        StateType currentType = this.stateType;
+        long currentGeneration = this.generation;
+        logger.trace("Begin turn, state is '{}'", currentType);
+        // Only time the turn when someone is listening
+        boolean timed = !this.listeners.isEmpty();
+        long start = timed ? System.nanoTime() : 0;
         StateType nextState = currentState.doAction(this);
-        if (!this.stateChanged(currentState)) {
+        if (!this.stateChanged(currentGeneration) && !this.isGameOver()) {
             // Unless player changed state during view via back, quit, etc.
             this.changeState(nextState);
         }
-        logger.trace("Turn finished, new state is '" + this.state.getClass().getSimpleName() + "'");
+        if (timed) {
+            long elapsed = System.nanoTime() - start;
+            for (GameListener listener : this.listeners)
+                listener.turnPlayed(currentType, elapsed);
+        }
+        logger.trace("Turn finished, new state is '{}'", this.stateType);
     }
 
     /**
      * Choose the 'back' action.
      */
     public void back() {
+        StateType from = this.stateType;
         this.changeState(this.state.back());
+        for (GameListener listener : this.listeners)
+            listener.backChosen(from);
     }
 
     /**
      * Choose the 'quit' action.
      */
     public void quit() {
+        StateType from = this.stateType;
         this.changeState(this.state.quit());
+        for (GameListener listener : this.listeners)
+            listener.quitChosen(from);
         this.resetState();
         this.gameOver = true;
     }
 
     /**
-     * Has game state changed from the given state. Useful to confirm
-     * expectation of state before doing something.
-     * @param state the expected state
+     * Has game state changed since the given generation. Useful to confirm
+     * expectation of state before doing something, e.g. whether a view moved
+     * the game on (even back into the same state type).
+     * @param generation the generation when the expected state was entered
      * @return true if expectation was wrong
      */
-    public boolean stateChanged(GameState state) {
-        // Object identity for now
-        return this.state != state;
+    public boolean stateChanged(long generation) {
+        return this.generation != generation;
     }
 
     /**
@@ -84,7 +180,52 @@ public class Game {
             throw new IllegalArgumentException("null state type");
         if (this.isGameOver())
             throw new IllegalStateException("game is over");
-        this.state = GameStateFactory.create(state);
+        this.state = GameStateFactory.get(state);
+        this.stateType = state;
+        this.generation++;
+    }
+
+    /**
+     * Get the state generation, which goes up with every state change
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Get the type of the current state
+     * @return the current state type
+     */
+    public StateType getStateType() {
+        return this.stateType;
+    }
+
+    /**
+     * Get the front end the game's states use for input and output
+     * @return the front end
+     */
+    public GameFrontEnd getFrontEnd() {
+        return this.frontEnd;
+    }
+
+    /**
+     * Register a listener for changes to the game's data
+     * @param listener the listener
+     */
+    public void addListener(GameListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("null listener");
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener
+     * @param listener the listener
+     * @return true if the listener was registered
+     */
+    public boolean removeListener(GameListener listener) {
+        return this.listeners.remove(listener);
     }
 
     /**
@@ -97,6 +238,8 @@ public class Game {
 
     public void setNumPlayers(int numPlayers) {
         this.numPlayers = numPlayers;
+        for (GameListener listener : this.listeners)
+            listener.numPlayersChanged(numPlayers);
     }
 
     /**
@@ -109,6 +252,8 @@ public class Game {
 
     public void setNumRestaurantsPerPlayer(int numRestaurantsPerPlayer) {
         this.numRestaurantsPerPlayer = numRestaurantsPerPlayer;
+        for (GameListener listener : this.listeners)
+            listener.numRestaurantsPerPlayerChanged(numRestaurantsPerPlayer);
     }
 
     /**
@@ -116,7 +261,105 @@ public class Game {
      * @return the number of votes per player
      */
     public int getNumVotesPerPlayer() {
-        return NUM_VOTES_PER_PLAYER;
+        return this.numVotesPerPlayer;
+    }
+
+    public void setNumVotesPerPlayer(int numVotesPerPlayer) {
+        if (numVotesPerPlayer < 1)
+            throw new IllegalArgumentException("invalid number of votes per player '" + numVotesPerPlayer + "'");
+        if (numVotesPerPlayer >= BallotMatrix.MAX_MARK)
+            throw new IllegalArgumentException("too many votes per player '" + numVotesPerPlayer + "'");
+        if (this.hasVotes())
+            throw new IllegalStateException("attempt to change the number of votes per player after voting");
+        this.numVotesPerPlayer = numVotesPerPlayer;
+        for (GameListener listener : this.listeners)
+            listener.numVotesPerPlayerChanged(numVotesPerPlayer);
+    }
+
+    /**
+     * How many restaurants one ballot may vote for: the number of votes per
+     * player, or every restaurant if the scoring rule doesn't limit votes.
+     * @return the maximum number of votes on a ballot
+     */
+    public int getMaxVotesPerBallot() {
+        return this.scoringRule.isLimited() ? this.numVotesPerPlayer : this.getRestaurants().size();
+    }
+
+    /**
+     * How ballots are turned into restaurant votes
+     * @return the scoring rule
+     */
+    public ScoringRule getScoringRule() {
+        return this.scoringRule;
+    }
+
+    /**
+     * Change how ballots are turned into restaurant votes. Ballots already
+     * submitted are counted again under the new rule; that takes ballots of
+     * the same kind (ranked or scored), and isn't possible once votes were
+     * counted without a ballot (see {@link #vote(int)}). Nor can a rule
+     * limiting the votes per player take over while a ballot has more.
+     * @param scoringRule the scoring rule
+     */
+    public void setScoringRule(ScoringRule scoringRule) {
+        if (scoringRule == null)
+            throw new IllegalArgumentException("null scoring rule");
+        if (scoringRule == this.scoringRule)
+            return;
+        if (scoringRule.isScored() && this.rankedChoice)
+            throw new IllegalStateException("scoring rule '" + scoringRule + "' in a ranked choice game");
+        if (this.votesWithoutBallots)
+            throw new IllegalStateException("attempt to change the scoring rule after votes without ballots");
+        if (this.ballots.getNumBallots() > 0 && scoringRule.isScored() != this.scoringRule.isScored())
+            throw new IllegalStateException("attempt to count the ballots of '" + this.scoringRule + "' under '"
+              + scoringRule + "'");
+        if (scoringRule.isLimited() && !this.scoringRule.isLimited() && this.hasBallotOver(this.numVotesPerPlayer))
+            throw new IllegalStateException("attempt to count ballots of more than '" + this.numVotesPerPlayer
+              + "' votes under '" + scoringRule + "'");
+        this.scoringRule = scoringRule;
+        for (GameListener listener : this.listeners)
+            listener.scoringRuleChanged(scoringRule);
+        if (this.ballots.getNumBallots() > 0)
+            this.rescore();
+    }
+
+    /**
+     * Is the game decided by ranked choice. Each ballot's order is then its
+     * order of preference, and the winner comes from an instant runoff
+     * ({@link #startRunoff()}). Votes are still counted for every choice.
+     * @return whether ballots are ranked
+     */
+    public boolean isRankedChoice() {
+        return this.rankedChoice;
+    }
+
+    public void setRankedChoice(boolean rankedChoice) {
+        if (rankedChoice && this.scoringRule.isScored())
+            throw new IllegalStateException("ranked choice with scoring rule '" + this.scoringRule + "'");
+        this.rankedChoice = rankedChoice;
+        for (GameListener listener : this.listeners)
+            listener.rankedChoiceChanged(rankedChoice);
+    }
+
+    /**
+     * Get how player and restaurant names are compared. Names that only
+     * differ before normalization are the same player or restaurant.
+     * @return the normalization steps
+     */
+    public Set<NameIndex.Normalization> getNameNormalizations() {
+        return this.restaurantNames.getNormalizations();
+    }
+
+    /**
+     * Set how player and restaurant names are compared (every normalization
+     * by default). Kept across {@link #resetState()}.
+     * @param normalizations the normalization steps (empty to compare names exactly)
+     */
+    public void setNameNormalizations(Set<NameIndex.Normalization> normalizations) {
+        if (!this.players.isEmpty() || this.restaurantNames.size() > 0)
+            throw new IllegalStateException("attempt to change name normalization of a game with players or restaurants");
+        this.playerNames = new NameIndex(normalizations);
+        this.restaurantNames = new NameIndex(normalizations);
     }
 
     /**
@@ -131,37 +374,199 @@ public class Game {
         // Sanity check
         if (players.size() > this.numPlayers)
             throw new IllegalStateException("attempt to add '" + players.size() + "' players (max of '" + this.numPlayers + "')");
-        this.players = new TreeSet<>(players);
+        // Near duplicates collapse into the first of their names
+        this.playerNames.clear();
+        this.players = new TreeSet<>();
+        for (String player : players)
+            this.players.add(this.playerNames.add(player));
+        for (GameListener listener : this.listeners) {
+            listener.playersCleared();
+            for (String player : this.players)
+                listener.playerAdded(player);
+        }
+    }
+
+    /**
+     * Add one player to this game run
+     * @param player the player name
+     * @return true if the player was added, false if the name was already taken
+     */
+    public boolean addPlayer(String player) {
+        if (player == null)
+            throw new IllegalArgumentException("null player");
+        if (this.playerNames.contains(player))
+            return false;
+        // Sanity check
+        if (this.players.size() >= this.numPlayers)
+            throw new IllegalStateException("attempt to add '" + (this.players.size() + 1) + "' players (max of '"
+              + this.numPlayers + "')");
+        String name = this.playerNames.add(player);
+        this.players.add(name);
+        for (GameListener listener : this.listeners)
+            listener.playerAdded(name);
+        return true;
+    }
+
+    /**
+     * Is a player name (or a near duplicate of it, see {@link #getNameNormalizations()}) taken
+     * @param player the player name
+     * @return whether the name is taken
+     */
+    public boolean hasPlayer(String player) {
+        return player != null && this.playerNames.contains(player);
     }
 
     /**
-     * Get the names of the configured restaurants for this game run
-     * @return the restaurant names
+     * Get the names of the configured restaurants for this game run, less the eliminated ones
+     * @return the restaurant names (read-only, use {@link #removeRestaurant(String)} to remove)
      */
     public Set<String> getRestaurants() {
-        return this.restaurants.keySet();
+        return this.activeRestaurants;
+    }
+
+    /**
+     * Find the name a restaurant was added with, given the name or a near
+     * duplicate of it (see {@link #getNameNormalizations()}), e.g. as typed in.
+     * @param restaurant the restaurant name
+     * @return the restaurant's name, or null for an unknown restaurant
+     */
+    public String findRestaurant(String restaurant) {
+        return restaurant == null ? null : this.restaurantNames.find(restaurant);
     }
 
     /**
-     * Setup the restaurants for this game run
+     * Setup the restaurants for this game run. A near duplicate of a known
+     * restaurant (see {@link #getNameNormalizations()}) is the same
+     * restaurant, so suggestions don't split the vote.
      * @param restaurants the set of restaurants to choose from
      */
     public void addRestaurants(Set<String> restaurants) {
         for (String restaurant : restaurants) {
             if (restaurant == null || "".equals(restaurant))
                 continue;
-            // Do not accidentally reset vote count for a restaurant
-            if (this.restaurants.containsKey(restaurant))
+            String name = this.restaurantNames.add(restaurant);
+            if ("".equals(name)) {
+                this.restaurantNames.remove(name);
                 continue;
-            this.restaurants.put(restaurant, 0);
+            }
+            // Existing restaurants keep their vote count
+            if (!this.restaurants.add(name))
+                continue;
+            int id = this.restaurants.getId(name);
+            for (GameListener listener : this.listeners)
+                listener.restaurantAdded(id, name);
         }
         // Sanity check
-        if (this.restaurants.size() > this.numPlayers * this.numRestaurantsPerPlayer) {
-            throw new IllegalStateException("'" + this.restaurants.size() + "' restaurants exceeds max ('"
+        int numRestaurants = this.restaurants.getRestaurants().size();
+        if (numRestaurants > this.numPlayers * this.numRestaurantsPerPlayer) {
+            throw new IllegalStateException("'" + numRestaurants + "' restaurants exceeds max ('"
               + this.numRestaurantsPerPlayer + "' per '" + this.numPlayers + "' players)");
         }
     }
 
+    /**
+     * Remove a restaurant (and its votes) from this game run
+     * @param restaurant the restaurant name (or a near duplicate of it)
+     * @return true if the restaurant was removed, false if it was unknown
+     */
+    public boolean removeRestaurant(String restaurant) {
+        String name = this.findRestaurant(restaurant);
+        if (name == null)
+            return false;
+        int id = this.restaurants.getId(name);
+        if (id < 0)
+            return false;
+        // Its elimination goes with it
+        for (Iterator<Map.Entry<String, Integer>> iterator = this.eliminations.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Integer> elimination = iterator.next();
+            if (elimination.getValue() == id) {
+                iterator.remove();
+                this.restore(elimination.getKey(), id);
+            }
+        }
+        this.restaurants.remove(name);
+        this.restaurantNames.remove(name);
+        // Ballots only mark restaurants they hold points of, so a ballot retracted later takes back only its own
+        this.ballots.unmarkRestaurant(id);
+        for (GameListener listener : this.listeners)
+            listener.restaurantRemoved(id);
+        return true;
+    }
+
+    /**
+     * Eliminate a restaurant on behalf of a player. Unlike
+     * {@link #removeRestaurant(String)}, the elimination can be undone: the
+     * restaurant stays in the tally, with its id, votes and ballot marks, and
+     * is only hidden from the restaurant, ranking and voting reads until
+     * restored. Eliminating and restoring just flip its bit.
+     * @param player the player eliminating (at most one restaurant each)
+     * @param restaurant the restaurant name (or a near duplicate of it)
+     * @return true if the restaurant was eliminated, false if it was unknown or already eliminated
+     */
+    public boolean eliminateRestaurant(String player, String restaurant) {
+        if (player == null)
+            throw new IllegalArgumentException("null player");
+        if (!this.hasPlayer(player))
+            throw new IllegalStateException("elimination by unknown player '" + player + "'");
+        String name = this.playerNames.find(player);
+        if (this.eliminations.containsKey(name))
+            throw new IllegalStateException("player '" + player + "' already eliminated a restaurant");
+        int id = this.getRestaurantId(restaurant);
+        if (id < 0)
+            return false;
+        this.eliminated.set(id);
+        this.eliminations.put(name, id);
+        for (GameListener listener : this.listeners)
+            listener.restaurantEliminated(name, id);
+        return true;
+    }
+
+    /**
+     * Undo a player's elimination, bringing the restaurant back.
+     * @param player the player
+     * @return true if an elimination was undone, false if the player had not eliminated a restaurant
+     */
+    public boolean undoElimination(String player) {
+        String name = player == null ? null : this.playerNames.find(player);
+        Integer elimination = name == null ? null : this.eliminations.remove(name);
+        if (elimination == null)
+            return false;
+        this.restore(name, elimination);
+        return true;
+    }
+
+    /**
+     * Bring back every eliminated restaurant, e.g. to restart the elimination round.
+     */
+    public void restoreEliminations() {
+        for (Map.Entry<String, Integer> elimination : this.eliminations.entrySet())
+            this.restore(elimination.getKey(), elimination.getValue());
+        this.eliminations.clear();
+    }
+
+    /**
+     * Is a restaurant currently eliminated
+     * @param restaurantId the id of the restaurant
+     * @return whether it is eliminated
+     */
+    public boolean isEliminated(int restaurantId) {
+        return restaurantId >= 0 && this.eliminated.get(restaurantId);
+    }
+
+    /**
+     * Get the restaurant each player eliminated
+     * @return the eliminated restaurant id by player name (read-only)
+     */
+    public Map<String, Integer> getEliminations() {
+        return Collections.unmodifiableMap(this.eliminations);
+    }
+
+    private void restore(String player, int id) {
+        this.eliminated.clear(id);
+        for (GameListener listener : this.listeners)
+            listener.eliminationUndone(player, id);
+    }
+
     /**
      * Is the game 'over'. Resources are released and state is no longer guaranteed to be consistent.
      * @return true if game is over, else false
@@ -171,26 +576,589 @@ public class Game {
     }
 
     /**
-     * Register a vote for a restaurant
-     * @param restaurant the restaurant being voted for
+     * Register a vote for a restaurant. A single vote counts as one point,
+     * whatever the scoring rule, and isn't kept as a ballot.
+     * @param restaurant the restaurant being voted for (or a near duplicate of its name)
      */
     public void vote(String restaurant) {
-        // Sanity check
-        if (!this.restaurants.containsKey(restaurant))
+        int id = this.getRestaurantId(restaurant);
+        if (id < 0)
             throw new IllegalStateException("vote for unknown restaurant '" + restaurant + "'");
+        this.vote(id);
+    }
+
+    /**
+     * Register a vote for a restaurant by id (see {@link #getRestaurantId(String)}).
+     * A single vote counts as one point, whatever the scoring rule, and isn't
+     * kept as a ballot.
+     * @param restaurantId the id of the restaurant being voted for
+     */
+    public void vote(int restaurantId) {
+        if (this.isEliminated(restaurantId))
+            throw new IllegalStateException("vote for eliminated restaurant id '" + restaurantId + "'");
+        this.restaurants.vote(restaurantId);
+        this.countedWithoutBallots();
+        for (GameListener listener : this.listeners)
+            listener.votesAdded(restaurantId, 1);
+    }
+
+    /**
+     * Register one player's votes. The whole ballot is validated before any
+     * vote is counted (see {@link #submitBallots(Collection)}).
+     * @param ballot the restaurants being voted for
+     */
+    public void submitBallot(Collection<String> ballot) {
+        this.submitBallots(Collections.singletonList(ballot));
+    }
+
+    /**
+     * Register a player's votes, replacing the player's earlier ballot if
+     * any (see {@link #retractBallot(String)}). A player has one ballot
+     * whatever the spelling of their name (see {@link #hasPlayer(String)}).
+     * The whole ballot is validated before anything changes.
+     * @param player the player voting, one of the game's players
+     * @param ballot the restaurants being voted for
+     */
+    public void submitBallot(String player, Collection<String> ballot) {
+        this.countBallots(Collections.singletonList(ballot), this.getBallotPlayer(player));
+    }
+
+    /**
+     * Register the votes of many ballots in bulk. Every ballot is checked in a
+     * single pass first (known restaurants, no duplicates within a ballot, no
+     * more than {@link #getMaxVotesPerBallot()} votes); if any ballot is
+     * invalid nothing is counted. The ballots are kept, each restaurant
+     * ranked by its position on the ballot, and their points under the
+     * scoring rule are then added once per restaurant rather than once per vote.
+     * @param ballots the ballots, each a collection of restaurant names in order of preference
+     */
+    public void submitBallots(Collection<? extends Collection<String>> ballots) {
+        this.countBallots(ballots, null);
+    }
+
+    // Count ballots, the one ballot of a player if given
+    private void countBallots(Collection<? extends Collection<String>> ballots, String player) {
+        if (ballots == null)
+            throw new IllegalArgumentException("null ballots");
+        if (this.scoringRule.isScored())
+            throw new IllegalStateException("ballots without scores under scoring rule '" + this.scoringRule + "'");
+
+        // Validate and translate every vote to a restaurant id
+        int maxVotes = this.getMaxVotesPerBallot();
+        int numVotes = 0;
+        for (Collection<String> ballot : ballots) {
+            if (ballot == null)
+                throw new IllegalArgumentException("null ballot");
+            if (ballot.size() > maxVotes)
+                throw new IllegalStateException("ballot with '" + ballot.size() + "' votes (max of '" + maxVotes + "')");
+            numVotes += ballot.size();
+        }
+        int[] ids = new int[numVotes];
+        int[] ballotEnds = new int[ballots.size()];
+        int numBallots = 0;
+        int count = 0;
+        BitSet seen = new BitSet();
+        for (Collection<String> ballot : ballots) {
+            int ballotStart = count;
+            for (String restaurant : ballot) {
+                int id = this.getRestaurantId(restaurant);
+                if (id < 0)
+                    throw new IllegalStateException("vote for unknown restaurant '" + restaurant + "'");
+                if (seen.get(id))
+                    throw new IllegalStateException("duplicate vote for restaurant '" + restaurant + "'");
+                seen.set(id);
+                ids[count++] = id;
+            }
+            for (int i = ballotStart; i < count; i++)
+                seen.clear(ids[i]);
+            ballotEnds[numBallots++] = count;
+        }
+        this.keepBallots(ids, ballotEnds, numBallots, player);
+    }
+
+    // Keep validated ballots (each ending at its entry of ballotEnds in ids) and add their points
+    private void keepBallots(int[] ids, int[] ballotEnds, int numBallots, String player) {
+        if (player != null)
+            this.retractBallot(player);
+        int ranked = -1;
+        if (this.rankedChoice) {
+            // Keep each ballot in its order of preference
+            int start = 0;
+            for (int i = 0; i < numBallots; i++) {
+                ranked = this.rankedBallots.addBallot(ids, start, ballotEnds[i] - start);
+                start = ballotEnds[i];
+            }
+        }
+
+        // Keep the ballots, then apply their points, one update per restaurant
+        int maxId = -1;
+        for (int id : ids)
+            maxId = Math.max(maxId, id);
+        int[] points = new int[maxId + 1];
+        int[] ranks = new int[ids.length];
+        int start = 0;
+        for (int i = 0; i < numBallots; i++) {
+            for (int j = start; j < ballotEnds[i]; j++) {
+                // Ranks past the number of votes (unlimited ballots) are worth no Borda points, whatever the rank
+                ranks[j] = Math.min(j - start + 1, this.numVotesPerPlayer + 1);
+                points[ids[j]] += this.scoringRule.points(ranks[j], this.numVotesPerPlayer);
+            }
+            int row = this.ballots.addBallot();
+            this.ballots.addMarks(row, ids, ranks, start, ballotEnds[i] - start);
+            for (GameListener listener : this.listeners) {
+                int end = ballotEnds[i];
+                listener.ballotCounted(player, Arrays.copyOfRange(ids, start, end), Arrays.copyOfRange(ranks, start, end));
+            }
+            start = ballotEnds[i];
+            if (player != null)
+                this.playerBallots.put(player, new int[] {row, ranked});
+        }
+        this.addBallotPoints(points);
+    }
+
+    /**
+     * Register one player's scores, for a game using the {@link ScoringRule#SCORE}
+     * rule. The ballot is kept, and each score added to its restaurant's votes.
+     * @param scores the score of each restaurant scored, 0 to {@link ScoringRule#MAX_SCORE}
+     */
+    public void submitScores(Map<String, Integer> scores) {
+        this.countScores(scores, null);
+    }
+
+    /**
+     * Register a player's scores, replacing the player's earlier ballot if
+     * any (see {@link #submitScores(Map)}).
+     * @param player the player voting, one of the game's players
+     * @param scores the score of each restaurant scored, 0 to {@link ScoringRule#MAX_SCORE}
+     */
+    public void submitScores(String player, Map<String, Integer> scores) {
+        this.countScores(scores, this.getBallotPlayer(player));
+    }
+
+    // The name a player was added with, which their ballot is kept under
+    private String getBallotPlayer(String player) {
+        if (player == null)
+            throw new IllegalArgumentException("null player");
+        String name = this.playerNames.find(player);
+        if (name == null)
+            throw new IllegalStateException("ballot of unknown player '" + player + "'");
+        return name;
+    }
+
+    private void countScores(Map<String, Integer> scores, String player) {
+        if (scores == null)
+            throw new IllegalArgumentException("null scores");
+        if (!this.scoringRule.isScored())
+            throw new IllegalStateException("scores under scoring rule '" + this.scoringRule + "'");
+        int[] ids = new int[scores.size()];
+        int[] marks = new int[scores.size()];
+        int count = 0;
+        int maxId = -1;
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            int id = this.getRestaurantId(entry.getKey());
+            if (id < 0)
+                throw new IllegalStateException("vote for unknown restaurant '" + entry.getKey() + "'");
+            Integer score = entry.getValue();
+            if (score == null || score < 0 || score > ScoringRule.MAX_SCORE)
+                throw new IllegalArgumentException("invalid score '" + score + "' for restaurant '" + entry.getKey() + "'");
+            ids[count] = id;
+            marks[count++] = score;
+            maxId = Math.max(maxId, id);
+        }
+        if (player != null)
+            this.retractBallot(player);
+        int[] points = new int[maxId + 1];
+        int row = this.ballots.addBallot();
+        if (player != null)
+            this.playerBallots.put(player, new int[] {row, -1});
+        // Zero scores aren't kept, they are worth nothing under any rule
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            points[ids[i]] += this.scoringRule.points(marks[i], this.numVotesPerPlayer);
+            if (marks[i] > 0) {
+                ids[kept] = ids[i];
+                marks[kept++] = marks[i];
+            }
+        }
+        this.ballots.addMarks(row, ids, marks, 0, kept);
+        for (GameListener listener : this.listeners)
+            listener.ballotCounted(player, Arrays.copyOf(ids, kept), Arrays.copyOf(marks, kept));
+        this.addBallotPoints(points);
+    }
+
+    /**
+     * Put back a kept ballot with its exact marks, e.g. when replaying a
+     * journal or loading a snapshot (see {@link GameListener#ballotCounted(String, int[], int[])}).
+     * Its points under the scoring rule are added, and a player's earlier
+     * ballot is replaced. The ballot is validated before anything changes.
+     * @param player the player whose ballot it is (null for a ballot without a player)
+     * @param ids the restaurant ids on the ballot, in order of preference
+     * @param marks the rank or score of each restaurant, 1 to {@link BallotMatrix#MAX_MARK}
+     */
+    public void restoreBallot(String player, int[] ids, int[] marks) {
+        String name = player == null ? null : this.getBallotPlayer(player);
+        if (ids == null || marks == null)
+            throw new IllegalArgumentException("null ballot");
+        if (ids.length != marks.length)
+            throw new IllegalArgumentException("'" + ids.length + "' restaurants with '" + marks.length + "' marks");
+        int maxId = -1;
+        BitSet seen = new BitSet();
+        for (int i = 0; i < ids.length; i++) {
+            // Unknown ids throw, removed ones have another restaurant's name or none
+            if (this.restaurants.getId(this.restaurants.getName(ids[i])) != ids[i] || this.eliminated.get(ids[i]))
+                throw new IllegalStateException("vote for unknown restaurant id '" + ids[i] + "'");
+            if (seen.get(ids[i]))
+                throw new IllegalStateException("duplicate vote for restaurant id '" + ids[i] + "'");
+            if (marks[i] <= 0 || marks[i] > BallotMatrix.MAX_MARK)
+                throw new IllegalArgumentException("invalid mark '" + marks[i] + "'");
+            seen.set(ids[i]);
+            maxId = Math.max(maxId, ids[i]);
+        }
+        if (name != null)
+            this.retractBallot(name);
+        int ranked = this.rankedChoice ? this.rankedBallots.addBallot(ids, 0, ids.length) : -1;
+        int row = this.ballots.addBallot();
+        this.ballots.addMarks(row, ids, marks, 0, ids.length);
+        if (name != null)
+            this.playerBallots.put(name, new int[] {row, ranked});
+        int[] points = new int[maxId + 1];
+        for (int i = 0; i < ids.length; i++)
+            points[ids[i]] += this.scoringRule.points(marks[i], this.numVotesPerPlayer);
+        for (GameListener listener : this.listeners)
+            listener.ballotCounted(name, ids.clone(), marks.clone());
+        this.addBallotPoints(points);
+    }
+
+    /**
+     * Take back a player's ballot. Its points come off the restaurants it
+     * marked (eliminated ones keep their points, so they are there to take
+     * back), and every other vote is untouched. Only the ballot's own marks
+     * are visited, and its row goes to the player's next ballot.
+     * @param player the player (or a near duplicate of their name)
+     * @return true if the player's ballot was retracted, false if there was none
+     */
+    public boolean retractBallot(String player) {
+        if (player == null)
+            throw new IllegalArgumentException("null player");
+        String name = this.playerNames.find(player);
+        int[] ballot = name == null ? null : this.playerBallots.remove(name);
+        if (ballot == null)
+            return false;
+        int row = ballot[0];
+        if (!this.listeners.isEmpty()) {
+            int[] ids = new int[this.ballots.getNumMarks(row)];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = this.ballots.getMarkedId(row, i);
+            for (GameListener listener : this.listeners)
+                listener.ballotRetracted(name, ids);
+        }
+        for (int i = 0; i < this.ballots.getNumMarks(row); i++) {
+            int id = this.ballots.getMarkedId(row, i);
+            int points = this.scoringRule.points(this.ballots.getMarkAt(row, i), this.numVotesPerPlayer);
+            if (points == 0)
+                continue;
+            this.restaurants.removeVotes(id, points);
+            for (GameListener listener : this.listeners)
+                listener.ballotPointsRemoved(id, points);
+        }
+        this.ballots.removeBallot(row);
+        if (ballot[1] >= 0)
+            this.rankedBallots.removeBallot(ballot[1]);
+        return true;
+    }
+
+    /**
+     * Has a player's ballot been counted
+     * @param player the player (or a near duplicate of their name)
+     * @return whether the player has a ballot
+     */
+    public boolean hasBallot(String player) {
+        return this.getPlayerBallot(player) != null;
+    }
+
+    /**
+     * Did a player's ballot vote for (rank or score) a restaurant. Walks the
+     * ballot's marks.
+     * @param player the player (or a near duplicate of their name)
+     * @param restaurant the restaurant name (or a near duplicate of it)
+     * @return whether the restaurant is on the player's ballot
+     */
+    public boolean hasVote(String player, String restaurant) {
+        int[] ballot = this.getPlayerBallot(player);
+        int id = this.getRestaurantId(restaurant);
+        return ballot != null && id >= 0 && this.ballots.getMark(ballot[0], id) != 0;
+    }
+
+    private int[] getPlayerBallot(String player) {
+        String name = player == null ? null : this.playerNames.find(player);
+        return name == null ? null : this.playerBallots.get(name);
+    }
+
+    /**
+     * Register several votes for a restaurant at once, each counted as by
+     * {@link #vote(int)}, e.g. when replaying a journal.
+     * @param restaurantId the id of the restaurant being voted for
+     * @param votes the number of votes to add
+     */
+    public void addVotes(int restaurantId, int votes) {
+        if (votes < 0)
+            throw new IllegalArgumentException("negative vote count '" + votes + "'");
+        if (this.isEliminated(restaurantId))
+            throw new IllegalStateException("vote for eliminated restaurant id '" + restaurantId + "'");
+        this.restaurants.addVotes(restaurantId, votes);
+        this.countedWithoutBallots();
+        for (GameListener listener : this.listeners)
+            listener.votesAdded(restaurantId, votes);
+    }
+
+    /**
+     * Take back votes counted without a ballot (see {@link #vote(int)}), e.g.
+     * when replaying a journal.
+     * @param restaurantId the id of the restaurant
+     * @param votes the number of votes to remove
+     */
+    public void removeVotes(int restaurantId, int votes) {
+        this.restaurants.removeVotes(restaurantId, votes);
+        this.countedWithoutBallots();
+        for (GameListener listener : this.listeners)
+            listener.votesRemoved(restaurantId, votes);
+    }
+
+    /**
+     * Add votes counted elsewhere from already validated ballots (e.g. ballot
+     * files tallied in parallel), one update per restaurant. If any count is
+     * invalid nothing is counted. Not available for ranked choice games, or
+     * scoring rules where a vote isn't worth one point, which need the
+     * ballots themselves (see {@link #submitBallots(Collection)}).
+     * @param votes the votes for each restaurant, indexed by restaurant id
+     */
+    public void addVoteCounts(int[] votes) {
+        if (votes == null)
+            throw new IllegalArgumentException("null votes");
+        if (this.rankedChoice)
+            throw new IllegalStateException("vote counts added to a ranked choice game");
+        if (this.scoringRule == ScoringRule.BORDA || this.scoringRule.isScored())
+            throw new IllegalStateException("vote counts added under scoring rule '" + this.scoringRule + "'");
+        BitSet known = this.getRestaurantIds();
+        for (int id = 0; id < votes.length; id++) {
+            if (votes[id] < 0)
+                throw new IllegalArgumentException("negative vote count '" + votes[id] + "'");
+            if (votes[id] > 0 && !known.get(id))
+                throw new IllegalStateException("vote for unknown restaurant id '" + id + "'");
+        }
+        this.addPoints(votes);
+        this.countedWithoutBallots();
+    }
+
+    // Add the nonzero points of each restaurant, indexed by id
+    private void addPoints(int[] points) {
+        for (int id = 0; id < points.length; id++) {
+            if (points[id] == 0)
+                continue;
+            this.restaurants.addVotes(id, points[id]);
+            for (GameListener listener : this.listeners)
+                listener.votesAdded(id, points[id]);
+        }
+    }
+
+    // Add the nonzero points of each restaurant from ballots, indexed by id
+    private void addBallotPoints(int[] points) {
+        for (int id = 0; id < points.length; id++) {
+            if (points[id] == 0)
+                continue;
+            this.restaurants.addVotes(id, points[id]);
+            for (GameListener listener : this.listeners)
+                listener.ballotPointsAdded(id, points[id]);
+        }
+    }
+
+    // Does any ballot mark more restaurants than a limit, walking every ballot
+    private boolean hasBallotOver(int maxVotes) {
+        for (int row = this.ballots.nextBallot(0); row >= 0; row = this.ballots.nextBallot(row + 1)) {
+            if (this.ballots.getNumMarks(row) > maxVotes)
+                return true;
+        }
+        return false;
+    }
+
+    // Count every kept ballot again under the current scoring rule, every vote is a ballot point
+    private void rescore() {
+        // Removed restaurants are unmarked from the ballots, eliminated ones keep their points
+        int[] points = this.scoringRule.score(this.ballots, this.numVotesPerPlayer);
+        BitSet ids = this.getRestaurantIds();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            int difference = (id < points.length ? points[id] : 0) - this.restaurants.getVotes(id);
+            if (difference > 0) {
+                this.restaurants.addVotes(id, difference);
+                for (GameListener listener : this.listeners)
+                    listener.ballotPointsAdded(id, difference);
+            } else if (difference < 0) {
+                this.restaurants.removeVotes(id, -difference);
+                for (GameListener listener : this.listeners)
+                    listener.ballotPointsRemoved(id, -difference);
+            }
+        }
+    }
+
+    private void countedWithoutBallots() {
+        // Read first, this is on the voting path of concurrent games
+        if (!this.votesWithoutBallots)
+            this.votesWithoutBallots = true;
+    }
+
+    private boolean hasVotes() {
+        return this.votesWithoutBallots || this.ballots.getNumBallots() > 0;
+    }
 
-        this.restaurants.put(restaurant, this.restaurants.get(restaurant) + 1);
+    private BitSet getRestaurantIds() {
+        BitSet ids = new BitSet();
+        for (String restaurant : this.restaurants.getRestaurants())
+            ids.set(this.restaurants.getId(restaurant));
+        return ids;
     }
 
     /**
      * Get the number of votes for a restaurant.
-     * @param restaurant the name of the restaurant
-     * @return number of votes (always zero for unknown restaurant names)
+     * @param restaurant the name of the restaurant (or a near duplicate of it)
+     * @return number of votes (always zero for unknown or eliminated restaurants)
      */
     public int getVotesForRestaurant(String restaurant) {
-        if (!this.restaurants.containsKey(restaurant))
-            return 0;
-        return this.restaurants.get(restaurant);
+        return this.restaurants.getVotes(this.getRestaurantId(restaurant));
+    }
+
+    /**
+     * Get the number of votes for a restaurant by id.
+     * @param restaurantId the id of the restaurant
+     * @return number of votes (always zero for unknown or eliminated restaurants)
+     */
+    public int getVotesForRestaurant(int restaurantId) {
+        return this.isEliminated(restaurantId) ? 0 : this.restaurants.getVotes(restaurantId);
+    }
+
+    /**
+     * Get the id assigned to a restaurant when it was added. Ids are small
+     * non-negative integers, stable until the game state is reset, and make
+     * for cheaper voting than names.
+     * @param restaurant the name of the restaurant (or a near duplicate of it)
+     * @return the restaurant id, or -1 for an unknown or eliminated restaurant
+     */
+    public int getRestaurantId(String restaurant) {
+        String name = this.findRestaurant(restaurant);
+        int id = name == null ? -1 : this.restaurants.getId(name);
+        return this.isEliminated(id) ? -1 : id;
+    }
+
+    /**
+     * Get the name of a restaurant by id.
+     * @param restaurantId the id of the restaurant
+     * @return the restaurant name
+     */
+    public String getRestaurantName(int restaurantId) {
+        return this.restaurants.getName(restaurantId);
+    }
+
+    /**
+     * Load restaurants and their vote counts in one pass, skipping the per-name
+     * checks of {@link #addRestaurants(Set)}. Meant for restoring saved games
+     * into a game without restaurants (e.g. after {@link #resetState()}).
+     * Restaurants get ids in alphabetical order.
+     * @param names the restaurant names, in strictly ascending alphabetical order
+     * @param votes the vote count of each restaurant
+     * @param count how many entries of names and votes to use
+     */
+    public void restoreRestaurants(String[] names, int[] votes, int count) {
+        if (names == null || votes == null)
+            throw new IllegalArgumentException("null restaurants");
+        if (count < 0 || count > names.length || count > votes.length)
+            throw new IllegalArgumentException("invalid restaurant count '" + count + "'");
+        if (!this.restaurants.getRestaurants().isEmpty())
+            throw new IllegalStateException("attempt to restore restaurants into a game with '"
+              + this.restaurants.getRestaurants().size() + "' restaurants");
+        // One linear pass, sorted order also rules out duplicates
+        for (int i = 0; i < count; i++) {
+            if (names[i] == null || "".equals(names[i]) || votes[i] < 0)
+                throw new IllegalArgumentException("invalid restaurant '" + names[i] + "' with '" + votes[i] + "' votes");
+            if (i > 0 && names[i - 1].compareTo(names[i]) >= 0)
+                throw new IllegalArgumentException("restaurant '" + names[i] + "' out of order");
+        }
+        this.restaurants.restore(names, votes, count);
+        for (int i = 0; i < count; i++) {
+            this.restaurantNames.add(names[i]);
+            if (votes[i] > 0)
+                this.countedWithoutBallots();
+        }
+        for (GameListener listener : this.listeners) {
+            for (int id = 0; id < count; id++) {
+                listener.restaurantAdded(id, names[id]);
+                if (votes[id] > 0)
+                    listener.votesAdded(id, votes[id]);
+            }
+        }
+    }
+
+    /**
+     * Describe this game's data to a listener as the changes that would build
+     * it from scratch, e.g. to start a journal or write a snapshot of a game
+     * already under way: the setup numbers, scoring rule and ranked choice,
+     * then the players, then every restaurant (in alphabetical order,
+     * eliminated ones included) with the votes it got without a ballot,
+     * then every kept ballot followed by its points, then the eliminations.
+     * @param listener the listener to describe the game to
+     */
+    public void describeTo(GameListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("null listener");
+        listener.numPlayersChanged(this.numPlayers);
+        listener.numRestaurantsPerPlayerChanged(this.numRestaurantsPerPlayer);
+        listener.numVotesPerPlayerChanged(this.numVotesPerPlayer);
+        listener.scoringRuleChanged(this.scoringRule);
+        listener.rankedChoiceChanged(this.rankedChoice);
+        for (String player : this.players)
+            listener.playerAdded(player);
+
+        int[] ballotPoints = this.scoringRule.score(this.ballots, this.numVotesPerPlayer);
+        for (String restaurant : this.restaurants.getRestaurants()) {
+            int id = this.restaurants.getId(restaurant);
+            listener.restaurantAdded(id, restaurant);
+            int votes = this.restaurants.getVotes(id) - (id < ballotPoints.length ? ballotPoints[id] : 0);
+            if (votes > 0)
+                listener.votesAdded(id, votes);
+        }
+
+        Map<Integer, String> owners = new HashMap<>();
+        for (Map.Entry<String, int[]> ballot : this.playerBallots.entrySet())
+            owners.put(ballot.getValue()[0], ballot.getKey());
+        for (int row = this.ballots.nextBallot(0); row >= 0; row = this.ballots.nextBallot(row + 1)) {
+            int[] ids = new int[this.ballots.getNumMarks(row)];
+            int[] marks = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = this.ballots.getMarkedId(row, i);
+                marks[i] = this.ballots.getMarkAt(row, i);
+            }
+            listener.ballotCounted(owners.get(row), ids, marks);
+            for (int i = 0; i < ids.length; i++) {
+                int points = this.scoringRule.points(marks[i], this.numVotesPerPlayer);
+                if (points > 0)
+                    listener.ballotPointsAdded(ids[i], points);
+            }
+        }
+        for (Map.Entry<String, Integer> elimination : this.eliminations.entrySet())
+            listener.restaurantEliminated(elimination.getKey(), elimination.getValue());
+    }
+
+    /**
+     * Run an instant runoff over the ranked ballots between the current
+     * restaurants. Call {@link InstantRunoff#nextRound()} to eliminate
+     * restaurants round by round, or check the result once decided.
+     * @return the started runoff
+     */
+    public InstantRunoff startRunoff() {
+        if (!this.rankedChoice)
+            throw new IllegalStateException("game is not ranked choice");
+        BitSet ids = this.getRestaurantIds();
+        ids.andNot(this.eliminated);
+        this.rankedBallots.start(ids);
+        return this.rankedBallots;
     }
 
     /**
@@ -199,16 +1167,34 @@ public class Game {
     public void resetState() {
         this.numPlayers = 0;
         this.numRestaurantsPerPlayer = 0;
+        this.numVotesPerPlayer = DEFAULT_NUM_VOTES_PER_PLAYER;
+        this.scoringRule = ScoringRule.PLURALITY;
+        this.rankedChoice = false;
+        this.rankedBallots.clear();
+        this.ballots.clear();
+        this.playerBallots.clear();
+        this.votesWithoutBallots = false;
         this.players.clear();
+        this.playerNames.clear();
         this.restaurants.clear();
+        this.restaurantNames.clear();
+        this.eliminated.clear();
+        this.eliminations.clear();
+        for (GameListener listener : this.listeners)
+            listener.stateReset();
     }
 
     /**
      * Reset the restaurant vote tally. All restaurants will go back to zero votes.
      */
     public void resetVoting() {
-        for (String restaurant : this.restaurants.keySet())
-            this.restaurants.put(restaurant, 0);
+        this.restaurants.resetVotes();
+        this.rankedBallots.clear();
+        this.ballots.clear();
+        this.playerBallots.clear();
+        this.votesWithoutBallots = false;
+        for (GameListener listener : this.listeners)
+            listener.votingReset();
     }
 
     /**
@@ -217,49 +1203,76 @@ public class Game {
      * @return vote sorted alphabetical listing of restaurants
      */
     public List<String> getVoteSortedRestaurants() {
-        if (this.restaurants.isEmpty())
+        Set<String> names = this.getRestaurants();
+        if (names.isEmpty())
             return Collections.<String>emptyList();
 
-        SortedMap<Integer, SortedSet<String>> inverted = this.getInvertedRestaurants();
-        List<Integer> counts = new ArrayList<>(inverted.keySet());
-        // Natural order is ascending, so reverse to put higher vote counts first (descending)
-        Collections.reverse(counts);
+        return this.rank(0, names.size());
+    }
 
-        List<String> result = new ArrayList<>();
-        for (Integer votes : counts)
-            for (String restaurant : inverted.get(votes))
-                result.add(restaurant);
-        return result;
+    /**
+     * Get the leading restaurants, in the same order as {@link #getVoteSortedRestaurants()}.
+     * Only the leaders are selected, the rest of the restaurants are not sorted.
+     * @param k the maximum number of restaurants to return
+     * @return up to k restaurants with the most votes
+     */
+    public List<String> getTopRestaurants(int k) {
+        return this.getRankedRestaurants(0, k);
     }
 
     /**
-     * Get the highest number of votes received for a particular restaurant.
-     * @return the max vote count
+     * Get a page of the restaurants in the order of {@link #getVoteSortedRestaurants()}.
+     * @param offset the number of ranked restaurants to skip
+     * @param limit the maximum number of restaurants to return
+     * @return up to limit restaurants, starting at rank offset
      */
-    public int getMaxVoteCount() {
-        if (this.restaurants.isEmpty())
-            return 0;
+    public List<String> getRankedRestaurants(int offset, int limit) {
+        if (offset < 0)
+            throw new IllegalArgumentException("negative offset '" + offset + "'");
+        if (limit < 0)
+            throw new IllegalArgumentException("negative limit '" + limit + "'");
+        return this.rank(offset, limit);
+    }
+
+    // A page of the ranking less the eliminated restaurants, which stay ranked by the tally (a few at most)
+    private List<String> rank(int offset, int limit) {
+        if (this.eliminations.isEmpty())
+            return this.restaurants.getRanked(offset, limit);
+        int length = (int)Math.min(Integer.MAX_VALUE, (long)offset + limit + this.eliminations.size());
+        List<String> page = new ArrayList<>();
+        int skip = offset;
+        for (String restaurant : this.restaurants.getRanked(0, length)) {
+            if (page.size() == limit)
+                break;
+            if (this.isEliminated(this.restaurants.getId(restaurant)))
+                continue;
+            if (skip > 0)
+                skip--;
+            else
+                page.add(restaurant);
+        }
+        return page;
+    }
 
-        return Collections.max(this.restaurants.values());
+    /**
+     * Iterate through the ranked restaurants a page at a time. Pages are
+     * fetched as the iteration reaches them.
+     * @param pageSize how many restaurants to fetch at a time
+     * @return iterator over the restaurants in ranked order
+     */
+    public RankedIterator getRankedIterator(int pageSize) {
+        return new RankedIterator(this, pageSize);
     }
 
     /**
-     * Get a numerically sorted mapping of vote counts to alphabetically sorted
-     * names of restaurants that received that number of votes.
-     * @return mapping of vote count to restaurant names
+     * Get the highest number of votes received for a particular restaurant.
+     * @return the max vote count
      */
-    private SortedMap<Integer, SortedSet<String>> getInvertedRestaurants() {
-        SortedMap<Integer, SortedSet<String>> inverted = new TreeMap<>();
-        for (String restaurant : this.restaurants.keySet()) {
-            Integer votes = this.restaurants.get(restaurant);
-            SortedSet<String> restaurantNames = inverted.get(votes);
-            if (restaurantNames == null) {
-                restaurantNames = new TreeSet<>();
-                inverted.put(votes, restaurantNames);
-            }
-            restaurantNames.add(restaurant);
-        }
-        return inverted;
+    public int getMaxVoteCount() {
+        if (this.eliminations.isEmpty())
+            return this.restaurants.getMaxVotes();
+        List<String> top = this.rank(0, 1);
+        return top.isEmpty() ? 0 : this.restaurants.getVotes(this.restaurants.getId(top.get(0)));
     }
 
     /**
@@ -267,24 +1280,10 @@ public class Game {
      * @return whether there is a winner for the voting
      */
     public boolean isWin() {
-        if (this.restaurants.isEmpty())
-            return false;
-
-        int max = 0;
-        int count = 0;
-        for (Integer votes : this.restaurants.values()) {
-            if (votes > max) {
-                max = votes;
-                count = 1;
-            } else if (votes == max) {
-                count++;
-            }
-        }
-
-        // No votes
-        if (max == 0)
-            return false;
-
-        return count == 1;
+        if (this.eliminations.isEmpty())
+            return this.restaurants.isWin();
+        List<String> top = this.rank(0, 2);
+        int first = top.isEmpty() ? 0 : this.restaurants.getVotes(this.restaurants.getId(top.get(0)));
+        return first > 0 && (top.size() == 1 || this.restaurants.getVotes(this.restaurants.getId(top.get(1))) < first);
     }
 }
@@ -0,0 +1,176 @@
+package org.getmarco;
+
+import org.getmarco.state.StateType;
+import org.getmarco.tally.ScoringRule;
+
+/**
+ * Receives the changes made to a {@link Game}'s data, and the turns and
+ * actions of its game play, e.g. to journal or measure them. Every method does nothing by default. Listeners of a game
+ * using a concurrent tally are called from the voting threads, so they must
+ * be thread-safe.
+ */
+public interface GameListener {
+    /**
+     * The number of players changed
+     * @param numPlayers the number of players
+     */
+    default void numPlayersChanged(int numPlayers) {
+    }
+
+    /**
+     * The number of restaurants per player changed
+     * @param numRestaurantsPerPlayer the number of restaurants per player
+     */
+    default void numRestaurantsPerPlayerChanged(int numRestaurantsPerPlayer) {
+    }
+
+    /**
+     * The number of votes per player changed
+     * @param numVotesPerPlayer the number of votes per player
+     */
+    default void numVotesPerPlayerChanged(int numVotesPerPlayer) {
+    }
+
+    /**
+     * The scoring rule changed (the ballots kept are counted again)
+     * @param scoringRule the scoring rule
+     */
+    default void scoringRuleChanged(ScoringRule scoringRule) {
+    }
+
+    /**
+     * Ranked choice was turned on or off
+     * @param rankedChoice whether ballots are ranked
+     */
+    default void rankedChoiceChanged(boolean rankedChoice) {
+    }
+
+    /**
+     * All players were removed (before a new set of players is added)
+     */
+    default void playersCleared() {
+    }
+
+    /**
+     * A player was added
+     * @param player the player name
+     */
+    default void playerAdded(String player) {
+    }
+
+    /**
+     * A restaurant was added
+     * @param id the restaurant id
+     * @param restaurant the restaurant name
+     */
+    default void restaurantAdded(int id, String restaurant) {
+    }
+
+    /**
+     * A restaurant was removed
+     * @param id the restaurant id
+     */
+    default void restaurantRemoved(int id) {
+    }
+
+    /**
+     * A player eliminated a restaurant. It keeps its votes, hidden until restored.
+     * @param player the player name
+     * @param id the restaurant id
+     */
+    default void restaurantEliminated(String player, int id) {
+    }
+
+    /**
+     * A player's elimination was undone, bringing the restaurant back
+     * @param player the player name
+     * @param id the restaurant id
+     */
+    default void eliminationUndone(String player, int id) {
+    }
+
+    /**
+     * A ballot was counted and kept. Its points follow as ballot points added.
+     * @param player the player whose ballot it is (null for a ballot without a player)
+     * @param ids the restaurant ids on the ballot, in order of preference
+     * @param marks the rank or score of each restaurant
+     */
+    default void ballotCounted(String player, int[] ids, int[] marks) {
+    }
+
+    /**
+     * A player's ballot was retracted (its points follow as ballot points removed)
+     * @param player the player
+     * @param ids the restaurant ids still on the ballot (removed restaurants are unmarked)
+     */
+    default void ballotRetracted(String player, int[] ids) {
+    }
+
+    /**
+     * Points of a ballot were added to a restaurant's votes: a ballot counted,
+     * or the ballots counted again under a new scoring rule
+     * @param id the restaurant id
+     * @param points the number of votes added
+     */
+    default void ballotPointsAdded(int id, int points) {
+    }
+
+    /**
+     * Points of a ballot were taken back from a restaurant's votes: a ballot
+     * retracted, or the ballots counted again under a new scoring rule
+     * @param id the restaurant id
+     * @param points the number of votes removed
+     */
+    default void ballotPointsRemoved(int id, int points) {
+    }
+
+    /**
+     * Votes were counted for a restaurant without a ballot
+     * @param id the restaurant id
+     * @param votes the number of votes added
+     */
+    default void votesAdded(int id, int votes) {
+    }
+
+    /**
+     * Votes counted without a ballot were taken back from a restaurant
+     * @param id the restaurant id
+     * @param votes the number of votes removed
+     */
+    default void votesRemoved(int id, int votes) {
+    }
+
+    /**
+     * All restaurants went back to zero votes
+     */
+    default void votingReset() {
+    }
+
+    /**
+     * Player, restaurant and voting information was cleared
+     */
+    default void stateReset() {
+    }
+
+    /**
+     * A turn of game play finished
+     * @param state the state that was played
+     * @param nanos how long the turn took, in nanoseconds
+     */
+    default void turnPlayed(StateType state, long nanos) {
+    }
+
+    /**
+     * The 'back' action was chosen
+     * @param state the state the game went back from
+     */
+    default void backChosen(StateType state) {
+    }
+
+    /**
+     * The 'quit' action was chosen
+     * @param state the state the game quit from
+     */
+    default void quitChosen(StateType state) {
+    }
+}
@@ -0,0 +1,62 @@
+package org.getmarco;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over a game's restaurants in ranked order (see
+ * {@link Game#getVoteSortedRestaurants()}). Restaurants are fetched from the
+ * game one page at a time, when the iteration reaches the page, so reading the
+ * first few pages doesn't rank the whole catalog. Each page reflects the votes
+ * at the time it is fetched.
+ */
+public class RankedIterator implements Iterator<String> {
+    private final Game game;
+    private final int pageSize;
+    private List<String> page = Collections.emptyList();
+    private int position;
+    private int offset;
+    private boolean exhausted;
+
+    RankedIterator(Game game, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("invalid page size '" + pageSize + "'");
+        this.game = game;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.position < this.page.size())
+            return true;
+        if (this.exhausted)
+            return false;
+        this.page = this.game.getRankedRestaurants(this.offset, this.pageSize);
+        this.offset += this.page.size();
+        this.position = 0;
+        this.exhausted = this.page.size() < this.pageSize;
+        return !this.page.isEmpty();
+    }
+
+    @Override
+    public String next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+        return this.page.get(this.position++);
+    }
+
+    /**
+     * Get the rest of the current page, fetching the next page if the current one is used up.
+     * @return up to a page of restaurants (empty at the end of the ranking)
+     */
+    public List<String> nextPage() {
+        if (!this.hasNext())
+            return Collections.emptyList();
+        List<String> rest = this.page.subList(this.position, this.page.size());
+        this.position = this.page.size();
+        return rest;
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.getmarco.bulk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.getmarco.Game;
+import org.getmarco.tally.ScoringRule;
+
+/**
+ * Counts a file of ballots collected offline into a {@link Game}. Each line
+ * is one player's ballot: the restaurants voted for, comma separated (CSV
+ * quoting allowed), names matched as {@link Game#findRestaurant(String)}
+ * does. A blank line is a player who passed.
+ * <p>
+ * The file is memory-mapped and split into byte ranges, halving until a
+ * range is small enough, on a fork/join pool. Each range is counted into its
+ * own local tally (an array of votes by restaurant id), so workers share
+ * nothing but the read-only game, and the partial tallies are summed as the
+ * ranges join. The rules are the ones the vote view enforces: known
+ * restaurants, no duplicates within a ballot, and at most
+ * {@link Game#getMaxVotesPerBallot()} votes. Votes only reach the game, in
+ * one update per restaurant, once the whole file has been counted, so if any
+ * ballot is invalid nothing is counted.
+ */
+public class BallotFileTally {
+    public static final int DEFAULT_SPLIT_SIZE = 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int splitSize;
+
+    /**
+     * Create a tally running on the common fork/join pool.
+     */
+    public BallotFileTally() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * Create a tally.
+     * @param pool the pool to count on
+     * @param splitSize ranges of the file up to this many bytes are counted without splitting further
+     */
+    public BallotFileTally(ForkJoinPool pool, int splitSize) {
+        if (pool == null)
+            throw new IllegalArgumentException("null pool");
+        if (splitSize < 1)
+            throw new IllegalArgumentException("invalid split size '" + splitSize + "'");
+        this.pool = pool;
+        this.splitSize = splitSize;
+    }
+
+    /**
+     * Count a ballot file into a game's restaurant votes, a vote per
+     * restaurant on a ballot. Ranked choice games, and Borda or score voting,
+     * need the ballots themselves, use {@link Game#submitBallots(java.util.Collection)}.
+     * @param path the ballot file
+     * @param game the game, with its restaurants in place
+     * @return the number of ballots counted (including passes)
+     */
+    public long tally(Path path, Game game) {
+        if (path == null)
+            throw new IllegalArgumentException("null path");
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        if (game.isRankedChoice())
+            throw new IllegalStateException("ballot file tallied into a ranked choice game");
+        if (game.getScoringRule() == ScoringRule.BORDA || game.getScoringRule().isScored())
+            throw new IllegalStateException("ballot file tallied under scoring rule '" + game.getScoringRule() + "'");
+
+        int numIds = 0;
+        for (String restaurant : game.getRestaurants())
+            numIds = Math.max(numIds, game.getRestaurantId(restaurant) + 1);
+        Partial total;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            total = this.pool.invoke(new Range(channel, size, 0, size, game, numIds));
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read ballots '" + path + "'", e);
+        }
+        game.addVoteCounts(total.votes);
+        return total.ballots;
+    }
+
+    /**
+     * A local tally
+     */
+    private static final class Partial {
+        private final int[] votes;
+        private long ballots;
+
+        Partial(int numIds) {
+            this.votes = new int[numIds];
+        }
+
+        Partial add(Partial other) {
+            for (int id = 0; id < this.votes.length; id++)
+                this.votes[id] += other.votes[id];
+            this.ballots += other.ballots;
+            return this;
+        }
+    }
+
+    /**
+     * Counts the ballots starting in a byte range of the file
+     */
+    private final class Range extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long size;
+        private final long start;
+        private final long end;
+        private final transient Game game;
+        private final int numIds;
+
+        Range(FileChannel channel, long size, long start, long end, Game game, int numIds) {
+            this.channel = channel;
+            this.size = size;
+            this.start = start;
+            this.end = end;
+            this.game = game;
+            this.numIds = numIds;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (this.end - this.start > BallotFileTally.this.splitSize) {
+                long middle = this.start + (this.end - this.start) / 2;
+                Range first = new Range(this.channel, this.size, this.start, middle, this.game, this.numIds);
+                first.fork();
+                Partial second = new Range(this.channel, this.size, middle, this.end, this.game, this.numIds).compute();
+                return first.join().add(second);
+            }
+
+            Partial partial = new Partial(this.numIds);
+            int[] ballot = new int[this.game.getMaxVotesPerBallot()];
+            try {
+                MappedLines.read(this.channel, this.size, this.start, this.end, (offset, line) -> {
+                    try {
+                        this.count(line, ballot, partial);
+                    } catch (IllegalStateException e) {
+                        throw new IllegalStateException("invalid ballot at byte '" + offset + "': " + e.getMessage(), e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return partial;
+        }
+
+        private void count(String line, int[] ballot, Partial partial) {
+            partial.ballots++;
+            if (line.trim().isEmpty())
+                return;
+            List<String> fields = MappedLines.csv(line);
+            int numVotes = 0;
+            for (String field : fields) {
+                String restaurant = field.trim();
+                if (restaurant.isEmpty())
+                    continue;
+                if (numVotes == ballot.length)
+                    throw new IllegalStateException("ballot with more than '" + ballot.length + "' votes");
+                int id = this.game.getRestaurantId(restaurant);
+                if (id < 0) {
+                    String name = this.game.findRestaurant(restaurant);
+                    if (name == null)
+                        throw new IllegalStateException("vote for unknown restaurant '" + restaurant + "'");
+                    id = this.game.getRestaurantId(name);
+                }
+                for (int i = 0; i < numVotes; i++) {
+                    if (ballot[i] == id)
+                        throw new IllegalStateException("duplicate vote for restaurant '" + restaurant + "'");
+                }
+                ballot[numVotes++] = id;
+            }
+            for (int i = 0; i < numVotes; i++)
+                partial.votes[ballot[i]]++;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.getmarco.bulk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.getmarco.Game;
+import org.getmarco.util.Json;
+import org.getmarco.util.NameIndex;
+
+/**
+ * Bulk import of players and their restaurant suggestions, instead of
+ * entering them one prompt at a time. Each line of the file is one player's
+ * record, either CSV ({@code player,restaurant,restaurant,...}, optionally
+ * with a header line starting with "player") or JSON Lines
+ * ({@code {"player": "Bart", "restaurants": ["Moe's", "Krusty Burger"]}}).
+ * <p>
+ * The file is memory-mapped and split into byte range chunks that are parsed
+ * in parallel, a line belonging to the chunk its first byte falls in. Only a
+ * bounded number of chunks are in flight, and their results are merged in
+ * file order, so the file is never read onto the heap as a whole. The game is
+ * then populated in bulk: the number of players and of suggestions per player
+ * (the most any record has) are set from the file, followed by all the
+ * players and all the restaurants at once.
+ */
+public class BulkImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final String HEADER = "player";
+
+    /**
+     * Record formats
+     */
+    public enum Format {
+        CSV,
+        JSONL;
+
+        /**
+         * Pick the format from a file name: JSON Lines for '.jsonl' and '.ndjson', else CSV.
+         * @param path the file
+         * @return the format
+         */
+        public static Format of(Path path) {
+            String name = String.valueOf(path.getFileName()).toLowerCase();
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSONL : CSV;
+        }
+    }
+
+    private final int chunkSize;
+    private final int parallelism;
+
+    /**
+     * Create an importer using a thread per available processor.
+     */
+    public BulkImporter() {
+        this(DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an importer.
+     * @param chunkSize how many bytes of the file each parse task covers
+     * @param parallelism how many chunks are parsed at once
+     */
+    public BulkImporter(int chunkSize, int parallelism) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("invalid chunk size '" + chunkSize + "'");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("invalid parallelism '" + parallelism + "'");
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Import a file into a game, in the format its name suggests (see {@link Format#of(Path)}).
+     * @param path the file
+     * @param game a game without players or restaurants
+     * @return the number of records (players) imported
+     */
+    public int importFile(Path path, Game game) {
+        if (path == null)
+            throw new IllegalArgumentException("null path");
+        return this.importFile(path, Format.of(path), game);
+    }
+
+    /**
+     * Import a file into a game. Nothing is added to the game if any record is invalid.
+     * @param path the file
+     * @param format the record format
+     * @param game a game without players or restaurants
+     * @return the number of records (players) imported
+     */
+    public int importFile(Path path, Format format, Game game) {
+        if (path == null)
+            throw new IllegalArgumentException("null path");
+        if (format == null)
+            throw new IllegalArgumentException("null format");
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        if (!game.getPlayers().isEmpty() || !game.getRestaurants().isEmpty())
+            throw new IllegalStateException("attempt to import into a game with players or restaurants");
+
+        Merger merger = new Merger(new NameIndex(game.getNameNormalizations()));
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            for (long start = 0; start < size; start += this.chunkSize) {
+                long chunkStart = start;
+                long chunkEnd = Math.min(size, start + this.chunkSize);
+                inFlight.add(executor.submit(() -> parse(channel, size, chunkStart, chunkEnd, format)));
+                if (inFlight.size() >= this.parallelism * 2)
+                    merger.merge(await(inFlight.poll()));
+            }
+            while (!inFlight.isEmpty())
+                merger.merge(await(inFlight.poll()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read '" + path + "'", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        game.setNumPlayers(merger.players.size());
+        game.setNumRestaurantsPerPlayer(merger.maxSuggestions);
+        game.setPlayers(merger.players);
+        game.addRestaurants(merger.restaurants);
+        return merger.players.size();
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            throw new IllegalStateException("import failed", cause);
+        }
+    }
+
+    // Parse the records starting in [start, end)
+    private static Chunk parse(FileChannel channel, long size, long start, long end, Format format) throws IOException {
+        Chunk chunk = new Chunk();
+        MappedLines.read(channel, size, start, end, (offset, line) -> {
+            try {
+                if (!line.trim().isEmpty())
+                    chunk.add(format == Format.CSV ? parseCsv(line, offset == 0) : parseJson(line));
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("invalid record at byte '" + offset + "': " + e.getMessage(), e);
+            }
+        });
+        return chunk;
+    }
+
+    private static List<String> parseCsv(String line, boolean firstLine) {
+        List<String> fields = MappedLines.csv(line);
+        if (firstLine && HEADER.equalsIgnoreCase(fields.get(0).trim()))
+            return null;
+        return fields;
+    }
+
+    // The record's "player" and its "restaurants", other members are skipped
+    private static List<String> parseJson(String line) {
+        Object record;
+        try {
+            record = Json.parse(line);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        if (!(record instanceof Map))
+            throw new IllegalStateException("record is not a JSON object");
+        Object player = ((Map<?, ?>)record).get("player");
+        Object restaurants = ((Map<?, ?>)record).get("restaurants");
+        if (!(player instanceof String))
+            throw new IllegalStateException("missing \"player\"");
+        if (restaurants != null && !(restaurants instanceof List))
+            throw new IllegalStateException("\"restaurants\" is not an array");
+        List<String> fields = new ArrayList<>();
+        fields.add((String)player);
+        for (Object restaurant : restaurants == null ? Collections.emptyList() : (List<?>)restaurants) {
+            if (!(restaurant instanceof String))
+                throw new IllegalStateException("restaurant '" + restaurant + "' is not a string");
+            fields.add((String)restaurant);
+        }
+        return fields;
+    }
+
+    /**
+     * The players and suggestions parsed from one chunk
+     */
+    private static final class Chunk {
+        private final List<String> players = new ArrayList<>();
+        private final Set<String> restaurants = new LinkedHashSet<>();
+        private int maxSuggestions;
+
+        // Fields: the player, then the suggestions
+        void add(List<String> fields) {
+            if (fields == null)
+                return;
+            String player = fields.get(0).trim();
+            if (player.isEmpty())
+                throw new IllegalStateException("missing player");
+            this.players.add(player);
+            int suggestions = 0;
+            for (int i = 1; i < fields.size(); i++) {
+                String restaurant = fields.get(i).trim();
+                if (restaurant.isEmpty())
+                    continue;
+                this.restaurants.add(restaurant);
+                suggestions++;
+            }
+            this.maxSuggestions = Math.max(this.maxSuggestions, suggestions);
+        }
+    }
+
+    /**
+     * Combines chunks in file order
+     */
+    private static final class Merger {
+        private final NameIndex playerNames;
+        private final Set<String> players = new LinkedHashSet<>();
+        private final Set<String> restaurants = new HashSet<>();
+        private int maxSuggestions;
+
+        Merger(NameIndex playerNames) {
+            this.playerNames = playerNames;
+        }
+
+        void merge(Chunk chunk) {
+            for (String player : chunk.players) {
+                if (this.playerNames.contains(player))
+                    throw new IllegalStateException("duplicate player '" + player + "'");
+                this.players.add(this.playerNames.add(player));
+            }
+            this.restaurants.addAll(chunk.restaurants);
+            this.maxSuggestions = Math.max(this.maxSuggestions, chunk.maxSuggestions);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.getmarco.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the lines of a byte range of a memory-mapped file, for parsing a
+ * file in independent chunks. A line belongs to the range its first byte
+ * falls in; the last line of a range is read past the range's end.
+ */
+final class MappedLines {
+    // How far past its end a range is mapped at first, for its last line
+    private static final int OVERHANG = 64 * 1024;
+    private static final int INITIAL_LINE_SIZE = 256;
+
+    /**
+     * Receives the lines of a range
+     */
+    interface Handler {
+        /**
+         * Handle a line.
+         * @param offset the file position of the line
+         * @param line the line, without its line terminator (nor a leading byte order mark)
+         */
+        void line(long offset, String line);
+    }
+
+    private MappedLines() {
+        // Not used
+    }
+
+    /**
+     * Read the lines starting within a byte range of a file.
+     * @param channel the file
+     * @param size the file size
+     * @param start the start of the range
+     * @param end the end of the range (exclusive)
+     * @param handler receives each line, in order
+     * @throws IOException if the file can't be mapped
+     */
+    static void read(FileChannel channel, long size, long start, long end, Handler handler) throws IOException {
+        // Map from the byte before the range to tell whether it starts a line
+        long base = Math.max(0, start - 1);
+        long available = Math.min(size - base, Integer.MAX_VALUE);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(available, end - base + OVERHANG));
+        int rangeEnd = (int)(end - base);
+        int position = 0;
+        if (start > 0) {
+            position = lineEnd(buffer, 0);
+            while (position == buffer.limit() && buffer.limit() < available) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(available, buffer.limit() * 2L));
+                position = lineEnd(buffer, position);
+            }
+            position++;
+        }
+
+        byte[] bytes = new byte[INITIAL_LINE_SIZE];
+        while (position < rangeEnd) {
+            int lineEnd = lineEnd(buffer, position);
+            while (lineEnd == buffer.limit() && buffer.limit() < available) {
+                // The last line runs past the mapped overhang
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(available, buffer.limit() * 2L));
+                lineEnd = lineEnd(buffer, lineEnd);
+            }
+            int length = lineEnd - position;
+            if (length > 0 && buffer.get(lineEnd - 1) == '\r')
+                length--;
+            if (length > bytes.length)
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.position(position);
+            buffer.get(bytes, 0, length);
+            String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            if (base + position == 0 && line.startsWith("\uFEFF"))
+                line = line.substring(1);
+            handler.line(base + position, line);
+            position = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Split a CSV line into fields. Fields are comma separated, and double
+     * quoted when they contain commas or quotes ("" for a quote).
+     * @param line the line
+     * @return the fields (at least one)
+     */
+    static List<String> csv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            while (i < line.length() && line.charAt(i) == ' ')
+                i++;
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length())
+                        throw new IllegalStateException("unterminated quote");
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < line.length() && line.charAt(i) != ',')
+                    i++;
+            } else {
+                while (i < line.length() && line.charAt(i) != ',')
+                    field.append(line.charAt(i++));
+            }
+            fields.add(field.toString());
+            if (i >= line.length())
+                break;
+            i++; // Comma
+        }
+        return fields;
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int from) {
+        int position = from;
+        while (position < buffer.limit() && buffer.get(position) != '\n')
+            position++;
+        return position;
+    }
+}
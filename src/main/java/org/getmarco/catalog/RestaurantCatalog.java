@@ -0,0 +1,274 @@
+package org.getmarco.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.getmarco.util.NameIndex;
+
+/**
+ * Read-only catalog of known restaurant names offered as suggestions while
+ * players enter theirs. The catalog file is prebuilt with
+ * {@link #write(Path, Iterable)} and memory-mapped by {@link #open(Path)}:
+ * nothing is parsed onto the heap, opening only checks the offsets, and heap use stays
+ * flat however large the catalog grows. Names are sorted by their
+ * {@link NameIndex normalized} form, and {@link #complete(String, int)}
+ * binary searches the mapped keys for a prefix, so a lookup touches a few
+ * dozen pages at most.
+ * <p>
+ * Layout (big-endian): magic, version (short), reserved (short), entry count,
+ * then count + 1 key offsets, count + 1 name offsets, the keys and the names.
+ * Keys (normalized names) and names are UTF-8; an entry's bytes run from its
+ * offset up to the next entry's offset.
+ */
+public final class RestaurantCatalog {
+    public static final short VERSION = 1;
+
+    private static final int MAGIC = 0x4C434154; // "LCAT"
+    private static final int INT_SIZE = 4;
+    private static final int HEADER_SIZE = INT_SIZE * 3;
+
+    // Keys use every normalization, as does the game by default
+    private static final NameIndex KEYS = new NameIndex();
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int keyOffsets;
+    private final int nameOffsets;
+    private final int keys;
+    private final int names;
+
+    private RestaurantCatalog(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IllegalStateException("not a restaurant catalog");
+        short version = buffer.getShort(INT_SIZE);
+        if (version != VERSION)
+            throw new IllegalStateException("unsupported catalog version '" + version + "'");
+        this.count = buffer.getInt(INT_SIZE * 2);
+        if (this.count < 0 || this.count >= (buffer.capacity() - HEADER_SIZE) / (INT_SIZE * 2))
+            throw new IllegalStateException("invalid catalog count '" + this.count + "'");
+        this.keyOffsets = HEADER_SIZE;
+        this.nameOffsets = this.keyOffsets + (this.count + 1) * INT_SIZE;
+        this.keys = this.nameOffsets + (this.count + 1) * INT_SIZE;
+        int keySize = buffer.getInt(this.nameOffsets - INT_SIZE);
+        int nameSize = buffer.getInt(this.keys - INT_SIZE);
+        if (keySize < 0 || nameSize < 0 || (long)this.keys + keySize + nameSize > buffer.capacity())
+            throw new IllegalStateException("truncated catalog");
+        this.names = this.keys + keySize;
+        // Every entry inside its section, so no lookup reads past the buffer
+        checkOffsets(buffer, this.keyOffsets, this.count, keySize);
+        checkOffsets(buffer, this.nameOffsets, this.count, nameSize);
+    }
+
+    // Offsets from zero up to the section's size, never decreasing
+    private static void checkOffsets(ByteBuffer buffer, int offsets, int count, int size) {
+        int previous = 0;
+        for (int i = 0; i <= count; i++) {
+            int offset = buffer.getInt(offsets + i * INT_SIZE);
+            if (offset < previous || offset > size)
+                throw new IllegalStateException("truncated catalog");
+            previous = offset;
+        }
+    }
+
+    /**
+     * Map a catalog file.
+     * @param path the catalog file
+     * @return the catalog
+     */
+    public static RestaurantCatalog open(Path path) {
+        if (path == null)
+            throw new IllegalArgumentException("null path");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IllegalStateException("catalog '" + path + "' too large");
+            // The mapping stays valid once the channel is closed
+            return new RestaurantCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read catalog '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Build a catalog file, replacing the file if it exists. Blank names are
+     * skipped and near duplicates keep the first of their names.
+     * @param path the catalog file
+     * @param restaurants the restaurant names, in any order
+     */
+    public static void write(Path path, Iterable<String> restaurants) {
+        if (path == null)
+            throw new IllegalArgumentException("null path");
+        if (restaurants == null)
+            throw new IllegalArgumentException("null restaurants");
+        List<Entry> entries = new ArrayList<>();
+        for (String restaurant : restaurants) {
+            if (restaurant == null)
+                continue;
+            String name = restaurant.trim();
+            if (!name.isEmpty())
+                entries.add(new Entry(KEYS.normalize(name).getBytes(StandardCharsets.UTF_8), name, entries.size()));
+        }
+        Collections.sort(entries);
+        int count = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (count == 0 || compare(entries.get(count - 1).key, entries.get(i).key) != 0)
+                entries.set(count++, entries.get(i));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeInt(count);
+            byte[][] names = new byte[count][];
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                out.writeInt(offset);
+                offset += entries.get(i).key.length;
+            }
+            out.writeInt(offset);
+            offset = 0;
+            for (int i = 0; i < count; i++) {
+                out.writeInt(offset);
+                names[i] = entries.get(i).name.getBytes(StandardCharsets.UTF_8);
+                offset += names[i].length;
+            }
+            out.writeInt(offset);
+            for (int i = 0; i < count; i++)
+                out.write(entries.get(i).key);
+            for (int i = 0; i < count; i++)
+                out.write(names[i]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write catalog '" + path + "'", e);
+        }
+    }
+
+    /**
+     * How many restaurants are in the catalog
+     * @return the number of restaurants
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Get a restaurant by position, in order of the normalized names.
+     * @param index the position
+     * @return the restaurant name
+     */
+    public String getName(int index) {
+        if (index < 0 || index >= this.count)
+            throw new IllegalArgumentException("invalid catalog index '" + index + "'");
+        int start = this.buffer.getInt(this.nameOffsets + index * INT_SIZE);
+        int end = this.buffer.getInt(this.nameOffsets + (index + 1) * INT_SIZE);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = this.buffer.get(this.names + start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find restaurants whose names start with a prefix, ignoring the
+     * differences {@link NameIndex} normalizes away (case, surrounding
+     * white space, compatibility forms).
+     * @param prefix the start of the name as typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to limit restaurant names, in order of their normalized names
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (prefix == null)
+            throw new IllegalArgumentException("null prefix");
+        if (limit < 0)
+            throw new IllegalArgumentException("invalid limit '" + limit + "'");
+        byte[] key = KEYS.normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        // First key not below the prefix
+        int low = 0;
+        int high = this.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.compareKey(middle, key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        List<String> matches = new ArrayList<>(Math.min(limit, this.count - low));
+        for (int i = low; i < this.count && matches.size() < limit && this.startsWith(i, key); i++)
+            matches.add(this.getName(i));
+        return matches;
+    }
+
+    private int keyStart(int index) {
+        return this.keys + this.buffer.getInt(this.keyOffsets + index * INT_SIZE);
+    }
+
+    private int keyLength(int index) {
+        return this.buffer.getInt(this.keyOffsets + (index + 1) * INT_SIZE)
+          - this.buffer.getInt(this.keyOffsets + index * INT_SIZE);
+    }
+
+    // Unsigned byte order, i.e. code point order of the UTF-8 keys
+    private int compareKey(int index, byte[] key) {
+        int start = this.keyStart(index);
+        int length = this.keyLength(index);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (this.buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int index, byte[] key) {
+        if (this.keyLength(index) < key.length)
+            return false;
+        int start = this.keyStart(index);
+        for (int i = 0; i < key.length; i++) {
+            if (this.buffer.get(start + i) != key[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * A name to write, ordered by key and then by first appearance
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final byte[] key;
+        private final String name;
+        private final int order;
+
+        Entry(byte[] key, String name, int order) {
+            this.key = key;
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int difference = compare(this.key, other.key);
+            return difference != 0 ? difference : Integer.compare(this.order, other.order);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.getmarco.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Programmatic input for one complete game: the setup numbers, each player's
+ * name and restaurant suggestions (in entry order), and each player's
+ * elimination and ballot. Players without an elimination or ballot pass.
+ * Build instances with {@link GameScript.Builder}.
+ */
+public final class GameScript {
+    private final int numPlayers;
+    private final int numRestaurantsPerPlayer;
+    private final boolean rankedChoice;
+    private final List<String> players;
+    private final List<Set<String>> suggestions;
+    private final Map<String, String> eliminations;
+    private final Map<String, List<String>> ballots;
+
+    private GameScript(Builder builder) {
+        this.numPlayers = builder.numPlayers;
+        this.numRestaurantsPerPlayer = builder.numRestaurantsPerPlayer;
+        this.rankedChoice = builder.rankedChoice;
+        this.players = Collections.unmodifiableList(new ArrayList<>(builder.players));
+        this.suggestions = Collections.unmodifiableList(new ArrayList<>(builder.suggestions));
+        this.eliminations = Collections.unmodifiableMap(new HashMap<>(builder.eliminations));
+        this.ballots = Collections.unmodifiableMap(new HashMap<>(builder.ballots));
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    public int getNumRestaurantsPerPlayer() {
+        return numRestaurantsPerPlayer;
+    }
+
+    /**
+     * Is the game decided by ranked choice (see {@link org.getmarco.Game#setRankedChoice(boolean)})
+     * @return whether ballots are ranked
+     */
+    public boolean isRankedChoice() {
+        return rankedChoice;
+    }
+
+    /**
+     * Get the player names in entry order
+     * @return the player names
+     */
+    public List<String> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Get the restaurant suggestions of a player
+     * @param index the player's position in entry order
+     * @return the player's restaurant suggestions
+     */
+    public Set<String> getSuggestions(int index) {
+        return suggestions.get(index);
+    }
+
+    /**
+     * Get the restaurant a player eliminates
+     * @param player the player name
+     * @return the restaurant name, or null if the player passes
+     */
+    public String getElimination(String player) {
+        return eliminations.get(player);
+    }
+
+    /**
+     * Get the restaurants a player votes for
+     * @param player the player name
+     * @return the ballot (empty if the player passes)
+     */
+    public List<String> getBallot(String player) {
+        List<String> ballot = ballots.get(player);
+        return ballot == null ? Collections.<String>emptyList() : ballot;
+    }
+
+    /**
+     * Builder for {@link GameScript} instances
+     */
+    public static class Builder {
+        private int numPlayers;
+        private int numRestaurantsPerPlayer;
+        private boolean rankedChoice;
+        private final List<String> players = new ArrayList<>();
+        private final List<Set<String>> suggestions = new ArrayList<>();
+        private final Map<String, String> eliminations = new HashMap<>();
+        private final Map<String, List<String>> ballots = new HashMap<>();
+
+        public Builder setNumPlayers(int numPlayers) {
+            this.numPlayers = numPlayers;
+            return this;
+        }
+
+        public Builder setNumRestaurantsPerPlayer(int numRestaurantsPerPlayer) {
+            this.numRestaurantsPerPlayer = numRestaurantsPerPlayer;
+            return this;
+        }
+
+        public Builder setRankedChoice(boolean rankedChoice) {
+            this.rankedChoice = rankedChoice;
+            return this;
+        }
+
+        /**
+         * Add the next player and their restaurant suggestions
+         * @param player the player name
+         * @param restaurants the player's restaurant suggestions
+         * @return this builder
+         */
+        public Builder addPlayer(String player, String... restaurants) {
+            if (player == null)
+                throw new IllegalArgumentException("null player");
+            this.players.add(player);
+            this.suggestions.add(Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(restaurants))));
+            return this;
+        }
+
+        /**
+         * Set the restaurant a player eliminates
+         * @param player the player name
+         * @param restaurant the restaurant name
+         * @return this builder
+         */
+        public Builder setElimination(String player, String restaurant) {
+            this.eliminations.put(player, restaurant);
+            return this;
+        }
+
+        /**
+         * Set the restaurants a player votes for
+         * @param player the player name
+         * @param restaurants the restaurant names (in order of preference for ranked choice)
+         * @return this builder
+         */
+        public Builder setBallot(String player, String... restaurants) {
+            this.ballots.put(player, Collections.unmodifiableList(new ArrayList<>(Arrays.asList(restaurants))));
+            return this;
+        }
+
+        public GameScript build() {
+            if (this.players.size() != this.numPlayers)
+                throw new IllegalStateException("'" + this.players.size() + "' players scripted for a '"
+                  + this.numPlayers + "' player game");
+            return new GameScript(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.getmarco.engine;
+
+import org.getmarco.Game;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.TallyType;
+
+/**
+ * Runs games through the real state machine without any console views, for
+ * capacity testing and for embedding the game in a server.
+ */
+public final class HeadlessEngine {
+
+    private HeadlessEngine() {
+        // Not used
+    }
+
+    /**
+     * Play a complete game from a script, START through to QUIT.
+     * @param script the game's input
+     * @return the finished game (results are still readable)
+     */
+    public static Game play(GameScript script) {
+        return play(new Game(TallyType.SEQUENTIAL, new HeadlessFrontEnd(script)));
+    }
+
+    /**
+     * Play a game until it reaches the QUIT state.
+     * @param game a game using a front end that doesn't block forever
+     * @return the game
+     */
+    public static Game play(Game game) {
+        while (game.getStateType() != StateType.QUIT)
+            game.play();
+        return game;
+    }
+}
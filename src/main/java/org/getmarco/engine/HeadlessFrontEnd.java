@@ -0,0 +1,80 @@
+package org.getmarco.engine;
+
+import java.util.Set;
+
+import org.getmarco.Game;
+import org.getmarco.state.GameFrontEnd;
+
+/**
+ * Front end answering every prompt from a {@link GameScript}, with no console
+ * input or output. Reaching the quit state simply ends the game (the JVM
+ * keeps running).
+ */
+public class HeadlessFrontEnd implements GameFrontEnd {
+    private final GameScript script;
+
+    public HeadlessFrontEnd(GameScript script) {
+        if (script == null)
+            throw new IllegalArgumentException("null script");
+        this.script = script;
+    }
+
+    @Override
+    public void start(Game game) {
+        // Nothing to show
+    }
+
+    @Override
+    public void setup(Game game) {
+        game.setNumPlayers(this.script.getNumPlayers());
+        game.setNumRestaurantsPerPlayer(this.script.getNumRestaurantsPerPlayer());
+        game.setRankedChoice(this.script.isRankedChoice());
+    }
+
+    @Override
+    public void enterData(Game game) {
+        int index = game.getPlayers().size();
+        if (index >= this.script.getPlayers().size())
+            throw new IllegalStateException("no scripted player '" + (index + 1) + "'");
+        String player = this.script.getPlayers().get(index);
+        Set<String> restaurants = this.script.getSuggestions(index);
+        if (restaurants.size() > game.getNumRestaurantsPerPlayer())
+            throw new IllegalStateException("player '" + player + "' suggested '" + restaurants.size()
+              + "' restaurants (max of '" + game.getNumRestaurantsPerPlayer() + "')");
+        if (!game.addPlayer(player))
+            throw new IllegalStateException("duplicate player '" + player + "'");
+        game.addRestaurants(restaurants);
+    }
+
+    @Override
+    public void showData(Game game) {
+        // Nothing to show
+    }
+
+    @Override
+    public void eliminate(Game game, String player) {
+        String restaurant = this.script.getElimination(player);
+        if (restaurant != null)
+            game.eliminateRestaurant(player, restaurant);
+    }
+
+    @Override
+    public void vote(Game game, String player) {
+        game.submitBallot(player, this.script.getBallot(player));
+    }
+
+    @Override
+    public void showResults(Game game) {
+        // Results stay readable on the game
+    }
+
+    @Override
+    public void finish(Game game) {
+        // Nothing to show
+    }
+
+    @Override
+    public void quit(Game game) {
+        // Nothing to release
+    }
+}
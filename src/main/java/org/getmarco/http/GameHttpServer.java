@@ -0,0 +1,421 @@
+package org.getmarco.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.getmarco.Game;
+import org.getmarco.session.SessionThreads;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.tally.TallyType;
+import org.getmarco.util.Json;
+
+/**
+ * Embedded HTTP server playing one game through JSON endpoints, for players
+ * without the console. The endpoints map onto the {@link Game} methods:
+ * <ul>
+ * <li>{@code GET /game}: the setup, players and restaurants</li>
+ * <li>{@code POST /setup}: start over, {@code {"numPlayers": 3, "numRestaurantsPerPlayer": 2}}, optionally
+ * with {@code "numVotesPerPlayer"}, {@code "scoringRule"} and {@code "rankedChoice"}</li>
+ * <li>{@code POST /players}: {@code {"players": ["Bart", "Lisa"]}}</li>
+ * <li>{@code POST /restaurants}: {@code {"restaurants": ["Zoes", "Panera"]}}</li>
+ * <li>{@code POST /eliminate}: {@code {"player": "Bart", "restaurant": "Zoes"}}</li>
+ * <li>{@code POST /vote}: a player's ballot, {@code {"player": "Bart", "restaurants": ["Zoes"]}} (or
+ * {@code "scores": {"Zoes": 5}}), or in a game without players one vote, {@code {"restaurant": "Zoes"}}</li>
+ * <li>{@code GET /results?offset=0&limit=10}: a page of the ranked restaurants, and the winner check</li>
+ * </ul>
+ * Invalid requests get a 400 response with an {@code "error"} message.
+ * Once a game has players, every vote is a player's ballot: a player's new
+ * ballot replaces the old one, so no one can vote more than once, and votes
+ * without a player are refused.
+ * <p>
+ * The game uses the {@link TallyType#CONCURRENT concurrent tally}. Single
+ * votes and results are served in parallel under a shared lock, so thousands
+ * of voters don't queue behind each other; everything else (setup, ballots,
+ * eliminations) changes the game one request at a time under the exclusive
+ * lock. That includes every player's ballot: the ballot store, the ranked
+ * ballots and the players' ballot index are not thread-safe, so ballots are
+ * counted on one thread at a time, and a game with players takes votes only
+ * as fast as one core counts them. Responses are built from copies taken
+ * under the lock, and written after it is released. Requests run on virtual
+ * threads where the runtime supports them (see {@link SessionThreads}),
+ * otherwise on a pool of a few threads per core: the server's selector thread
+ * accepts the connections, and the handlers never block on anything but the
+ * lock.
+ * <p>
+ * The JDK server leaves Nagle's algorithm on, so a small response can wait
+ * for the client's delayed ack (about 40 ms a request). The switch is the
+ * JVM-wide {@code sun.net.httpserver.nodelay} system property, read once when
+ * the first server is created, so the server leaves it to the application:
+ * {@link #main(String[])} turns it on for the process it owns, and an
+ * application embedding the server can start the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}.
+ */
+public class GameHttpServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int BACKLOG = 4096;
+    private static final int THREADS_PER_CORE = 4;
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final Logger logger = LogManager.getLogger(this.getClass());
+
+    private final Game game = new Game(TallyType.CONCURRENT);
+    // Shared by single votes and reads, exclusive for every other change
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Create a server, not yet accepting requests (see {@link #start()}).
+     * @param address the address to listen on (port 0 for any free port)
+     */
+    public GameHttpServer(InetSocketAddress address) {
+        if (address == null)
+            throw new IllegalArgumentException("null address");
+        try {
+            this.server = HttpServer.create(address, BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.executor = newExecutor();
+        this.server.setExecutor(this.executor);
+        this.route("/game", "GET", this::getState);
+        this.route("/setup", "POST", this::setup);
+        this.route("/players", "POST", this::addPlayers);
+        this.route("/restaurants", "POST", this::addRestaurants);
+        this.route("/eliminate", "POST", this::eliminate);
+        this.route("/vote", "POST", this::vote);
+        this.route("/results", "GET", this::getResults);
+    }
+
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        this.server.start();
+        this.logger.info("Serving game on port " + this.getPort());
+    }
+
+    /**
+     * Get the port the server listens on
+     * @return the port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, and drop the ones in progress.
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Serve a new game until the process is stopped, with Nagle's algorithm
+     * off unless the {@code sun.net.httpserver.nodelay} property says otherwise.
+     * @param args optionally the port
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        // The process is the server's own, so the JVM-wide setting is too
+        if (System.getProperty(NODELAY_PROPERTY) == null)
+            System.setProperty(NODELAY_PROPERTY, "true");
+        new GameHttpServer(new InetSocketAddress(port)).start();
+    }
+
+    private static ExecutorService newExecutor() {
+        ThreadFactory threadFactory = SessionThreads.newThreadFactory("http-");
+        // A virtual thread per request, or a few platform threads per core
+        if (SessionThreads.isVirtual())
+            return Executors.newCachedThreadPool(threadFactory);
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * THREADS_PER_CORE, threadFactory);
+    }
+
+    // An endpoint: the response for a request's JSON body (null for GET) and query parameters
+    private interface Endpoint {
+        Object handle(Map<String, Object> body, Map<String, String> query);
+    }
+
+    private void route(String path, String method, Endpoint endpoint) {
+        this.server.createContext(path, exchange -> {
+            try {
+                if (!path.equals(exchange.getRequestURI().getPath()))
+                    this.respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, error("unknown path"));
+                else if (!method.equals(exchange.getRequestMethod()))
+                    this.respond(exchange, HttpURLConnection.HTTP_BAD_METHOD, error("use " + method));
+                else
+                    this.respond(exchange, HttpURLConnection.HTTP_OK, endpoint.handle(readBody(exchange), query(exchange)));
+            } catch (IllegalArgumentException | IllegalStateException | ClassCastException e) {
+                this.respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST, error(e.getMessage()));
+            } catch (RuntimeException e) {
+                this.logger.error("Request to '" + path + "' failed", e);
+                this.respond(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, error("internal error"));
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    private void respond(HttpExchange exchange, int status, Object response) throws IOException {
+        byte[] bytes = Json.write(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("error", message);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod()))
+            return null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+                if (bytes.size() > MAX_BODY_SIZE)
+                    throw new IllegalArgumentException("request body over " + MAX_BODY_SIZE + " bytes");
+            }
+        }
+        Object body = Json.parse(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        if (!(body instanceof Map))
+            throw new IllegalArgumentException("request body is not a JSON object");
+        return (Map<String, Object>)body;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null)
+            return parameters;
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0)
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+                  URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static Object field(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value == null)
+            throw new IllegalArgumentException("missing '" + name + "'");
+        return value;
+    }
+
+    private static int intField(Map<String, Object> body, String name) {
+        return intValue(field(body, name), name);
+    }
+
+    // A JSON number without a fraction or exponent, that fits an int
+    private static int intValue(Object value, String name) {
+        if (!(value instanceof Long) || (Long)value < Integer.MIN_VALUE || (Long)value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("invalid '" + name + "' '" + value + "'");
+        return ((Long)value).intValue();
+    }
+
+    private static List<String> names(Map<String, Object> body, String name) {
+        List<String> names = new ArrayList<>();
+        for (Object value : (List<?>)field(body, name))
+            names.add((String)value);
+        return names;
+    }
+
+    private <T> T shared(Supplier<T> action) {
+        return locked(this.lock.readLock(), action);
+    }
+
+    private <T> T exclusive(Supplier<T> action) {
+        return locked(this.lock.writeLock(), action);
+    }
+
+    private static <T> T locked(Lock held, Supplier<T> action) {
+        held.lock();
+        try {
+            return action.get();
+        } finally {
+            held.unlock();
+        }
+    }
+
+    private Object getState(Map<String, Object> body, Map<String, String> query) {
+        return this.shared(this::state);
+    }
+
+    private Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("numPlayers", this.game.getNumPlayers());
+        state.put("numRestaurantsPerPlayer", this.game.getNumRestaurantsPerPlayer());
+        state.put("numVotesPerPlayer", this.game.getNumVotesPerPlayer());
+        state.put("scoringRule", this.game.getScoringRule());
+        state.put("rankedChoice", this.game.isRankedChoice());
+        state.put("players", new ArrayList<>(this.game.getPlayers()));
+        state.put("restaurants", new ArrayList<>(this.game.getRestaurants()));
+        return state;
+    }
+
+    private Object setup(Map<String, Object> body, Map<String, String> query) {
+        int numPlayers = intField(body, "numPlayers");
+        int numRestaurantsPerPlayer = intField(body, "numRestaurantsPerPlayer");
+        if (numPlayers < 1 || numRestaurantsPerPlayer < 1)
+            throw new IllegalArgumentException("invalid setup of '" + numPlayers + "' players and '"
+              + numRestaurantsPerPlayer + "' restaurants per player");
+        int numVotesPerPlayer = body.containsKey("numVotesPerPlayer") ? intField(body, "numVotesPerPlayer") :
+          Game.DEFAULT_NUM_VOTES_PER_PLAYER;
+        ScoringRule scoringRule = body.containsKey("scoringRule") ?
+          ScoringRule.valueOf((String)field(body, "scoringRule")) : ScoringRule.PLURALITY;
+        boolean rankedChoice = body.containsKey("rankedChoice") && (Boolean)field(body, "rankedChoice");
+        // The settings are tried on a new game first, so an invalid setup leaves the game as it was
+        Game settings = new Game();
+        settings.setNumVotesPerPlayer(numVotesPerPlayer);
+        settings.setScoringRule(scoringRule);
+        settings.setRankedChoice(rankedChoice);
+        return this.exclusive(() -> {
+            this.game.resetState();
+            this.game.setNumPlayers(numPlayers);
+            this.game.setNumRestaurantsPerPlayer(numRestaurantsPerPlayer);
+            this.game.setNumVotesPerPlayer(numVotesPerPlayer);
+            this.game.setScoringRule(scoringRule);
+            this.game.setRankedChoice(rankedChoice);
+            return this.state();
+        });
+    }
+
+    private Object addPlayers(Map<String, Object> body, Map<String, String> query) {
+        List<String> players = names(body, "players");
+        return this.exclusive(() -> {
+            List<String> added = new ArrayList<>();
+            for (String player : players) {
+                if (this.game.addPlayer(player))
+                    added.add(player);
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("added", added);
+            response.put("players", new ArrayList<>(this.game.getPlayers()));
+            return response;
+        });
+    }
+
+    private Object addRestaurants(Map<String, Object> body, Map<String, String> query) {
+        List<String> restaurants = names(body, "restaurants");
+        return this.exclusive(() -> {
+            this.game.addRestaurants(new LinkedHashSet<>(restaurants));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("restaurants", new ArrayList<>(this.game.getRestaurants()));
+            return response;
+        });
+    }
+
+    private Object eliminate(Map<String, Object> body, Map<String, String> query) {
+        String player = (String)field(body, "player");
+        String restaurant = (String)field(body, "restaurant");
+        return this.exclusive(() -> {
+            if (!this.game.hasPlayer(player))
+                throw new IllegalArgumentException("unknown player '" + player + "'");
+            if (!this.game.eliminateRestaurant(player, restaurant))
+                throw new IllegalArgumentException("unknown restaurant '" + restaurant + "'");
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("restaurants", new ArrayList<>(this.game.getRestaurants()));
+            return response;
+        });
+    }
+
+    private Object vote(Map<String, Object> body, Map<String, String> query) {
+        if (!body.containsKey("player")) {
+            String restaurant = (String)field(body, "restaurant");
+            return this.shared(() -> {
+                // Players vote with their ballots, which they can't stuff
+                if (!this.game.getPlayers().isEmpty())
+                    throw new IllegalArgumentException("vote without a player in a game with players");
+                this.game.vote(restaurant);
+                String name = this.game.findRestaurant(restaurant);
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("restaurant", name);
+                response.put("votes", this.game.getVotesForRestaurant(name));
+                return response;
+            });
+        }
+
+        String player = (String)field(body, "player");
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        List<String> ballot = body.containsKey("scores") ? null : names(body, "restaurants");
+        if (ballot == null) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)field(body, "scores")).entrySet())
+                scores.put((String)entry.getKey(), intValue(entry.getValue(), "score"));
+        }
+        return this.exclusive(() -> {
+            if (!this.game.hasPlayer(player))
+                throw new IllegalArgumentException("unknown player '" + player + "'");
+            if (ballot == null)
+                this.game.submitScores(player, scores);
+            else
+                this.game.submitBallot(player, ballot);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("player", player);
+            response.put("voted", this.game.hasBallot(player));
+            return response;
+        });
+    }
+
+    private Object getResults(Map<String, Object> body, Map<String, String> query) {
+        int offset = query.containsKey("offset") ? Integer.parseInt(query.get("offset")) : 0;
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_LIMIT;
+        return this.shared(() -> {
+            List<Object> ranked = new ArrayList<>();
+            for (String restaurant : this.game.getRankedRestaurants(offset, limit)) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("restaurant", restaurant);
+                entry.put("votes", this.game.getVotesForRestaurant(restaurant));
+                ranked.add(entry);
+            }
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("win", this.game.isWin());
+            results.put("maxVotes", this.game.getMaxVoteCount());
+            results.put("ranked", ranked);
+            return results;
+        });
+    }
+}
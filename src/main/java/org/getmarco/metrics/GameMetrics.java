@@ -0,0 +1,279 @@
+package org.getmarco.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.getmarco.Game;
+import org.getmarco.GameListener;
+import org.getmarco.state.StateType;
+import org.getmarco.view.GameView;
+
+/**
+ * Game play metrics exposed over JMX: vote, elimination, restart and quit
+ * counters, latency histograms for every state's turns and every view's
+ * display, and the current restaurant and player counts. One instance can
+ * watch any number of games (see {@link #attach(Game)}). Votes are the
+ * restaurants marked on ballots plus votes without a ballot. They are also
+ * kept per restaurant of each game, so they come back off when a ballot is
+ * retracted, votes are reset, or a restaurant is removed. Recording only adds to
+ * {@link LongAdder}s found through pre-built maps and arrays, so it takes no
+ * locks and allocates nothing per vote.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    public static final String OBJECT_NAME = "org.getmarco:type=GameMetrics";
+
+    private final LongAdder votes = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+    private final LongAdder restarts = new LongAdder();
+    private final LongAdder quits = new LongAdder();
+    private final LongAdder restaurants = new LongAdder();
+    private final LongAdder players = new LongAdder();
+    private final Map<StateType, LatencyHistogram> stateLatencies = new EnumMap<>(StateType.class);
+    private final ConcurrentMap<Class<?>, LatencyHistogram> viewLatencies = new ConcurrentHashMap<>();
+
+    public GameMetrics() {
+        for (StateType state : StateType.values())
+            this.stateLatencies.put(state, new LatencyHistogram());
+    }
+
+    /**
+     * Create metrics, register them with the platform MBean server, and time
+     * every view display.
+     * @return the registered metrics
+     */
+    public static GameMetrics install() {
+        GameMetrics metrics = new GameMetrics();
+        metrics.register(ManagementFactory.getPlatformMBeanServer());
+        GameView.setDisplayObserver(metrics::recordView);
+        return metrics;
+    }
+
+    /**
+     * Register with an MBean server under {@link #OBJECT_NAME}, replacing
+     * metrics registered earlier.
+     * @param server the MBean server
+     */
+    public void register(MBeanServer server) {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("unable to register '" + OBJECT_NAME + "'", e);
+        }
+    }
+
+    /**
+     * Start recording a game's votes, actions, turns and counts.
+     * @param game the game
+     */
+    public void attach(Game game) {
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        game.addListener(new Recorder());
+    }
+
+    /**
+     * Record a view display.
+     * @param view the view class
+     * @param nanos how long the display took, in nanoseconds
+     */
+    public void recordView(Class<?> view, long nanos) {
+        LatencyHistogram histogram = this.viewLatencies.get(view);
+        if (histogram == null)
+            histogram = this.viewLatencies.computeIfAbsent(view, key -> new LatencyHistogram());
+        histogram.record(nanos);
+    }
+
+    @Override
+    public long getVotes() {
+        return this.votes.sum();
+    }
+
+    @Override
+    public long getEliminations() {
+        return this.eliminations.sum();
+    }
+
+    @Override
+    public long getRestarts() {
+        return this.restarts.sum();
+    }
+
+    @Override
+    public long getQuits() {
+        return this.quits.sum();
+    }
+
+    @Override
+    public long getRestaurants() {
+        return this.restaurants.sum();
+    }
+
+    @Override
+    public long getPlayers() {
+        return this.players.sum();
+    }
+
+    @Override
+    public Map<String, LatencySummary> getStateLatencies() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        for (Map.Entry<StateType, LatencyHistogram> entry : this.stateLatencies.entrySet())
+            summaries.put(entry.getKey().name(), entry.getValue().getSummary());
+        return summaries;
+    }
+
+    @Override
+    public Map<String, LatencySummary> getViewLatencies() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        for (Map.Entry<Class<?>, LatencyHistogram> entry : this.viewLatencies.entrySet())
+            summaries.put(entry.getKey().getSimpleName(), entry.getValue().getSummary());
+        return summaries;
+    }
+
+    @Override
+    public void reset() {
+        this.votes.reset();
+        this.eliminations.reset();
+        this.restarts.reset();
+        this.quits.reset();
+        for (LatencyHistogram histogram : this.stateLatencies.values())
+            histogram.reset();
+        for (LatencyHistogram histogram : this.viewLatencies.values())
+            histogram.reset();
+    }
+
+    /**
+     * Listener for one game. Keeps the game's own counts so they can be taken
+     * back out of the totals when the game is reset.
+     */
+    private final class Recorder implements GameListener {
+        private int numRestaurants;
+        private int numPlayers;
+        // The game's votes by restaurant id, an adder created when the restaurant is added
+        private volatile LongAdder[] restaurantVotes = new LongAdder[0];
+
+        @Override
+        public void playersCleared() {
+            GameMetrics.this.players.add(-this.numPlayers);
+            this.numPlayers = 0;
+        }
+
+        @Override
+        public void playerAdded(String player) {
+            GameMetrics.this.players.increment();
+            this.numPlayers++;
+        }
+
+        @Override
+        public void restaurantAdded(int id, String restaurant) {
+            GameMetrics.this.restaurants.increment();
+            this.numRestaurants++;
+            LongAdder[] byId = this.restaurantVotes;
+            if (id >= byId.length)
+                byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+            if (byId[id] == null)
+                byId[id] = new LongAdder();
+            this.restaurantVotes = byId;
+        }
+
+        @Override
+        public void restaurantRemoved(int id) {
+            GameMetrics.this.restaurants.decrement();
+            this.numRestaurants--;
+            this.takeVotes(id);
+        }
+
+        @Override
+        public void restaurantEliminated(String player, int id) {
+            // Eliminated restaurants are out of the current count until restored
+            GameMetrics.this.eliminations.increment();
+            GameMetrics.this.restaurants.decrement();
+            this.numRestaurants--;
+        }
+
+        @Override
+        public void eliminationUndone(String player, int id) {
+            GameMetrics.this.eliminations.decrement();
+            GameMetrics.this.restaurants.increment();
+            this.numRestaurants++;
+        }
+
+        @Override
+        public void ballotCounted(String player, int[] ids, int[] marks) {
+            for (int id : ids)
+                this.addVotes(id, 1);
+        }
+
+        @Override
+        public void ballotRetracted(String player, int[] ids) {
+            for (int id : ids)
+                this.addVotes(id, -1);
+        }
+
+        @Override
+        public void votesAdded(int id, int numVotes) {
+            this.addVotes(id, numVotes);
+        }
+
+        @Override
+        public void votesRemoved(int id, int numVotes) {
+            this.addVotes(id, -numVotes);
+        }
+
+        @Override
+        public void votingReset() {
+            for (int id = 0; id < this.restaurantVotes.length; id++)
+                this.takeVotes(id);
+        }
+
+        @Override
+        public void stateReset() {
+            GameMetrics.this.restaurants.add(-this.numRestaurants);
+            GameMetrics.this.players.add(-this.numPlayers);
+            this.numRestaurants = 0;
+            this.numPlayers = 0;
+            this.votingReset();
+        }
+
+        @Override
+        public void turnPlayed(StateType state, long nanos) {
+            GameMetrics.this.stateLatencies.get(state).record(nanos);
+        }
+
+        @Override
+        public void backChosen(StateType state) {
+            GameMetrics.this.restarts.increment();
+        }
+
+        @Override
+        public void quitChosen(StateType state) {
+            GameMetrics.this.quits.increment();
+        }
+
+        private void addVotes(int id, long numVotes) {
+            LongAdder[] byId = this.restaurantVotes;
+            if (id < byId.length && byId[id] != null)
+                byId[id].add(numVotes);
+            GameMetrics.this.votes.add(numVotes);
+        }
+
+        // Take a restaurant's votes back out of the total
+        private void takeVotes(int id) {
+            LongAdder[] byId = this.restaurantVotes;
+            if (id < byId.length && byId[id] != null)
+                GameMetrics.this.votes.add(-byId[id].sumThenReset());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.getmarco.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link GameMetrics}. Latencies are keyed by state
+ * type and by view class name.
+ */
+public interface GameMetricsMXBean {
+    /**
+     * Votes currently counted: restaurants marked on the kept ballots (however
+     * many points each mark is worth) plus votes without a ballot. Votes taken
+     * back, reset or going with a removed restaurant come off.
+     * @return the number of votes
+     */
+    long getVotes();
+
+    /**
+     * Restaurants eliminated, less the eliminations undone
+     * @return the number of eliminations
+     */
+    long getEliminations();
+
+    /**
+     * 'Back' actions chosen, e.g. restarting the data entry or the vote
+     * @return the number of restarts
+     */
+    long getRestarts();
+
+    /**
+     * 'Quit' actions chosen
+     * @return the number of quits
+     */
+    long getQuits();
+
+    /**
+     * Restaurants currently in the attached games
+     * @return the number of restaurants
+     */
+    long getRestaurants();
+
+    /**
+     * Players currently in the attached games
+     * @return the number of players
+     */
+    long getPlayers();
+
+    /**
+     * How long turns of each state took
+     * @return latency summaries by state type
+     */
+    Map<String, LatencySummary> getStateLatencies();
+
+    /**
+     * How long each kind of view took to display (including player input)
+     * @return latency summaries by view class
+     */
+    Map<String, LatencySummary> getViewLatencies();
+
+    /**
+     * Clear the counters and latencies (current counts are kept)
+     */
+    void reset();
+}
@@ -0,0 +1,95 @@
+package org.getmarco.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram. Each power of two of nanoseconds is split into
+ * four buckets (so a bucket is within 25% of its values), and every bucket
+ * is a {@link LongAdder}: recording is a few adds on counters that spread out
+ * under contention, without locks or allocation.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < NUM_BUCKETS; i++)
+            this.buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Record one latency.
+     * @param nanos the latency in nanoseconds (negative values count as zero)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets[bucket(value)].increment();
+        this.count.increment();
+        this.total.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Summarize the recorded latencies. Taken while recording goes on, the
+     * summary is approximate but never blocks the recording threads.
+     * @return count, mean, percentiles (bucket upper bounds) and max
+     */
+    public LatencySummary getSummary() {
+        long[] counts = new long[NUM_BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+            recorded += counts[i];
+        }
+        double[] percentiles = new double[PERCENTILES.length];
+        long seen = 0;
+        int next = 0;
+        for (int i = 0; i < NUM_BUCKETS && next < PERCENTILES.length; i++) {
+            seen += counts[i];
+            while (next < PERCENTILES.length && recorded > 0 && seen >= Math.ceil(PERCENTILES[next] * recorded))
+                percentiles[next++] = upperBound(i) / NANOS_PER_MICRO;
+        }
+        long num = this.count.sum();
+        long maxNanos = this.max.get();
+        return new LatencySummary(num, num == 0 ? 0 : this.total.sum() / NANOS_PER_MICRO / num,
+          Math.min(percentiles[0], maxNanos / NANOS_PER_MICRO), Math.min(percentiles[1], maxNanos / NANOS_PER_MICRO),
+          Math.min(percentiles[2], maxNanos / NANOS_PER_MICRO), maxNanos / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Forget all recorded latencies.
+     */
+    public void reset() {
+        for (LongAdder bucket : this.buckets)
+            bucket.reset();
+        this.count.reset();
+        this.total.reset();
+        this.max.reset();
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int)nanos;
+        // Highest bit picks the power of two, the next bits pick the sub-bucket
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long)(SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,50 @@
+package org.getmarco.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point in time summary of a {@link LatencyHistogram}, in microseconds.
+ */
+public final class LatencySummary {
+    private final long count;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "maxMicros"})
+    public LatencySummary(long count, double meanMicros, double p50Micros, double p90Micros, double p99Micros,
+      double maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public double getMeanMicros() {
+        return this.meanMicros;
+    }
+
+    public double getP50Micros() {
+        return this.p50Micros;
+    }
+
+    public double getP90Micros() {
+        return this.p90Micros;
+    }
+
+    public double getP99Micros() {
+        return this.p99Micros;
+    }
+
+    public double getMaxMicros() {
+        return this.maxMicros;
+    }
+}
@@ -0,0 +1,417 @@
+package org.getmarco.persist;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.getmarco.Game;
+import org.getmarco.GameListener;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.ScoringRule;
+
+/**
+ * Versioned binary checkpoint of a {@link Game}: the setup numbers, scoring
+ * rule, current state, players, every restaurant with its vote count, the
+ * kept ballots and the eliminations. Snapshots are written and read through
+ * NIO channels with one reused buffer, names are encoded straight into the
+ * buffer, and restaurants are stored in alphabetical order so loading
+ * rebuilds the tally in one pass with
+ * {@link Game#restoreRestaurants(String[], int[], int)} instead of adding them
+ * one by one. Ballots are restored with their exact marks
+ * ({@link Game#restoreBallot(String, int[], int[])}), so they can still be
+ * retracted and counted again under another rule.
+ * <p>
+ * Layout (big-endian): magic, version (short), state ordinal (byte), number of
+ * players, restaurants per player, votes per player, scoring rule ordinal
+ * (byte), ranked choice (byte), then tagged records, as
+ * {@link Game#describeTo(GameListener)} gives them, up to an end tag: players
+ * (name), restaurants (name, in alphabetical order, numbered from 0), votes
+ * counted without a ballot (restaurant number, votes), ballots (player name
+ * unless anonymous, count, restaurant numbers, marks as bytes) and
+ * eliminations (player name, restaurant number). Names are an unsigned short
+ * byte length followed by modified UTF-8, as in
+ * {@link java.io.DataOutput#writeUTF(String)}.
+ */
+public final class GameSnapshot {
+    public static final short VERSION = 1;
+
+    private static final int MAGIC = 0x4C554E43; // "LUNC"
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+    private static final int SHORT_SIZE = 2;
+    private static final int INT_SIZE = 4;
+    private static final int HEADER_SIZE = INT_SIZE + SHORT_SIZE + 1 + INT_SIZE * 3 + 2;
+
+    // Record tags
+    private static final byte END = 0;
+    private static final byte PLAYER = 1;
+    private static final byte RESTAURANT = 2;
+    private static final byte VOTES = 3;
+    private static final byte BALLOT = 4;
+    private static final byte ANONYMOUS_BALLOT = 5;
+    private static final byte ELIMINATION = 6;
+
+    private GameSnapshot() {
+        // Not used
+    }
+
+    /**
+     * Write a snapshot of a game to a file, replacing the file if it exists.
+     * @param game the game
+     * @param path the snapshot file
+     */
+    public static void save(Game game, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+            save(game, channel);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write snapshot '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Write a snapshot of a game to a channel.
+     * @param game the game
+     * @param channel the channel to write to (left open)
+     */
+    public static void save(Game game, WritableByteChannel channel) {
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        if (channel == null)
+            throw new IllegalArgumentException("null channel");
+        try {
+            Writer writer = new Writer(channel);
+            writer.require(HEADER_SIZE);
+            writer.buffer.putInt(MAGIC);
+            writer.buffer.putShort(VERSION);
+            writer.buffer.put((byte)game.getStateType().ordinal());
+            writer.buffer.putInt(game.getNumPlayers());
+            writer.buffer.putInt(game.getNumRestaurantsPerPlayer());
+            writer.buffer.putInt(game.getNumVotesPerPlayer());
+            writer.buffer.put((byte)game.getScoringRule().ordinal());
+            writer.buffer.put((byte)(game.isRankedChoice() ? 1 : 0));
+
+            game.describeTo(new Recorder(writer));
+            writer.require(1);
+            writer.buffer.put(END);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write snapshot", e);
+        }
+    }
+
+    /**
+     * Restore a game from a snapshot file. The game's current data is replaced.
+     * @param path the snapshot file
+     * @param game the game to restore into
+     */
+    public static void load(Path path, Game game) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(channel, game);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read snapshot '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Restore a game from a snapshot read from a channel. The game's current data is replaced.
+     * @param channel the channel to read from (left open)
+     * @param game the game to restore into
+     */
+    public static void load(ReadableByteChannel channel, Game game) {
+        if (channel == null)
+            throw new IllegalArgumentException("null channel");
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        try {
+            Reader reader = new Reader(channel);
+            reader.require(HEADER_SIZE);
+            if (reader.buffer.getInt() != MAGIC)
+                throw new IllegalStateException("not a game snapshot");
+            short version = reader.buffer.getShort();
+            if (version != VERSION)
+                throw new IllegalStateException("unsupported snapshot version '" + version + "'");
+            int state = reader.buffer.get();
+            StateType[] stateTypes = StateType.values();
+            if (state < 0 || state >= stateTypes.length)
+                throw new IllegalStateException("unknown snapshot state '" + state + "'");
+
+            int numPlayers = reader.buffer.getInt();
+            int numRestaurantsPerPlayer = reader.buffer.getInt();
+            int numVotesPerPlayer = reader.buffer.getInt();
+            int rule = reader.buffer.get();
+            ScoringRule[] rules = ScoringRule.values();
+            if (rule < 0 || rule >= rules.length)
+                throw new IllegalStateException("unknown snapshot scoring rule '" + rule + "'");
+            boolean rankedChoice = reader.buffer.get() != 0;
+
+            game.resetState();
+            game.setNumPlayers(numPlayers);
+            game.setNumRestaurantsPerPlayer(numRestaurantsPerPlayer);
+            game.setNumVotesPerPlayer(numVotesPerPlayer);
+            game.setScoringRule(rules[rule]);
+            game.setRankedChoice(rankedChoice);
+            loadRecords(reader, game);
+            game.changeState(stateTypes[state]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read snapshot", e);
+        }
+    }
+
+    private static void loadRecords(Reader reader, Game game) throws IOException {
+        // Restaurants and their votes are gathered, then restored in one pass before the first ballot
+        String[] names = new String[16];
+        int[] votes = new int[names.length];
+        int numRestaurants = 0;
+        boolean restored = false;
+        while (true) {
+            reader.require(1);
+            byte tag = reader.buffer.get();
+            if (tag != PLAYER && tag != RESTAURANT && tag != VOTES && !restored) {
+                game.restoreRestaurants(names, votes, numRestaurants);
+                restored = true;
+            }
+            switch (tag) {
+                case END:
+                    return;
+                case PLAYER:
+                    game.addPlayer(reader.getName());
+                    break;
+                case RESTAURANT:
+                    if (restored)
+                        throw new IllegalStateException("snapshot restaurant after ballots");
+                    if (numRestaurants == names.length) {
+                        names = Arrays.copyOf(names, numRestaurants * 2);
+                        votes = Arrays.copyOf(votes, numRestaurants * 2);
+                    }
+                    names[numRestaurants++] = reader.getName();
+                    break;
+                case VOTES:
+                    int restaurant = reader.getCount();
+                    if (restored || restaurant >= numRestaurants)
+                        throw new IllegalStateException("snapshot votes for unknown restaurant '" + restaurant + "'");
+                    votes[restaurant] = reader.getCount();
+                    break;
+                case BALLOT:
+                case ANONYMOUS_BALLOT:
+                    String player = tag == BALLOT ? reader.getName() : null;
+                    int count = reader.getCount();
+                    int[] ids = new int[count];
+                    int[] marks = new int[count];
+                    for (int i = 0; i < count; i++)
+                        ids[i] = reader.getCount();
+                    for (int i = 0; i < count; i++) {
+                        reader.require(1);
+                        marks[i] = reader.buffer.get();
+                    }
+                    game.restoreBallot(player, ids, marks);
+                    break;
+                case ELIMINATION:
+                    String eliminatedBy = reader.getName();
+                    game.eliminateRestaurant(eliminatedBy, game.getRestaurantName(reader.getCount()));
+                    break;
+                default:
+                    throw new IllegalStateException("unknown snapshot record '" + tag + "'");
+            }
+        }
+    }
+
+    /**
+     * Writes the records of the game being described. Restaurants are
+     * numbered in the order they come, which is alphabetical, as the loader
+     * numbers them.
+     */
+    private static final class Recorder implements GameListener {
+        private final Writer writer;
+        private int[] numbers = new int[16];
+        private int numRestaurants;
+
+        Recorder(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void playerAdded(String player) {
+            try {
+                this.writer.require(1);
+                this.writer.buffer.put(PLAYER);
+                this.writer.putName(player);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to write snapshot", e);
+            }
+        }
+
+        @Override
+        public void restaurantAdded(int id, String restaurant) {
+            if (id >= this.numbers.length)
+                this.numbers = Arrays.copyOf(this.numbers, Math.max(id + 1, this.numbers.length * 2));
+            this.numbers[id] = this.numRestaurants++;
+            try {
+                this.writer.require(1);
+                this.writer.buffer.put(RESTAURANT);
+                this.writer.putName(restaurant);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to write snapshot", e);
+            }
+        }
+
+        @Override
+        public void votesAdded(int id, int votes) {
+            try {
+                this.writer.require(1 + INT_SIZE * 2);
+                this.writer.buffer.put(VOTES);
+                this.writer.buffer.putInt(this.numbers[id]);
+                this.writer.buffer.putInt(votes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to write snapshot", e);
+            }
+        }
+
+        @Override
+        public void ballotCounted(String player, int[] ids, int[] marks) {
+            try {
+                this.writer.require(1);
+                this.writer.buffer.put(player == null ? ANONYMOUS_BALLOT : BALLOT);
+                if (player != null)
+                    this.writer.putName(player);
+                this.writer.require(INT_SIZE);
+                this.writer.buffer.putInt(ids.length);
+                for (int id : ids) {
+                    this.writer.require(INT_SIZE);
+                    this.writer.buffer.putInt(this.numbers[id]);
+                }
+                for (int mark : marks) {
+                    this.writer.require(1);
+                    this.writer.buffer.put((byte)mark);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to write snapshot", e);
+            }
+        }
+
+        @Override
+        public void restaurantEliminated(String player, int id) {
+            try {
+                this.writer.require(1);
+                this.writer.buffer.put(ELIMINATION);
+                this.writer.putName(player);
+                this.writer.require(INT_SIZE);
+                this.writer.buffer.putInt(this.numbers[id]);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to write snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Buffers output to a channel
+     */
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void require(int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes)
+                this.flush();
+        }
+
+        void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining())
+                this.channel.write(this.buffer);
+            this.buffer.clear();
+        }
+
+        void putName(String name) throws IOException {
+            int length = name.length();
+            int bytes = 0;
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                bytes += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+            }
+            if (bytes > MAX_NAME_BYTES)
+                throw new IllegalArgumentException("name '" + name.substring(0, 16) + "...' too long");
+            this.require(SHORT_SIZE + bytes);
+            this.buffer.putShort((short)bytes);
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) {
+                    this.buffer.put((byte)c);
+                } else if (c <= 0x07FF) {
+                    this.buffer.put((byte)(0xC0 | (c >> 6)));
+                    this.buffer.put((byte)(0x80 | (c & 0x3F)));
+                } else {
+                    this.buffer.put((byte)(0xE0 | (c >> 12)));
+                    this.buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+                    this.buffer.put((byte)(0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers input from a channel, decoding names into a reused char array
+     */
+    private static final class Reader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private char[] chars = new char[64];
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer.flip();
+        }
+
+        void require(int bytes) throws IOException {
+            if (this.buffer.remaining() >= bytes)
+                return;
+            this.buffer.compact();
+            while (this.buffer.position() < bytes) {
+                if (this.channel.read(this.buffer) < 0)
+                    throw new EOFException("truncated snapshot");
+            }
+            this.buffer.flip();
+        }
+
+        int getCount() throws IOException {
+            this.require(INT_SIZE);
+            int count = this.buffer.getInt();
+            if (count < 0)
+                throw new IllegalStateException("invalid snapshot count '" + count + "'");
+            return count;
+        }
+
+        String getName() throws IOException {
+            this.require(SHORT_SIZE);
+            int bytes = this.buffer.getShort() & MAX_NAME_BYTES;
+            this.require(bytes);
+            if (bytes > this.chars.length)
+                this.chars = new char[Math.max(bytes, this.chars.length * 2)];
+            int length = 0;
+            int end = this.buffer.position() + bytes;
+            while (this.buffer.position() < end) {
+                int b = this.buffer.get() & 0xFF;
+                if (b < 0x80)
+                    this.chars[length++] = (char)b;
+                else if (b < 0xE0)
+                    this.chars[length++] = (char)(((b & 0x1F) << 6) | (this.buffer.get() & 0x3F));
+                else
+                    this.chars[length++] = (char)(((b & 0x0F) << 12) | ((this.buffer.get() & 0x3F) << 6)
+                      | (this.buffer.get() & 0x3F));
+            }
+            return new String(this.chars, 0, length);
+        }
+    }
+}
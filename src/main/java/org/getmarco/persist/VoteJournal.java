@@ -0,0 +1,691 @@
+package org.getmarco.persist;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.getmarco.Game;
+import org.getmarco.GameListener;
+import org.getmarco.tally.ScoringRule;
+
+/**
+ * Append-only journal of a {@link Game}'s changes. Every setup change, player,
+ * restaurant, elimination, ballot, vote and reset is written as a compact binary
+ * record (a vote is 9 bytes: its type, a checksum and the restaurant id) into
+ * memory-mapped segment files in a directory.
+ * A ballot is journaled with its marks and player, rather than as the votes
+ * it adds, so it can be retracted and counted again after recovery.
+ * Appending is just a memory write: space for a record is reserved with an
+ * atomic add, so voting threads never wait on each other or on the disk. A
+ * background thread forces dirty segments to disk every commit interval
+ * (group commit); {@link #sync()} forces them immediately. A segment that
+ * has been rolled over is forced until its last writers have finished.
+ * <p>
+ * On startup {@link #recover(Path, Game)} replays the journal into a fresh
+ * game, restoring its exact prior state, and then journals the game's new
+ * changes. Replay stops at the first incomplete record (the end of the
+ * journal, or a record torn by a crash, which its checksum gives away). A
+ * full segment is closed with an end marker, so a segment ending any other
+ * way was torn: recovery zeroes it from the tear on, and deletes the
+ * segments after it, whose records may depend on the ones lost.
+ */
+public final class VoteJournal implements GameListener, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+    // Record types (zero marks unwritten space, the end of a segment's records)
+    private static final byte SEGMENT_END = -1;
+    private static final byte NUM_PLAYERS = 1;
+    private static final byte NUM_RESTAURANTS_PER_PLAYER = 2;
+    private static final byte PLAYERS_CLEARED = 3;
+    private static final byte PLAYER_ADDED = 4;
+    private static final byte RESTAURANT_ADDED = 5;
+    private static final byte RESTAURANT_REMOVED = 6;
+    private static final byte VOTE = 7;
+    private static final byte VOTES = 8;
+    private static final byte VOTING_RESET = 9;
+    private static final byte STATE_RESET = 10;
+    private static final byte VOTES_REMOVED = 11;
+    private static final byte RESTAURANT_ELIMINATED = 12;
+    private static final byte ELIMINATION_UNDONE = 13;
+    private static final byte NUM_VOTES_PER_PLAYER = 14;
+    private static final byte SCORING_RULE = 15;
+    private static final byte RANKED_CHOICE = 16;
+    private static final byte BALLOT = 17;
+    private static final byte ANONYMOUS_BALLOT = 18;
+    private static final byte BALLOT_RETRACTED = 19;
+
+    private static final int TYPE_SIZE = 1;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int HEADER_SIZE = TYPE_SIZE + CHECKSUM_SIZE;
+    private static final int INT_SIZE = 4;
+    private static final int SHORT_SIZE = 2;
+    private static final int MARK_SIZE = 1;
+    private static final String SEGMENT_FORMAT = "journal-%08d.seg";
+
+    private final Logger logger = LogManager.getLogger(this.getClass());
+
+    private final Path directory;
+    private final int segmentSize;
+    private volatile Segment segment;
+    // Rolled over segments that may still be written (guarded by this)
+    private final List<Segment> retired = new ArrayList<>();
+    private final ScheduledExecutorService committer;
+
+    private VoteJournal(Path directory, int segmentSize, long commitIntervalMillis) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replay a journal directory into a game and start journaling the game's changes.
+     * @param directory the journal directory (created if missing)
+     * @param game a new game to restore
+     * @return the journal
+     */
+    public static VoteJournal recover(Path directory, Game game) {
+        return recover(directory, game, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Replay a journal directory into a game and start journaling the game's changes.
+     * @param directory the journal directory (created if missing)
+     * @param game a new game to restore
+     * @param segmentSize the size of each segment file in bytes
+     * @param commitIntervalMillis how often dirty segments are forced to disk
+     * @return the journal
+     */
+    public static VoteJournal recover(Path directory, Game game, int segmentSize, long commitIntervalMillis) {
+        if (directory == null)
+            throw new IllegalArgumentException("null directory");
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        if (segmentSize < Short.MAX_VALUE)
+            throw new IllegalArgumentException("segment size '" + segmentSize + "' too small");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to create journal directory '" + directory + "'", e);
+        }
+        VoteJournal journal = new VoteJournal(directory, segmentSize, commitIntervalMillis);
+        try {
+            journal.segment = journal.replaySegments(game);
+        } catch (RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        game.addListener(journal);
+        return journal;
+    }
+
+    /**
+     * Read a journal directory into a game without journaling further changes.
+     * @param directory the journal directory
+     * @param game a new game to restore
+     * @return the number of records replayed
+     */
+    public static long replay(Path directory, Game game) {
+        long records = 0;
+        for (int index = 0; Files.exists(segmentPath(directory, index)); index++) {
+            Path path = segmentPath(directory, index);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Segment segment = new Segment(index, buffer, 0);
+                records += segment.replay(game);
+                if (!segment.isClosed())
+                    break;
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to read journal segment '" + path + "'", e);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Force everything journaled so far to disk.
+     */
+    public void sync() {
+        this.commit();
+    }
+
+    /**
+     * Force the journal to disk and stop the commit thread. The game should
+     * no longer be changed once its journal is closed.
+     */
+    @Override
+    public void close() {
+        this.committer.shutdown();
+        this.commit();
+    }
+
+    private synchronized void commit() {
+        for (Iterator<Segment> iterator = this.retired.iterator(); iterator.hasNext(); ) {
+            Segment old = iterator.next();
+            // Writers that reserved space before the roll may still be filling it in, later ones can't reserve
+            boolean drained = old.writers.get() == 0;
+            old.force();
+            if (drained)
+                iterator.remove();
+        }
+        Segment current = this.segment;
+        if (current != null)
+            current.force();
+    }
+
+    @Override
+    public void numPlayersChanged(int numPlayers) {
+        this.append(NUM_PLAYERS, numPlayers, 0, null);
+    }
+
+    @Override
+    public void numRestaurantsPerPlayerChanged(int numRestaurantsPerPlayer) {
+        this.append(NUM_RESTAURANTS_PER_PLAYER, numRestaurantsPerPlayer, 0, null);
+    }
+
+    @Override
+    public void numVotesPerPlayerChanged(int numVotesPerPlayer) {
+        this.append(NUM_VOTES_PER_PLAYER, numVotesPerPlayer, 0, null);
+    }
+
+    @Override
+    public void scoringRuleChanged(ScoringRule scoringRule) {
+        this.append(SCORING_RULE, scoringRule.ordinal(), 0, null);
+    }
+
+    @Override
+    public void rankedChoiceChanged(boolean rankedChoice) {
+        this.append(RANKED_CHOICE, rankedChoice ? 1 : 0, 0, null);
+    }
+
+    @Override
+    public void playersCleared() {
+        this.append(PLAYERS_CLEARED, 0, 0, null);
+    }
+
+    @Override
+    public void playerAdded(String player) {
+        this.append(PLAYER_ADDED, 0, 0, player);
+    }
+
+    @Override
+    public void restaurantAdded(int id, String restaurant) {
+        // The id is implied, replay adds restaurants in the same order so they get the same ids
+        this.append(RESTAURANT_ADDED, 0, 0, restaurant);
+    }
+
+    @Override
+    public void restaurantRemoved(int id) {
+        this.append(RESTAURANT_REMOVED, id, 0, null);
+    }
+
+    @Override
+    public void restaurantEliminated(String player, int id) {
+        this.append(RESTAURANT_ELIMINATED, id, 0, player);
+    }
+
+    @Override
+    public void eliminationUndone(String player, int id) {
+        this.append(ELIMINATION_UNDONE, 0, 0, player);
+    }
+
+    @Override
+    public void ballotCounted(String player, int[] ids, int[] marks) {
+        this.append(player == null ? ANONYMOUS_BALLOT : BALLOT, ids.length, 0, ids, marks, player);
+    }
+
+    @Override
+    public void ballotRetracted(String player, int[] ids) {
+        this.append(BALLOT_RETRACTED, 0, 0, player);
+    }
+
+    @Override
+    public void votesAdded(int id, int votes) {
+        if (votes == 1)
+            this.append(VOTE, id, 0, null);
+        else
+            this.append(VOTES, id, votes, null);
+    }
+
+    @Override
+    public void votesRemoved(int id, int votes) {
+        this.append(VOTES_REMOVED, id, votes, null);
+    }
+
+    @Override
+    public void votingReset() {
+        this.append(VOTING_RESET, 0, 0, null);
+    }
+
+    @Override
+    public void stateReset() {
+        this.append(STATE_RESET, 0, 0, null);
+    }
+
+    private void append(byte type, int first, int second, String name) {
+        this.append(type, first, second, null, null, name);
+    }
+
+    /**
+     * Write one record. Space is reserved with an atomic add, and the type byte
+     * is written last so a record only counts once its payload is in place.
+     * The type is followed by a CRC-32 of the type and payload. The payload is
+     * the type's ints, then a ballot's ids and marks (if any), then the name
+     * (if any).
+     * @param type the record type
+     * @param first the first int of the payload (if the type has one)
+     * @param second the second int of the payload (if the type has one)
+     * @param ids the ballot's restaurant ids (if the type has them)
+     * @param marks the ballot's marks, one byte each (if the type has them)
+     * @param name the name in the payload (if the type has one)
+     */
+    private void append(byte type, int first, int second, int[] ids, int[] marks, String name) {
+        byte[] bytes = null;
+        int ints = payloadInts(type);
+        int length = HEADER_SIZE + INT_SIZE * ints;
+        if (ids != null)
+            length += (INT_SIZE + MARK_SIZE) * ids.length;
+        if (name != null) {
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE)
+                throw new IllegalArgumentException("name too long to journal '" + name + "'");
+            length += SHORT_SIZE + bytes.length;
+        }
+
+        Segment current = this.segment;
+        current.writers.incrementAndGet();
+        int position = current.reserve(length);
+        while (position < 0) {
+            current.writers.decrementAndGet();
+            current = this.roll(current);
+            current.writers.incrementAndGet();
+            position = current.reserve(length);
+        }
+
+        MappedByteBuffer buffer = current.buffer;
+        int payload = position + HEADER_SIZE;
+        if (ints > 0)
+            buffer.putInt(payload, first);
+        if (ints > 1)
+            buffer.putInt(payload + INT_SIZE, second);
+        int at = payload + INT_SIZE * ints;
+        if (ids != null) {
+            for (int i = 0; i < ids.length; i++) {
+                buffer.putInt(at, ids[i]);
+                at += INT_SIZE;
+            }
+            for (int i = 0; i < marks.length; i++)
+                buffer.put(at++, (byte)marks[i]);
+        }
+        if (bytes != null) {
+            buffer.putShort(at, (short)bytes.length);
+            for (int i = 0; i < bytes.length; i++)
+                buffer.put(at + SHORT_SIZE + i, bytes[i]);
+        }
+        buffer.putInt(position + TYPE_SIZE, checksum(buffer, position + HEADER_SIZE, position + length, type));
+        buffer.put(position, type);
+        current.dirty = true;
+        current.writers.decrementAndGet();
+    }
+
+    private static int payloadInts(byte type) {
+        switch (type) {
+            case NUM_PLAYERS:
+            case NUM_RESTAURANTS_PER_PLAYER:
+            case RESTAURANT_REMOVED:
+            case RESTAURANT_ELIMINATED:
+            case NUM_VOTES_PER_PLAYER:
+            case SCORING_RULE:
+            case RANKED_CHOICE:
+            case BALLOT:
+            case ANONYMOUS_BALLOT:
+            case VOTE:
+                return 1;
+            case VOTES:
+            case VOTES_REMOVED:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    // The CRC-32 of a record's type and payload
+    private static int checksum(ByteBuffer records, int payload, int end, byte type) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        ByteBuffer bytes = records.duplicate();
+        bytes.limit(end).position(payload);
+        crc.update(bytes);
+        return (int)crc.getValue();
+    }
+
+    private static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format(SEGMENT_FORMAT, index));
+    }
+
+    /**
+     * Move on from a full segment (unless another thread already did)
+     * @return the current segment
+     */
+    private synchronized Segment roll(Segment full) {
+        if (this.segment == full) {
+            this.retired.add(full);
+            this.segment = this.openSegment(full.index + 1, 0);
+            this.commit();
+        }
+        return this.segment;
+    }
+
+    private Segment openSegment(int index, int position) {
+        Path path = segmentPath(this.directory, index);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (file.length() < this.segmentSize)
+                file.setLength(this.segmentSize);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            return new Segment(index, buffer, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open journal segment '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Replay every segment up to a tear, returning the segment to continue appending to.
+     */
+    private Segment replaySegments(Game game) {
+        Segment last = null;
+        int index = 0;
+        long records = 0;
+        while (Files.exists(segmentPath(this.directory, index))) {
+            last = this.openSegment(index, 0);
+            records += last.replay(game);
+            index++;
+            if (!last.isClosed()) {
+                // Records past a tear may follow ones lost in it, clear them so appends aren't followed by them
+                if (last.clearTail())
+                    logger.warn("Discarded torn journal records in '" + segmentPath(this.directory, last.index) + "'");
+                this.deleteSegments(index);
+                break;
+            }
+        }
+        logger.debug("Replayed '" + records + "' journal records from '" + this.directory + "'");
+        if (last == null)
+            return this.openSegment(0, 0);
+        return last.isClosed() ? this.openSegment(last.index + 1, 0) : last;
+    }
+
+    // Delete the segments from index on
+    private void deleteSegments(int index) {
+        for (int later = index; Files.exists(segmentPath(this.directory, later)); later++) {
+            Path path = segmentPath(this.directory, later);
+            logger.warn("Discarded journal segment '" + path + "' after a torn record");
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to delete journal segment '" + path + "'", e);
+            }
+        }
+    }
+
+    /**
+     * One memory-mapped segment file
+     */
+    private static final class Segment {
+        private final int index;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger next;
+        // Whether replay reached the segment's end marker or its capacity
+        private boolean closed;
+        // Appends in progress, between reserving space and writing the type byte
+        private final AtomicInteger writers = new AtomicInteger();
+        private volatile boolean dirty;
+
+        Segment(int index, MappedByteBuffer buffer, int position) {
+            this.index = index;
+            this.buffer = buffer;
+            this.next = new AtomicInteger(position);
+        }
+
+        /**
+         * Force the segment to disk if it was written since last forced
+         */
+        void force() {
+            if (this.dirty) {
+                this.dirty = false;
+                this.buffer.force();
+            }
+        }
+
+        /**
+         * Reserve space for a record
+         * @return the record's position, or -1 if the segment is full
+         */
+        int reserve(int length) {
+            int position = this.next.getAndAdd(length);
+            if (position < 0 || position + length > this.buffer.capacity()) {
+                // Full, push the position far negative so no later (smaller) record fits either
+                this.next.set(Integer.MIN_VALUE / 2);
+                // The one record straddling the end closes the segment, later ones start past it
+                if (position >= 0 && position < this.buffer.capacity()) {
+                    this.buffer.put(position, SEGMENT_END);
+                    this.dirty = true;
+                }
+                return -1;
+            }
+            return position;
+        }
+
+        boolean isClosed() {
+            return this.closed;
+        }
+
+        /**
+         * Zero the segment after its last replayed record
+         * @return whether there was anything to zero
+         */
+        boolean clearTail() {
+            int position = this.next.get();
+            int end = this.buffer.capacity();
+            while (end > position && this.buffer.get(end - 1) == 0)
+                end--;
+            for (int i = position; i < end; i++)
+                this.buffer.put(i, (byte)0);
+            this.dirty |= end > position;
+            this.force();
+            return end > position;
+        }
+
+        /**
+         * Apply this segment's records to a game, leaving the append position after the last one.
+         */
+        long replay(Game game) {
+            ByteBuffer records = this.buffer.duplicate();
+            int limit = records.capacity();
+            int position = 0;
+            long count = 0;
+            while (position < limit) {
+                byte type = records.get(position);
+                int length = recordLength(records, position, type, limit);
+                if (length < 0 || records.getInt(position + TYPE_SIZE) != checksum(records, position + HEADER_SIZE,
+                  position + length, type))
+                    break;
+                apply(game, records, position, type);
+                position += length;
+                count++;
+            }
+            this.next.set(position);
+            this.closed = position == limit || records.get(position) == SEGMENT_END;
+            return count;
+        }
+
+        private static int recordLength(ByteBuffer records, int position, byte type, int limit) {
+            if (position + HEADER_SIZE > limit)
+                return -1;
+            int length;
+            switch (type) {
+                case PLAYERS_CLEARED:
+                case VOTING_RESET:
+                case STATE_RESET:
+                    length = HEADER_SIZE;
+                    break;
+                case NUM_PLAYERS:
+                case NUM_RESTAURANTS_PER_PLAYER:
+                case NUM_VOTES_PER_PLAYER:
+                case SCORING_RULE:
+                case RANKED_CHOICE:
+                case RESTAURANT_REMOVED:
+                case VOTE:
+                case VOTES:
+                case VOTES_REMOVED:
+                    length = HEADER_SIZE + INT_SIZE * payloadInts(type);
+                    break;
+                case ANONYMOUS_BALLOT:
+                    length = ballotLength(records, position, limit);
+                    break;
+                case BALLOT:
+                    length = ballotLength(records, position, limit);
+                    if (length < 0)
+                        return -1;
+                    length = nameLength(records, position, position + length, limit);
+                    break;
+                case PLAYER_ADDED:
+                case RESTAURANT_ADDED:
+                case RESTAURANT_ELIMINATED:
+                case ELIMINATION_UNDONE:
+                case BALLOT_RETRACTED:
+                    length = nameLength(records, position, position + HEADER_SIZE + INT_SIZE * payloadInts(type), limit);
+                    break;
+                default:
+                    // Unwritten space, the end marker or a torn record
+                    return -1;
+            }
+            return length >= 0 && position + length <= limit ? length : -1;
+        }
+
+        // The length of a ballot record up to its name (if any): the count, then the ids, then the marks
+        private static int ballotLength(ByteBuffer records, int position, int limit) {
+            int idsAt = position + HEADER_SIZE + INT_SIZE;
+            if (idsAt > limit)
+                return -1;
+            int count = records.getInt(position + HEADER_SIZE);
+            if (count < 0 || count > (limit - idsAt) / (INT_SIZE + MARK_SIZE))
+                return -1;
+            return idsAt - position + (INT_SIZE + MARK_SIZE) * count;
+        }
+
+        // The length of a record ending with the name at nameAt
+        private static int nameLength(ByteBuffer records, int position, int nameAt, int limit) {
+            if (nameAt + SHORT_SIZE > limit || records.getShort(nameAt) < 0)
+                return -1;
+            return nameAt - position + SHORT_SIZE + records.getShort(nameAt);
+        }
+
+        private static void apply(Game game, ByteBuffer records, int position, byte type) {
+            int payload = position + HEADER_SIZE;
+            switch (type) {
+                case NUM_PLAYERS:
+                    game.setNumPlayers(records.getInt(payload));
+                    break;
+                case NUM_RESTAURANTS_PER_PLAYER:
+                    game.setNumRestaurantsPerPlayer(records.getInt(payload));
+                    break;
+                case NUM_VOTES_PER_PLAYER:
+                    game.setNumVotesPerPlayer(records.getInt(payload));
+                    break;
+                case SCORING_RULE:
+                    int rule = records.getInt(payload);
+                    if (rule < 0 || rule >= ScoringRule.values().length)
+                        throw new IllegalStateException("unknown journal scoring rule '" + rule + "'");
+                    game.setScoringRule(ScoringRule.values()[rule]);
+                    break;
+                case RANKED_CHOICE:
+                    game.setRankedChoice(records.getInt(payload) != 0);
+                    break;
+                case PLAYERS_CLEARED:
+                    game.setPlayers(Collections.<String>emptySet());
+                    break;
+                case PLAYER_ADDED:
+                    game.addPlayer(readString(records, payload));
+                    break;
+                case RESTAURANT_ADDED:
+                    game.addRestaurants(Collections.singleton(readString(records, payload)));
+                    break;
+                case RESTAURANT_REMOVED:
+                    game.removeRestaurant(game.getRestaurantName(records.getInt(payload)));
+                    break;
+                case RESTAURANT_ELIMINATED:
+                    int eliminated = records.getInt(payload);
+                    game.eliminateRestaurant(readString(records, payload + INT_SIZE), game.getRestaurantName(eliminated));
+                    break;
+                case ELIMINATION_UNDONE:
+                    game.undoElimination(readString(records, payload));
+                    break;
+                case BALLOT:
+                case ANONYMOUS_BALLOT:
+                    int count = records.getInt(payload);
+                    int[] ids = new int[count];
+                    int[] marks = new int[count];
+                    int at = payload + INT_SIZE;
+                    for (int i = 0; i < count; i++) {
+                        ids[i] = records.getInt(at);
+                        at += INT_SIZE;
+                    }
+                    for (int i = 0; i < count; i++)
+                        marks[i] = records.get(at++);
+                    game.restoreBallot(type == BALLOT ? readString(records, at) : null, ids, marks);
+                    break;
+                case BALLOT_RETRACTED:
+                    game.retractBallot(readString(records, payload));
+                    break;
+                case VOTE:
+                    game.vote(records.getInt(payload));
+                    break;
+                case VOTES:
+                    game.addVotes(records.getInt(payload), records.getInt(payload + INT_SIZE));
+                    break;
+                case VOTES_REMOVED:
+                    game.removeVotes(records.getInt(payload), records.getInt(payload + INT_SIZE));
+                    break;
+                case VOTING_RESET:
+                    game.resetVoting();
+                    break;
+                case STATE_RESET:
+                    game.resetState();
+                    break;
+                default:
+                    throw new IllegalStateException("unknown journal record type '" + type + "'");
+            }
+        }
+
+        private static String readString(ByteBuffer records, int position) {
+            int length = records.getShort(position);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+                bytes[i] = records.get(position + SHORT_SIZE + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
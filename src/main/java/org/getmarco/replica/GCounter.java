@@ -0,0 +1,81 @@
+package org.getmarco.replica;
+
+import java.util.Arrays;
+
+/**
+ * Grow-only counter replicated across nodes (a G-counter CRDT). Every node
+ * only ever adds to its own slot, and the counter's value is the sum of the
+ * slots. Replicas merge by taking the highest count seen for each node, which
+ * is idempotent, commutative and associative: replicas that have seen the
+ * same updates, in any order and any number of times, hold the same value.
+ * Nodes are identified by their index in the replica's node dictionary (see
+ * {@link ReplicatedTally}).
+ */
+public final class GCounter {
+    private long[] counts = new long[0];
+
+    /**
+     * Count up the slot of a node.
+     * @param node the node index
+     * @param amount how much to add (not negative)
+     */
+    public void increment(int node, long amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("negative amount '" + amount + "'");
+        this.ensureNode(node);
+        this.counts[node] += amount;
+    }
+
+    /**
+     * Get the count of a node.
+     * @param node the node index
+     * @return the node's count (zero for a node never seen)
+     */
+    public long get(int node) {
+        return node >= 0 && node < this.counts.length ? this.counts[node] : 0;
+    }
+
+    /**
+     * Merge the count of a node seen by another replica.
+     * @param node the node index
+     * @param count the node's count on the other replica
+     * @return true if the count was higher than this replica's
+     */
+    public boolean merge(int node, long count) {
+        if (count <= this.get(node))
+            return false;
+        this.ensureNode(node);
+        this.counts[node] = count;
+        return true;
+    }
+
+    /**
+     * Merge another replica of the counter, using the same node indexes.
+     * @param other the other replica
+     * @return true if any count was higher than this replica's
+     */
+    public boolean merge(GCounter other) {
+        boolean changed = false;
+        for (int node = 0; node < other.counts.length; node++)
+            changed |= this.merge(node, other.counts[node]);
+        return changed;
+    }
+
+    /**
+     * Get the value of the counter.
+     * @return the sum of the counts of all nodes
+     */
+    public long value() {
+        long sum = 0;
+        for (long count : this.counts)
+            sum += count;
+        return sum;
+    }
+
+    private void ensureNode(int node) {
+        if (node < 0)
+            throw new IllegalArgumentException("invalid node '" + node + "'");
+        if (node >= this.counts.length)
+            this.counts = Arrays.copyOf(this.counts, node + 1);
+    }
+}
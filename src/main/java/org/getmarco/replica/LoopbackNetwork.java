@@ -0,0 +1,61 @@
+package org.getmarco.replica;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process network of {@link ReplicaTransport}s, for nodes running in the
+ * same JVM (and for tests). A delta sent on one transport is delivered
+ * directly, on the sending thread, to every other connected transport.
+ * Delivery can be paused, dropping deltas as a network partition would.
+ */
+public final class LoopbackNetwork {
+    private final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+    private volatile boolean paused;
+
+    /**
+     * Create a transport on the network.
+     * @return the transport
+     */
+    public ReplicaTransport newTransport() {
+        Endpoint endpoint = new Endpoint();
+        this.endpoints.add(endpoint);
+        return endpoint;
+    }
+
+    /**
+     * Pause or resume delivery. Deltas sent while paused are dropped.
+     * @param paused true to drop deltas
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * A transport on the network
+     */
+    private final class Endpoint implements ReplicaTransport {
+        private volatile Consumer<ReplicaDelta> receiver;
+
+        @Override
+        public void connect(Consumer<ReplicaDelta> deltaReceiver) {
+            if (deltaReceiver == null)
+                throw new IllegalArgumentException("null receiver");
+            this.receiver = deltaReceiver;
+        }
+
+        @Override
+        public void send(ReplicaDelta delta) {
+            if (delta == null)
+                throw new IllegalArgumentException("null delta");
+            if (LoopbackNetwork.this.paused)
+                return;
+            for (Endpoint endpoint : LoopbackNetwork.this.endpoints) {
+                Consumer<ReplicaDelta> target = endpoint.receiver;
+                if (endpoint != this && target != null)
+                    target.accept(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.getmarco.replica;
+
+/**
+ * Replicated counter that can also count down (a PN-counter CRDT): a pair of
+ * {@link GCounter}s, one for the increments and one for the decrements, and
+ * the value is their difference. Merging merges both halves, so it keeps the
+ * properties of the G-counter merge.
+ */
+public final class PNCounter {
+    private final GCounter increments = new GCounter();
+    private final GCounter decrements = new GCounter();
+
+    /**
+     * Count up for a node.
+     * @param node the node index
+     * @param amount how much to add (not negative)
+     */
+    public void increment(int node, long amount) {
+        this.increments.increment(node, amount);
+    }
+
+    /**
+     * Count down for a node.
+     * @param node the node index
+     * @param amount how much to subtract (not negative)
+     */
+    public void decrement(int node, long amount) {
+        this.decrements.increment(node, amount);
+    }
+
+    /**
+     * Get the total increments of a node.
+     * @param node the node index
+     * @return the node's increments
+     */
+    public long getIncrements(int node) {
+        return this.increments.get(node);
+    }
+
+    /**
+     * Get the total decrements of a node.
+     * @param node the node index
+     * @return the node's decrements
+     */
+    public long getDecrements(int node) {
+        return this.decrements.get(node);
+    }
+
+    /**
+     * Get the net count of a node.
+     * @param node the node index
+     * @return the node's increments less its decrements
+     */
+    public long get(int node) {
+        return this.increments.get(node) - this.decrements.get(node);
+    }
+
+    /**
+     * Merge the counts of a node seen by another replica.
+     * @param node the node index
+     * @param nodeIncrements the node's increments on the other replica
+     * @param nodeDecrements the node's decrements on the other replica
+     * @return true if any count was higher than this replica's
+     */
+    public boolean merge(int node, long nodeIncrements, long nodeDecrements) {
+        boolean changed = this.increments.merge(node, nodeIncrements);
+        return this.decrements.merge(node, nodeDecrements) || changed;
+    }
+
+    /**
+     * Merge another replica of the counter, using the same node indexes.
+     * @param other the other replica
+     * @return true if any count was higher than this replica's
+     */
+    public boolean merge(PNCounter other) {
+        boolean changed = this.increments.merge(other.increments);
+        return this.decrements.merge(other.decrements) || changed;
+    }
+
+    /**
+     * Get the value of the counter.
+     * @return the increments less the decrements of all nodes
+     */
+    public long value() {
+        return this.increments.value() - this.decrements.value();
+    }
+}
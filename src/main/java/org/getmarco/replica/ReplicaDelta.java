@@ -0,0 +1,201 @@
+package org.getmarco.replica;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of some of a {@link ReplicatedTally}'s counters, sent between
+ * nodes: for each entry, a node's total increments and decrements of one
+ * restaurant's votes. Entries carry totals rather than changes, so applying a
+ * delta again, or out of order with others, changes nothing (see
+ * {@link ReplicatedTally#merge(ReplicaDelta)}). A node's deltas only carry
+ * the entries it changed since its last one, so a batch of votes for the same
+ * restaurants costs one entry per restaurant.
+ * <p>
+ * The {@link #write(DataOutput) binary form} lists each node name once,
+ * followed by the entries.
+ */
+public final class ReplicaDelta {
+    private static final int MAX_NODES = 0xFFFF;
+
+    private final String[] nodes;
+    private final int[] entryNodes;
+    private final String[] restaurants;
+    private final long[] increments;
+    private final long[] decrements;
+
+    private ReplicaDelta(Builder builder) {
+        this.nodes = builder.nodes.toArray(new String[0]);
+        int size = builder.restaurants.size();
+        this.entryNodes = Arrays.copyOf(builder.entryNodes, size);
+        this.restaurants = builder.restaurants.toArray(new String[0]);
+        this.increments = Arrays.copyOf(builder.increments, size);
+        this.decrements = Arrays.copyOf(builder.decrements, size);
+    }
+
+    /**
+     * Get the number of entries
+     * @return the number of entries
+     */
+    public int size() {
+        return this.restaurants.length;
+    }
+
+    public boolean isEmpty() {
+        return this.restaurants.length == 0;
+    }
+
+    /**
+     * Get the node whose counts an entry holds
+     * @param entry the entry index
+     * @return the node name
+     */
+    public String getNode(int entry) {
+        return this.nodes[this.entryNodes[entry]];
+    }
+
+    /**
+     * Get the restaurant of an entry
+     * @param entry the entry index
+     * @return the restaurant name
+     */
+    public String getRestaurant(int entry) {
+        return this.restaurants[entry];
+    }
+
+    /**
+     * Get the node's total increments of an entry
+     * @param entry the entry index
+     * @return the votes the node ever added for the restaurant
+     */
+    public long getIncrements(int entry) {
+        return this.increments[entry];
+    }
+
+    /**
+     * Get the node's total decrements of an entry
+     * @param entry the entry index
+     * @return the votes the node ever took back from the restaurant
+     */
+    public long getDecrements(int entry) {
+        return this.decrements[entry];
+    }
+
+    /**
+     * Write the delta in binary form.
+     * @param out the output
+     * @throws IOException on write errors
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeShort(this.nodes.length);
+        for (String node : this.nodes)
+            out.writeUTF(node);
+        out.writeInt(this.restaurants.length);
+        for (int i = 0; i < this.restaurants.length; i++) {
+            out.writeShort(this.entryNodes[i]);
+            out.writeUTF(this.restaurants[i]);
+            out.writeLong(this.increments[i]);
+            out.writeLong(this.decrements[i]);
+        }
+    }
+
+    /**
+     * Read a delta in the binary form of {@link #write(DataOutput)}.
+     * @param in the input
+     * @return the delta
+     * @throws IOException on read errors, or a malformed delta
+     */
+    public static ReplicaDelta read(DataInput in) throws IOException {
+        String[] nodes = new String[in.readUnsignedShort()];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = in.readUTF();
+        int size = in.readInt();
+        if (size < 0)
+            throw new IOException("invalid delta size '" + size + "'");
+        Builder builder = new Builder();
+        for (int i = 0; i < size; i++) {
+            int node = in.readUnsignedShort();
+            if (node >= nodes.length)
+                throw new IOException("invalid delta node '" + node + "'");
+            String restaurant = in.readUTF();
+            long nodeIncrements = in.readLong();
+            long nodeDecrements = in.readLong();
+            if (nodeIncrements < 0 || nodeDecrements < 0)
+                throw new IOException("negative delta counts for '" + restaurant + "'");
+            builder.add(nodes[node], restaurant, nodeIncrements, nodeDecrements);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < this.restaurants.length; i++) {
+            if (i > 0)
+                text.append(", ");
+            text.append(this.getNode(i)).append(':').append(this.restaurants[i]).append(" +").append(this.increments[i])
+              .append(" -").append(this.decrements[i]);
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Builder for {@link ReplicaDelta} instances
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Map<String, Integer> nodeIndexes = new HashMap<>();
+        private final List<String> nodes = new ArrayList<>();
+        private final List<String> restaurants = new ArrayList<>();
+        private int[] entryNodes = new int[INITIAL_CAPACITY];
+        private long[] increments = new long[INITIAL_CAPACITY];
+        private long[] decrements = new long[INITIAL_CAPACITY];
+
+        /**
+         * Add an entry.
+         * @param node the node name
+         * @param restaurant the restaurant name
+         * @param nodeIncrements the node's total increments of the restaurant's votes (not negative)
+         * @param nodeDecrements the node's total decrements of the restaurant's votes (not negative)
+         * @return this builder
+         */
+        public Builder add(String node, String restaurant, long nodeIncrements, long nodeDecrements) {
+            if (node == null)
+                throw new IllegalArgumentException("null node");
+            if (restaurant == null)
+                throw new IllegalArgumentException("null restaurant");
+            if (nodeIncrements < 0 || nodeDecrements < 0)
+                throw new IllegalArgumentException("negative counts for '" + restaurant + "'");
+            Integer index = this.nodeIndexes.get(node);
+            if (index == null) {
+                if (this.nodes.size() == MAX_NODES)
+                    throw new IllegalStateException("too many nodes in delta");
+                index = this.nodes.size();
+                this.nodeIndexes.put(node, index);
+                this.nodes.add(node);
+            }
+            int entry = this.restaurants.size();
+            if (entry == this.entryNodes.length) {
+                this.entryNodes = Arrays.copyOf(this.entryNodes, entry * 2);
+                this.increments = Arrays.copyOf(this.increments, entry * 2);
+                this.decrements = Arrays.copyOf(this.decrements, entry * 2);
+            }
+            this.entryNodes[entry] = index;
+            this.restaurants.add(restaurant);
+            this.increments[entry] = nodeIncrements;
+            this.decrements[entry] = nodeDecrements;
+            return this;
+        }
+
+        public ReplicaDelta build() {
+            return new ReplicaDelta(this);
+        }
+    }
+}
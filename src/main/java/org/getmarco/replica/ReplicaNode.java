@@ -0,0 +1,180 @@
+package org.getmarco.replica;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.getmarco.Game;
+import org.getmarco.GameListener;
+
+/**
+ * Replicated tally mode for a {@link Game}: several games (one per floor or
+ * office) take votes locally and converge on the same counts, without a
+ * central server. The node listens to its game's votes, counting them in its
+ * {@link ReplicatedTally}, and exchanges deltas of the tally with the other
+ * nodes over a {@link ReplicaTransport}.
+ * <p>
+ * Deltas from other nodes are merged as they arrive, but only reach the game
+ * on {@link #sync()}, which also sends this node's votes since the last sync
+ * as one delta. Call it from the thread playing the game, as often as the
+ * counts should be fresh: after each vote, or every so many votes or
+ * milliseconds. Restaurants are matched by name, and votes for a restaurant
+ * the game doesn't have (yet, or any more) are kept until it does.
+ * <p>
+ * Votes from other nodes are added to the game as plain vote counts, so the
+ * game can't be a ranked choice game, nor use a scoring rule where a vote
+ * isn't worth one point. A reset of the game's voting takes back this node's
+ * votes only. While a sync applies them, changes of the game's votes count
+ * against the merged votes first, whatever thread they come from, and any
+ * votes past those are this node's own.
+ */
+public final class ReplicaNode implements GameListener, AutoCloseable {
+    private final Game game;
+    private final ReplicatedTally tally;
+    private final ReplicaTransport transport;
+
+    // Votes of other nodes being added to (positive) or taken from the game, by restaurant id (guarded by itself)
+    private final Map<Integer, Integer> merging = new HashMap<>();
+
+    /**
+     * Start replicating a game's votes.
+     * @param nodeId the name of this node, unique among the nodes
+     * @param game the game
+     * @param transport the transport to the other nodes
+     */
+    public ReplicaNode(String nodeId, Game game, ReplicaTransport transport) {
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        if (transport == null)
+            throw new IllegalArgumentException("null transport");
+        this.game = game;
+        this.tally = new ReplicatedTally(nodeId);
+        this.transport = transport;
+        transport.connect(this.tally::merge);
+        game.addListener(this);
+    }
+
+    public ReplicatedTally getTally() {
+        return this.tally;
+    }
+
+    /**
+     * Send this node's votes since the last sync, and bring the game's vote
+     * counts up to the merged counts of all nodes.
+     */
+    public void sync() {
+        ReplicaDelta delta = this.tally.takeDelta();
+        if (!delta.isEmpty())
+            this.transport.send(delta);
+        this.apply();
+    }
+
+    /**
+     * Send the counts of every node, for nodes that joined late or missed
+     * deltas.
+     */
+    public void sendState() {
+        this.transport.send(this.tally.getState());
+    }
+
+    /**
+     * Stop replicating: the game keeps its votes, and stops sending and
+     * receiving them.
+     */
+    @Override
+    public void close() {
+        this.game.removeListener(this);
+        this.transport.connect(delta -> {
+        });
+    }
+
+    private void apply() {
+        int[] added = null;
+        Map<Integer, Integer> removed = new HashMap<>();
+        for (String restaurant : this.game.getRestaurants()) {
+            long difference = this.tally.getVotes(restaurant) - this.game.getVotesForRestaurant(restaurant);
+            if (difference == 0)
+                continue;
+            int id = this.game.getRestaurantId(restaurant);
+            if (difference < 0) {
+                removed.put(id, (int)-difference);
+                continue;
+            }
+            if (added == null)
+                added = new int[this.game.getRestaurants().size()];
+            if (id >= added.length)
+                added = Arrays.copyOf(added, id + 1);
+            added[id] = (int)difference;
+        }
+        if (added == null && removed.isEmpty())
+            return;
+        synchronized (this.merging) {
+            for (int id = 0; added != null && id < added.length; id++) {
+                if (added[id] > 0)
+                    this.merging.put(id, added[id]);
+            }
+            for (Map.Entry<Integer, Integer> entry : removed.entrySet())
+                this.merging.put(entry.getKey(), -entry.getValue());
+        }
+        try {
+            if (added != null)
+                this.game.addVoteCounts(added);
+            for (Map.Entry<Integer, Integer> entry : removed.entrySet())
+                this.game.removeVotes(entry.getKey(), entry.getValue());
+        } finally {
+            synchronized (this.merging) {
+                this.merging.clear();
+            }
+        }
+    }
+
+    // Take a change of the game's votes out of the merged votes being applied, returning what is left of it
+    private int unmerged(int id, int votes) {
+        synchronized (this.merging) {
+            Integer merged = this.merging.get(id);
+            if (merged == null || Integer.signum(merged) != Integer.signum(votes))
+                return votes;
+            int taken = Math.abs(merged) < Math.abs(votes) ? merged : votes;
+            if (taken == merged)
+                this.merging.remove(id);
+            else
+                this.merging.put(id, merged - taken);
+            return votes - taken;
+        }
+    }
+
+    @Override
+    public void votesAdded(int id, int votes) {
+        int own = this.unmerged(id, votes);
+        if (own > 0)
+            this.tally.addVotes(this.game.getRestaurantName(id), own);
+    }
+
+    @Override
+    public void votesRemoved(int id, int votes) {
+        // Only this node's own votes can be taken back, others stay counted
+        int own = -this.unmerged(id, -votes);
+        if (own > 0)
+            this.tally.removeVotes(this.game.getRestaurantName(id), own);
+    }
+
+    @Override
+    public void ballotPointsAdded(int id, int points) {
+        this.tally.addVotes(this.game.getRestaurantName(id), points);
+    }
+
+    @Override
+    public void ballotPointsRemoved(int id, int points) {
+        this.tally.removeVotes(this.game.getRestaurantName(id), points);
+    }
+
+    @Override
+    public void votingReset() {
+        this.tally.removeAllVotes();
+    }
+
+    @Override
+    public void stateReset() {
+        this.tally.removeAllVotes();
+    }
+}
@@ -0,0 +1,24 @@
+package org.getmarco.replica;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link ReplicaDelta}s between the nodes of a replicated game.
+ * Merging deltas is idempotent and commutative, so a transport may deliver
+ * them late, more than once or out of order; a delta it loses is made up for
+ * by a later {@link ReplicaNode#sendState() full state}.
+ */
+public interface ReplicaTransport {
+    /**
+     * Set where deltas from other nodes are delivered. Deliveries may come
+     * from any thread.
+     * @param receiver the receiver of the deltas
+     */
+    void connect(Consumer<ReplicaDelta> receiver);
+
+    /**
+     * Send a delta to the other nodes.
+     * @param delta the delta
+     */
+    void send(ReplicaDelta delta);
+}
@@ -0,0 +1,183 @@
+package org.getmarco.replica;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * One node's replica of the restaurant vote counts of a replicated game: a
+ * {@link PNCounter} per restaurant name (restaurant ids are local to each
+ * game), where this node counts its own votes up, and votes it takes back
+ * down. Counts of the other nodes only change by merging their
+ * {@link ReplicaDelta}s, so every node that has merged the same deltas has
+ * the same counts, whatever the order the deltas came in.
+ * <p>
+ * The restaurants this node changed are remembered until the next
+ * {@link #takeDelta()}, so votes are sent in batches. Methods are
+ * synchronized: votes may come from several voting threads, and deltas from
+ * the transport's.
+ */
+public class ReplicatedTally {
+    private final String nodeId;
+
+    // Node dictionary: the counters' node indexes, this node first
+    private final Map<String, Integer> nodeIndexes = new HashMap<>();
+    private final List<String> nodes = new ArrayList<>();
+
+    private final Map<String, PNCounter> counters = new HashMap<>();
+    private final Set<String> changed = new LinkedHashSet<>();
+
+    /**
+     * Create an empty replica.
+     * @param nodeId the name of this node, unique among the replicas
+     */
+    public ReplicatedTally(String nodeId) {
+        if (nodeId == null)
+            throw new IllegalArgumentException("null node id");
+        this.nodeId = nodeId;
+        this.nodeIndex(nodeId);
+    }
+
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    /**
+     * Count votes of this node.
+     * @param restaurant the restaurant name
+     * @param votes the number of votes (not negative)
+     */
+    public synchronized void addVotes(String restaurant, long votes) {
+        if (restaurant == null)
+            throw new IllegalArgumentException("null restaurant");
+        this.counters.computeIfAbsent(restaurant, name -> new PNCounter()).increment(0, votes);
+        this.changed.add(restaurant);
+    }
+
+    /**
+     * Take back votes of this node. A node can't take back other nodes'
+     * votes, so at most the votes this node counted for the restaurant are
+     * taken back.
+     * @param restaurant the restaurant name
+     * @param votes the number of votes (not negative)
+     * @return the number of votes taken back
+     */
+    public synchronized long removeVotes(String restaurant, long votes) {
+        if (votes < 0)
+            throw new IllegalArgumentException("negative vote count '" + votes + "'");
+        PNCounter counter = this.counters.get(restaurant);
+        long removed = counter == null ? 0 : Math.min(votes, counter.get(0));
+        if (removed > 0) {
+            counter.decrement(0, removed);
+            this.changed.add(restaurant);
+        }
+        return removed;
+    }
+
+    /**
+     * Take back every vote of this node, e.g. when its game resets the voting.
+     */
+    public synchronized void removeAllVotes() {
+        for (Map.Entry<String, PNCounter> entry : this.counters.entrySet()) {
+            long own = entry.getValue().get(0);
+            if (own > 0) {
+                entry.getValue().decrement(0, own);
+                this.changed.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Get the votes of all nodes for a restaurant.
+     * @param restaurant the restaurant name
+     * @return the number of votes (zero for an unknown restaurant)
+     */
+    public synchronized long getVotes(String restaurant) {
+        PNCounter counter = this.counters.get(restaurant);
+        return counter == null ? 0 : counter.value();
+    }
+
+    /**
+     * Get this node's votes for a restaurant.
+     * @param restaurant the restaurant name
+     * @return the number of votes (zero for an unknown restaurant)
+     */
+    public synchronized long getLocalVotes(String restaurant) {
+        PNCounter counter = this.counters.get(restaurant);
+        return counter == null ? 0 : counter.get(0);
+    }
+
+    /**
+     * Get the restaurants any node counted votes for
+     * @return alphabetically sorted restaurant names
+     */
+    public synchronized Set<String> getRestaurants() {
+        return Collections.unmodifiableSet(new TreeSet<>(this.counters.keySet()));
+    }
+
+    /**
+     * Merge the counts of another replica. Counts this replica has already
+     * seen (or seen higher) are ignored.
+     * @param delta the delta
+     * @return true if any count changed
+     */
+    public synchronized boolean merge(ReplicaDelta delta) {
+        if (delta == null)
+            throw new IllegalArgumentException("null delta");
+        boolean merged = false;
+        for (int i = 0; i < delta.size(); i++) {
+            PNCounter counter = this.counters.computeIfAbsent(delta.getRestaurant(i), name -> new PNCounter());
+            merged |= counter.merge(this.nodeIndex(delta.getNode(i)), delta.getIncrements(i), delta.getDecrements(i));
+        }
+        return merged;
+    }
+
+    /**
+     * Get this node's counts of the restaurants it changed since the last
+     * delta, and start a new batch.
+     * @return the delta (empty if nothing changed)
+     */
+    public synchronized ReplicaDelta takeDelta() {
+        ReplicaDelta.Builder builder = new ReplicaDelta.Builder();
+        for (String restaurant : this.changed) {
+            PNCounter counter = this.counters.get(restaurant);
+            builder.add(this.nodeId, restaurant, counter.getIncrements(0), counter.getDecrements(0));
+        }
+        this.changed.clear();
+        return builder.build();
+    }
+
+    /**
+     * Get the counts of every node, e.g. for a node that joined late or
+     * missed deltas.
+     * @return the delta with every count
+     */
+    public synchronized ReplicaDelta getState() {
+        ReplicaDelta.Builder builder = new ReplicaDelta.Builder();
+        for (Map.Entry<String, PNCounter> entry : this.counters.entrySet()) {
+            PNCounter counter = entry.getValue();
+            for (int node = 0; node < this.nodes.size(); node++) {
+                long nodeIncrements = counter.getIncrements(node);
+                long nodeDecrements = counter.getDecrements(node);
+                if (nodeIncrements > 0 || nodeDecrements > 0)
+                    builder.add(this.nodes.get(node), entry.getKey(), nodeIncrements, nodeDecrements);
+            }
+        }
+        return builder.build();
+    }
+
+    private int nodeIndex(String node) {
+        Integer index = this.nodeIndexes.get(node);
+        if (index == null) {
+            index = this.nodes.size();
+            this.nodeIndexes.put(node, index);
+            this.nodes.add(node);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,57 @@
+package org.getmarco.session;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.getmarco.Game;
+
+/**
+ * One game hosted by a {@link SessionHost}, played on its own thread.
+ */
+public class Session {
+    private final String id;
+    private final Game game;
+    private final CompletableFuture<Game> completion = new CompletableFuture<>();
+    private volatile Thread thread;
+
+    Session(String id, Game game) {
+        this.id = id;
+        this.game = game;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the session's game. The game belongs to the session thread while the
+     * session is running, so only touch it from its front end (or after completion).
+     * @return the game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Get the completion of the session, done when the game reaches the quit
+     * state, fails, or the session is closed (leaving the game where it stopped).
+     * @return the completion, yielding the game
+     */
+    public CompletableFuture<Game> getCompletion() {
+        return completion;
+    }
+
+    public boolean isRunning() {
+        return !completion.isDone();
+    }
+
+    void start(Thread sessionThread) {
+        this.thread = sessionThread;
+        sessionThread.start();
+    }
+
+    void interrupt() {
+        Thread sessionThread = this.thread;
+        if (sessionThread != null)
+            sessionThread.interrupt();
+    }
+}
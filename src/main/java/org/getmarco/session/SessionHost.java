@@ -0,0 +1,127 @@
+package org.getmarco.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.getmarco.Game;
+import org.getmarco.state.StateType;
+
+/**
+ * Hosts many independent games in one process. Each session is keyed by an
+ * id and plays its game on its own thread (a virtual thread where the runtime
+ * supports them, see {@link SessionThreads}), so sessions blocked waiting on
+ * their players cost little. Sessions are created and torn down without
+ * affecting each other. A hosted game must use a front end that doesn't exit
+ * the JVM (i.e. not the console front end).
+ */
+public class SessionHost implements AutoCloseable {
+    private final Logger logger = LogManager.getLogger(this.getClass());
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ThreadFactory threadFactory;
+
+    public SessionHost() {
+        this(SessionThreads.newThreadFactory("session-"));
+    }
+
+    public SessionHost(ThreadFactory threadFactory) {
+        if (threadFactory == null)
+            throw new IllegalArgumentException("null thread factory");
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Start a session playing the given game.
+     * @param id the session id
+     * @param game the game, with a front end supplying the session's input
+     * @return the running session
+     */
+    public Session open(String id, Game game) {
+        if (id == null)
+            throw new IllegalArgumentException("null session id");
+        if (game == null)
+            throw new IllegalArgumentException("null game");
+        Session session = new Session(id, game);
+        if (this.sessions.putIfAbsent(id, session) != null)
+            throw new IllegalStateException("session '" + id + "' already exists");
+        session.start(this.threadFactory.newThread(() -> this.run(session)));
+        return session;
+    }
+
+    /**
+     * Get a running session.
+     * @param id the session id
+     * @return the session, or null if there is no such running session
+     */
+    public Session get(String id) {
+        return this.sessions.get(id);
+    }
+
+    /**
+     * Get the running sessions
+     * @return read-only view of the sessions
+     */
+    public Collection<Session> getSessions() {
+        return Collections.unmodifiableCollection(this.sessions.values());
+    }
+
+    /**
+     * How many sessions are running
+     * @return the number of sessions
+     */
+    public int size() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Tear a session down by interrupting its thread. Its completion finishes
+     * once the session thread sees the interrupt, with the game stopped where
+     * it was rather than quit, so its players, restaurants and votes can still
+     * be read (or saved).
+     * @param id the session id
+     * @return true if the session was found
+     */
+    public boolean close(String id) {
+        Session session = this.sessions.get(id);
+        if (session == null)
+            return false;
+        session.interrupt();
+        return true;
+    }
+
+    /**
+     * Tear down every session.
+     */
+    @Override
+    public void close() {
+        for (Session session : new ArrayList<>(this.sessions.values()))
+            session.interrupt();
+    }
+
+    private void run(Session session) {
+        Game game = session.getGame();
+        RuntimeException failure = null;
+        logger.debug("Session '" + session.getId() + "' started");
+        try {
+            // Runs until the game quits or the session is closed, a closed game is left as it stands
+            while (game.getStateType() != StateType.QUIT && !Thread.currentThread().isInterrupted())
+                game.play();
+        } catch (RuntimeException e) {
+            logger.warn("Session '" + session.getId() + "' failed", e);
+            failure = e;
+        } finally {
+            this.sessions.remove(session.getId(), session);
+            if (failure == null)
+                session.getCompletion().complete(game);
+            else
+                session.getCompletion().completeExceptionally(failure);
+            logger.debug("Session '" + session.getId() + "' finished");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.getmarco.session;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Threads for game sessions. On a runtime with virtual threads (Java 21+)
+ * every session gets its own virtual thread; otherwise sessions fall back to
+ * daemon platform threads. The virtual thread builder is looked up
+ * reflectively so the code still builds and runs on older Java versions.
+ */
+public final class SessionThreads {
+    private static final Logger LOGGER = LogManager.getLogger(SessionThreads.class);
+
+    private SessionThreads() {
+        // Not used
+    }
+
+    /**
+     * Get a thread factory for session threads, preferring virtual threads
+     * @param prefix thread name prefix
+     * @return the thread factory
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        ThreadFactory virtual = virtualThreadFactory(prefix);
+        if (virtual != null)
+            return virtual;
+        LOGGER.debug("Virtual threads not available, using platform threads for '" + prefix + "'");
+        return platformThreadFactory(prefix);
+    }
+
+    /**
+     * Are session threads virtual threads on this runtime
+     * @return true if virtual threads are available
+     */
+    public static boolean isVirtual() {
+        return virtualThreadFactory("probe-") != null;
+    }
+
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory)factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String prefix) {
+        final AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package org.getmarco.simulation;
+
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.getmarco.Game;
+
+/**
+ * Monte Carlo simulation of a game configuration, to see how often it ends
+ * in a tie and how many votes a winner needs before rolling it out. Each
+ * simulated game goes through the {@link Game} API: the setup numbers, the
+ * players' suggestions (duplicates merging, as when entered), one
+ * {@link Game#vote(int) vote} at a time, and finally the winner check and the
+ * leading restaurants.
+ * <p>
+ * The games are split into ranges, halving until a range is small enough, on
+ * a fork/join pool. Every range has its own {@link SplittableRandom}, split
+ * off its parent's, and plays on its own game into its own result, so
+ * workers share nothing but the read-only configuration, and the partial
+ * results are merged as the ranges join. Since the split follows the ranges
+ * rather than the threads, a seed gives the same result on any number of cores.
+ */
+public class GameSimulator {
+    public static final int DEFAULT_SPLIT_SIZE = 4096;
+    public static final long DEFAULT_NUM_GAMES = 1000000;
+
+    private final ForkJoinPool pool;
+    private final int splitSize;
+
+    /**
+     * Create a simulator running on the common fork/join pool.
+     */
+    public GameSimulator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * Create a simulator.
+     * @param pool the pool to play on
+     * @param splitSize ranges of up to this many games are played without splitting further
+     */
+    public GameSimulator(ForkJoinPool pool, int splitSize) {
+        if (pool == null)
+            throw new IllegalArgumentException("null pool");
+        if (splitSize < 1)
+            throw new IllegalArgumentException("invalid split size '" + splitSize + "'");
+        this.pool = pool;
+        this.splitSize = splitSize;
+    }
+
+    /**
+     * Play randomized games of a configuration.
+     * @param config the game configuration
+     * @param numGames how many games to play
+     * @param seed the seed of the random choices
+     * @return the statistics over all games
+     */
+    public SimulationResult simulate(SimulationConfig config, long numGames, long seed) {
+        if (config == null)
+            throw new IllegalArgumentException("null config");
+        if (numGames < 0)
+            throw new IllegalArgumentException("invalid number of games '" + numGames + "'");
+        // Zero padded, so the alphabetical order of a game's restaurants is their order in the pool
+        String[] names = new String[config.getNumKnownRestaurants()];
+        for (int i = 0; i < names.length; i++)
+            names[i] = String.format("Restaurant %07d", i);
+        return this.pool.invoke(new Range(config, names, 0, numGames, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Simulate a configuration from the command line and print the statistics.
+     * @param args players, restaurants per player, votes per player, and optionally the number of games and the skew
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("usage: GameSimulator players restaurantsPerPlayer votesPerPlayer [games] [skew]");
+            System.exit(1);
+        }
+        SimulationConfig config = new SimulationConfig.Builder()
+          .setNumPlayers(Integer.parseInt(args[0]))
+          .setNumRestaurantsPerPlayer(Integer.parseInt(args[1]))
+          .setNumVotesPerPlayer(Integer.parseInt(args[2]))
+          .setSkew(args.length > 4 ? Double.parseDouble(args[4]) : 1)
+          .build();
+        long numGames = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_NUM_GAMES;
+        long start = System.nanoTime();
+        SimulationResult result = new GameSimulator().simulate(config, numGames, System.nanoTime());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PrintStream out = System.out;
+        out.println(config);
+        out.println(result);
+        out.printf("%.1f s, %.0f games/s on %d threads%n", seconds, numGames / seconds,
+          ForkJoinPool.commonPool().getParallelism());
+    }
+
+    /**
+     * Plays a range of the games
+     */
+    private final class Range extends RecursiveTask<SimulationResult> {
+        private static final long serialVersionUID = 1L;
+        private static final int MAX_REJECTIONS = 64;
+
+        private final transient SimulationConfig config;
+        private final String[] names;
+        private final long start;
+        private final long end;
+        private final transient SplittableRandom random;
+
+        Range(SimulationConfig config, String[] names, long start, long end, SplittableRandom random) {
+            this.config = config;
+            this.names = names;
+            this.start = start;
+            this.end = end;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (this.end - this.start > GameSimulator.this.splitSize) {
+                long middle = this.start + (this.end - this.start) / 2;
+                Range first = new Range(this.config, this.names, this.start, middle, this.random.split());
+                first.fork();
+                SimulationResult second = new Range(this.config, this.names, middle, this.end, this.random).compute();
+                return first.join().add(second);
+            }
+
+            SimulationResult result = new SimulationResult();
+            Game game = new Game();
+            int numPlayers = this.config.getNumPlayers();
+            int numSuggestions = numPlayers * this.config.getNumRestaurantsPerPlayer();
+            int numVotes = this.config.getNumVotesPerPlayer();
+            Set<String> suggested = new HashSet<>();
+            int[] ids = new int[numSuggestions];
+            // Ballot marks: restaurant i is on the current ballot if chosen[i] == the ballot's number
+            int[] chosen = new int[numSuggestions];
+            int ballot = 0;
+            for (long g = this.start; g < this.end; g++) {
+                game.resetState();
+                game.setNumPlayers(numPlayers);
+                game.setNumRestaurantsPerPlayer(this.config.getNumRestaurantsPerPlayer());
+                game.setNumVotesPerPlayer(numVotes);
+                suggested.clear();
+                for (int i = 0; i < numSuggestions; i++)
+                    suggested.add(this.names[this.pick(this.names.length)]);
+                game.addRestaurants(suggested);
+                int numRestaurants = 0;
+                for (String restaurant : game.getRestaurants())
+                    ids[numRestaurants++] = game.getRestaurantId(restaurant);
+
+                int votes = Math.min(numVotes, numRestaurants);
+                for (int player = 0; player < numPlayers; player++) {
+                    ballot++;
+                    for (int v = 0; v < votes; v++) {
+                        int choice = this.choose(chosen, ballot, numRestaurants);
+                        chosen[choice] = ballot;
+                        game.vote(ids[choice]);
+                    }
+                }
+
+                int maxVotes = game.getMaxVoteCount();
+                List<String> leaders = game.getTopRestaurants(2);
+                int runnerUp = leaders.size() > 1 ? game.getVotesForRestaurant(leaders.get(1)) : 0;
+                result.record(numRestaurants, game.isWin(), maxVotes, maxVotes - runnerUp);
+            }
+            return result;
+        }
+
+        // A restaurant position, the first positions the more popular the higher the skew
+        private int pick(int count) {
+            return (int)(count * Math.pow(this.random.nextDouble(), this.config.getSkew()));
+        }
+
+        // A restaurant not yet on the ballot: by popularity, or the first one left after too many repeats
+        private int choose(int[] chosen, int ballot, int count) {
+            for (int i = 0; i < MAX_REJECTIONS; i++) {
+                int choice = this.pick(count);
+                if (chosen[choice] != ballot)
+                    return choice;
+            }
+            int choice = 0;
+            while (chosen[choice] == ballot)
+                choice++;
+            return choice;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.getmarco.simulation;
+
+import org.getmarco.Game;
+
+/**
+ * The game configuration a {@link GameSimulator} plays: the setup numbers,
+ * and how players pick restaurants. Each player suggests restaurants from a
+ * pool of known restaurants (suggestions of different players may be the
+ * same restaurant) and votes for distinct restaurants among those in the
+ * game. Build instances with {@link SimulationConfig.Builder}.
+ */
+public final class SimulationConfig {
+    private final int numPlayers;
+    private final int numRestaurantsPerPlayer;
+    private final int numVotesPerPlayer;
+    private final int numKnownRestaurants;
+    private final double skew;
+
+    private SimulationConfig(Builder builder) {
+        this.numPlayers = builder.numPlayers;
+        this.numRestaurantsPerPlayer = builder.numRestaurantsPerPlayer;
+        this.numVotesPerPlayer = builder.numVotesPerPlayer;
+        this.numKnownRestaurants = builder.numKnownRestaurants > 0 ? builder.numKnownRestaurants :
+          builder.numPlayers * builder.numRestaurantsPerPlayer;
+        this.skew = builder.skew;
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    public int getNumRestaurantsPerPlayer() {
+        return numRestaurantsPerPlayer;
+    }
+
+    public int getNumVotesPerPlayer() {
+        return numVotesPerPlayer;
+    }
+
+    /**
+     * How many restaurants players suggest from
+     * @return the size of the pool of restaurants
+     */
+    public int getNumKnownRestaurants() {
+        return numKnownRestaurants;
+    }
+
+    /**
+     * How strongly players favor the same restaurants: 1 picks uniformly,
+     * higher values make the first restaurants of the pool (and of the game)
+     * more and more popular.
+     * @return the popularity skew
+     */
+    public double getSkew() {
+        return skew;
+    }
+
+    @Override
+    public String toString() {
+        return this.numPlayers + " players, " + this.numRestaurantsPerPlayer + " restaurants per player, "
+          + this.numVotesPerPlayer + " votes per player, " + this.numKnownRestaurants + " known restaurants, skew "
+          + this.skew;
+    }
+
+    /**
+     * Builder for {@link SimulationConfig} instances
+     */
+    public static class Builder {
+        private int numPlayers;
+        private int numRestaurantsPerPlayer;
+        private int numVotesPerPlayer = Game.DEFAULT_NUM_VOTES_PER_PLAYER;
+        private int numKnownRestaurants;
+        private double skew = 1;
+
+        public Builder setNumPlayers(int numPlayers) {
+            this.numPlayers = numPlayers;
+            return this;
+        }
+
+        public Builder setNumRestaurantsPerPlayer(int numRestaurantsPerPlayer) {
+            this.numRestaurantsPerPlayer = numRestaurantsPerPlayer;
+            return this;
+        }
+
+        public Builder setNumVotesPerPlayer(int numVotesPerPlayer) {
+            this.numVotesPerPlayer = numVotesPerPlayer;
+            return this;
+        }
+
+        /**
+         * Set the size of the pool restaurants are suggested from (by default
+         * as many as players can suggest, so duplicates are common)
+         * @param numKnownRestaurants the number of known restaurants
+         * @return this builder
+         */
+        public Builder setNumKnownRestaurants(int numKnownRestaurants) {
+            this.numKnownRestaurants = numKnownRestaurants;
+            return this;
+        }
+
+        /**
+         * Set the popularity skew (see {@link SimulationConfig#getSkew()})
+         * @param skew the skew, at least 1
+         * @return this builder
+         */
+        public Builder setSkew(double skew) {
+            this.skew = skew;
+            return this;
+        }
+
+        public SimulationConfig build() {
+            if (this.numPlayers < 1)
+                throw new IllegalStateException("invalid number of players '" + this.numPlayers + "'");
+            if (this.numRestaurantsPerPlayer < 1)
+                throw new IllegalStateException("invalid number of restaurants per player '" + this.numRestaurantsPerPlayer + "'");
+            if (this.numVotesPerPlayer < 1)
+                throw new IllegalStateException("invalid number of votes per player '" + this.numVotesPerPlayer + "'");
+            if (this.numKnownRestaurants < 0)
+                throw new IllegalStateException("invalid number of known restaurants '" + this.numKnownRestaurants + "'");
+            if (!(this.skew >= 1))
+                throw new IllegalStateException("invalid skew '" + this.skew + "'");
+            return new SimulationConfig(this);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.getmarco.simulation;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Statistics over the games of a simulation: how often they tie, and the
+ * votes of the winner (a histogram, indexed by vote count) and its lead over
+ * the runner up in the games that don't.
+ */
+public final class SimulationResult {
+    private long numGames;
+    private long numTies;
+    private long totalRestaurants;
+    private long totalMargin;
+    private long[] winnerVotes = new long[0];
+
+    SimulationResult() {
+    }
+
+    // Count a played game; restaurants is how many the game ended up with
+    void record(int restaurants, boolean win, int maxVotes, int margin) {
+        this.numGames++;
+        this.totalRestaurants += restaurants;
+        if (!win) {
+            this.numTies++;
+            return;
+        }
+        if (maxVotes >= this.winnerVotes.length)
+            this.winnerVotes = Arrays.copyOf(this.winnerVotes, maxVotes + 1);
+        this.winnerVotes[maxVotes]++;
+        this.totalMargin += margin;
+    }
+
+    // Combine with the result of another part of the simulation
+    SimulationResult add(SimulationResult other) {
+        this.numGames += other.numGames;
+        this.numTies += other.numTies;
+        this.totalRestaurants += other.totalRestaurants;
+        this.totalMargin += other.totalMargin;
+        if (other.winnerVotes.length > this.winnerVotes.length)
+            this.winnerVotes = Arrays.copyOf(this.winnerVotes, other.winnerVotes.length);
+        for (int votes = 0; votes < other.winnerVotes.length; votes++)
+            this.winnerVotes[votes] += other.winnerVotes[votes];
+        return this;
+    }
+
+    public long getNumGames() {
+        return this.numGames;
+    }
+
+    public long getNumTies() {
+        return this.numTies;
+    }
+
+    /**
+     * The share of games without a winner
+     * @return the tie rate, 0 to 1
+     */
+    public double getTieRate() {
+        return this.numGames == 0 ? 0 : (double)this.numTies / this.numGames;
+    }
+
+    /**
+     * The average number of restaurants in the game, once duplicate suggestions merged
+     * @return the mean number of restaurants
+     */
+    public double getMeanRestaurants() {
+        return this.numGames == 0 ? 0 : (double)this.totalRestaurants / this.numGames;
+    }
+
+    /**
+     * The average votes of the winner, over the games with a winner
+     * @return the mean winning vote count
+     */
+    public double getMeanWinnerVotes() {
+        long wins = this.numGames - this.numTies;
+        if (wins == 0)
+            return 0;
+        long total = 0;
+        for (int votes = 0; votes < this.winnerVotes.length; votes++)
+            total += votes * this.winnerVotes[votes];
+        return (double)total / wins;
+    }
+
+    /**
+     * The average lead of the winner over the runner up, over the games with a winner
+     * @return the mean margin in votes
+     */
+    public double getMeanMargin() {
+        long wins = this.numGames - this.numTies;
+        return wins == 0 ? 0 : (double)this.totalMargin / wins;
+    }
+
+    /**
+     * Get a percentile of the winner's votes, over the games with a winner.
+     * @param percentile the percentile, 0 to 100
+     * @return the smallest vote count at least that share of winners needed no more than
+     */
+    public int getWinnerVotesPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("invalid percentile '" + percentile + "'");
+        long wins = this.numGames - this.numTies;
+        long rank = Math.max(1, (long)Math.ceil(wins * percentile / 100));
+        long seen = 0;
+        for (int votes = 0; votes < this.winnerVotes.length; votes++) {
+            seen += this.winnerVotes[votes];
+            if (seen >= rank)
+                return votes;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of winners by their vote count
+     * @param votes the winner's vote count
+     * @return the number of games won with that many votes
+     */
+    public long getWinnerVotesCount(int votes) {
+        return votes >= 0 && votes < this.winnerVotes.length ? this.winnerVotes[votes] : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d games, %.2f%% ties, %.1f restaurants on average%n"
+          + "winner votes: mean %.2f, p50 %d, p90 %d, p99 %d, max %d; mean margin %.2f",
+          this.numGames, this.getTieRate() * 100, this.getMeanRestaurants(), this.getMeanWinnerVotes(),
+          this.getWinnerVotesPercentile(50), this.getWinnerVotesPercentile(90), this.getWinnerVotesPercentile(99),
+          this.getWinnerVotesPercentile(100), this.getMeanMargin());
+    }
+}
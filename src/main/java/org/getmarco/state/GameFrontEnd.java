@@ -0,0 +1,66 @@
+package org.getmarco.state;
+
+import org.getmarco.Game;
+
+/**
+ * Contract for the user facing side of the game. The game's states call these
+ * methods to collect input and show output, so the same state machine can be
+ * driven from the console or programmatically.
+ */
+public interface GameFrontEnd {
+    /**
+     * Welcome the players.
+     * @param game the game
+     */
+    void start(Game game);
+
+    /**
+     * Set up the number of players and restaurants per player.
+     * @param game the game
+     */
+    void setup(Game game);
+
+    /**
+     * Enter the next player's name and restaurant suggestions.
+     * @param game the game
+     */
+    void enterData(Game game);
+
+    /**
+     * Show the restaurants that were entered.
+     * @param game the game
+     */
+    void showData(Game game);
+
+    /**
+     * Let a player eliminate a restaurant (or pass).
+     * @param game the game
+     * @param player the player name
+     */
+    void eliminate(Game game, String player);
+
+    /**
+     * Let a player vote for restaurants (or pass).
+     * @param game the game
+     * @param player the player name
+     */
+    void vote(Game game, String player);
+
+    /**
+     * Show the voting results.
+     * @param game the game
+     */
+    void showResults(Game game);
+
+    /**
+     * Say goodbye.
+     * @param game the game
+     */
+    void finish(Game game);
+
+    /**
+     * Release the front end once the game has reached the quit state.
+     * @param game the game
+     */
+    void quit(Game game);
+}
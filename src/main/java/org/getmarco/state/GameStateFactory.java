@@ -1,62 +1,77 @@
 package org.getmarco.state;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import org.getmarco.Game;
-import org.getmarco.view.EliminateView;
-import org.getmarco.view.EnterDataView;
-import org.getmarco.view.FinishView;
-import org.getmarco.view.SetupView;
-import org.getmarco.view.ShowDataView;
-import org.getmarco.view.ShowResultsView;
-import org.getmarco.view.StartView;
-import org.getmarco.view.VoteView;
 
 /**
- * Factory to return the correct {@link GameState} instance
+ * Factory to return the correct {@link GameState} instance. The states drive
+ * the game's {@link GameFrontEnd} for input and output. States keep no data
+ * of their own, so there is one shared instance per {@link StateType}, built
+ * up front together with its transitions (next, back and quit), and a state
+ * change never allocates.
  */
 public final class GameStateFactory {
+    private static final Map<StateType, GameState> STATES = new EnumMap<>(StateType.class);
+
+    static {
+        // Transition table: state, next, back (null when not supported)
+        STATES.put(StateType.START, new StartState(StateType.SETUP, null));
+        STATES.put(StateType.SETUP, new SetupState(StateType.ENTER_DATA, null));
+        STATES.put(StateType.ENTER_DATA, new EnterDataState(StateType.SHOW_DATA, StateType.SETUP));
+        STATES.put(StateType.SHOW_DATA, new ShowDataState(StateType.ELIMINATE, null));
+        STATES.put(StateType.ELIMINATE, new EliminateState(StateType.VOTE, StateType.ELIMINATE));
+        STATES.put(StateType.VOTE, new VoteState(StateType.RESULTS, StateType.VOTE));
+        STATES.put(StateType.RESULTS, new ResultsState(StateType.FINISH, null));
+        STATES.put(StateType.FINISH, new FinishState(StateType.QUIT, null));
+        STATES.put(StateType.QUIT, new QuitState(StateType.QUIT, null));
+    }
 
     private GameStateFactory() {
         // Not used
     }
 
-    public static GameState create(StateType state) {
-        switch (state) {
-            case START:
-                return new StartState();
-            case SETUP:
-                return new SetupState();
-            case ENTER_DATA:
-                return new EnterDataState();
-            case SHOW_DATA:
-                return new ShowDataState();
-            case ELIMINATE:
-                return new EliminateState();
-            case VOTE:
-                return new VoteState();
-            case RESULTS:
-                return new ResultsState();
-            case FINISH:
-                return new FinishState();
-            case QUIT:
-                return new QuitState();
-            default:
-                throw new RuntimeException("impossible");
-        }
+    /**
+     * Get the shared state instance for a state type.
+     * @param state the state type
+     * @return the state
+     */
+    public static GameState get(StateType state) {
+        GameState gameState = STATES.get(state);
+        if (gameState == null)
+            throw new RuntimeException("impossible");
+        return gameState;
     }
 
     /**
      * This class provides some default behavior for the game's states.
      */
     private abstract static class AbstractGameState implements GameState {
+        private final StateType next;
+        private final StateType back;
+
+        AbstractGameState(StateType next, StateType back) {
+            this.next = next;
+            this.back = back;
+        }
+
         /**
-         * This default behavior is to not support a backward movement.
-         * Subclasses should override to return an appropriate 'back' previous
-         * state if they want to support it.
+         * The state to move on to once this state's action is done.
+         * @return the 'next' state
+         */
+        protected StateType next() {
+            return this.next;
+        }
+
+        /**
+         * The 'back' previous state from the transition table, null for
+         * states not supporting a backward movement.
          * @return the 'back' state
          */
         @Override
         public StateType back() {
-            return null;
+            return this.back;
         }
 
         /**
@@ -70,102 +85,129 @@ public final class GameStateFactory {
     }
 
     private static class StartState extends AbstractGameState {
+        StartState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
-            new StartView().display(false);
-            return StateType.SETUP;
+            game.getFrontEnd().start(game);
+            return this.next();
         }
     }
 
     private static class SetupState extends AbstractGameState {
+        SetupState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
             game.resetState();
-            new SetupView(game).display(false);
-            return StateType.ENTER_DATA;
+            game.getFrontEnd().setup(game);
+            return this.next();
         }
     }
 
     private static class EnterDataState extends AbstractGameState {
+        EnterDataState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
+            long generation = game.getGeneration();
             for (int i = 0; i < game.getNumPlayers(); i++) {
-                new EnterDataView(game).display(false);
-                if (game.stateChanged(this))
+                game.getFrontEnd().enterData(game);
+                if (game.stateChanged(generation))
                     break;
             }
-            return StateType.SHOW_DATA;
-        }
-
-        @Override
-        public StateType back() {
-            return StateType.SETUP;
+            return this.next();
         }
     }
 
     private static class ShowDataState extends AbstractGameState {
+        ShowDataState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
-            new ShowDataView(game).display();
-            return StateType.ELIMINATE;
+            game.getFrontEnd().showData(game);
+            return this.next();
         }
     }
 
     private static class EliminateState extends AbstractGameState {
+        EliminateState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
+            // A restart ('back') runs the whole round again, with every restaurant back in
+            game.restoreEliminations();
+            long generation = game.getGeneration();
             for (String player : game.getPlayers()) {
-                new EliminateView(game, player).display(false);
-                if (game.stateChanged(this))
+                game.getFrontEnd().eliminate(game, player);
+                if (game.stateChanged(generation))
                     break;
             }
-            return StateType.VOTE;
-        }
-
-        @Override
-        public StateType back() {
-            return StateType.SETUP;
+            return this.next();
         }
     }
 
     private static class VoteState extends AbstractGameState {
+        VoteState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
+            long generation = game.getGeneration();
             for (String player : game.getPlayers()) {
-                new VoteView(game, player).display(false);
-                if (game.stateChanged(this))
+                game.getFrontEnd().vote(game, player);
+                if (game.stateChanged(generation))
                     break;
             }
-            return StateType.RESULTS;
-        }
-
-        @Override
-        public StateType back() {
-            return StateType.VOTE;
+            return this.next();
         }
     }
 
     private static class ResultsState extends AbstractGameState {
+        ResultsState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
-            new ShowResultsView(game).display();
-            return StateType.FINISH;
+            game.getFrontEnd().showResults(game);
+            return this.next();
         }
     }
 
     private static class FinishState extends AbstractGameState {
+        FinishState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
-            new FinishView().display(false);
-            return StateType.QUIT;
+            game.getFrontEnd().finish(game);
+            return this.next();
         }
     }
 
     private static class QuitState extends AbstractGameState {
+        QuitState(StateType next, StateType back) {
+            super(next, back);
+        }
+
         @Override
         public StateType doAction(Game game) {
-            System.exit(0);
-            throw new RuntimeException("impossible");
+            // Front end decides what quitting means (the console exits)
+            game.getFrontEnd().quit(game);
+            return this.next();
         }
     }
 }
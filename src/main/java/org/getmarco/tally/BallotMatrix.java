@@ -0,0 +1,292 @@
+package org.getmarco.tally;
+
+import java.util.Arrays;
+
+/**
+ * Ballots stored as sparse primitive rows, one row per ballot. Each row holds
+ * the ids of the restaurants marked on the ballot and their marks (the rank
+ * each was given, 1 for the first choice, or its score) as pairs of arrays
+ * sized to the ballot rather than to the number of restaurants, so memory
+ * follows the marks made. Marks keep the order they were made in (a ranked
+ * ballot's order of preference). A {@link ScoringRule} totals the ballots from plain
+ * loops over the pairs (counts of the ballots marking each restaurant and
+ * sums of their marks), and every ballot can be recounted under a different
+ * rule without going back to names or collections. Removed rows are reused
+ * by the next ballot added.
+ */
+public class BallotMatrix {
+    public static final int MAX_MARK = Byte.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int REMOVED = -1;
+
+    // Row b: ids[b][0] up to ids[b][lengths[b]] with their marks in marks[b] (a removed row has length -1)
+    private int[][] ids = new int[0][];
+    private byte[][] marks = new byte[0][];
+    private int[] lengths = new int[0];
+    private int numRows;
+    // Removed rows, to reuse
+    private int[] free = new int[0];
+    private int numFree;
+    private int width;
+
+    /**
+     * Add an empty ballot, in a removed ballot's row if there is one.
+     * @return the index of the ballot's row
+     */
+    public int addBallot() {
+        if (this.numFree > 0) {
+            int row = this.free[--this.numFree];
+            this.lengths[row] = 0;
+            return row;
+        }
+        if (this.numRows == this.lengths.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, this.numRows * 2);
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.marks = Arrays.copyOf(this.marks, capacity);
+            this.lengths = Arrays.copyOf(this.lengths, capacity);
+        }
+        this.lengths[this.numRows] = 0;
+        return this.numRows++;
+    }
+
+    /**
+     * Mark a restaurant on a ballot, replacing any earlier mark. Finding an
+     * earlier mark walks the ballot's marks.
+     * @param ballot the ballot's row
+     * @param id the restaurant id
+     * @param mark the rank or score, 1 to {@link #MAX_MARK} (0 to unmark)
+     */
+    public void mark(int ballot, int id, int mark) {
+        this.checkBallot(ballot);
+        checkMark(id, mark);
+        int index = this.indexOf(ballot, id);
+        if (index >= 0) {
+            if (mark != 0)
+                this.marks[ballot][index] = (byte)mark;
+            else
+                this.unmarkAt(ballot, index);
+        } else if (mark != 0) {
+            this.ensureRowCapacity(ballot, this.lengths[ballot] + 1);
+            this.append(ballot, id, mark);
+        }
+    }
+
+    /**
+     * Mark restaurants that are not on a ballot yet, e.g. a new ballot in one
+     * go. Only ids and marks are checked, the restaurants being distinct and
+     * unmarked is up to the caller.
+     * @param ballot the ballot's row
+     * @param restaurantIds the restaurant ids
+     * @param restaurantMarks the rank or score of each restaurant, 1 to {@link #MAX_MARK}
+     * @param from the index of the first restaurant in the arrays
+     * @param count the number of restaurants
+     */
+    public void addMarks(int ballot, int[] restaurantIds, int[] restaurantMarks, int from, int count) {
+        this.checkBallot(ballot);
+        for (int i = from; i < from + count; i++) {
+            checkMark(restaurantIds[i], restaurantMarks[i]);
+            if (restaurantMarks[i] == 0)
+                throw new IllegalArgumentException("invalid mark '0'");
+        }
+        this.ensureRowCapacity(ballot, this.lengths[ballot] + count);
+        for (int i = from; i < from + count; i++)
+            this.append(ballot, restaurantIds[i], restaurantMarks[i]);
+    }
+
+    /**
+     * Get the mark of a restaurant on a ballot, walking the ballot's marks
+     * @param ballot the ballot's row
+     * @param id the restaurant id
+     * @return the rank or score (0 if not marked)
+     */
+    public int getMark(int ballot, int id) {
+        this.checkBallot(ballot);
+        int index = this.indexOf(ballot, id);
+        return index < 0 ? 0 : this.marks[ballot][index];
+    }
+
+    /**
+     * How many restaurants a ballot marks
+     * @param ballot the ballot's row
+     * @return the number of marks
+     */
+    public int getNumMarks(int ballot) {
+        this.checkBallot(ballot);
+        return this.lengths[ballot];
+    }
+
+    /**
+     * Get one of the restaurants a ballot marks, in the order they were marked
+     * @param ballot the ballot's row
+     * @param index the mark's index, below {@link #getNumMarks(int)}
+     * @return the restaurant id
+     */
+    public int getMarkedId(int ballot, int index) {
+        this.checkIndex(ballot, index);
+        return this.ids[ballot][index];
+    }
+
+    /**
+     * Get the mark at an index of a ballot (see {@link #getMarkedId(int, int)})
+     * @param ballot the ballot's row
+     * @param index the mark's index, below {@link #getNumMarks(int)}
+     * @return the rank or score
+     */
+    public int getMarkAt(int ballot, int index) {
+        this.checkIndex(ballot, index);
+        return this.marks[ballot][index];
+    }
+
+    /**
+     * Unmark a restaurant on every ballot, e.g. one removed from the game.
+     * Walks every ballot's marks.
+     * @param id the restaurant id
+     */
+    public void unmarkRestaurant(int id) {
+        for (int row = 0; row < this.numRows; row++) {
+            int index = this.indexOf(row, id);
+            if (index >= 0)
+                this.unmarkAt(row, index);
+        }
+    }
+
+    /**
+     * Unmark every restaurant on a ballot. The row stays, as an empty ballot.
+     * @param ballot the ballot's row
+     */
+    public void clearBallot(int ballot) {
+        this.checkBallot(ballot);
+        this.lengths[ballot] = 0;
+    }
+
+    /**
+     * Remove a ballot. Its row is reused by a later {@link #addBallot()}.
+     * @param ballot the ballot's row
+     */
+    public void removeBallot(int ballot) {
+        this.checkBallot(ballot);
+        this.lengths[ballot] = REMOVED;
+        if (this.numFree == this.free.length)
+            this.free = Arrays.copyOf(this.free, Math.max(INITIAL_CAPACITY, this.numFree * 2));
+        this.free[this.numFree++] = ballot;
+    }
+
+    /**
+     * Find the next ballot, skipping removed rows
+     * @param fromBallot the row to start from (inclusive)
+     * @return the next ballot's row, or -1 if there is none
+     */
+    public int nextBallot(int fromBallot) {
+        for (int row = Math.max(fromBallot, 0); row < this.numRows; row++) {
+            if (this.lengths[row] != REMOVED)
+                return row;
+        }
+        return -1;
+    }
+
+    /**
+     * How many ballots there are (added and not removed)
+     * @return the number of ballots
+     */
+    public int getNumBallots() {
+        return this.numRows - this.numFree;
+    }
+
+    /**
+     * How many restaurant ids the totals cover: one more than the highest id
+     * ever marked. Restaurants with higher ids are not marked on any ballot.
+     * @return the number of restaurant ids
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Remove all ballots.
+     */
+    public void clear() {
+        Arrays.fill(this.ids, 0, this.numRows, null);
+        Arrays.fill(this.marks, 0, this.numRows, null);
+        this.numRows = 0;
+        this.numFree = 0;
+        this.width = 0;
+    }
+
+    /**
+     * Count the ballots marking each restaurant, walking the pairs of each row.
+     * @param counts the counts to add to, indexed by restaurant id (at least {@link #getWidth()} long)
+     */
+    public void count(int[] counts) {
+        for (int row = 0; row < this.numRows; row++) {
+            int[] rowIds = this.ids[row];
+            for (int i = 0; i < this.lengths[row]; i++)
+                counts[rowIds[i]]++;
+        }
+    }
+
+    /**
+     * Sum the marks of each restaurant over all ballots, walking the pairs of each row.
+     * @param sums the sums to add to, indexed by restaurant id (at least {@link #getWidth()} long)
+     */
+    public void sum(int[] sums) {
+        for (int row = 0; row < this.numRows; row++) {
+            int[] rowIds = this.ids[row];
+            byte[] rowMarks = this.marks[row];
+            for (int i = 0; i < this.lengths[row]; i++)
+                sums[rowIds[i]] += rowMarks[i];
+        }
+    }
+
+    private static void checkMark(int id, int mark) {
+        if (id < 0)
+            throw new IllegalArgumentException("invalid restaurant id '" + id + "'");
+        if (mark < 0 || mark > MAX_MARK)
+            throw new IllegalArgumentException("invalid mark '" + mark + "'");
+    }
+
+    private void checkBallot(int ballot) {
+        if (ballot < 0 || ballot >= this.numRows || this.lengths[ballot] == REMOVED)
+            throw new IllegalArgumentException("invalid ballot '" + ballot + "'");
+    }
+
+    private void checkIndex(int ballot, int index) {
+        this.checkBallot(ballot);
+        if (index < 0 || index >= this.lengths[ballot])
+            throw new IllegalArgumentException("invalid mark index '" + index + "'");
+    }
+
+    private int indexOf(int ballot, int id) {
+        int[] rowIds = this.ids[ballot];
+        for (int i = 0; i < this.lengths[ballot]; i++) {
+            if (rowIds[i] == id)
+                return i;
+        }
+        return -1;
+    }
+
+    // The later pairs move up, keeping their order
+    private void unmarkAt(int ballot, int index) {
+        int moved = --this.lengths[ballot] - index;
+        System.arraycopy(this.ids[ballot], index + 1, this.ids[ballot], index, moved);
+        System.arraycopy(this.marks[ballot], index + 1, this.marks[ballot], index, moved);
+    }
+
+    private void append(int ballot, int id, int mark) {
+        int index = this.lengths[ballot]++;
+        this.ids[ballot][index] = id;
+        this.marks[ballot][index] = (byte)mark;
+        this.width = Math.max(this.width, id + 1);
+    }
+
+    private void ensureRowCapacity(int ballot, int capacity) {
+        int[] rowIds = this.ids[ballot];
+        int current = rowIds == null ? 0 : rowIds.length;
+        if (capacity <= current)
+            return;
+        // A new ballot's marks usually come in one go, so the row is sized to them exactly
+        int newCapacity = current == 0 ? capacity : Math.max(capacity, current * 2);
+        this.ids[ballot] = rowIds == null ? new int[newCapacity] : Arrays.copyOf(rowIds, newCapacity);
+        this.marks[ballot] = this.marks[ballot] == null ? new byte[newCapacity] : Arrays.copyOf(this.marks[ballot], newCapacity);
+    }
+}
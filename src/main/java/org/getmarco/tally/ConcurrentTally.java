@@ -0,0 +1,340 @@
+package org.getmarco.tally;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe tally for many simultaneous voters. Each restaurant has its own
+ * {@link LongAdder}, so parallel votes (even for the same restaurant) don't
+ * serialize on a lock. The first vote for a restaurant since the last ranking
+ * read also queues its counter. Ranking reads take a lock. They catch a
+ * {@link VoteRanking} up with the queued counters only, so a read costs the
+ * restaurants voted for since the last one, not a pass over all of them. A
+ * restaurant change (add, remove, reset) makes the next read rebuild the
+ * ranking. Each read sees every vote counted before it started, and its
+ * ranked listing, max vote count and winner check agree with each other.
+ * Adding and removing restaurants is expected to happen from one thread at a
+ * time.
+ */
+class ConcurrentTally implements VoteTally {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Every restaurant seen (removed ones stay, inactive, so they keep their id)
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private volatile Counter[] byId = new Counter[INITIAL_CAPACITY];
+    private int nextId;
+
+    // Active restaurants
+    private final NavigableSet<String> names = new ConcurrentSkipListSet<>();
+    private volatile int numActive;
+
+    // Counters voted for since the ranking caught up with them, and structural changes (add, remove, reset)
+    private final Queue<Counter> changed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong modifications = new AtomicLong();
+
+    // Ranking of the active restaurants as of the last read (guarded by the ranking)
+    private final RestaurantDictionary dictionary = new RestaurantDictionary();
+    private final VoteRanking ranking = new VoteRanking(this.dictionary);
+    private Counter[] rankedCounters = new Counter[0];
+    private int[] rankedVotes = new int[0];
+    private long rankedModifications = -1;
+
+    // Read-only view, sized from a field since skip list size() is a full walk
+    private final Set<String> restaurants = new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableSet(ConcurrentTally.this.names).iterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentTally.this.numActive;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Counter counter = ConcurrentTally.this.counters.get(o);
+            return counter != null && counter.active;
+        }
+    };
+
+    @Override
+    public Set<String> getRestaurants() {
+        return this.restaurants;
+    }
+
+    @Override
+    public boolean add(String restaurant) {
+        Counter counter = this.counters.get(restaurant);
+        if (counter == null) {
+            counter = new Counter(this.nextId++, restaurant);
+            Counter[] ids = this.byId;
+            if (counter.id == ids.length)
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            ids[counter.id] = counter;
+            this.byId = ids;
+            this.counters.put(restaurant, counter);
+        } else if (counter.active) {
+            return false;
+        }
+        counter.reset();
+        counter.active = true;
+        this.names.add(restaurant);
+        this.numActive++;
+        this.modifications.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean remove(String restaurant) {
+        Counter counter = this.counters.get(restaurant);
+        if (counter == null || !counter.active)
+            return false;
+        counter.active = false;
+        this.names.remove(restaurant);
+        this.numActive--;
+        this.modifications.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public int getId(String restaurant) {
+        Counter counter = this.counters.get(restaurant);
+        return counter != null && counter.active ? counter.id : -1;
+    }
+
+    @Override
+    public String getName(int id) {
+        return this.counter(id).name;
+    }
+
+    @Override
+    public void vote(String restaurant) {
+        Counter counter = this.counters.get(restaurant);
+        if (counter == null || !counter.active)
+            throw new IllegalStateException("vote for unknown restaurant '" + restaurant + "'");
+        this.increment(counter);
+    }
+
+    @Override
+    public void vote(int id) {
+        Counter[] ids = this.byId;
+        Counter counter = id >= 0 && id < ids.length ? ids[id] : null;
+        if (counter == null || !counter.active)
+            throw new IllegalStateException("vote for unknown restaurant id '" + id + "'");
+        this.increment(counter);
+    }
+
+    @Override
+    public void addVotes(int id, int votes) {
+        Counter[] ids = this.byId;
+        Counter counter = id >= 0 && id < ids.length ? ids[id] : null;
+        if (counter == null || !counter.active)
+            throw new IllegalStateException("vote for unknown restaurant id '" + id + "'");
+        if (votes < 0)
+            throw new IllegalArgumentException("negative vote count '" + votes + "'");
+        counter.add(votes);
+        this.changed(counter);
+    }
+
+    @Override
+    public void removeVotes(int id, int votes) {
+        Counter[] ids = this.byId;
+        Counter counter = id >= 0 && id < ids.length ? ids[id] : null;
+        if (counter == null || !counter.active)
+            throw new IllegalStateException("votes removed from unknown restaurant id '" + id + "'");
+        if (votes < 0 || votes > counter.intValue())
+            throw new IllegalArgumentException("invalid vote count '" + votes + "' removed from '" + counter.intValue() + "'");
+        counter.add(-votes);
+        this.changed(counter);
+    }
+
+    private void increment(Counter counter) {
+        counter.increment();
+        this.changed(counter);
+    }
+
+    // Queue a counter once until the next read. Marked after counting, so the read that clears
+    // the mark then reads the count with the vote in it, or the counter is queued again.
+    private void changed(Counter counter) {
+        if (!counter.changed) {
+            counter.changed = true;
+            this.changed.add(counter);
+        }
+    }
+
+    @Override
+    public int getVotes(String restaurant) {
+        Counter counter = this.counters.get(restaurant);
+        return counter != null && counter.active ? counter.intValue() : 0;
+    }
+
+    @Override
+    public int getVotes(int id) {
+        Counter[] ids = this.byId;
+        Counter counter = id >= 0 && id < ids.length ? ids[id] : null;
+        return counter != null && counter.active ? counter.intValue() : 0;
+    }
+
+    @Override
+    public void resetVotes() {
+        for (Counter counter : this.counters.values())
+            counter.reset();
+        this.modifications.incrementAndGet();
+    }
+
+    @Override
+    public void clear() {
+        this.counters.clear();
+        this.byId = new Counter[INITIAL_CAPACITY];
+        this.nextId = 0;
+        this.names.clear();
+        this.numActive = 0;
+        this.modifications.incrementAndGet();
+    }
+
+    @Override
+    public void restore(String[] restored, int[] votes, int count) {
+        this.counters.clear();
+        this.names.clear();
+        Counter[] ids = new Counter[Math.max(count, INITIAL_CAPACITY)];
+        for (int id = 0; id < count; id++) {
+            Counter counter = new Counter(id, restored[id]);
+            counter.add(votes[id]);
+            counter.active = true;
+            ids[id] = counter;
+            this.counters.put(restored[id], counter);
+            // Ascending order, so each name goes at the end of the skip list
+            this.names.add(restored[id]);
+        }
+        this.byId = ids;
+        this.nextId = count;
+        this.numActive = count;
+        this.modifications.incrementAndGet();
+    }
+
+    @Override
+    public List<String> getRanked(int offset, int limit) {
+        synchronized (this.ranking) {
+            this.catchUp();
+            int[] ids = this.ranking.getRanked(offset, limit);
+            List<String> result = new ArrayList<>(ids.length);
+            for (int id : ids)
+                result.add(this.dictionary.getName(id));
+            return result;
+        }
+    }
+
+    @Override
+    public int getMaxVotes() {
+        synchronized (this.ranking) {
+            this.catchUp();
+            return this.ranking.getMaxVotes();
+        }
+    }
+
+    @Override
+    public boolean isWin() {
+        synchronized (this.ranking) {
+            this.catchUp();
+            return this.ranking.isWin();
+        }
+    }
+
+    private Counter counter(int id) {
+        Counter[] ids = this.byId;
+        if (id < 0 || id >= ids.length || ids[id] == null)
+            throw new IllegalArgumentException("unknown restaurant id '" + id + "'");
+        return ids[id];
+    }
+
+    // Move the queued counters in the ranking, or rebuild it after a structural change
+    private void catchUp() {
+        long mods = this.modifications.get();
+        if (mods != this.rankedModifications) {
+            this.rebuildRanking();
+            this.rankedModifications = mods;
+            return;
+        }
+        for (Counter counter = this.changed.poll(); counter != null; counter = this.changed.poll()) {
+            counter.changed = false;
+            int id = counter.id;
+            // Restaurants added (or counters replaced) since the rebuild wait for the next one
+            if (id >= this.rankedCounters.length || this.rankedCounters[id] != counter || this.rankedVotes[id] < 0)
+                continue;
+            int votes = Math.max(0, counter.intValue());
+            int ranked = this.rankedVotes[id];
+            if (votes > ranked)
+                this.ranking.raise(id, ranked, votes);
+            else if (votes < ranked)
+                this.ranking.drop(id, ranked, votes);
+            this.rankedVotes[id] = votes;
+        }
+    }
+
+    private void rebuildRanking() {
+        // Clear the marks before reading the counters, so later votes are queued again
+        for (Counter counter = this.changed.poll(); counter != null; counter = this.changed.poll())
+            counter.changed = false;
+        Counter[] ids = this.byId;
+        int count = 0;
+        while (count < ids.length && ids[count] != null)
+            count++;
+
+        // Ids are only added to, until a clear or restore starts over with new counters
+        int interned = this.dictionary.size();
+        boolean replaced = interned > count;
+        for (int id = 0; id < interned && !replaced; id++)
+            replaced = this.rankedCounters[id] != ids[id];
+        if (replaced) {
+            this.dictionary.clear();
+            interned = 0;
+        }
+        for (int id = interned; id < count; id++)
+            this.dictionary.intern(ids[id].name);
+
+        // Removed restaurants keep their id, unranked
+        int[] votes = new int[count];
+        int[] active = new int[count];
+        int numRanked = 0;
+        for (int id : this.dictionary.getAlphabeticalOrder()) {
+            Counter counter = ids[id];
+            votes[id] = counter.active ? Math.max(0, counter.intValue()) : -1;
+            if (votes[id] >= 0)
+                active[numRanked++] = id;
+        }
+        this.ranking.rebuild(active, votes, numRanked);
+        this.rankedCounters = Arrays.copyOf(ids, count);
+        this.rankedVotes = votes;
+    }
+
+    /**
+     * Vote counter carrying its restaurant's id
+     */
+    private static final class Counter extends LongAdder {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+        private final String name;
+        private volatile boolean active;
+        private volatile boolean changed;
+
+        Counter(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
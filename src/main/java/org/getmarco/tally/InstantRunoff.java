@@ -0,0 +1,290 @@
+package org.getmarco.tally;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Instant-runoff (ranked choice) count over ranked ballots of restaurant ids.
+ * Ballots are stored back to back in one primitive array. While a runoff
+ * runs, every ballot sits in the bucket of its top surviving choice (an
+ * intrusive linked list per restaurant), so a round only walks the buckets of
+ * the restaurants it eliminates and moves those ballots on to their next
+ * surviving choice; ballots for the surviving restaurants are never touched.
+ * The surviving restaurants are also bucketed by their votes, and the leader
+ * is kept as votes come in, so finding the last place and checking for a
+ * majority don't scan the restaurants either.
+ * <p>
+ * Each round eliminates the restaurant(s) with the fewest votes, until one
+ * restaurant has a majority of the ballots still in play. If every remaining
+ * restaurant has the same number of votes, the runoff ends in a tie.
+ */
+public class InstantRunoff {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    // Ballots: choices of ballot b are choices[starts[b]] up to choices[starts[b + 1]]
+    private int[] choices = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY + 1];
+    private int numBallots;
+    private final BitSet removed = new BitSet();
+    private int maxId = NONE;
+
+    // Runoff: position of each ballot's current choice, and the ballots bucketed by that choice
+    private int[] positions;
+    private int[] nextBallot;
+    private int[] heads;
+    private int[] votes;
+    private final BitSet surviving = new BitSet();
+    private int numSurviving;
+    // Surviving restaurants in a list per vote count, the lowest count with any, and the one with the most votes
+    private int[] byVotes;
+    private int[] nextSame;
+    private int[] previousSame;
+    private int fewest;
+    private int leader;
+    private int inPlay;
+    private int round;
+    private int winner = NONE;
+    private boolean started;
+    private boolean decided;
+
+    /**
+     * Add a ranked ballot. Adding ballots ends a runoff in progress.
+     * @param ids restaurant ids in order of preference (distinct, not negative)
+     * @param offset position of the first choice in ids
+     * @param length number of choices
+     * @return the ballot's number
+     */
+    public int addBallot(int[] ids, int offset, int length) {
+        int end = this.starts[this.numBallots];
+        if (end + length > this.choices.length)
+            this.choices = Arrays.copyOf(this.choices, Math.max(end + length, this.choices.length * 2));
+        if (this.numBallots + 2 > this.starts.length)
+            this.starts = Arrays.copyOf(this.starts, this.starts.length * 2);
+        for (int i = 0; i < length; i++) {
+            int id = ids[offset + i];
+            if (id < 0)
+                throw new IllegalArgumentException("invalid restaurant id '" + id + "'");
+            this.choices[end + i] = id;
+            this.maxId = Math.max(this.maxId, id);
+        }
+        this.starts[++this.numBallots] = end + length;
+        this.started = false;
+        return this.numBallots - 1;
+    }
+
+    /**
+     * Remove a ballot (e.g. retracted by its player). Its choices are left
+     * in place but no longer counted. Removing a ballot ends a runoff in progress.
+     * @param ballot the ballot's number
+     */
+    public void removeBallot(int ballot) {
+        if (ballot < 0 || ballot >= this.numBallots)
+            throw new IllegalArgumentException("invalid ballot '" + ballot + "'");
+        this.removed.set(ballot);
+        this.started = false;
+    }
+
+    /**
+     * How many ballots were added and not removed
+     * @return the number of ballots
+     */
+    public int getNumBallots() {
+        return this.numBallots - this.removed.cardinality();
+    }
+
+    /**
+     * Remove all ballots.
+     */
+    public void clear() {
+        this.numBallots = 0;
+        this.removed.clear();
+        this.maxId = NONE;
+        this.started = false;
+    }
+
+    /**
+     * Start a runoff between the given restaurants. Choices on the ballots
+     * for other restaurants (e.g. eliminated ones) are skipped.
+     * @param candidates the ids of the restaurants in the running
+     */
+    public void start(BitSet candidates) {
+        int size = Math.max(this.maxId, candidates.length() - 1) + 1;
+        this.heads = new int[size];
+        Arrays.fill(this.heads, NONE);
+        this.votes = new int[size];
+        this.positions = new int[this.numBallots];
+        this.nextBallot = new int[this.numBallots];
+        this.surviving.clear();
+        this.surviving.or(candidates);
+        this.numSurviving = candidates.cardinality();
+        this.byVotes = new int[this.numBallots + 1];
+        Arrays.fill(this.byVotes, NONE);
+        this.nextSame = new int[size];
+        this.previousSame = new int[size];
+        this.fewest = 0;
+        this.leader = candidates.nextSetBit(0);
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1))
+            this.link(id, 0);
+        this.inPlay = 0;
+        this.round = 0;
+        this.winner = NONE;
+        this.decided = false;
+        this.started = true;
+        for (int ballot = 0; ballot < this.numBallots; ballot++) {
+            // A removed ballot starts out exhausted
+            this.positions[ballot] = this.removed.get(ballot) ? this.starts[ballot + 1] : this.starts[ballot];
+            this.place(ballot);
+        }
+        this.decide();
+    }
+
+    /**
+     * Run the next round, eliminating the restaurant(s) with the fewest votes.
+     * @return true if a round was run, false if the runoff was already decided
+     */
+    public boolean nextRound() {
+        if (!this.started)
+            throw new IllegalStateException("runoff not started");
+        if (this.decided)
+            return false;
+        this.round++;
+        // Drop every restaurant tied for last place first, then move their ballots on
+        int eliminated = this.byVotes[this.fewest];
+        this.byVotes[this.fewest] = NONE;
+        for (int id = eliminated; id != NONE; id = this.nextSame[id]) {
+            this.surviving.clear(id);
+            this.numSurviving--;
+        }
+        for (int id = eliminated; id != NONE; id = this.nextSame[id]) {
+            int ballot = this.heads[id];
+            this.heads[id] = NONE;
+            this.votes[id] = 0;
+            while (ballot != NONE) {
+                int next = this.nextBallot[ballot];
+                this.inPlay--;
+                this.positions[ballot]++;
+                this.place(ballot);
+                ballot = next;
+            }
+        }
+        this.decide();
+        return true;
+    }
+
+    /**
+     * Run rounds until the runoff is decided.
+     * @param candidates the ids of the restaurants in the running
+     * @return the winning restaurant id, or -1 for a tie
+     */
+    public int run(BitSet candidates) {
+        this.start(candidates);
+        boolean running = true;
+        while (running)
+            running = this.nextRound();
+        return this.winner;
+    }
+
+    /**
+     * Has the runoff finished (a winner, or a tie)
+     * @return whether the runoff is decided
+     */
+    public boolean isDecided() {
+        return this.started && this.decided;
+    }
+
+    /**
+     * Get the winner of a decided runoff
+     * @return the winning restaurant id, or -1 for a tie (or undecided runoff)
+     */
+    public int getWinner() {
+        return this.winner;
+    }
+
+    /**
+     * Get the number of rounds run so far
+     * @return the round number (zero after the first choices are counted)
+     */
+    public int getRound() {
+        return this.round;
+    }
+
+    /**
+     * Get the current votes of a restaurant, i.e. ballots on which it is the top surviving choice.
+     * @param id the restaurant id
+     * @return the votes (zero for eliminated restaurants)
+     */
+    public int getVotes(int id) {
+        return this.isSurviving(id) ? this.votes[id] : 0;
+    }
+
+    /**
+     * Is a restaurant still in the running
+     * @param id the restaurant id
+     * @return whether it survives
+     */
+    public boolean isSurviving(int id) {
+        return this.started && id >= 0 && this.surviving.get(id);
+    }
+
+    /**
+     * How many ballots still count (the rest ran out of surviving choices)
+     * @return the number of ballots in play
+     */
+    public int getBallotsInPlay() {
+        return this.inPlay;
+    }
+
+    private void place(int ballot) {
+        int end = this.starts[ballot + 1];
+        int position = this.positions[ballot];
+        while (position < end && !this.surviving.get(this.choices[position]))
+            position++;
+        this.positions[ballot] = position;
+        if (position == end)
+            return; // Exhausted
+        int id = this.choices[position];
+        this.nextBallot[ballot] = this.heads[id];
+        this.heads[id] = ballot;
+        this.unlink(id, this.votes[id]);
+        this.link(id, ++this.votes[id]);
+        if (this.votes[id] > this.votes[this.leader])
+            this.leader = id;
+        this.inPlay++;
+    }
+
+    // Surviving votes only go up, and the last place is eliminated, so the fewest votes only go up too
+    private void decide() {
+        while (this.fewest < this.numBallots && this.byVotes[this.fewest] == NONE)
+            this.fewest++;
+        if (this.numSurviving == 0) {
+            this.decided = true;
+        } else if (this.numSurviving == 1 || this.votes[this.leader] * 2L > this.inPlay) {
+            this.winner = this.leader;
+            this.decided = true;
+        } else if (this.fewest == this.votes[this.leader]) {
+            // Everyone left is tied
+            this.decided = true;
+        }
+    }
+
+    private void link(int id, int count) {
+        int head = this.byVotes[count];
+        this.nextSame[id] = head;
+        this.previousSame[id] = NONE;
+        if (head != NONE)
+            this.previousSame[head] = id;
+        this.byVotes[count] = id;
+    }
+
+    private void unlink(int id, int count) {
+        int before = this.previousSame[id];
+        int after = this.nextSame[id];
+        if (before == NONE)
+            this.byVotes[count] = after;
+        else
+            this.nextSame[before] = after;
+        if (after != NONE)
+            this.previousSame[after] = before;
+    }
+}
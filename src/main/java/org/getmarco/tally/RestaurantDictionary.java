@@ -0,0 +1,183 @@
+package org.getmarco.tally;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Interning layer assigning each restaurant name a dense {@code int} id (0, 1,
+ * 2, ... in order of first appearance). Lookups use an open addressing table
+ * of ids, so no boxed keys or entry objects are kept per restaurant. Ids stay
+ * assigned until the dictionary is cleared.
+ */
+public class RestaurantDictionary {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    // id to name, and name hash to skip most string compares
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Hash slots holding id + 1 (zero marks an empty slot), kept at most half full
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int shift = Integer.SIZE - Integer.numberOfTrailingZeros(INITIAL_CAPACITY * 2);
+
+    // Alphabetical order of the ids, rebuilt lazily after new names are interned
+    private int[] alphabetical;
+    private int[] alphabeticalRanks;
+
+    /**
+     * Get the id for a name, assigning the next id if the name is new.
+     * @param name the restaurant name
+     * @return the id of the name
+     */
+    public int intern(String name) {
+        if (name == null)
+            throw new IllegalArgumentException("null name");
+        int hash = name.hashCode();
+        int slot = this.findSlot(name, hash);
+        if (this.slots[slot] != 0)
+            return this.slots[slot] - 1;
+
+        int id = this.size++;
+        if (id == this.names.length) {
+            this.names = Arrays.copyOf(this.names, id * 2);
+            this.hashes = Arrays.copyOf(this.hashes, id * 2);
+        }
+        this.names[id] = name;
+        this.hashes[id] = hash;
+        this.slots[slot] = id + 1;
+        if (this.size * 2 > this.slots.length)
+            this.rehash(this.slots.length * 2);
+        this.alphabetical = null;
+        this.alphabeticalRanks = null;
+        return id;
+    }
+
+    /**
+     * Get the id for a name.
+     * @param name the restaurant name
+     * @return the id, or -1 if the name has not been interned
+     */
+    public int getId(String name) {
+        if (name == null)
+            return -1;
+        return this.slots[this.findSlot(name, name.hashCode())] - 1;
+    }
+
+    /**
+     * Get the name for an id.
+     * @param id the restaurant id
+     * @return the name
+     */
+    public String getName(int id) {
+        if (id < 0 || id >= this.size)
+            throw new IllegalArgumentException("unknown restaurant id '" + id + "'");
+        return this.names[id];
+    }
+
+    /**
+     * How many names have been interned (the next id to be assigned)
+     * @return the number of ids
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Forget all names. Ids start again at zero.
+     */
+    public void clear() {
+        Arrays.fill(this.names, 0, this.size, null);
+        Arrays.fill(this.slots, 0);
+        this.size = 0;
+        this.alphabetical = null;
+        this.alphabeticalRanks = null;
+    }
+
+    /**
+     * Replace the dictionary with names already in alphabetical order, which
+     * get ids 0 to count - 1 in that order. The names are not checked, so they
+     * must be distinct and sorted.
+     * @param sortedNames the names in strictly ascending order
+     * @param count how many entries of sortedNames to use
+     */
+    public void load(String[] sortedNames, int count) {
+        this.clear();
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count - 1)) << 1);
+        if (capacity > this.names.length) {
+            this.names = new String[capacity];
+            this.hashes = new int[capacity];
+        }
+        int[] order = new int[count];
+        for (int id = 0; id < count; id++) {
+            this.names[id] = sortedNames[id];
+            this.hashes[id] = sortedNames[id].hashCode();
+            order[id] = id;
+        }
+        this.size = count;
+        this.rehash(Math.max(this.slots.length, capacity * 2));
+        // Id order is alphabetical order, so both lookups are the identity
+        this.alphabetical = order;
+        this.alphabeticalRanks = order;
+    }
+
+    /**
+     * Get all ids in alphabetical order of their names.
+     * @return ids sorted by name (shared, do not modify)
+     */
+    public int[] getAlphabeticalOrder() {
+        if (this.alphabetical == null) {
+            Integer[] order = new Integer[this.size];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            final String[] sortNames = this.names;
+            Arrays.sort(order, Comparator.comparing(id -> sortNames[id]));
+
+            this.alphabetical = new int[order.length];
+            for (int i = 0; i < order.length; i++)
+                this.alphabetical[i] = order[i];
+        }
+        return this.alphabetical;
+    }
+
+    /**
+     * Get the alphabetical position of every id, useful as a primitive sort key.
+     * @return position of each id's name in alphabetical order, indexed by id (shared, do not modify)
+     */
+    public int[] getAlphabeticalRanks() {
+        if (this.alphabeticalRanks == null) {
+            int[] order = this.getAlphabeticalOrder();
+            this.alphabeticalRanks = new int[order.length];
+            for (int i = 0; i < order.length; i++)
+                this.alphabeticalRanks[order[i]] = i;
+        }
+        return this.alphabeticalRanks;
+    }
+
+    private int findSlot(String name, int hash) {
+        int mask = this.slots.length - 1;
+        int slot = (hash * GOLDEN_RATIO) >>> this.shift;
+        for (int entry = this.slots[slot]; entry != 0; entry = this.slots[slot]) {
+            if (this.hashes[entry - 1] == hash && this.names[entry - 1].equals(name))
+                break;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        // Fibonacci hashing, the top bits of the scrambled hash pick the slot (similar names spread out)
+        int newShift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        int[] newSlots = new int[capacity];
+        for (int id = 0; id < this.size; id++) {
+            int slot = (this.hashes[id] * GOLDEN_RATIO) >>> newShift;
+            while (newSlots[slot] != 0)
+                slot = (slot + 1) & mask;
+            newSlots[slot] = id + 1;
+        }
+        this.slots = newSlots;
+        this.shift = newShift;
+    }
+}
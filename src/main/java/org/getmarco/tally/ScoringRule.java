@@ -0,0 +1,91 @@
+package org.getmarco.tally;
+
+/**
+ * How ballots are turned into points for the restaurants on them. Ballots
+ * list restaurants in order of preference (their rank is the mark kept in a
+ * {@link BallotMatrix}), except for {@link #SCORE} ballots, which give each
+ * restaurant a score.
+ */
+public enum ScoringRule {
+    /** A point for every restaurant voted for, up to the number of votes per player */
+    PLURALITY(true, false),
+    /** Points by rank: with n votes per player the first choice gets n points, the second n - 1, and so on */
+    BORDA(true, false),
+    /** A point for every restaurant the player approves of, as many as they like */
+    APPROVAL(false, false),
+    /** A score from 0 to {@link #MAX_SCORE} for any restaurant the player likes, the scores are added up */
+    SCORE(false, true);
+
+    public static final int MAX_SCORE = 5;
+
+    private final boolean limited;
+    private final boolean scored;
+
+    ScoringRule(boolean limited, boolean scored) {
+        this.limited = limited;
+        this.scored = scored;
+    }
+
+    /**
+     * Are ballots limited to the game's number of votes per player
+     * @return whether votes are limited
+     */
+    public boolean isLimited() {
+        return this.limited;
+    }
+
+    /**
+     * Are ballots scores rather than choices in order of preference
+     * @return whether ballots are scored
+     */
+    public boolean isScored() {
+        return this.scored;
+    }
+
+    /**
+     * The points a restaurant gets from one ballot.
+     * @param mark its rank on a ballot (1 for the first choice), or its score
+     * @param numVotesPerPlayer the game's number of votes per player
+     * @return the points
+     */
+    public int points(int mark, int numVotesPerPlayer) {
+        if (mark <= 0)
+            return 0;
+        switch (this) {
+            case BORDA:
+                return Math.max(0, numVotesPerPlayer - mark + 1);
+            case SCORE:
+                return mark;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Total the points of every restaurant over a set of ballots, as
+     * {@link #points(int, int)} gives them one ballot at a time.
+     * @param ballots the ballots
+     * @param numVotesPerPlayer the game's number of votes per player
+     * @return the points, indexed by restaurant id ({@link BallotMatrix#getWidth()} long)
+     */
+    public int[] score(BallotMatrix ballots, int numVotesPerPlayer) {
+        int[] totals = new int[ballots.getWidth()];
+        switch (this) {
+            case BORDA:
+                // n - rank + 1 points per ballot, from the counts and the sums of the ranks
+                int[] ranks = new int[totals.length];
+                ballots.count(totals);
+                ballots.sum(ranks);
+                for (int id = 0; id < totals.length; id++)
+                    totals[id] = totals[id] * (numVotesPerPlayer + 1) - ranks[id];
+                break;
+            case SCORE:
+                ballots.sum(totals);
+                break;
+            default:
+                ballots.count(totals);
+                break;
+        }
+        return totals;
+    }
+}
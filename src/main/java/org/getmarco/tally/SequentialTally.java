@@ -0,0 +1,215 @@
+package org.getmarco.tally;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Single threaded tally. Restaurant names are interned to dense ids by a
+ * {@link RestaurantDictionary}, vote counts live in a primitive array indexed
+ * by id, and a {@link VoteRanking} mirrors the counts so ranking reads don't
+ * need to re-sort. Removed restaurants keep their id (cleared from the active
+ * set) and get it back if they are added again.
+ */
+class SequentialTally implements VoteTally {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final RestaurantDictionary dictionary = new RestaurantDictionary();
+    private final BitSet active = new BitSet();
+    private int numActive;
+    private int[] votes = new int[INITIAL_CAPACITY];
+    private final VoteRanking ranking = new VoteRanking(this.dictionary);
+
+    // Read-only, alphabetically ordered view of the active restaurants
+    private final Set<String> restaurants = new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+            return new AlphabeticalIterator();
+        }
+
+        @Override
+        public int size() {
+            return SequentialTally.this.numActive;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && SequentialTally.this.getId((String)o) >= 0;
+        }
+    };
+
+    @Override
+    public Set<String> getRestaurants() {
+        return this.restaurants;
+    }
+
+    @Override
+    public boolean add(String restaurant) {
+        int id = this.dictionary.intern(restaurant);
+        if (this.active.get(id))
+            return false;
+        if (id >= this.votes.length)
+            this.votes = Arrays.copyOf(this.votes, Math.max(id + 1, this.votes.length * 2));
+        this.votes[id] = 0;
+        this.active.set(id);
+        this.numActive++;
+        this.ranking.add(id, 0);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String restaurant) {
+        int id = this.getId(restaurant);
+        if (id < 0)
+            return false;
+        this.active.clear(id);
+        this.numActive--;
+        this.ranking.remove(id, this.votes[id]);
+        return true;
+    }
+
+    @Override
+    public int getId(String restaurant) {
+        int id = this.dictionary.getId(restaurant);
+        return id >= 0 && this.active.get(id) ? id : -1;
+    }
+
+    @Override
+    public String getName(int id) {
+        return this.dictionary.getName(id);
+    }
+
+    @Override
+    public void vote(String restaurant) {
+        int id = this.getId(restaurant);
+        if (id < 0)
+            throw new IllegalStateException("vote for unknown restaurant '" + restaurant + "'");
+        this.increment(id);
+    }
+
+    @Override
+    public void vote(int id) {
+        if (id < 0 || !this.active.get(id))
+            throw new IllegalStateException("vote for unknown restaurant id '" + id + "'");
+        this.increment(id);
+    }
+
+    @Override
+    public void addVotes(int id, int numVotes) {
+        if (id < 0 || !this.active.get(id))
+            throw new IllegalStateException("vote for unknown restaurant id '" + id + "'");
+        if (numVotes < 0)
+            throw new IllegalArgumentException("negative vote count '" + numVotes + "'");
+        int current = this.votes[id];
+        this.votes[id] = current + numVotes;
+        this.ranking.raise(id, current, current + numVotes);
+    }
+
+    @Override
+    public void removeVotes(int id, int numVotes) {
+        if (id < 0 || !this.active.get(id))
+            throw new IllegalStateException("votes removed from unknown restaurant id '" + id + "'");
+        int current = this.votes[id];
+        if (numVotes < 0 || numVotes > current)
+            throw new IllegalArgumentException("invalid vote count '" + numVotes + "' removed from '" + current + "'");
+        this.votes[id] = current - numVotes;
+        this.ranking.drop(id, current, current - numVotes);
+    }
+
+    private void increment(int id) {
+        this.ranking.increment(id, this.votes[id]++);
+    }
+
+    @Override
+    public int getVotes(String restaurant) {
+        return this.getVotes(this.getId(restaurant));
+    }
+
+    @Override
+    public int getVotes(int id) {
+        return id >= 0 && this.active.get(id) ? this.votes[id] : 0;
+    }
+
+    @Override
+    public void resetVotes() {
+        int[] ids = new int[this.numActive];
+        int count = 0;
+        for (int id : this.dictionary.getAlphabeticalOrder()) {
+            if (this.active.get(id)) {
+                this.votes[id] = 0;
+                ids[count++] = id;
+            }
+        }
+        this.ranking.reset(ids, count);
+    }
+
+    @Override
+    public void clear() {
+        this.dictionary.clear();
+        this.active.clear();
+        this.numActive = 0;
+        this.ranking.clear();
+    }
+
+    @Override
+    public void restore(String[] names, int[] counts, int count) {
+        this.dictionary.load(names, count);
+        this.votes = Arrays.copyOf(counts, Math.max(count, INITIAL_CAPACITY));
+        this.active.clear();
+        this.active.set(0, count);
+        this.numActive = count;
+        this.ranking.rebuild(this.votes, count);
+    }
+
+    @Override
+    public List<String> getRanked(int offset, int limit) {
+        int[] ids = this.ranking.getRanked(offset, limit);
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++)
+            names[i] = this.dictionary.getName(ids[i]);
+        return Arrays.asList(names);
+    }
+
+    @Override
+    public int getMaxVotes() {
+        return this.ranking.getMaxVotes();
+    }
+
+    @Override
+    public boolean isWin() {
+        return this.ranking.isWin();
+    }
+
+    /**
+     * Walks the dictionary's alphabetical order, skipping removed restaurants
+     */
+    private class AlphabeticalIterator implements Iterator<String> {
+        private final int[] order = SequentialTally.this.dictionary.getAlphabeticalOrder();
+        private int position = this.advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return this.position < this.order.length;
+        }
+
+        @Override
+        public String next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+            String name = SequentialTally.this.dictionary.getName(this.order[this.position]);
+            this.position = this.advance(this.position + 1);
+            return name;
+        }
+
+        private int advance(int from) {
+            int i = from;
+            while (i < this.order.length && !SequentialTally.this.active.get(this.order[i]))
+                i++;
+            return i;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.getmarco.tally;
+
+/**
+ * Vote tally implementations
+ */
+public enum TallyType {
+    /** Single threaded tally with an incrementally maintained ranking index */
+    SEQUENTIAL,
+    /** Thread-safe tally for many simultaneous voters */
+    CONCURRENT
+}
@@ -0,0 +1,493 @@
+package org.getmarco.tally;
+
+import java.util.Arrays;
+
+/**
+ * Ranking index over restaurant vote counts. Restaurant ids are grouped into
+ * buckets, one per distinct vote count in use, and the buckets are linked
+ * from the highest count down. Bucket slots are reused, so there are never
+ * more buckets than ranked restaurants, whatever the counts.
+ * <p>
+ * A vote moves a restaurant to the bucket above in O(1): the ids of a bucket
+ * sit in a sorted (alphabetical) array plus a linked list of the ids that
+ * arrived since it was sorted, and an id leaving the sorted array just
+ * leaves a stale entry behind. Order is restored when read: a ranked page
+ * merges the few unsorted ids of each bucket it reaches into the sorted ones
+ * on the fly, and sorts a bucket again once its unsorted and stale ids pass
+ * about the square root of its size. Buckets above the page are skipped by
+ * size. The max vote count and winner checks read the top bucket.
+ */
+public class VoteRanking {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+    // The previous link of an id that is in its bucket's sorted array
+    private static final int SORTED = -2;
+    private static final int MIN_UNSORTED = 16;
+    private static final int ID_BITS = 32;
+    private static final long ID_MASK = 0xFFFFFFFFL;
+
+    // Names of the ids, for the alphabetical order within a bucket
+    private final RestaurantDictionary dictionary;
+
+    // Per restaurant id: its bucket, and its links in the bucket's unsorted list
+    private int[] idBuckets = newFilled(INITIAL_CAPACITY);
+    private int[] previous = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    // Per bucket: vote count, size, and neighboring buckets
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] sizes = new int[INITIAL_CAPACITY];
+    private int[] lower = new int[INITIAL_CAPACITY];
+    private int[] higher = new int[INITIAL_CAPACITY];
+    // Per bucket: ids in alphabetical order (some may have left since), how many have left, and the unsorted list
+    private int[][] sorted = new int[INITIAL_CAPACITY][];
+    private int[] sortedLengths = new int[INITIAL_CAPACITY];
+    private int[] stale = new int[INITIAL_CAPACITY];
+    private int[] heads = new int[INITIAL_CAPACITY];
+    private int[] unsorted = new int[INITIAL_CAPACITY];
+    // Bucket slots used so far, and the freed ones (linked through higher)
+    private int numBuckets;
+    private int freeBuckets = NONE;
+
+    // Highest and lowest buckets, and number of ranked restaurants
+    private int top = NONE;
+    private int bottom = NONE;
+    private int size;
+
+    /**
+     * Create an empty ranking.
+     * @param dictionary the names of the ranked ids
+     */
+    public VoteRanking(RestaurantDictionary dictionary) {
+        if (dictionary == null)
+            throw new IllegalArgumentException("null dictionary");
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Add a restaurant to the ranking.
+     * @param id the restaurant id
+     * @param votes the current vote count of the restaurant
+     */
+    public void add(int id, int votes) {
+        if (votes < 0)
+            throw new IllegalArgumentException("negative vote count '" + votes + "'");
+        this.ensureIdCapacity(id);
+        if (this.idBuckets[id] != NONE)
+            throw new IllegalStateException("restaurant id '" + id + "' already ranked");
+        // Restaurants come in with few votes, so look from the bottom up
+        int below = NONE;
+        int above = this.bottom;
+        while (above != NONE && this.counts[above] < votes) {
+            below = above;
+            above = this.higher[above];
+        }
+        this.join(id, above != NONE && this.counts[above] == votes ? above : this.newBucket(votes, below, above));
+    }
+
+    /**
+     * Remove a restaurant from the ranking.
+     * @param id the restaurant id
+     * @param votes the current vote count of the restaurant
+     */
+    public void remove(int id, int votes) {
+        this.leave(id, this.bucket(id, votes));
+    }
+
+    /**
+     * Move a restaurant up by one vote.
+     * @param id the restaurant id
+     * @param votes the vote count the restaurant is currently ranked with
+     */
+    public void increment(int id, int votes) {
+        int bucket = this.bucket(id, votes);
+        if (votes == Integer.MAX_VALUE)
+            throw new IllegalStateException("too many votes for restaurant id '" + id + "'");
+        int above = this.higher[bucket];
+        // The new bucket goes directly above the old one, which is still linked at this point
+        int target = above != NONE && this.counts[above] == votes + 1 ? above : this.newBucket(votes + 1, bucket, above);
+        this.leave(id, bucket);
+        this.join(id, target);
+    }
+
+    /**
+     * Move a restaurant up by any number of votes.
+     * @param id the restaurant id
+     * @param votes the vote count the restaurant is currently ranked with
+     * @param newVotes the new vote count (not lower than votes)
+     */
+    public void raise(int id, int votes, int newVotes) {
+        if (newVotes < votes)
+            throw new IllegalArgumentException("'" + newVotes + "' votes is lower than '" + votes + "'");
+        int bucket = this.bucket(id, votes);
+        if (newVotes == votes)
+            return;
+        // Walk up from the old bucket to the closest ones around the new count
+        int below = bucket;
+        int above = this.higher[bucket];
+        while (above != NONE && this.counts[above] < newVotes) {
+            below = above;
+            above = this.higher[above];
+        }
+        int target = above != NONE && this.counts[above] == newVotes ? above : this.newBucket(newVotes, below, above);
+        this.leave(id, bucket);
+        this.join(id, target);
+    }
+
+    /**
+     * Move a restaurant down by any number of votes (e.g. a retracted ballot).
+     * @param id the restaurant id
+     * @param votes the vote count the restaurant is currently ranked with
+     * @param newVotes the new vote count (not higher than votes, not negative)
+     */
+    public void drop(int id, int votes, int newVotes) {
+        if (newVotes > votes || newVotes < 0)
+            throw new IllegalArgumentException("invalid drop from '" + votes + "' to '" + newVotes + "' votes");
+        int bucket = this.bucket(id, votes);
+        if (newVotes == votes)
+            return;
+        // Walk down from the old bucket to the closest ones around the new count
+        int above = bucket;
+        int below = this.lower[bucket];
+        while (below != NONE && this.counts[below] > newVotes) {
+            above = below;
+            below = this.lower[below];
+        }
+        int target = below != NONE && this.counts[below] == newVotes ? below : this.newBucket(newVotes, below, above);
+        this.leave(id, bucket);
+        this.join(id, target);
+    }
+
+    /**
+     * Rank the given restaurants with zero votes, replacing the current ranking.
+     * @param ids the restaurant ids, in alphabetical order of their names
+     * @param count how many entries of ids to use
+     */
+    public void reset(int[] ids, int count) {
+        this.clear();
+        if (count == 0)
+            return;
+        int maxId = 0;
+        for (int i = 0; i < count; i++)
+            maxId = Math.max(maxId, ids[i]);
+        this.ensureIdCapacity(maxId);
+        this.fill(this.newBucket(0, NONE, NONE), Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Rank restaurants 0 to count - 1 with the given vote counts, replacing the
+     * current ranking.
+     * @param votes the vote count of each restaurant, indexed by id
+     * @param count the number of restaurants, whose names are in the alphabetical order of their ids
+     */
+    public void rebuild(int[] votes, int count) {
+        int[] ids = new int[count];
+        for (int id = 0; id < count; id++)
+            ids[id] = id;
+        this.rebuild(ids, votes, count);
+    }
+
+    /**
+     * Rank the given restaurants with the given vote counts, replacing the
+     * current ranking. Sorting them by vote count, then alphabetical position,
+     * leaves each bucket's ids already sorted.
+     * @param ids the restaurant ids, in alphabetical order of their names
+     * @param votes the vote count of each restaurant, indexed by id
+     * @param count how many entries of ids to use
+     */
+    public void rebuild(int[] ids, int[] votes, int count) {
+        this.clear();
+        if (count == 0)
+            return;
+        long[] keys = new long[count];
+        int maxId = 0;
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            if (votes[id] < 0)
+                throw new IllegalArgumentException("negative vote count '" + votes[id] + "'");
+            keys[i] = (long)votes[id] << ID_BITS | i;
+            maxId = Math.max(maxId, id);
+        }
+        this.ensureIdCapacity(maxId);
+        Arrays.sort(keys);
+
+        int start = 0;
+        while (start < count) {
+            int bucketVotes = (int)(keys[start] >>> ID_BITS);
+            int end = start;
+            while (end < count && (int)(keys[end] >>> ID_BITS) == bucketVotes)
+                end++;
+            int[] bucketIds = new int[end - start];
+            for (int i = start; i < end; i++)
+                bucketIds[i - start] = ids[(int)(keys[i] & ID_MASK)];
+            this.fill(this.newBucket(bucketVotes, this.top, NONE), bucketIds);
+            start = end;
+        }
+    }
+
+    /**
+     * Remove all restaurants from the ranking.
+     */
+    public void clear() {
+        Arrays.fill(this.idBuckets, NONE);
+        Arrays.fill(this.sorted, 0, this.numBuckets, null);
+        this.numBuckets = 0;
+        this.freeBuckets = NONE;
+        this.top = NONE;
+        this.bottom = NONE;
+        this.size = 0;
+    }
+
+    /**
+     * Get the highest vote count of any ranked restaurant.
+     * @return the max vote count (zero when empty)
+     */
+    public int getMaxVotes() {
+        return this.top == NONE ? 0 : this.counts[this.top];
+    }
+
+    /**
+     * Is there exactly one restaurant with the highest (non-zero) vote count.
+     * @return whether there is a winner
+     */
+    public boolean isWin() {
+        return this.top != NONE && this.counts[this.top] > 0 && this.sizes[this.top] == 1;
+    }
+
+    /**
+     * Get a page of restaurant ids in descending order of votes, ties in
+     * alphabetical order. Buckets above the page are skipped by size, so the
+     * cost follows the page and the buckets it reaches rather than the number
+     * of restaurants ranked.
+     * @param offset the number of ranked ids to skip
+     * @param limit the maximum number of ids to return
+     * @return up to limit ids in ranked order
+     */
+    public int[] getRanked(int offset, int limit) {
+        int skip = Math.min(offset, this.size);
+        int[] result = new int[Math.min(limit, this.size - skip)];
+        int count = 0;
+        for (int bucket = this.top; bucket != NONE && count < result.length; bucket = this.lower[bucket]) {
+            if (skip >= this.sizes[bucket]) {
+                skip -= this.sizes[bucket];
+                continue;
+            }
+            count = this.copy(bucket, skip, result, count);
+            skip = 0;
+        }
+        return result;
+    }
+
+    // Copy a bucket's ids in alphabetical order, from position from, into result after count (returning the new count)
+    private int copy(int bucket, int from, int[] result, int count) {
+        int changed = this.unsorted[bucket] + this.stale[bucket];
+        int limit = Math.max(MIN_UNSORTED, (int)Math.sqrt(this.sizes[bucket]));
+        if (changed > limit || (changed > 0 && from > limit)) {
+            this.sort(bucket);
+            changed = 0;
+        }
+        int[] ids = this.sorted[bucket];
+        if (changed == 0) {
+            int length = Math.min(result.length - count, this.sizes[bucket] - from);
+            System.arraycopy(ids, from, result, count, length);
+            return count + length;
+        }
+
+        // Merge the unsorted ids into the sorted ones that are still in the bucket
+        int[] arrived = this.sortUnsorted(bucket);
+        int[] ranks = this.dictionary.getAlphabeticalRanks();
+        int length = this.sortedLengths[bucket];
+        int i = 0;
+        int j = 0;
+        int skip = from;
+        while (count < result.length) {
+            while (i < length && !this.isSorted(ids[i], bucket))
+                i++;
+            int id;
+            if (i < length && (j == arrived.length || ranks[ids[i]] < ranks[arrived[j]]))
+                id = ids[i++];
+            else if (j < arrived.length)
+                id = arrived[j++];
+            else
+                break;
+            if (skip > 0)
+                skip--;
+            else
+                result[count++] = id;
+        }
+        return count;
+    }
+
+    // Merge a bucket's unsorted ids into its sorted array, dropping the stale entries
+    private void sort(int bucket) {
+        int[] arrived = this.sortUnsorted(bucket);
+        int[] ranks = this.dictionary.getAlphabeticalRanks();
+        int[] ids = this.sorted[bucket];
+        int length = this.sortedLengths[bucket];
+        int[] merged = new int[this.sizes[bucket]];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < length; i++) {
+            if (!this.isSorted(ids[i], bucket))
+                continue;
+            while (j < arrived.length && ranks[arrived[j]] < ranks[ids[i]])
+                merged[count++] = arrived[j++];
+            merged[count++] = ids[i];
+        }
+        while (j < arrived.length)
+            merged[count++] = arrived[j++];
+        this.fill(bucket, merged);
+    }
+
+    // A bucket's unsorted ids, in alphabetical order
+    private int[] sortUnsorted(int bucket) {
+        int[] ranks = this.dictionary.getAlphabeticalRanks();
+        long[] keys = new long[this.unsorted[bucket]];
+        int count = 0;
+        for (int id = this.heads[bucket]; id != NONE; id = this.next[id])
+            keys[count++] = (long)ranks[id] << ID_BITS | id;
+        Arrays.sort(keys);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++)
+            ids[i] = (int)(keys[i] & ID_MASK);
+        return ids;
+    }
+
+    // Make ids, in alphabetical order, a bucket's sorted array and its only ids
+    private void fill(int bucket, int[] ids) {
+        for (int id : ids) {
+            this.idBuckets[id] = bucket;
+            this.previous[id] = SORTED;
+        }
+        this.size += ids.length - this.sizes[bucket];
+        this.sorted[bucket] = ids;
+        this.sortedLengths[bucket] = ids.length;
+        this.sizes[bucket] = ids.length;
+        this.stale[bucket] = 0;
+        this.heads[bucket] = NONE;
+        this.unsorted[bucket] = 0;
+    }
+
+    private boolean isSorted(int id, int bucket) {
+        return this.idBuckets[id] == bucket && this.previous[id] == SORTED;
+    }
+
+    // The bucket of a ranked id, checking its vote count
+    private int bucket(int id, int votes) {
+        int bucket = id >= 0 && id < this.idBuckets.length ? this.idBuckets[id] : NONE;
+        if (bucket == NONE || this.counts[bucket] != votes)
+            throw new IllegalStateException("restaurant id '" + id + "' not ranked with '" + votes + "' votes");
+        return bucket;
+    }
+
+    private void join(int id, int bucket) {
+        int head = this.heads[bucket];
+        this.idBuckets[id] = bucket;
+        this.previous[id] = NONE;
+        this.next[id] = head;
+        if (head != NONE)
+            this.previous[head] = id;
+        this.heads[bucket] = id;
+        this.unsorted[bucket]++;
+        this.sizes[bucket]++;
+        this.size++;
+    }
+
+    private void leave(int id, int bucket) {
+        int before = this.previous[id];
+        if (before == SORTED) {
+            this.stale[bucket]++;
+        } else {
+            int after = this.next[id];
+            if (before == NONE)
+                this.heads[bucket] = after;
+            else
+                this.next[before] = after;
+            if (after != NONE)
+                this.previous[after] = before;
+            this.unsorted[bucket]--;
+        }
+        this.idBuckets[id] = NONE;
+        this.size--;
+        if (--this.sizes[bucket] == 0)
+            this.freeBucket(bucket);
+    }
+
+    // An empty bucket for a vote count, linked between two neighbors
+    private int newBucket(int votes, int below, int above) {
+        int bucket = this.freeBuckets;
+        if (bucket != NONE) {
+            this.freeBuckets = this.higher[bucket];
+        } else {
+            this.ensureBucketCapacity(this.numBuckets + 1);
+            bucket = this.numBuckets++;
+        }
+        this.counts[bucket] = votes;
+        this.sizes[bucket] = 0;
+        this.sorted[bucket] = null;
+        this.sortedLengths[bucket] = 0;
+        this.stale[bucket] = 0;
+        this.heads[bucket] = NONE;
+        this.unsorted[bucket] = 0;
+        this.lower[bucket] = below;
+        this.higher[bucket] = above;
+        if (below != NONE)
+            this.higher[below] = bucket;
+        else
+            this.bottom = bucket;
+        if (above != NONE)
+            this.lower[above] = bucket;
+        else
+            this.top = bucket;
+        return bucket;
+    }
+
+    private void freeBucket(int bucket) {
+        int below = this.lower[bucket];
+        int above = this.higher[bucket];
+        if (below != NONE)
+            this.higher[below] = above;
+        else
+            this.bottom = above;
+        if (above != NONE)
+            this.lower[above] = below;
+        else
+            this.top = below;
+        this.sorted[bucket] = null;
+        this.higher[bucket] = this.freeBuckets;
+        this.freeBuckets = bucket;
+    }
+
+    private void ensureIdCapacity(int id) {
+        int capacity = this.idBuckets.length;
+        if (id < capacity)
+            return;
+        int newCapacity = Math.max(id + 1, capacity * 2);
+        this.idBuckets = Arrays.copyOf(this.idBuckets, newCapacity);
+        Arrays.fill(this.idBuckets, capacity, newCapacity, NONE);
+        this.previous = Arrays.copyOf(this.previous, newCapacity);
+        this.next = Arrays.copyOf(this.next, newCapacity);
+    }
+
+    private void ensureBucketCapacity(int buckets) {
+        int capacity = this.counts.length;
+        if (buckets <= capacity)
+            return;
+        int newCapacity = Math.max(buckets, capacity * 2);
+        this.counts = Arrays.copyOf(this.counts, newCapacity);
+        this.sizes = Arrays.copyOf(this.sizes, newCapacity);
+        this.lower = Arrays.copyOf(this.lower, newCapacity);
+        this.higher = Arrays.copyOf(this.higher, newCapacity);
+        this.sorted = Arrays.copyOf(this.sorted, newCapacity);
+        this.sortedLengths = Arrays.copyOf(this.sortedLengths, newCapacity);
+        this.stale = Arrays.copyOf(this.stale, newCapacity);
+        this.heads = Arrays.copyOf(this.heads, newCapacity);
+        this.unsorted = Arrays.copyOf(this.unsorted, newCapacity);
+    }
+
+    private static int[] newFilled(int capacity) {
+        int[] array = new int[capacity];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+}
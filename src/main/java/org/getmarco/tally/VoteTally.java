@@ -0,0 +1,129 @@
+package org.getmarco.tally;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Contract for the restaurant vote tally of a game run.
+ */
+public interface VoteTally {
+    /**
+     * Get the names of the restaurants in the tally
+     * @return alphabetically sorted, read-only restaurant names
+     */
+    Set<String> getRestaurants();
+
+    /**
+     * Add a restaurant with zero votes. Existing restaurants keep their votes.
+     * @param restaurant the restaurant name
+     * @return true if the restaurant was added, false if it was already present
+     */
+    boolean add(String restaurant);
+
+    /**
+     * Remove a restaurant and its votes.
+     * @param restaurant the restaurant name
+     * @return true if the restaurant was removed, false if it was unknown
+     */
+    boolean remove(String restaurant);
+
+    /**
+     * Get the dense id assigned to a restaurant when it was added.
+     * @param restaurant the restaurant name
+     * @return the id, or -1 for an unknown (or removed) restaurant
+     */
+    int getId(String restaurant);
+
+    /**
+     * Get the name of a restaurant by id.
+     * @param id the restaurant id
+     * @return the restaurant name
+     */
+    String getName(int id);
+
+    /**
+     * Register a vote for a restaurant.
+     * @param restaurant the restaurant name
+     * @throws IllegalStateException for an unknown restaurant
+     */
+    void vote(String restaurant);
+
+    /**
+     * Register a vote for a restaurant by id.
+     * @param id the restaurant id
+     * @throws IllegalStateException for an unknown restaurant
+     */
+    void vote(int id);
+
+    /**
+     * Register several votes for a restaurant at once.
+     * @param id the restaurant id
+     * @param votes the number of votes to add (not negative)
+     * @throws IllegalStateException for an unknown restaurant
+     */
+    void addVotes(int id, int votes);
+
+    /**
+     * Take back votes from a restaurant, e.g. those of a retracted ballot.
+     * @param id the restaurant id
+     * @param votes the number of votes to remove (not negative, nor more than the restaurant has)
+     * @throws IllegalStateException for an unknown restaurant
+     */
+    void removeVotes(int id, int votes);
+
+    /**
+     * Get the number of votes for a restaurant.
+     * @param restaurant the restaurant name
+     * @return number of votes (always zero for unknown restaurant names)
+     */
+    int getVotes(String restaurant);
+
+    /**
+     * Get the number of votes for a restaurant by id.
+     * @param id the restaurant id
+     * @return number of votes (always zero for unknown restaurant ids)
+     */
+    int getVotes(int id);
+
+    /**
+     * Set every restaurant back to zero votes.
+     */
+    void resetVotes();
+
+    /**
+     * Remove all restaurants.
+     */
+    void clear();
+
+    /**
+     * Replace all restaurants in one pass, without the checks done by
+     * {@link #add(String)}. Restaurants get ids 0 to count - 1 in the given
+     * (alphabetical) order. Meant for restoring saved games.
+     * @param names the restaurant names, distinct and in ascending order
+     * @param votes the vote count of each restaurant (not negative)
+     * @param count how many entries of names and votes to use
+     */
+    void restore(String[] names, int[] votes, int count);
+
+    /**
+     * Get a page of the restaurants in descending order of votes, subsorted
+     * alphabetically. Implementations only pay for the ranks up to the end of
+     * the page, not for ranking every restaurant.
+     * @param offset the number of ranked restaurants to skip
+     * @param limit the maximum number of restaurants to return
+     * @return up to limit restaurants in ranked order
+     */
+    List<String> getRanked(int offset, int limit);
+
+    /**
+     * Get the highest vote count of any restaurant.
+     * @return the max vote count (zero when empty)
+     */
+    int getMaxVotes();
+
+    /**
+     * Is there exactly one restaurant with the highest (non-zero) vote count.
+     * @return whether there is a winner
+     */
+    boolean isWin();
+}
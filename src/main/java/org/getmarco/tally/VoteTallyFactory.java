@@ -0,0 +1,22 @@
+package org.getmarco.tally;
+
+/**
+ * Factory to return the correct {@link VoteTally} instance
+ */
+public final class VoteTallyFactory {
+
+    private VoteTallyFactory() {
+        // Not used
+    }
+
+    public static VoteTally create(TallyType type) {
+        switch (type) {
+            case SEQUENTIAL:
+                return new SequentialTally();
+            case CONCURRENT:
+                return new ConcurrentTally();
+            default:
+                throw new RuntimeException("impossible");
+        }
+    }
+}
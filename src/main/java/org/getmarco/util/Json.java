@@ -0,0 +1,272 @@
+package org.getmarco.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reading and writing, for the HTTP API's request and response
+ * bodies and the records of a JSON Lines import. Objects read as {@link Map}s (in document order), arrays
+ * as {@link List}s, numbers as {@link Long} (or {@link Double} with a fraction
+ * or exponent), and true, false and null as {@link Boolean} and null.
+ * Writing takes the same types, plus any {@link Collection} or {@link Number}.
+ * Reading is recursive, so objects and arrays nest at most {@link #MAX_DEPTH}
+ * levels deep.
+ */
+public final class Json {
+    public static final int MAX_DEPTH = 64;
+
+    private static final int HEX = 16;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final char FIRST_PRINTABLE = 0x20;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse a JSON document.
+     * @param text the document
+     * @return the value
+     * @throws IllegalArgumentException for malformed JSON
+     */
+    public static Object parse(String text) {
+        if (text == null)
+            throw new IllegalArgumentException("null JSON");
+        Json parser = new Json(text);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.position != text.length())
+            throw parser.error("unexpected content");
+        return value;
+    }
+
+    /**
+     * Write a value as JSON.
+     * @param value the value
+     * @return the JSON text
+     */
+    public static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out) {
+        if (value == null || value instanceof Boolean || value instanceof Number) {
+            out.append(value);
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                if (!first)
+                    out.append(',');
+                first = false;
+                writeString(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>)value) {
+                if (!first)
+                    out.append(',');
+                first = false;
+                write(element, out);
+            }
+            out.append(']');
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    private static void writeString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c == '\n')
+                out.append("\\n");
+            else if (c < FIRST_PRINTABLE)
+                out.append(String.format("\\u%04x", (int)c));
+            else
+                out.append(c);
+        }
+        out.append('"');
+    }
+
+    private Object readValue() {
+        this.skipWhitespace();
+        if (this.position == this.text.length())
+            throw this.error("unexpected end");
+        char c = this.text.charAt(this.position);
+        if (c == '{')
+            return this.readObject();
+        if (c == '[')
+            return this.readArray();
+        if (c == '"')
+            return this.readString();
+        if (this.text.startsWith("true", this.position))
+            return this.readLiteral("true", Boolean.TRUE);
+        if (this.text.startsWith("false", this.position))
+            return this.readLiteral("false", Boolean.FALSE);
+        if (this.text.startsWith("null", this.position))
+            return this.readLiteral("null", null);
+        return this.readNumber();
+    }
+
+    private Map<String, Object> readObject() {
+        this.enter();
+        Map<String, Object> object = new LinkedHashMap<>();
+        this.position++;
+        if (this.next() == '}') {
+            this.position++;
+            this.depth--;
+            return object;
+        }
+        while (true) {
+            if (this.next() != '"')
+                throw this.error("expected a name");
+            String name = this.readString();
+            if (this.next() != ':')
+                throw this.error("expected ':'");
+            this.position++;
+            object.put(name, this.readValue());
+            char c = this.next();
+            this.position++;
+            if (c == '}') {
+                this.depth--;
+                return object;
+            }
+            if (c != ',')
+                throw this.error("expected ',' or '}'");
+        }
+    }
+
+    private List<Object> readArray() {
+        this.enter();
+        List<Object> array = new ArrayList<>();
+        this.position++;
+        if (this.next() == ']') {
+            this.position++;
+            this.depth--;
+            return array;
+        }
+        while (true) {
+            array.add(this.readValue());
+            char c = this.next();
+            this.position++;
+            if (c == ']') {
+                this.depth--;
+                return array;
+            }
+            if (c != ',')
+                throw this.error("expected ',' or ']'");
+        }
+    }
+
+    private String readString() {
+        StringBuilder value = new StringBuilder();
+        this.position++;
+        while (this.position < this.text.length()) {
+            char c = this.text.charAt(this.position++);
+            if (c == '"')
+                return value.toString();
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (this.position == this.text.length())
+                break;
+            char escaped = this.text.charAt(this.position++);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (this.position + UNICODE_ESCAPE_LENGTH > this.text.length())
+                        throw this.error("bad unicode escape");
+                    try {
+                        value.append((char)Integer.parseInt(
+                          this.text.substring(this.position, this.position + UNICODE_ESCAPE_LENGTH), HEX));
+                    } catch (NumberFormatException e) {
+                        throw this.error("bad unicode escape");
+                    }
+                    this.position += UNICODE_ESCAPE_LENGTH;
+                    break;
+                default:
+                    value.append(escaped);
+                    break;
+            }
+        }
+        throw this.error("unterminated string");
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        this.position += literal.length();
+        return value;
+    }
+
+    private Number readNumber() {
+        int start = this.position;
+        boolean integral = true;
+        while (this.position < this.text.length()) {
+            char c = this.text.charAt(this.position);
+            if (c == '.' || c == 'e' || c == 'E')
+                integral = false;
+            else if (c != '-' && c != '+' && (c < '0' || c > '9'))
+                break;
+            this.position++;
+        }
+        String number = this.text.substring(start, this.position);
+        try {
+            return integral ? (Number)Long.valueOf(number) : (Number)Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            throw this.error("invalid value");
+        }
+    }
+
+    // One level deeper into an object or array, before the stack runs out
+    private void enter() {
+        if (++this.depth > MAX_DEPTH)
+            throw this.error("nested over " + MAX_DEPTH + " levels");
+    }
+
+    // The next character after whitespace
+    private char next() {
+        this.skipWhitespace();
+        if (this.position == this.text.length())
+            throw this.error("unexpected end");
+        return this.text.charAt(this.position);
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position)))
+            this.position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("invalid JSON, " + message + " at " + this.position);
+    }
+}
@@ -0,0 +1,172 @@
+package org.getmarco.util;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental index of names, keyed by a normalized form so that near
+ * duplicates (e.g. "Moe's", " moe's " and "MOE'S" written in full width
+ * letters) are recognized as the same name. Each key maps to the display
+ * name it was first added with. Lookups are a single hash probe, and the
+ * index is updated in place as names come and go instead of being copied for
+ * every check.
+ */
+public class NameIndex {
+
+    /**
+     * The normalization steps applied to a name to build its key.
+     */
+    public enum Normalization {
+        /** Unicode compatibility composition (NFKC), e.g. full width letters and ligatures */
+        NFKC,
+        /** Ignore leading and trailing white space */
+        TRIM,
+        /** Ignore case differences */
+        CASE_FOLD
+    }
+
+    private final Set<Normalization> normalizations;
+    private final Map<String, String> names = new HashMap<>();
+
+    /**
+     * Create an index applying every normalization step.
+     */
+    public NameIndex() {
+        this(EnumSet.allOf(Normalization.class));
+    }
+
+    /**
+     * Create an index applying the given normalization steps (an empty set matches names exactly).
+     * @param normalizations the normalization steps
+     */
+    public NameIndex(Set<Normalization> normalizations) {
+        if (normalizations == null)
+            throw new IllegalArgumentException("null normalizations");
+        this.normalizations = EnumSet.noneOf(Normalization.class);
+        this.normalizations.addAll(normalizations);
+    }
+
+    /**
+     * Get the normalization steps of this index
+     * @return the normalization steps (read-only)
+     */
+    public Set<Normalization> getNormalizations() {
+        return Collections.unmodifiableSet(this.normalizations);
+    }
+
+    /**
+     * Get the key a name is indexed by.
+     * @param name the name
+     * @return the normalized name
+     */
+    public String normalize(String name) {
+        if (name == null)
+            throw new IllegalArgumentException("null name");
+        if (isAscii(name))
+            return this.normalizeAscii(name);
+        String key = name;
+        if (this.normalizations.contains(Normalization.NFKC))
+            key = Normalizer.normalize(key, Normalizer.Form.NFKC);
+        if (this.normalizations.contains(Normalization.TRIM))
+            key = key.trim();
+        if (this.normalizations.contains(Normalization.CASE_FOLD))
+            key = key.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        return key;
+    }
+
+    // ASCII is already NFKC, and folds case by lower casing: one pass, no copy when already normal
+    private String normalizeAscii(String name) {
+        int start = 0;
+        int end = name.length();
+        if (this.normalizations.contains(Normalization.TRIM)) {
+            while (start < end && name.charAt(start) <= ' ')
+                start++;
+            while (end > start && name.charAt(end - 1) <= ' ')
+                end--;
+        }
+        boolean fold = false;
+        if (this.normalizations.contains(Normalization.CASE_FOLD)) {
+            for (int i = start; i < end && !fold; i++)
+                fold = name.charAt(i) >= 'A' && name.charAt(i) <= 'Z';
+        }
+        if (!fold)
+            return start == 0 && end == name.length() ? name : name.substring(start, end);
+        char[] key = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            key[i - start] = c >= 'A' && c <= 'Z' ? (char)(c + ('a' - 'A')) : c;
+        }
+        return new String(key);
+    }
+
+    /**
+     * Is a name (or one of its near duplicates) in the index
+     * @param name the name
+     * @return whether the name is taken
+     */
+    public boolean contains(String name) {
+        return this.names.containsKey(this.normalize(name));
+    }
+
+    /**
+     * Get the display name a name (or one of its near duplicates) was added with.
+     * @param name the name
+     * @return the display name, or null if the name is not in the index
+     */
+    public String find(String name) {
+        return this.names.get(this.normalize(name));
+    }
+
+    /**
+     * Add a name, unless a near duplicate is already in the index.
+     * @param name the name
+     * @return the display name the name is known by from now on: the name
+     * itself (trimmed when trimming) if it is new, else the existing one
+     */
+    public String add(String name) {
+        String key = this.normalize(name);
+        String existing = this.names.get(key);
+        if (existing != null)
+            return existing;
+        String display = this.normalizations.contains(Normalization.TRIM) ? name.trim() : name;
+        this.names.put(key, display);
+        return display;
+    }
+
+    /**
+     * Remove a name (or its near duplicate) from the index.
+     * @param name the name
+     * @return the display name that was removed, or null if the name was not in the index
+     */
+    public String remove(String name) {
+        return this.names.remove(this.normalize(name));
+    }
+
+    /**
+     * How many distinct names are in the index
+     * @return the number of names
+     */
+    public int size() {
+        return this.names.size();
+    }
+
+    /**
+     * Remove all names.
+     */
+    public void clear() {
+        this.names.clear();
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80)
+                return false;
+        }
+        return true;
+    }
+}
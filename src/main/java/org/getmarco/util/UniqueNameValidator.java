@@ -1,30 +1,50 @@
 package org.getmarco.util;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.function.Predicate;
 
 import io.bretty.console.view.Validator;
 
 /**
  * Validation for user input requiring a string that doesn't belong to a
- * {@link java.util.Collection collection} of existing names.
+ * set of existing names. The names are checked live (e.g. against a
+ * {@link NameIndex}), so near duplicates are rejected too and nothing is
+ * copied per prompt.
  */
 public class UniqueNameValidator implements Validator<String> {
 
-    // Set of names to check against
-    private Set<String> names;
+    // Is a name already taken
+    private final Predicate<String> taken;
 
+    /**
+     * Check against a {@link java.util.Collection collection} of names,
+     * indexed once with every {@link NameIndex.Normalization normalization}.
+     * @param names the existing names
+     */
     public UniqueNameValidator(Collection<String> names) {
         if (names == null)
             throw new IllegalArgumentException("null names");
 
-        this.names = new HashSet<>(names);
+        NameIndex index = new NameIndex();
+        for (String name : names)
+            index.add(name);
+        this.taken = index::contains;
+    }
+
+    /**
+     * Check against a live lookup, e.g. {@code index::contains} or {@code game::hasPlayer}.
+     * @param taken tells whether a name is already taken
+     */
+    public UniqueNameValidator(Predicate<String> taken) {
+        if (taken == null)
+            throw new IllegalArgumentException("null names");
+
+        this.taken = taken;
     }
 
     @Override
     public boolean isValid(String name) {
-        // given name should not exist in set of names
-        return !names.contains(name);
+        // given name should not be taken
+        return name != null && !this.taken.test(name);
     }
 }
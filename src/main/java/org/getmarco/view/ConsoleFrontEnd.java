@@ -0,0 +1,73 @@
+package org.getmarco.view;
+
+import org.getmarco.Game;
+import org.getmarco.catalog.RestaurantCatalog;
+import org.getmarco.state.GameFrontEnd;
+
+/**
+ * Front end playing the game interactively through the console views.
+ */
+public class ConsoleFrontEnd implements GameFrontEnd {
+    private final RestaurantCatalog catalog;
+
+    public ConsoleFrontEnd() {
+        this(null);
+    }
+
+    /**
+     * Create a console front end suggesting restaurant names from a catalog.
+     * @param catalog the catalog of known restaurants (null for none)
+     */
+    public ConsoleFrontEnd(RestaurantCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public void start(Game game) {
+        new StartView().display(false);
+    }
+
+    @Override
+    public void setup(Game game) {
+        new SetupView(game).display(false);
+    }
+
+    @Override
+    public void enterData(Game game) {
+        new EnterDataView(game, this.catalog).display(false);
+    }
+
+    @Override
+    public void showData(Game game) {
+        new ShowDataView(game).display();
+    }
+
+    @Override
+    public void eliminate(Game game, String player) {
+        new EliminateView(game, player).display(false);
+    }
+
+    @Override
+    public void vote(Game game, String player) {
+        new VoteView(game, player).display(false);
+    }
+
+    @Override
+    public void showResults(Game game) {
+        new ShowResultsView(game).display();
+    }
+
+    @Override
+    public void finish(Game game) {
+        new FinishView().display(false);
+    }
+
+    /**
+     * The console application is done once the game quits.
+     * @param game the game
+     */
+    @Override
+    public void quit(Game game) {
+        System.exit(0);
+    }
+}
@@ -0,0 +1,91 @@
+package org.getmarco.view;
+
+import java.io.PrintStream;
+
+/**
+ * Buffered output for the game views. Lines are built into one reused buffer
+ * and written to the console in large chunks, instead of one flushed
+ * {@code println} per line. Output is written once the buffer passes its
+ * chunk size, and must be {@link #flush() flushed} before prompting for
+ * input or printing through the console view library, so the output stays
+ * in order.
+ */
+public class ConsoleRenderer {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final PrintStream out;
+    private final int chunkSize;
+    private final StringBuilder buffer;
+
+    /**
+     * Create a renderer writing to the console ({@link System#out} at the time of each write).
+     */
+    public ConsoleRenderer() {
+        this(null, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a renderer.
+     * @param out the stream to write to (null for {@link System#out} at the time of each write)
+     * @param chunkSize how many characters to buffer before writing
+     */
+    public ConsoleRenderer(PrintStream out, int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("invalid chunk size '" + chunkSize + "'");
+        this.out = out;
+        this.chunkSize = chunkSize;
+        this.buffer = new StringBuilder(chunkSize + chunkSize / 4);
+    }
+
+    /**
+     * Add text to the current line.
+     * @param text the text
+     * @return this renderer
+     */
+    public ConsoleRenderer append(String text) {
+        this.buffer.append(text);
+        return this;
+    }
+
+    /**
+     * Add a number to the current line.
+     * @param number the number
+     * @return this renderer
+     */
+    public ConsoleRenderer append(int number) {
+        this.buffer.append(number);
+        return this;
+    }
+
+    /**
+     * End the current line.
+     * @return this renderer
+     */
+    public ConsoleRenderer newline() {
+        this.buffer.append(System.lineSeparator());
+        if (this.buffer.length() >= this.chunkSize)
+            this.flush();
+        return this;
+    }
+
+    /**
+     * Add a whole line.
+     * @param line the line
+     * @return this renderer
+     */
+    public ConsoleRenderer line(String line) {
+        return this.append(line).newline();
+    }
+
+    /**
+     * Write out everything buffered so far.
+     */
+    public void flush() {
+        if (this.buffer.length() == 0)
+            return;
+        PrintStream stream = this.out == null ? System.out : this.out;
+        stream.print(this.buffer);
+        stream.flush();
+        this.buffer.setLength(0);
+    }
+}
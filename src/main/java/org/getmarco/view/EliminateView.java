@@ -1,24 +1,16 @@
 package org.getmarco.view;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.getmarco.Game;
-
-import io.bretty.console.view.AbstractView;
-import io.bretty.console.view.MenuView;
-import io.bretty.console.view.ViewConfig;
+import org.getmarco.util.NameIndex;
 
 /**
- * This view allows a player to eliminate a restaurant from the list
+ * This view allows a player to eliminate a restaurant from the list, picked
+ * from a paged, searchable menu of the restaurants.
  */
 public class EliminateView extends GameView {
     private Game game;
     private String player;
 
-    // The restaurant to eliminate
-    private String restaurant;
-
     public EliminateView(Game game, String player) {
         super("* Eliminating restaurants", "Eliminate restaurants");
         if (game == null)
@@ -31,73 +23,32 @@ public class EliminateView extends GameView {
 
     @Override
     public void executeCustomAction() {
-        ViewConfig viewConfig = new ViewConfig.Builder().setBackMenuName("Quit").build();
+        if (this.game.getRestaurants().isEmpty()) {
+            this.println("Oops, there are no restaurants left. Quitting ...");
+            this.game.quit();
+            return;
+        }
+
+        SelectionMenu menu = new SelectionMenu(this, this.game.getRestaurants(),
+          new NameIndex(this.game.getNameNormalizations())::normalize);
+        menu.setTitle(player + ", please select a restaurant to eliminate, or pass");
+        String restaurant;
         do {
-            List<String> restaurants = new ArrayList<>(this.game.getRestaurants());
-
-            if (restaurants.isEmpty()) {
-                this.println("Oops, there are no restaurants left. Quitting ...");
-                this.game.quit();
-                return;
-            }
-
-            MenuView menuView = new MenuView(player + ", please select a restaurant to eliminate, or pass",
-              "Eliminate restaurant for " + player, viewConfig) {
-                @Override
-                protected void onBack() {
-                    // onBack will be called when quit instead of onQuit since menu view has parent
-                    EliminateView.this.restaurant = null;
-                    EliminateView.this.game.quit();
-                }
-            };
-            menuView.setParentView(this);
-            for (String name : restaurants)
-                menuView.addMenuItem(this.eliminateRestaurantMenuItem(name));
-            menuView.addMenuItem(this.passMenuItem());
-            menuView.addMenuItem(this.restartMenuItem());
-            menuView.display();
-
-            if (this.restaurant == null) {
-                // Player passed (or restarted or quit)
-                return;
-            }
-            if (this.confirmDialog("Are you sure you want to eliminate '" + this.restaurant + "'?"))
-                break;
-        } while (true);
-
-        if (this.restaurant != null)
-            eliminateRestaurant(this.restaurant);
-    }
-
-    private AbstractView eliminateRestaurantMenuItem(String name) {
-        return new AbstractView("Eliminated " + name, "Eliminate " + name) {
-            @Override
-            public void display() {
-                EliminateView.this.restaurant = name;
-            }
-        };
-    }
-
-    private AbstractView passMenuItem() {
-        return new AbstractView("Passed", "Pass") {
-            @Override
-            public void display() {
-                EliminateView.this.restaurant = null;
+            switch (menu.show()) {
+                case SELECT:
+                    restaurant = menu.getSelected();
+                    break;
+                case PASS:
+                    return;
+                case RESTART:
+                    this.game.back();
+                    return;
+                default:
+                    this.game.quit();
+                    return;
             }
-        };
-    }
-
-    private AbstractView restartMenuItem() {
-        return new AbstractView("Restarting", "Restart") {
-            @Override
-            public void display() {
-                EliminateView.this.restaurant = null;
-                EliminateView.this.game.back();
-            }
-        };
-    }
+        } while (!this.confirmDialog("Are you sure you want to eliminate '" + restaurant + "'?"));
 
-    private void eliminateRestaurant(String restaurantName) {
-        this.game.getRestaurants().remove(restaurantName);
+        this.game.eliminateRestaurant(this.player, restaurant);
     }
 }
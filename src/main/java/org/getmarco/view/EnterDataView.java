@@ -1,34 +1,55 @@
 package org.getmarco.view;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.getmarco.Game;
+import org.getmarco.catalog.RestaurantCatalog;
+import org.getmarco.util.NameIndex;
 import org.getmarco.util.UniqueNameValidator;
 
 /**
  * This view prompts for the player name and the name of the restaurants that
- * the user wants to suggest.
+ * the user wants to suggest. With a {@link RestaurantCatalog}, entering
+ * '/find' and the start of a name lists the catalog's names starting with it.
+ * The command is kept apart from the names, so any name (say one ending in
+ * '?') can still be entered as is.
  */
 public class EnterDataView extends GameView {
+    private static final String FIND = "/find";
+    private static final int NUM_SUGGESTIONS = 10;
+
     private Game game;
+    private RestaurantCatalog catalog;
 
     public EnterDataView(Game game) {
+        this(game, null);
+    }
+
+    /**
+     * Create the view with a catalog of restaurant names to suggest.
+     * @param game the game
+     * @param catalog the catalog (null for no suggestions)
+     */
+    public EnterDataView(Game game, RestaurantCatalog catalog) {
         super("* Entering player information", "Enter player information");
         if (game == null)
             throw new IllegalArgumentException("null game");
         this.game = game;
+        this.catalog = catalog;
     }
 
     @Override
     public void executeCustomAction() {
-        Set<String> currentPlayers = new HashSet<>(this.game.getPlayers());
-        int nextPlayerNum = currentPlayers.size() + 1;
+        int nextPlayerNum = this.game.getPlayers().size() + 1;
+        // Checked against the game's own name index, near duplicates included
+        UniqueNameValidator playerValidator = new UniqueNameValidator(this.game::hasPlayer);
 
         String name;
         do {
             name = this.prompt("Please enter name for player " + nextPlayerNum + " (or blank to restart): ", String.class,
-              new UniqueNameValidator(currentPlayers));
+              playerValidator);
             if (name != null && !name.isEmpty())
                 break;
             if (this.confirmDialog("Are you sure you want to restart?")) {
@@ -36,14 +57,22 @@ public class EnterDataView extends GameView {
                 return;
             }
         } while (true);
-        currentPlayers.add(name.trim());
+        name = name.trim();
 
+        // This player's suggestions, indexed as they are entered
+        NameIndex suggested = new NameIndex(this.game.getNameNormalizations());
+        UniqueNameValidator restaurantValidator = new UniqueNameValidator(suggested::contains);
         Set<String> restaurants = new HashSet<>();
+        String hint = this.catalog == null ? "" : " ('" + FIND + " <start of name>' for suggestions)";
         for (int i = 1; i <= game.getNumRestaurantsPerPlayer(); i++) {
             String restaurant;
             do {
-                restaurant = this.prompt("Please enter restaurant " + i + " for player '" + name + "' (or blank to restart): ",
-                  String.class, new UniqueNameValidator(restaurants));
+                restaurant = this.prompt("Please enter restaurant " + i + " for player '" + name + "'" + hint
+                  + " (or blank to restart): ", String.class, restaurantValidator);
+                if (this.catalog != null && isFind(restaurant)) {
+                    this.suggest(restaurant.trim().substring(FIND.length()));
+                    continue;
+                }
                 if (restaurant != null && !restaurant.isEmpty())
                     break;
                 if (this.confirmDialog("Are you sure you want to restart?")) {
@@ -51,10 +80,29 @@ public class EnterDataView extends GameView {
                     return;
                 }
             } while (true);
-            restaurants.add(restaurant.trim());
+            restaurants.add(suggested.add(restaurant.trim()));
         }
 
-        this.game.setPlayers(currentPlayers);
+        this.game.addPlayer(name);
         this.game.addRestaurants(restaurants);
     }
+
+    // The find command alone, or followed by white space and a prefix
+    private static boolean isFind(String input) {
+        if (input == null)
+            return false;
+        String command = input.trim();
+        return command.startsWith(FIND) && (command.length() == FIND.length()
+          || Character.isWhitespace(command.charAt(FIND.length())));
+    }
+
+    private void suggest(String prefix) {
+        List<String> suggestions = this.catalog.complete(prefix, NUM_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            this.println("No known restaurants starting with '" + prefix.trim() + "'");
+            return;
+        }
+        for (String suggestion : suggestions)
+            this.println("  " + suggestion);
+    }
 }
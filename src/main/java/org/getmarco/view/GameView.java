@@ -1,5 +1,9 @@
 package org.getmarco.view;
 
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -10,6 +14,15 @@ import io.bretty.console.view.ViewConfig;
  * Abstract superclass for game views. Subclass to implement appropriate behaviors.
  */
 public abstract class GameView extends ActionView {
+    // Lines of a long listing shown at a time
+    protected static final int PAGE_SIZE = 20;
+
+    // There is one console, so the views share its output buffer
+    private static final ConsoleRenderer RENDERER = new ConsoleRenderer();
+
+    // Receives how long each view display took (in nanoseconds), when set
+    private static volatile ObjLongConsumer<Class<? extends GameView>> displayObserver;
+
     private final Logger logger = LogManager.getLogger(this.getClass());
 
     public GameView(String runningTitle, String nameInParentMenu) {
@@ -34,13 +47,64 @@ public abstract class GameView extends ActionView {
     }
 
     public void display(boolean pauseAfter) {
-        logger.trace(this.getClass().getSimpleName() + " display start");
+        logger.trace("{} display start", this.getClass().getSimpleName());
+        ObjLongConsumer<Class<? extends GameView>> observer = displayObserver;
+        long start = observer == null ? 0 : System.nanoTime();
         this.println();
         this.println(this.runningTitle);
         this.executeCustomAction();
+        RENDERER.flush();
         if (pauseAfter)
             this.pause();
         // Leave out this.goBack() since these views are chosen based on state objects not a menu tree
-        logger.trace(this.getClass().getSimpleName() + " display finished");
+        if (observer != null)
+            observer.accept(this.getClass(), System.nanoTime() - start);
+        logger.trace("{} display finished", this.getClass().getSimpleName());
+    }
+
+    /**
+     * Get the buffered console output. Flush it before any input or library output.
+     * @return the renderer
+     */
+    protected ConsoleRenderer renderer() {
+        return RENDERER;
+    }
+
+    /**
+     * Prompt for a line of input, after writing out the buffered output.
+     * @param promptText the prompt
+     * @return the line entered
+     */
+    String readLine(String promptText) {
+        RENDERER.flush();
+        return this.prompt(promptText, String.class);
+    }
+
+    /**
+     * Render a listing a page of {@link #PAGE_SIZE} lines at a time, asking
+     * before each further page. Only the items shown are taken from the
+     * iterator, so the time taken depends on how much is shown, not on how
+     * long the listing is.
+     * @param items the listing
+     * @param renderLine renders one item's line
+     * @param <T> the type of the items
+     */
+    protected <T> void page(Iterator<T> items, BiConsumer<ConsoleRenderer, T> renderLine) {
+        while (items.hasNext()) {
+            for (int i = 0; i < PAGE_SIZE && items.hasNext(); i++)
+                renderLine.accept(RENDERER, items.next());
+            RENDERER.flush();
+            if (!items.hasNext() || !this.confirmDialog("Show more?"))
+                break;
+        }
+    }
+
+    /**
+     * Set the observer told how long each view display takes (e.g. to record
+     * metrics), or null for none.
+     * @param observer receives the view class and display time in nanoseconds
+     */
+    public static void setDisplayObserver(ObjLongConsumer<Class<? extends GameView>> observer) {
+        displayObserver = observer;
     }
 }
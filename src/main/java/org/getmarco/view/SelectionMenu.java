@@ -0,0 +1,169 @@
+package org.getmarco.view;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Console menu for choosing one of many items (e.g. restaurants), shown a
+ * page at a time and narrowed down by typing part of a name. The menu is
+ * built once per view over a live collection and reused for every choice:
+ * items aren't copied or wrapped in a view each, and labels (e.g. votes cast
+ * so far) are computed only for the items on screen. The matching items are
+ * listed again only when the filter or the number of items changes.
+ */
+class SelectionMenu {
+    /**
+     * What the player chose
+     */
+    enum Action {
+        SELECT,
+        PASS,
+        RESTART,
+        QUIT
+    }
+
+    private static final String HELP = "Enter a number to choose, n/p for the next/previous page, /text to search (/ to clear),"
+      + " pass, restart or quit";
+
+    private final GameView view;
+    private final Collection<String> items;
+    private final UnaryOperator<String> normalizer;
+    private String title = "";
+    private Function<String, String> labeler = item -> item;
+
+    // The items matching the filter, when filtered, as of the last change
+    private String filter = "";
+    private List<String> matches;
+    private int numItems = -1;
+    private int page;
+    private String selected;
+
+    /**
+     * Create a menu.
+     * @param view the view showing the menu
+     * @param items the items to choose from (read live, e.g. the game's restaurants)
+     * @param normalizer turns names and search text into the form they are compared in
+     */
+    SelectionMenu(GameView view, Collection<String> items, UnaryOperator<String> normalizer) {
+        this.view = view;
+        this.items = items;
+        this.normalizer = normalizer;
+    }
+
+    void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Set how an item is labelled, e.g. to mark items already chosen.
+     * @param labeler gives the label of an item
+     */
+    void setLabeler(Function<String, String> labeler) {
+        this.labeler = labeler;
+    }
+
+    /**
+     * The item chosen by the last {@link Action#SELECT}
+     * @return the chosen item
+     */
+    String getSelected() {
+        return this.selected;
+    }
+
+    /**
+     * Show the menu until the player chooses something.
+     * @return what was chosen
+     */
+    Action show() {
+        ConsoleRenderer renderer = this.view.renderer();
+        while (true) {
+            List<String> shown = this.render(renderer);
+            String input = this.view.readLine("Choice: ");
+            if (input == null)
+                return Action.QUIT;
+            input = input.trim();
+            String command = input.toLowerCase(Locale.ROOT);
+            if (command.startsWith("/")) {
+                this.filter = input.substring(1).trim();
+                this.numItems = -1;
+                this.page = 0;
+            } else if (command.isEmpty() || "n".equals(command)) {
+                this.page++;
+            } else if ("p".equals(command)) {
+                this.page = Math.max(0, this.page - 1);
+            } else if ("pass".equals(command)) {
+                return Action.PASS;
+            } else if ("restart".equals(command)) {
+                return Action.RESTART;
+            } else if ("quit".equals(command)) {
+                return Action.QUIT;
+            } else {
+                int choice = this.parseChoice(command);
+                if (choice >= 1 && choice <= shown.size()) {
+                    this.selected = shown.get(choice - 1);
+                    return Action.SELECT;
+                }
+                renderer.line("Not a choice, try again");
+            }
+        }
+    }
+
+    // Render the current page, returning the items on it
+    private List<String> render(ConsoleRenderer renderer) {
+        int size = this.items.size();
+        if (this.numItems != size) {
+            this.numItems = size;
+            this.matches = this.filter.isEmpty() ? null : this.match();
+        }
+        int numMatches = this.matches == null ? size : this.matches.size();
+        int numPages = Math.max(1, (numMatches + GameView.PAGE_SIZE - 1) / GameView.PAGE_SIZE);
+        this.page = Math.min(this.page, numPages - 1);
+
+        List<String> shown = new ArrayList<>(GameView.PAGE_SIZE);
+        int offset = this.page * GameView.PAGE_SIZE;
+        if (this.matches != null) {
+            shown.addAll(this.matches.subList(offset, Math.min(numMatches, offset + GameView.PAGE_SIZE)));
+        } else {
+            int skipped = 0;
+            for (String item : this.items) {
+                if (skipped++ < offset)
+                    continue;
+                if (shown.size() == GameView.PAGE_SIZE)
+                    break;
+                shown.add(item);
+            }
+        }
+
+        renderer.newline().line(this.title);
+        renderer.append("Page ").append(this.page + 1).append(" of ").append(numPages);
+        if (this.matches != null)
+            renderer.append(" - ").append(numMatches).append(" matching '").append(this.filter).append("'");
+        renderer.newline();
+        for (int i = 0; i < shown.size(); i++)
+            renderer.append(i + 1).append(") ").line(this.labeler.apply(shown.get(i)));
+        renderer.line(HELP);
+        return shown;
+    }
+
+    private List<String> match() {
+        String key = this.normalizer.apply(this.filter);
+        List<String> found = new ArrayList<>();
+        for (String item : this.items) {
+            if (this.normalizer.apply(item).contains(key))
+                found.add(item);
+        }
+        return found;
+    }
+
+    private int parseChoice(String command) {
+        try {
+            return Integer.parseInt(command);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
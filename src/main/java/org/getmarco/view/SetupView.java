@@ -1,11 +1,15 @@
 package org.getmarco.view;
 
+import java.util.Locale;
+
 import org.getmarco.Game;
+import org.getmarco.tally.BallotMatrix;
+import org.getmarco.tally.ScoringRule;
 import org.getmarco.util.HasQuantityValidator;
 
 /**
- * This view prompts for the number of users and the number of restaurants that
- * each user may suggest.
+ * This view prompts for the number of users, the number of restaurants that
+ * each user may suggest, how votes are scored, and whether votes are ranked.
  */
 public class SetupView extends GameView {
 
@@ -25,8 +29,27 @@ public class SetupView extends GameView {
             this.game.setNumPlayers(this.prompt("Please enter number of players: ", Integer.class, new HasQuantityValidator()));
             this.game.setNumRestaurantsPerPlayer(this.prompt("Please enter number of restaurants per player: ", Integer.class,
               new HasQuantityValidator()));
+            this.game.setRankedChoice(false);
+            String rule = this.prompt("Please enter scoring rule (plurality, borda, approval or score): ", String.class,
+              name -> ruleOf(name) != null);
+            this.game.setScoringRule(ruleOf(rule));
+            if (this.game.getScoringRule().isLimited())
+                this.game.setNumVotesPerPlayer(this.prompt("Please enter number of votes per player: ", Integer.class,
+                  votes -> votes >= 1 && votes < BallotMatrix.MAX_MARK));
+            if (!this.game.getScoringRule().isScored())
+                this.game.setRankedChoice(this.confirmDialog("Rank votes in order of preference (instant runoff)?"));
             confirmed = this.confirmDialog(this.game.getNumPlayers() + " players, " + this.game.getNumRestaurantsPerPlayer()
-              + " restaurants per player - is this correct?");
+              + " restaurants per player, " + this.game.getScoringRule().name().toLowerCase(Locale.ROOT) + " scoring"
+              + (this.game.getScoringRule().isLimited() ? " with " + this.game.getNumVotesPerPlayer() + " votes per player" : "")
+              + (this.game.isRankedChoice() ? ", ranked choice" : "") + " - is this correct?");
         } while (!confirmed);
     }
+
+    private static ScoringRule ruleOf(String name) {
+        for (ScoringRule rule : ScoringRule.values()) {
+            if (rule.name().equalsIgnoreCase(name.trim()))
+                return rule;
+        }
+        return null;
+    }
 }
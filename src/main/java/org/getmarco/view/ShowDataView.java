@@ -3,7 +3,8 @@ package org.getmarco.view;
 import org.getmarco.Game;
 
 /**
- * This view will show a list of the restaurant names that were entered
+ * This view will show a list of the restaurant names that were entered, a
+ * page at a time.
  */
 public class ShowDataView extends GameView {
     private Game game;
@@ -17,8 +18,7 @@ public class ShowDataView extends GameView {
 
     @Override
     public void executeCustomAction() {
-        this.println("There are " + this.game.getRestaurants().size() + " (unique) restaurants");
-        for (String restaurant : this.game.getRestaurants())
-            this.println(restaurant);
+        this.renderer().append("There are ").append(this.game.getRestaurants().size()).line(" (unique) restaurants");
+        this.page(this.game.getRestaurants().iterator(), ConsoleRenderer::line);
     }
 }
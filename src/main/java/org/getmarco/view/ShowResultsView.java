@@ -1,6 +1,11 @@
 package org.getmarco.view;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.getmarco.Game;
+import org.getmarco.tally.InstantRunoff;
 
 /**
  * This view shows the results of the voting. The restaurants will be shown in
@@ -8,7 +13,9 @@ import org.getmarco.Game;
  * shown in alphabetical order. The restaurant with the most votes will be
  * labelled as the 'winner'. If the voting resulted in a tie (the highest vote
  * count is shared by more than one choice), then the tied restaurants will be
- * labelled 'tie'.
+ * labelled 'tie'. Results are shown a page at a time, and only the pages
+ * shown are ranked. A ranked choice game then shows the instant runoff
+ * rounds, which decide the winner.
  */
 public class ShowResultsView extends GameView {
     private Game game;
@@ -24,12 +31,43 @@ public class ShowResultsView extends GameView {
     public void executeCustomAction() {
         int maxVotes = this.game.getMaxVoteCount();
         boolean hasWinner = this.game.isWin();
-        for (String restaurant : this.game.getVoteSortedRestaurants()) {
+        this.page(this.game.getRankedIterator(PAGE_SIZE), (renderer, restaurant) -> {
             int votes = this.game.getVotesForRestaurant(restaurant);
-            String label = restaurant + " - " + votes + " vote(s)";
+            renderer.append(restaurant).append(" - ").append(votes).append(" vote(s)");
             if (votes == maxVotes)
-                label += (hasWinner ? " ** winner **" : (votes > 0 ? " ** tie **" : ""));
-            this.println(label);
+                renderer.append(hasWinner ? " ** winner **" : (votes > 0 ? " ** tie **" : ""));
+            renderer.newline();
+        });
+        if (this.game.isRankedChoice())
+            this.showRunoff();
+    }
+
+    private void showRunoff() {
+        ConsoleRenderer renderer = this.renderer();
+        renderer.line("Ranked choice runoff:");
+        InstantRunoff runoff = this.game.startRunoff();
+        List<String> surviving = new ArrayList<>(this.game.getRestaurants());
+        while (runoff.nextRound()) {
+            renderer.append("Round ").append(runoff.getRound()).append(" - eliminated ");
+            String separator = "";
+            for (Iterator<String> i = surviving.iterator(); i.hasNext(); ) {
+                String restaurant = i.next();
+                if (!runoff.isSurviving(this.game.getRestaurantId(restaurant))) {
+                    renderer.append(separator).append(restaurant);
+                    separator = ", ";
+                    i.remove();
+                }
+            }
+            renderer.newline();
+        }
+        if (runoff.getWinner() >= 0) {
+            int winner = runoff.getWinner();
+            renderer.append(this.game.getRestaurantName(winner)).append(" - ").append(runoff.getVotes(winner)).append(" of ")
+              .append(runoff.getBallotsInPlay()).line(" ballot(s) ** winner **");
+        } else {
+            for (String restaurant : surviving)
+                renderer.append(restaurant).append(" - ").append(runoff.getVotes(this.game.getRestaurantId(restaurant)))
+                  .line(" ballot(s) ** tie **");
         }
     }
 }
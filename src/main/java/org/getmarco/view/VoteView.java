@@ -1,24 +1,28 @@
 package org.getmarco.view;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.getmarco.Game;
-
-import io.bretty.console.view.AbstractView;
-import io.bretty.console.view.MenuView;
-import io.bretty.console.view.ViewConfig;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.util.NameIndex;
 
 
 /**
- * This view allows a player to vote for restaurant choices.
+ * This view allows a player to vote for restaurant choices, picked from a
+ * paged, searchable menu of the restaurants. Choices are made in order of
+ * preference, or given a score when the game uses score voting. Restarting
+ * only takes back this player's own votes.
  */
 public class VoteView extends GameView {
     private Game game;
     private String player;
-    private boolean doneVoting;
-    private boolean restartVoting; //bail immediately
     private List<String> votes = new ArrayList<>();
+    private Map<String, Integer> scores = new HashMap<>();
+    private BitSet chosen = new BitSet();
 
     public VoteView(Game game, String player) {
         super("* Voting for restaurants", "Vote for restaurants");
@@ -32,102 +36,100 @@ public class VoteView extends GameView {
 
     @Override
     public void executeCustomAction() {
-        ViewConfig viewConfig = new ViewConfig.Builder().setBackMenuName("Quit").build();
-        do {
-            List<String> restaurants = new ArrayList<>(this.game.getRestaurants());
-
-            if (restaurants.isEmpty()) {
-                this.println("Oops, there are no restaurants to vote for. Quitting ...");
-                this.game.quit();
-                return;
-            }
+        if (this.game.getRestaurants().isEmpty()) {
+            this.println("Oops, there are no restaurants to vote for. Quitting ...");
+            this.game.quit();
+            return;
+        }
 
-            this.doneVoting = false;
-            while (!this.doneVoting) {
-                int votesLeft = this.game.getNumVotesPerPlayer() - this.votes.size();
-                String votePrompt = player + ", please vote for a restaurant, or pass - " + votesLeft + " vote(s) remaining";
-                final MenuView menuView = new MenuView(votePrompt, "Vote for " + player, viewConfig) {
-                    @Override
-                    protected void onBack() {
-                        // onBack will be called when quit instead of onQuit since menu view has parent
-                        VoteView.this.game.quit();
-                    }
-                };
-                menuView.setParentView(this);
-                for (String restaurant : restaurants) {
-                    menuView.addMenuItem(this.voteRestaurantMenuItem(restaurant));
-                }
-                menuView.addMenuItem(this.passMenuItem());
-                menuView.addMenuItem(this.restartMenuItem());
-                menuView.display();
-                if (this.restartVoting || this.game.isGameOver()) {
-                    // State changed need to bail
-                    return;
+        // One menu for all of this player's votes, marking the restaurants voted for
+        SelectionMenu menu = new SelectionMenu(this, this.game.getRestaurants(),
+          new NameIndex(this.game.getNameNormalizations())::normalize);
+        ScoringRule rule = this.game.getScoringRule();
+        menu.setLabeler(restaurant -> this.label(rule, restaurant));
+        int maxVotes = this.game.getMaxVotesPerBallot();
+        do {
+            boolean doneVoting = false;
+            while (!doneVoting) {
+                int votesLeft = maxVotes - this.votes.size();
+                menu.setTitle(player + ", please vote for a restaurant, or pass - " + votesLeft + " vote(s) remaining");
+                switch (menu.show()) {
+                    case SELECT:
+                        int id = this.game.getRestaurantId(menu.getSelected());
+                        if (this.chosen.get(id)) {
+                            this.println("Duplicate votes are not allowed, try again");
+                            break;
+                        }
+                        if (rule.isScored()) {
+                            this.renderer().flush();
+                            String text = "Score for " + menu.getSelected() + " (0 to " + ScoringRule.MAX_SCORE + "): ";
+                            this.scores.put(menu.getSelected(), this.prompt(text, Integer.class,
+                              score -> score >= 0 && score <= ScoringRule.MAX_SCORE));
+                        }
+                        this.votes.add(menu.getSelected());
+                        this.chosen.set(id);
+                        break;
+                    case PASS:
+                        // Player passing on (additional) voting
+                        doneVoting = true;
+                        break;
+                    case RESTART:
+                        // Start this player's ballot over, everyone else's votes stand
+                        this.game.retractBallot(this.player);
+                        this.clearVotes();
+                        break;
+                    default:
+                        this.game.quit();
+                        return;
                 }
-                if (this.votes.size() == this.game.getNumVotesPerPlayer())
-                    this.doneVoting = true;
+                if (this.votes.size() == maxVotes)
+                    doneVoting = true;
             }
-            printVotes(this.votes);
+            printVotes(rule, this.votes);
 
             if (votes.isEmpty()) {
                 // Player passed on voting
-                if (this.confirmDialog("Are you sure you don't want to vote?"))
+                if (this.confirmDialog("Are you sure you don't want to vote?")) {
+                    this.game.retractBallot(this.player);
                     return;
-            } else if (this.votes.size() < this.game.getNumVotesPerPlayer()) {
+                }
+            } else if (this.votes.size() < maxVotes) {
                 // Player passed on additional voting
                 if (this.confirmDialog("Are you sure you're done?"))
                     break;
             } else {
                 // Player finished voting
                 if (this.confirmDialog("Do you want to try again?"))
-                    this.votes.clear(); // Do-over
+                    this.clearVotes(); // Do-over
                 else
                     break;
             }
         } while (true);
 
-        for (String vote : this.votes)
-            this.game.vote(vote);
-    }
-
-    private AbstractView voteRestaurantMenuItem(String restaurant) {
-        String label = "Vote for " + restaurant;
-        if (this.votes.contains(restaurant))
-            label += " - 1 vote";
-        return new AbstractView("Voted for " + restaurant, label) {
-            @Override
-            public void display() {
-                if (VoteView.this.votes.contains(restaurant)) {
-                    VoteView.this.println("Duplicate votes are not allowed, try again");
-                    return;
-                }
-                VoteView.this.votes.add(restaurant);
-            }
-        };
+        if (rule.isScored())
+            this.game.submitScores(this.player, this.scores);
+        else
+            this.game.submitBallot(this.player, this.votes);
     }
 
-    private AbstractView passMenuItem() {
-        return new AbstractView("Passed", "Pass") {
-            @Override
-            public void display() {
-                // Player passing on (additional) voting
-                VoteView.this.doneVoting = true;
-            }
-        };
+    private void clearVotes() {
+        this.votes.clear();
+        this.scores.clear();
+        this.chosen.clear();
     }
 
-    private AbstractView restartMenuItem() {
-        return new AbstractView("Restarting Voting", "Restart Voting") {
-            @Override
-            public void display() {
-                VoteView.this.restartVoting = true;
-                VoteView.this.game.resetVoting();
-                VoteView.this.game.back();
-            }
-        };
+    private String label(ScoringRule rule, String restaurant) {
+        if (!this.chosen.get(this.game.getRestaurantId(restaurant)))
+            return restaurant;
+        int position = this.votes.indexOf(restaurant);
+        if (rule.isScored())
+            return restaurant + " - score " + this.scores.get(restaurant);
+        if (rule == ScoringRule.BORDA)
+            return restaurant + " - choice " + (position + 1);
+        return restaurant + " - 1 vote";
     }
 
-    private void printVotes(List<String> votes) {
+    private void printVotes(ScoringRule rule, List<String> votes) {
         if (votes.isEmpty())
             return;
         String msg = "";
@@ -135,6 +137,8 @@ public class VoteView extends GameView {
             if (msg.length() > 0)
                 msg += ", ";
             msg += vote;
+            if (rule.isScored())
+                msg += " (" + this.scores.get(vote) + ")";
         }
         msg = "You used " + votes.size() + " vote(s): " + msg;
         this.println(msg);
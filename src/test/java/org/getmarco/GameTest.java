@@ -1,9 +1,24 @@
 package org.getmarco;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.getmarco.state.StateType;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.tally.TallyType;
+import org.getmarco.util.NameIndex;
 import org.junit.Test;
 
 //CHECKSTYLE:OFF
@@ -23,6 +38,17 @@ public class GameTest {
         game.setPlayers(new HashSet<>(Arrays.asList(new String[] {"Bart", "Lisa", "Homer"})));
     }
 
+    @Test(expected = java.lang.IllegalStateException.class)
+    public void testDenyTooManyAddedPlayers() {
+        Game game = new Game();
+
+        game.setNumPlayers(2);
+        assertTrue(game.addPlayer("Bart"));
+        assertFalse(game.addPlayer("Bart"));
+        assertTrue(game.addPlayer("Lisa"));
+        game.addPlayer("Homer");
+    }
+
     @Test(expected = java.lang.IllegalStateException.class)
     public void testDenyTooManyRestaurants() {
         Game game = new Game();
@@ -156,4 +182,679 @@ public class GameTest {
         assertArrayEquals(new String[] {restaurant3, restaurant2, restaurant1},
           game.getVoteSortedRestaurants().toArray(new String[0]));
     }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRemoveRestaurantUpdatesResults() {
+        Game game = new Game();
+        String restaurant1 = "Jason's";
+        String restaurant2 = "Dreamland";
+        String restaurant3 = "Mugshots";
+
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(3);
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {restaurant1, restaurant2, restaurant3})));
+
+        game.vote(restaurant1);
+        game.vote(restaurant1);
+        game.vote(restaurant2);
+        game.vote(restaurant2);
+        game.vote(restaurant3);
+        assertFalse(game.isWin());
+
+        assertTrue(game.removeRestaurant(restaurant1));
+        assertFalse(game.removeRestaurant(restaurant1));
+        assertTrue(game.isWin());
+        assertEquals(2, game.getMaxVoteCount());
+        assertArrayEquals(new String[] {restaurant2, restaurant3}, game.getVoteSortedRestaurants().toArray(new String[0]));
+
+        game.resetVoting();
+        assertFalse(game.isWin());
+        assertEquals(0, game.getMaxVoteCount());
+        assertArrayEquals(new String[] {restaurant2, restaurant3}, game.getVoteSortedRestaurants().toArray(new String[0]));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testConcurrentVotingLosesNoVotes() throws Exception {
+        final int numThreads = 8;
+        final int votesPerThread = 50000;
+        final String[] restaurants = new String[] {"Zoes", "Panera", "Saw's", "Moe's"};
+
+        final Game game = new Game(TallyType.CONCURRENT);
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(restaurants.length);
+        game.addRestaurants(new HashSet<>(Arrays.asList(restaurants)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> voters = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int offset = t;
+            voters.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < votesPerThread; i++) {
+                    // Everyone votes for Zoes, the rest round robin over all restaurants
+                    game.vote(restaurants[0]);
+                    game.vote(restaurants[(offset + i) % restaurants.length]);
+                    if (i % 1000 == 0)
+                        game.getVoteSortedRestaurants();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> voter : voters)
+            voter.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        int total = 0;
+        for (String restaurant : restaurants)
+            total += game.getVotesForRestaurant(restaurant);
+        assertEquals(numThreads * votesPerThread * 2, total);
+        int others = numThreads * votesPerThread / restaurants.length;
+        assertEquals(numThreads * votesPerThread + others, game.getVotesForRestaurant(restaurants[0]));
+        assertEquals(others, game.getVotesForRestaurant(restaurants[1]));
+        assertTrue(game.isWin());
+        assertEquals(game.getVotesForRestaurant(restaurants[0]), game.getMaxVoteCount());
+        assertEquals(restaurants[0], game.getVoteSortedRestaurants().get(0));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testConcurrentTallyResults() {
+        Game game = new Game(TallyType.CONCURRENT);
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(3);
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Jason's", "Dreamland", "Mugshots"})));
+        Set<String> names = game.getRestaurants();
+        assertEquals(3, names.size());
+        assertArrayEquals(new String[] {"Dreamland", "Jason's", "Mugshots"}, names.toArray(new String[0]));
+
+        game.vote("Mugshots");
+        game.vote("Dreamland");
+        assertFalse(game.isWin());
+        game.vote("Mugshots");
+        assertTrue(game.isWin());
+        assertEquals(2, game.getMaxVoteCount());
+        assertArrayEquals(new String[] {"Mugshots", "Dreamland", "Jason's"},
+          game.getVoteSortedRestaurants().toArray(new String[0]));
+
+        assertTrue(game.removeRestaurant("Mugshots"));
+        assertArrayEquals(new String[] {"Dreamland", "Jason's"}, game.getVoteSortedRestaurants().toArray(new String[0]));
+        game.resetVoting();
+        assertEquals(0, game.getMaxVoteCount());
+        assertFalse(game.isWin());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testVoteById() {
+        Game game = new Game();
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Jason's", "Dreamland"})));
+
+        int id = game.getRestaurantId("Dreamland");
+        assertTrue(id >= 0);
+        assertEquals("Dreamland", game.getRestaurantName(id));
+        assertEquals(-1, game.getRestaurantId("unknown"));
+
+        game.vote(id);
+        game.vote("Dreamland");
+        assertEquals(2, game.getVotesForRestaurant(id));
+        assertEquals(2, game.getVotesForRestaurant("Dreamland"));
+
+        // Removed restaurants lose their votes, and keep their id if added back
+        game.removeRestaurant("Dreamland");
+        assertEquals(-1, game.getRestaurantId("Dreamland"));
+        assertEquals(0, game.getVotesForRestaurant(id));
+        game.addRestaurants(Collections.singleton("Dreamland"));
+        assertEquals(id, game.getRestaurantId("Dreamland"));
+        assertEquals(0, game.getVotesForRestaurant(id));
+    }
+
+    @Test(expected = java.lang.IllegalStateException.class)
+    public void testDenyVoteForUnknownRestaurantId() {
+        Game game = new Game();
+        game.vote(0);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testTalliesAgreeOnRandomVoting() {
+        Random random = new Random(7);
+        Game sequential = new Game(TallyType.SEQUENTIAL);
+        Game concurrent = new Game(TallyType.CONCURRENT);
+        Set<String> restaurants = new HashSet<>();
+        for (int i = 0; i < 50; i++)
+            restaurants.add("Restaurant " + random.nextInt(1000));
+        String[] names = restaurants.toArray(new String[0]);
+        for (Game game : new Game[] {sequential, concurrent}) {
+            game.setNumPlayers(names.length);
+            game.setNumRestaurantsPerPlayer(1);
+            game.addRestaurants(restaurants);
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            String name = names[random.nextInt(names.length)];
+            int action = random.nextInt(100);
+            for (Game game : new Game[] {sequential, concurrent}) {
+                if (action == 0)
+                    game.removeRestaurant(name);
+                else if (action == 1)
+                    game.addRestaurants(Collections.singleton(name));
+                else if (action == 2 && i % 7 == 0)
+                    game.resetVoting();
+                else if (action == 3 && game.getRestaurants().contains(name))
+                    game.submitBallots(Collections.nCopies(i % 10, Collections.singletonList(name)));
+                else if (game.getRestaurants().contains(name))
+                    game.vote(name);
+            }
+            assertEquals(sequential.getVoteSortedRestaurants(), concurrent.getVoteSortedRestaurants());
+            assertEquals(sequential.getMaxVoteCount(), concurrent.getMaxVoteCount());
+            assertEquals(sequential.isWin(), concurrent.isWin());
+        }
+        assertEquals(new ArrayList<>(sequential.getRestaurants()), new ArrayList<>(concurrent.getRestaurants()));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testSubmitBallots() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Zoes", "Panera", "Saw's", "Moe's"})));
+
+        game.submitBallot(Arrays.asList("Zoes", "Panera"));
+        game.submitBallots(Arrays.asList(Arrays.asList("Zoes", "Saw's", "Moe's"), Arrays.asList("Zoes"),
+          Collections.<String>emptyList()));
+        assertEquals(3, game.getVotesForRestaurant("Zoes"));
+        assertEquals(1, game.getVotesForRestaurant("Panera"));
+        assertEquals(1, game.getVotesForRestaurant("Saw's"));
+        assertEquals(1, game.getVotesForRestaurant("Moe's"));
+        assertTrue(game.isWin());
+        assertEquals(3, game.getMaxVoteCount());
+    }
+
+    @Test
+    public void testInvalidBallotsCountNothing() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Zoes", "Panera", "Saw's", "Moe's"})));
+
+        List<List<String>> invalid = Arrays.asList(
+          Arrays.asList("Zoes", "Zoes"),
+          Arrays.asList("Zoes", "unknown"),
+          Arrays.asList("Zoes", "Panera", "Saw's", "Moe's"));
+        for (List<String> ballot : invalid) {
+            try {
+                game.submitBallots(Arrays.asList(Arrays.asList("Panera"), ballot));
+                fail("accepted invalid ballot " + ballot);
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+        assertEquals(0, game.getMaxVoteCount());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testTopAndPagedRestaurantsMatchFullRanking() {
+        Random random = new Random(11);
+        for (TallyType tallyType : TallyType.values()) {
+            Game game = new Game(tallyType);
+            Set<String> restaurants = new HashSet<>();
+            for (int i = 0; i < 200; i++)
+                restaurants.add("Restaurant " + random.nextInt(100000));
+            game.setNumPlayers(restaurants.size());
+            game.setNumRestaurantsPerPlayer(1);
+            game.addRestaurants(restaurants);
+            String[] names = restaurants.toArray(new String[0]);
+            // Few votes over many restaurants, so there are large ties
+            for (int i = 0; i < 300; i++)
+                game.vote(names[random.nextInt(names.length / 4)]);
+
+            List<String> all = game.getVoteSortedRestaurants();
+            for (int k : new int[] {0, 1, 5, 60, 150, 200, 500})
+                assertEquals(all.subList(0, Math.min(k, all.size())), game.getTopRestaurants(k));
+            assertEquals(all.subList(45, 75), game.getRankedRestaurants(45, 30));
+            assertEquals(Collections.<String>emptyList(), game.getRankedRestaurants(all.size(), 10));
+
+            List<String> iterated = new ArrayList<>();
+            RankedIterator pages = game.getRankedIterator(7);
+            iterated.add(pages.next());
+            for (List<String> page = pages.nextPage(); !page.isEmpty(); page = pages.nextPage()) {
+                assertTrue(page.size() <= 7);
+                iterated.addAll(page);
+            }
+            assertFalse(pages.hasNext());
+            assertEquals(all, iterated);
+        }
+    }
+
+    @Test
+    public void testStateChangeDetectedWithinSameStateType() {
+        Game game = new Game();
+        game.changeState(StateType.VOTE);
+        long generation = game.getGeneration();
+        assertFalse(game.stateChanged(generation));
+
+        // Restarting the vote goes 'back' into the vote state itself
+        game.back();
+        assertEquals(StateType.VOTE, game.getStateType());
+        assertTrue(game.stateChanged(generation));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testNearDuplicateNamesMerge() {
+        Game game = new Game();
+        game.setNumPlayers(3);
+        game.setNumRestaurantsPerPlayer(2);
+
+        assertTrue(game.addPlayer(" Bart "));
+        assertFalse(game.addPlayer("BART"));
+        assertTrue(game.hasPlayer("bart"));
+        assertEquals(Collections.singleton("Bart"), game.getPlayers());
+
+        // Full width letters, case and spacing differences are all the same restaurant
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Moe's", "  moe's", "\uFF2D\uFF2F\uFF25'S"})));
+        game.addRestaurants(Collections.singleton("Krusty Burger"));
+        game.addRestaurants(Collections.singleton("krusty burger "));
+        assertEquals(2, game.getRestaurants().size());
+        String moes = game.findRestaurant("MOE'S");
+        assertNotNull(moes);
+        assertEquals("moe's", moes.toLowerCase());
+        assertEquals("Krusty Burger", game.findRestaurant("KRUSTY BURGER"));
+        assertNull(game.findRestaurant("Moes"));
+
+        // Names are resolved the same way everywhere a restaurant is named
+        game.vote("MOE'S ");
+        game.vote("Krusty Burger");
+        game.vote("krusty burger ");
+        assertEquals(Arrays.asList("Krusty Burger", moes), game.getVoteSortedRestaurants());
+        assertEquals(2, game.getVotesForRestaurant(" KRUSTY BURGER"));
+        assertEquals(game.getRestaurantId("Krusty Burger"), game.getRestaurantId("krusty burger"));
+        game.submitBallot("Bart", Arrays.asList(new String[] {"moe's", " Krusty burger"}));
+        assertTrue(game.hasVote("Bart", "KRUSTY BURGER"));
+        assertEquals(2, game.getVotesForRestaurant(moes));
+
+        assertTrue(game.removeRestaurant("krusty burger"));
+        assertNull(game.findRestaurant("Krusty Burger"));
+        assertEquals(1, game.getRestaurants().size());
+    }
+
+    @Test
+    public void testExactNameNormalization() {
+        Game game = new Game();
+        game.setNameNormalizations(Collections.<NameIndex.Normalization>emptySet());
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(1);
+        assertTrue(game.addPlayer("Bart"));
+        assertTrue(game.addPlayer("bart"));
+        game.addRestaurants(new HashSet<>(Arrays.asList(new String[] {"Moe's", "moe's"})));
+        assertEquals(2, game.getRestaurants().size());
+
+        // Kept across resets, fixed while there are names
+        game.resetState();
+        assertTrue(game.getNameNormalizations().isEmpty());
+        try {
+            game.setNumPlayers(1);
+            game.addPlayer("Lisa");
+            game.setNameNormalizations(Collections.singleton(NameIndex.Normalization.TRIM));
+            fail("normalization changed with players");
+        } catch (IllegalStateException e) {
+            assertTrue(game.getNameNormalizations().isEmpty());
+        }
+    }
+
+    @Test
+    public void testEliminationsCanBeUndone() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Moe's", "Krusty Burger", "Luigi's")));
+        int moes = game.getRestaurantId("Moe's");
+        int luigis = game.getRestaurantId("Luigi's");
+
+        assertTrue(game.eliminateRestaurant("Bart", "moe's"));
+        assertTrue(game.eliminateRestaurant("Lisa", "Luigi's"));
+        assertFalse(game.getRestaurants().contains("Moe's"));
+        assertTrue(game.isEliminated(moes));
+        assertEquals(-1, game.getRestaurantId("Moe's"));
+
+        // One player's elimination undone, the restaurant keeps its id
+        assertTrue(game.undoElimination("Bart"));
+        assertFalse(game.undoElimination("Bart"));
+        assertFalse(game.isEliminated(moes));
+        assertEquals(moes, game.getRestaurantId("Moe's"));
+        assertTrue(game.isEliminated(luigis));
+
+        // Restarting the round brings back the rest
+        assertTrue(game.eliminateRestaurant("Bart", "Krusty Burger"));
+        game.restoreEliminations();
+        assertEquals(new HashSet<>(Arrays.asList("Moe's", "Krusty Burger", "Luigi's")), game.getRestaurants());
+        assertEquals(luigis, game.getRestaurantId("Luigi's"));
+        assertFalse(game.isEliminated(luigis));
+
+        // Votes are kept while eliminated, hidden from the ranking and voting
+        game.vote("Moe's");
+        game.vote("Moe's");
+        game.vote("Luigi's");
+        assertTrue(game.eliminateRestaurant("lisa", "Moe's"));
+        assertFalse(game.eliminateRestaurant("Bart", "Moe's"));
+        assertEquals(Arrays.asList("Luigi's", "Krusty Burger"), game.getVoteSortedRestaurants());
+        assertEquals(Arrays.asList("Krusty Burger"), game.getRankedRestaurants(1, 5));
+        assertEquals(1, game.getMaxVoteCount());
+        assertTrue(game.isWin());
+        assertEquals(0, game.getVotesForRestaurant(moes));
+        try {
+            game.vote(moes);
+            fail("vote for eliminated restaurant");
+        } catch (IllegalStateException e) {
+            assertTrue(game.undoElimination("Lisa"));
+        }
+        assertEquals(2, game.getVotesForRestaurant(moes));
+        assertEquals(Arrays.asList("Moe's", "Luigi's"), game.getTopRestaurants(2));
+        try {
+            game.eliminateRestaurant("Homer", "Moe's");
+            fail("elimination by unknown player");
+        } catch (IllegalStateException e) {
+            assertTrue(game.getEliminations().isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenySecondElimination() {
+        Game game = new Game();
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addPlayer("Bart");
+        game.addRestaurants(new HashSet<>(Arrays.asList("Moe's", "Luigi's")));
+        game.eliminateRestaurant("Bart", "Moe's");
+        game.eliminateRestaurant("Bart", "Luigi's");
+    }
+
+    @Test
+    public void testRestartEliminationKeepsData() {
+        Game game = new Game();
+        game.setNumPlayers(1);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addPlayer("Bart");
+        game.addRestaurants(new HashSet<>(Arrays.asList("Moe's", "Luigi's")));
+        game.changeState(StateType.ELIMINATE);
+        game.eliminateRestaurant("Bart", "Moe's");
+
+        game.back();
+        assertEquals(StateType.ELIMINATE, game.getStateType());
+        assertEquals(Collections.singleton("Bart"), game.getPlayers());
+        assertEquals(1, game.getRestaurants().size());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRescoreBallots() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's", "Moe's")));
+        game.setNumVotesPerPlayer(2);
+        game.submitBallots(Arrays.asList(Arrays.asList("Zoes", "Panera"), Arrays.asList("Panera", "Saw's"),
+          Arrays.asList("Saw's", "Panera")));
+        assertEquals(3, game.getVotesForRestaurant("Panera"));
+
+        // Two points for a first choice, one for a second
+        game.setScoringRule(ScoringRule.BORDA);
+        assertEquals(2, game.getVotesForRestaurant("Zoes"));
+        assertEquals(1 + 2 + 1, game.getVotesForRestaurant("Panera"));
+        assertEquals(1 + 2, game.getVotesForRestaurant("Saw's"));
+        assertEquals(0, game.getVotesForRestaurant("Moe's"));
+        game.submitBallot(Arrays.asList("Moe's"));
+        assertEquals(2, game.getVotesForRestaurant("Moe's"));
+
+        // Removed restaurants get nothing when the ballots are counted again
+        game.removeRestaurant("Zoes");
+        game.setScoringRule(ScoringRule.APPROVAL);
+        assertEquals(0, game.getVotesForRestaurant("Zoes"));
+        assertEquals(3, game.getVotesForRestaurant("Panera"));
+        assertEquals(1, game.getVotesForRestaurant("Moe's"));
+        assertEquals(3, game.getMaxVotesPerBallot());
+        game.submitBallot(Arrays.asList("Panera", "Saw's", "Moe's"));
+        assertEquals(4, game.getVotesForRestaurant("Panera"));
+
+        try {
+            game.setScoringRule(ScoringRule.SCORE);
+            fail("ranked ballots counted as scores");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            game.setNumVotesPerPlayer(3);
+            fail("votes per player changed after voting");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // The three vote approval ballot doesn't fit two votes per player
+        try {
+            game.setScoringRule(ScoringRule.PLURALITY);
+            fail("approval ballot longer than the votes per player counted as plurality");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(ScoringRule.APPROVAL, game.getScoringRule());
+        assertEquals(4, game.getVotesForRestaurant("Panera"));
+    }
+
+    @Test
+    public void testBallotPointsEvents() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's")));
+        game.setNumVotesPerPlayer(2);
+        int[] votes = new int[1];
+        Map<Integer, Integer> points = new HashMap<>();
+        game.addListener(new GameListener() {
+            @Override
+            public void votesAdded(int id, int added) {
+                votes[0] += added;
+            }
+
+            @Override
+            public void ballotPointsAdded(int id, int added) {
+                points.merge(id, added, Integer::sum);
+            }
+
+            @Override
+            public void ballotPointsRemoved(int id, int removed) {
+                points.merge(id, -removed, Integer::sum);
+            }
+        });
+
+        // Ballot points are their own events, on every change of a ballot's points
+        game.submitBallot("Bart", Arrays.asList("Zoes", "Panera"));
+        game.submitBallot("Lisa", Arrays.asList("Panera"));
+        game.setScoringRule(ScoringRule.BORDA);
+        game.retractBallot("Lisa");
+        assertEquals(0, votes[0]);
+        for (String restaurant : game.getRestaurants()) {
+            int id = game.getRestaurantId(restaurant);
+            assertEquals(game.getVotesForRestaurant(restaurant), (int)points.getOrDefault(id, 0));
+        }
+        assertEquals(2, game.getVotesForRestaurant("Zoes"));
+        game.resetVoting();
+        game.vote("Saw's");
+        assertEquals(1, votes[0]);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testScoreVoting() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's")));
+        game.setScoringRule(ScoringRule.SCORE);
+        Map<String, Integer> scores = new HashMap<>();
+        scores.put("Zoes", 5);
+        scores.put("Panera", 3);
+        scores.put("Saw's", 0);
+        game.submitScores(scores);
+        scores.clear();
+        scores.put("Panera", 4);
+        game.submitScores(scores);
+        assertEquals(5, game.getVotesForRestaurant("Zoes"));
+        assertEquals(7, game.getVotesForRestaurant("Panera"));
+        assertEquals(0, game.getVotesForRestaurant("Saw's"));
+        assertEquals(Arrays.asList("Panera", "Zoes"), game.getTopRestaurants(2));
+
+        scores.put("Zoes", ScoringRule.MAX_SCORE + 1);
+        try {
+            game.submitScores(scores);
+            fail("accepted invalid score");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            game.submitBallot(Arrays.asList("Zoes"));
+            fail("accepted ballot without scores");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(5, game.getVotesForRestaurant("Zoes"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyRescoreOfVotesWithoutBallots() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.addRestaurants(Collections.singleton("Zoes"));
+        game.vote("Zoes");
+        game.setScoringRule(ScoringRule.BORDA);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRetractBallot() {
+        for (TallyType type : TallyType.values()) {
+            Game game = new Game(type);
+            game.setNumPlayers(3);
+            game.setNumRestaurantsPerPlayer(1);
+            game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa", "Maggie")));
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's")));
+            game.setScoringRule(ScoringRule.BORDA);
+            game.submitBallot("Bart", Arrays.asList("Zoes", "Panera"));
+            game.submitBallot("Lisa", Arrays.asList("Panera", "Zoes", "Saw's"));
+            game.submitBallot("Maggie", Arrays.asList("Zoes"));
+            assertEquals(3 + 2 + 3, game.getVotesForRestaurant("Zoes"));
+            assertTrue(game.hasVote("Lisa", "Saw's"));
+            assertFalse(game.hasVote("Bart", "Saw's"));
+
+            // Only Lisa's points come off
+            assertTrue(game.retractBallot("Lisa"));
+            assertFalse(game.retractBallot("Lisa"));
+            assertFalse(game.hasBallot("Lisa"));
+            assertEquals(3 + 3, game.getVotesForRestaurant("Zoes"));
+            assertEquals(2, game.getVotesForRestaurant("Panera"));
+            assertEquals(0, game.getVotesForRestaurant("Saw's"));
+            assertEquals(Arrays.asList("Zoes", "Panera", "Saw's"), game.getVoteSortedRestaurants());
+
+            // A new ballot replaces the old one
+            game.submitBallot("Bart", Arrays.asList("Saw's"));
+            assertEquals(3, game.getVotesForRestaurant("Zoes"));
+            assertEquals(0, game.getVotesForRestaurant("Panera"));
+            assertEquals(3, game.getVotesForRestaurant("Saw's"));
+            assertFalse(game.isWin());
+
+            // Rescoring skips retracted ballots
+            game.setScoringRule(ScoringRule.PLURALITY);
+            assertEquals(1, game.getVotesForRestaurant("Zoes"));
+            assertEquals(1, game.getVotesForRestaurant("Saw's"));
+            assertEquals(1, game.getMaxVoteCount());
+        }
+    }
+
+    @Test
+    public void testRetractTakesBackOnlyOwnPoints() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's")));
+        game.submitBallot("Bart", Arrays.asList("Zoes", "Saw's"));
+
+        // Bart's points stay with Zoes through its elimination, Lisa's vote is her own
+        assertTrue(game.eliminateRestaurant("Lisa", "Zoes"));
+        assertTrue(game.undoElimination("Lisa"));
+        game.submitBallot("Lisa", Arrays.asList("Zoes"));
+        assertEquals(2, game.getVotesForRestaurant("Zoes"));
+
+        // A removed restaurant added back starts over, Bart's ballot no longer marks it
+        assertTrue(game.removeRestaurant("Saw's"));
+        game.addRestaurants(Collections.singleton("Saw's"));
+        game.submitBallot("Lisa", Arrays.asList("Zoes", "Saw's"));
+        assertFalse(game.hasVote("Bart", "Saw's"));
+        assertTrue(game.retractBallot("Bart"));
+        assertEquals(1, game.getVotesForRestaurant("Zoes"));
+        assertEquals(1, game.getVotesForRestaurant("Saw's"));
+
+        // Rows are reused, and rescoring still matches the ballots kept
+        game.submitBallot("Bart", Arrays.asList("Panera"));
+        game.setScoringRule(ScoringRule.BORDA);
+        assertEquals(3, game.getVotesForRestaurant("Zoes"));
+        assertEquals(2, game.getVotesForRestaurant("Saw's"));
+        assertEquals(3, game.getVotesForRestaurant("Panera"));
+    }
+
+    @Test
+    public void testOneBallotPerPlayer() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(1);
+        game.setNumVotesPerPlayer(1);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Moe's", "Zoes")));
+
+        // Near duplicates of a name are the same player, each new ballot replaces the last
+        for (String bart : Arrays.asList("Bart", "bart", " BART ", "Bart ", "\uff22\uff21\uff32\uff34"))
+            game.submitBallot(bart, Arrays.asList("Moe's"));
+        assertEquals(1, game.getVotesForRestaurant("Moe's"));
+        assertTrue(game.hasBallot("BART"));
+        assertTrue(game.hasVote("bart", "Moe's"));
+        assertTrue(game.retractBallot(" bart"));
+        assertEquals(0, game.getVotesForRestaurant("Moe's"));
+
+        try {
+            game.submitBallot("Homer", Arrays.asList("Zoes"));
+            fail("counted the ballot of an unknown player");
+        } catch (IllegalStateException e) {
+            assertEquals(0, game.getVotesForRestaurant("Zoes"));
+        }
+        assertFalse(game.hasBallot("Homer"));
+        assertFalse(game.retractBallot("Homer"));
+    }
+
+    @Test
+    public void testRetractRankedBallot() {
+        Game game = new Game();
+        game.setNumPlayers(3);
+        game.setNumRestaurantsPerPlayer(1);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa", "Maggie")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's")));
+        game.setRankedChoice(true);
+        game.submitBallot("Bart", Arrays.asList("Zoes"));
+        game.submitBallot("Lisa", Arrays.asList("Panera"));
+        game.submitBallot("Maggie", Arrays.asList("Panera"));
+        assertEquals(game.getRestaurantId("Panera"), game.startRunoff().getWinner());
+
+        game.submitBallot("Maggie", Arrays.asList("Zoes"));
+        assertEquals(3, game.startRunoff().getNumBallots());
+        assertEquals(game.getRestaurantId("Zoes"), game.startRunoff().getWinner());
+    }
 }
@@ -0,0 +1,107 @@
+package org.getmarco.bulk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.getmarco.Game;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.bulk.BallotFileTally}.
+ */
+public class BallotFileTallyTest {
+    private static final List<String> RESTAURANTS = Arrays.asList("Moe's", "Krusty Burger", "Luigi's", "The Frying Dutchman",
+      "Café \"Ñ\", downtown");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Game newGame() {
+        Game game = new Game();
+        game.setNumPlayers(RESTAURANTS.size());
+        game.setNumRestaurantsPerPlayer(1);
+        game.addRestaurants(new HashSet<>(RESTAURANTS));
+        return game;
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = this.folder.newFile().toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static String csv(String restaurant) {
+        return restaurant.contains(",") ? "\"" + restaurant.replace("\"", "\"\"") + "\"" : restaurant;
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testTallyMatchesSubmittedBallots() throws IOException {
+        Random random = new Random(42);
+        List<List<String>> ballots = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            List<String> shuffled = new ArrayList<>(RESTAURANTS);
+            Collections.shuffle(shuffled, random);
+            List<String> ballot = shuffled.subList(0, random.nextInt(4));
+            ballots.add(ballot);
+            for (int j = 0; j < ballot.size(); j++) {
+                // Typed in by hand: spacing and case vary
+                String name = random.nextBoolean() ? ballot.get(j) : " " + ballot.get(j).toUpperCase() + " ";
+                content.append(j == 0 ? "" : ",").append(csv(name));
+            }
+            content.append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Path path = this.write(content.toString());
+
+        Game expected = newGame();
+        expected.submitBallots(ballots);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int splitSize : new int[] {1, 100, 4096, BallotFileTally.DEFAULT_SPLIT_SIZE}) {
+                Game game = newGame();
+                assertEquals(3000, new BallotFileTally(pool, splitSize).tally(path, game));
+                for (String restaurant : RESTAURANTS)
+                    assertEquals(restaurant, expected.getVotesForRestaurant(restaurant), game.getVotesForRestaurant(restaurant));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidBallotCountsNothing() throws IOException {
+        for (String invalid : new String[] {"Moe's,Luigi's,Krusty Burger,The Frying Dutchman", "Moe's,Flanders", "Moe's,moe's"}) {
+            Path path = this.write("Moe's\n\nLuigi's,Krusty Burger\n" + invalid + "\nMoe's\n");
+            Game game = newGame();
+            try {
+                new BallotFileTally(ForkJoinPool.commonPool(), 8).tally(path, game);
+                fail("invalid ballot counted: " + invalid);
+            } catch (IllegalStateException e) {
+                assertEquals(0, game.getMaxVoteCount());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyRankedChoiceGame() throws IOException {
+        Game game = newGame();
+        game.setRankedChoice(true);
+        new BallotFileTally().tally(this.write("Moe's\n"), game);
+    }
+}
@@ -0,0 +1,115 @@
+package org.getmarco.bulk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import org.getmarco.Game;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.bulk.BulkImporter}.
+ */
+public class BulkImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String name, String content) throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testImportCsv() throws IOException {
+        Path path = this.write("players.csv", "Player,Restaurant 1,Restaurant 2\r\n"
+          + "Bart,Krusty Burger,\"Moe's, downtown\"\r\n"
+          + "\r\n"
+          + " Lisa , \"The \"\"Veggie\"\" Place\" ,krusty burger\r\n"
+          + "Homer,Moe's Tavern\r\n");
+        // Chunks smaller than a line, every split falls inside a record
+        for (int chunkSize : new int[] {1, 7, 32, 1024}) {
+            Game game = new Game();
+            assertEquals(3, new BulkImporter(chunkSize, 3).importFile(path, game));
+            assertEquals(3, game.getNumPlayers());
+            assertEquals(2, game.getNumRestaurantsPerPlayer());
+            assertEquals(new TreeSet<>(Arrays.asList("Bart", "Homer", "Lisa")), game.getPlayers());
+            assertEquals(4, game.getRestaurants().size());
+            assertNotNull(game.findRestaurant("Moe's, downtown"));
+            assertNotNull(game.findRestaurant("The \"Veggie\" Place"));
+            assertNotNull(game.findRestaurant("Krusty Burger"));
+            assertNotNull(game.findRestaurant("Moe's Tavern"));
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testImportJsonLines() throws IOException {
+        Path path = this.write("players.jsonl",
+          "{\"player\": \"Bart\", \"restaurants\": [\"Krusty Burger\", \"Moe's\"]}\n"
+          + "{\"id\": 2, \"tags\": [{\"x\": \"]\"}], \"restaurants\": [\"Caf\\u00e9 \\\"\\u00d1\\\"\"], \"player\": \"Lisa\"}\n"
+          + "{\"player\":\"Maggie\",\"restaurants\":[],\"active\":true}");
+        for (int chunkSize : new int[] {1, 13, 4096}) {
+            Game game = new Game();
+            assertEquals(3, new BulkImporter(chunkSize, 2).importFile(path, game));
+            assertEquals(new TreeSet<>(Arrays.asList("Bart", "Lisa", "Maggie")), game.getPlayers());
+            assertEquals(2, game.getNumRestaurantsPerPlayer());
+            assertEquals(new HashSet<>(Arrays.asList("Krusty Burger", "Moe's", "Café \"Ñ\"")), game.getRestaurants());
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testImportManyRecords() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+            content.append("Player ").append(i).append(",Restaurant ").append(i % 997).append(",Restaurant ")
+              .append(i % 13 + 5000).append('\n');
+        Path path = this.write("many.csv", content.toString());
+        Game game = new Game();
+        assertEquals(20000, new BulkImporter(4096, 4).importFile(path, game));
+        assertEquals(20000, game.getPlayers().size());
+        assertEquals(997 + 13, game.getRestaurants().size());
+    }
+
+    @Test
+    public void testDenyDuplicatePlayer() throws IOException {
+        Path path = this.write("players.csv", "Bart,Moe's\nLisa,Zoes\nBART,Panera\n");
+        Game game = new Game();
+        try {
+            new BulkImporter(8, 2).importFile(path, game);
+            fail("duplicate player imported");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("BART"));
+        }
+        // Nothing was added
+        assertTrue(game.getPlayers().isEmpty());
+        assertTrue(game.getRestaurants().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyInvalidJson() throws IOException {
+        Path path = this.write("players.jsonl", "{\"player\": \"Bart\", \"restaurants\": [\"Moe's\"]\n");
+        new BulkImporter().importFile(path, new Game());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyImportIntoGameWithPlayers() throws IOException {
+        Path path = this.write("players.csv", "Bart,Moe's\n");
+        Game game = new Game();
+        game.setNumPlayers(1);
+        game.addPlayer("Lisa");
+        new BulkImporter().importFile(path, game);
+    }
+}
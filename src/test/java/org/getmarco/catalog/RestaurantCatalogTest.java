@@ -0,0 +1,108 @@
+package org.getmarco.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.catalog.RestaurantCatalog}.
+ */
+public class RestaurantCatalogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RestaurantCatalog build(List<String> names) throws IOException {
+        Path path = this.folder.newFile().toPath();
+        RestaurantCatalog.write(path, names);
+        return RestaurantCatalog.open(path);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testComplete() throws IOException {
+        RestaurantCatalog catalog = this.build(Arrays.asList("Panera", "Pancho's", "Papa John's", " panera ", "Moe's",
+          "Café Ñ", "Cafe Rio", "寿司", "", null, "Zoes"));
+
+        // Blank names dropped, near duplicates keep the first name
+        assertEquals(8, catalog.size());
+        assertEquals(Arrays.asList("Pancho's", "Panera"), catalog.complete("PAN", 10));
+        assertEquals(Arrays.asList("Pancho's", "Panera", "Papa John's"), catalog.complete(" pa", 10));
+        assertEquals(Collections.singletonList("Pancho's"), catalog.complete("pa", 1));
+        assertEquals(Arrays.asList("Cafe Rio", "Café Ñ"), catalog.complete("caf", 10));
+        assertEquals(Collections.singletonList("寿司"), catalog.complete("寿", 10));
+        assertEquals(Collections.<String>emptyList(), catalog.complete("Pz", 10));
+        assertEquals(Collections.<String>emptyList(), catalog.complete("zz", 10));
+        assertEquals(8, catalog.complete("", 100).size());
+        assertEquals("Cafe Rio", catalog.getName(0));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testCompleteMatchesSortedScan() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            names.add("Restaurant " + Integer.toString(i * 7919 % 5000, 36));
+        RestaurantCatalog catalog = this.build(names);
+        assertEquals(5000, catalog.size());
+
+        List<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+        for (String prefix : new String[] {"restaurant 1", "Restaurant 3z", "restaurant ", "restaurant zz", "r"}) {
+            List<String> expected = new ArrayList<>();
+            for (String name : sorted) {
+                if (name.toLowerCase().startsWith(prefix.trim().toLowerCase()) && expected.size() < 25)
+                    expected.add(name);
+            }
+            assertEquals(prefix, expected, catalog.complete(prefix, 25));
+        }
+    }
+
+    @Test
+    public void testEmptyCatalog() throws IOException {
+        RestaurantCatalog catalog = this.build(Collections.<String>emptyList());
+        assertEquals(0, catalog.size());
+        assertTrue(catalog.complete("a", 10).isEmpty());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testDenyBadOffsets() throws IOException {
+        Path path = this.folder.newFile().toPath();
+        RestaurantCatalog.write(path, Arrays.asList("Panera", "Moe's", "Zoes"));
+        byte[] bytes = Files.readAllBytes(path);
+        // Header of 12 bytes, then 4 key offsets and 4 name offsets
+        for (int offset : new int[] {12 + 4, 12 + 16 + 8}) {
+            for (int value : new int[] {-1, 1 << 20}) {
+                byte[] corrupt = bytes.clone();
+                ByteBuffer.wrap(corrupt).putInt(offset, value);
+                Files.write(path, corrupt);
+                try {
+                    RestaurantCatalog.open(path);
+                    fail("expected exception for offset '" + value + "' at '" + offset + "'");
+                } catch (IllegalStateException e) {
+                    assertEquals("truncated catalog", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyNonCatalogFile() throws IOException {
+        Path path = this.folder.newFile().toPath();
+        Files.write(path, "Panera\nMoe's\n".getBytes("UTF-8"));
+        RestaurantCatalog.open(path);
+    }
+}
@@ -0,0 +1,89 @@
+package org.getmarco.engine;
+
+import org.getmarco.Game;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.InstantRunoff;
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.engine.HeadlessEngine}.
+ */
+public class HeadlessEngineTest {
+
+    private static GameScript.Builder simpsons() {
+        return new GameScript.Builder()
+          .setNumPlayers(3)
+          .setNumRestaurantsPerPlayer(2)
+          .addPlayer("Bart", "Krusty Burger", "Lard Lad")
+          .addPlayer("Lisa", "Lard Lad", "Thai Kitchen")
+          .addPlayer("Homer", "Moe's", "Krusty Burger");
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testPlayCompleteGame() {
+        GameScript script = simpsons()
+          .setElimination("Lisa", "Moe's")
+          .setBallot("Bart", "Krusty Burger", "Lard Lad")
+          .setBallot("Lisa", "Thai Kitchen")
+          .setBallot("Homer", "Krusty Burger")
+          .build();
+
+        Game game = HeadlessEngine.play(script);
+
+        assertEquals(StateType.QUIT, game.getStateType());
+        assertFalse(game.isGameOver());
+        assertEquals(3, game.getPlayers().size());
+        assertEquals(3, game.getRestaurants().size());
+        assertFalse(game.getRestaurants().contains("Moe's"));
+        assertTrue(game.isWin());
+        assertEquals(2, game.getMaxVoteCount());
+        assertArrayEquals(new String[] {"Krusty Burger", "Lard Lad", "Thai Kitchen"},
+          game.getVoteSortedRestaurants().toArray(new String[0]));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRankedChoiceBreaksTie() {
+        GameScript script = simpsons()
+          .setRankedChoice(true)
+          .setBallot("Bart", "Krusty Burger", "Lard Lad")
+          .setBallot("Lisa", "Lard Lad", "Thai Kitchen")
+          .setBallot("Homer", "Krusty Burger")
+          .build();
+
+        Game game = HeadlessEngine.play(script);
+
+        // Plurality tie, but Krusty Burger is the first choice of a majority
+        assertFalse(game.isWin());
+        InstantRunoff runoff = game.startRunoff();
+        assertTrue(runoff.isDecided());
+        assertFalse(runoff.nextRound());
+        assertEquals("Krusty Burger", game.getRestaurantName(runoff.getWinner()));
+        assertEquals(2, runoff.getVotes(runoff.getWinner()));
+    }
+
+    @Test
+    public void testEveryonePasses() {
+        Game game = HeadlessEngine.play(simpsons().build());
+
+        assertEquals(StateType.QUIT, game.getStateType());
+        assertEquals(4, game.getRestaurants().size());
+        assertFalse(game.isWin());
+        assertEquals(0, game.getMaxVoteCount());
+    }
+
+    @Test(expected = java.lang.IllegalStateException.class)
+    public void testDenyMissingPlayers() {
+        new GameScript.Builder().setNumPlayers(2).setNumRestaurantsPerPlayer(1).addPlayer("Bart", "Zoes").build();
+    }
+
+    @Test(expected = java.lang.IllegalStateException.class)
+    public void testDenyInvalidBallot() {
+        HeadlessEngine.play(simpsons().setBallot("Bart", "Lard Lad", "Lard Lad").build());
+    }
+}
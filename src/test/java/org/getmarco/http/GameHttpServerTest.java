@@ -0,0 +1,167 @@
+package org.getmarco.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.util.Json;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.http.GameHttpServer}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class GameHttpServerTest {
+    private GameHttpServer server;
+
+    @Before
+    public void setUp() {
+        this.server = new GameHttpServer(new InetSocketAddress("localhost", 0));
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.close();
+    }
+
+    // The status code and JSON response of a GET, or a POST of a JSON body
+    private Object[] request(String path, String body) throws IOException {
+        URL url = new URL("http://localhost:" + this.server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        if (body != null) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() :
+          connection.getErrorStream()) {
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                response.write(buffer, 0, read);
+        }
+        return new Object[] {status, Json.parse(new String(response.toByteArray(), StandardCharsets.UTF_8))};
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> ok(String path, String body) throws IOException {
+        Object[] response = this.request(path, body);
+        assertEquals(response[1].toString(), HttpURLConnection.HTTP_OK, response[0]);
+        return (Map<String, Object>)response[1];
+    }
+
+    private void setUpGame() throws IOException {
+        this.ok("/setup", "{\"numPlayers\": 2, \"numRestaurantsPerPlayer\": 2}");
+        this.ok("/players", "{\"players\": [\"Bart\", \"Lisa\"]}");
+        this.ok("/restaurants", "{\"restaurants\": [\"Zoes\", \"Panera\", \"Moe's\"]}");
+    }
+
+    @Test
+    public void testPlayGame() throws Exception {
+        this.setUpGame();
+        Map<String, Object> state = this.ok("/game", null);
+        assertEquals(2L, state.get("numPlayers"));
+        assertEquals(Arrays.asList("Bart", "Lisa"), state.get("players"));
+        assertEquals(Arrays.asList("Moe's", "Panera", "Zoes"), state.get("restaurants"));
+
+        this.ok("/eliminate", "{\"player\": \"Bart\", \"restaurant\": \"Moe's\"}");
+        this.ok("/vote", "{\"player\": \"Bart\", \"restaurants\": [\"Zoes\", \"Panera\"]}");
+        Map<String, Object> vote = this.ok("/vote", "{\"player\": \"Lisa\", \"restaurants\": [\"zoes\"]}");
+        assertEquals(Boolean.TRUE, vote.get("voted"));
+        // Players can't add votes without their ballots
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/vote", "{\"restaurant\": \"Zoes\"}")[0]);
+
+        Map<String, Object> results = this.ok("/results?limit=1", null);
+        assertEquals(Boolean.TRUE, results.get("win"));
+        assertEquals(2L, results.get("maxVotes"));
+        assertEquals("[{restaurant=Zoes, votes=2}]", results.get("ranked").toString());
+        assertEquals(1, this.server.getGame().getVotesForRestaurant("Panera"));
+    }
+
+    @Test
+    public void testInvalidRequests() throws Exception {
+        this.setUpGame();
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+          this.request("/vote", "{\"player\": \"Bart\", \"restaurants\": [\"Krusty\"]}")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/vote", "{\"restaurant\": ")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/players", "{\"players\": [\"Homer\"]}")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_METHOD, this.request("/vote", null)[0]);
+        assertEquals(HttpURLConnection.HTTP_NOT_FOUND, this.request("/votes", null)[0]);
+        Object[] response = this.request("/vote", "{\"player\": \"Bart\", \"restaurants\": [\"Zoes\", \"Zoes\"]}");
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, response[0]);
+        assertTrue(((Map<?, ?>)response[1]).containsKey("error"));
+        // Too deeply nested to parse, rather than a stack overflow
+        char[] nested = new char[60000];
+        Arrays.fill(nested, '[');
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/vote", new String(nested))[0]);
+    }
+
+    @Test
+    public void testInvalidSetup() throws Exception {
+        this.setUpGame();
+        // Every field is checked before the game starts over
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/setup",
+          "{\"numPlayers\": 3, \"numRestaurantsPerPlayer\": 1, \"scoringRule\": \"PLURAL\"}")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/setup",
+          "{\"numPlayers\": 3, \"numRestaurantsPerPlayer\": 1, \"scoringRule\": \"SCORE\", \"rankedChoice\": true}")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, this.request("/setup",
+          "{\"numPlayers\": 3, \"numRestaurantsPerPlayer\": 1, \"numVotesPerPlayer\": 0}")[0]);
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+          this.request("/setup", "{\"numPlayers\": 2.7, \"numRestaurantsPerPlayer\": 1}")[0]);
+        Map<String, Object> state = this.ok("/game", null);
+        assertEquals(2L, state.get("numPlayers"));
+        assertEquals(Arrays.asList("Bart", "Lisa"), state.get("players"));
+
+        state = this.ok("/setup", "{\"numPlayers\": 3, \"numRestaurantsPerPlayer\": 1, \"scoringRule\": \"SCORE\"}");
+        assertEquals("SCORE", state.get("scoringRule"));
+        assertEquals(Arrays.asList(), state.get("players"));
+        this.ok("/players", "{\"players\": [\"Bart\"]}");
+        this.ok("/restaurants", "{\"restaurants\": [\"Zoes\"]}");
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+          this.request("/vote", "{\"player\": \"Bart\", \"scores\": {\"Zoes\": 4.5}}")[0]);
+        this.ok("/vote", "{\"player\": \"Bart\", \"scores\": {\"Zoes\": 4}}");
+        assertEquals(4, this.server.getGame().getVotesForRestaurant("Zoes"));
+    }
+
+    @Test
+    public void testConcurrentVoters() throws Exception {
+        // Votes without players
+        this.ok("/setup", "{\"numPlayers\": 2, \"numRestaurantsPerPlayer\": 2}");
+        this.ok("/restaurants", "{\"restaurants\": [\"Zoes\", \"Panera\", \"Moe's\"]}");
+        ExecutorService voters = Executors.newFixedThreadPool(32);
+        List<Future<Map<String, Object>>> votes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String restaurant = i % 4 == 0 ? "Panera" : "Zoes";
+            votes.add(voters.submit(() -> this.ok("/vote", "{\"restaurant\": \"" + restaurant + "\"}")));
+        }
+        for (Future<Map<String, Object>> vote : votes)
+            vote.get(1, TimeUnit.MINUTES);
+        voters.shutdown();
+        Map<String, Object> results = this.ok("/results", null);
+        assertEquals("[{restaurant=Zoes, votes=750}, {restaurant=Panera, votes=250}, {restaurant=Moe's, votes=0}]",
+          results.get("ranked").toString());
+    }
+}
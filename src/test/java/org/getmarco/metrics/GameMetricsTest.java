@@ -0,0 +1,151 @@
+package org.getmarco.metrics;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.getmarco.Game;
+import org.getmarco.engine.GameScript;
+import org.getmarco.engine.HeadlessEngine;
+import org.getmarco.engine.HeadlessFrontEnd;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.tally.TallyType;
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.metrics.GameMetrics}.
+ */
+public class GameMetricsTest {
+
+    private static Game playGame(GameMetrics metrics) {
+        GameScript script = new GameScript.Builder()
+          .setNumPlayers(2)
+          .setNumRestaurantsPerPlayer(2)
+          .addPlayer("Bart", "Krusty Burger", "Lard Lad")
+          .addPlayer("Lisa", "Thai Kitchen", "Moe's")
+          .setElimination("Lisa", "Moe's")
+          .setBallot("Bart", "Krusty Burger", "Lard Lad")
+          .setBallot("Lisa", "Thai Kitchen", "Krusty Burger")
+          .build();
+        Game game = new Game(TallyType.SEQUENTIAL, new HeadlessFrontEnd(script));
+        metrics.attach(game);
+        return HeadlessEngine.play(game);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testCountGamePlay() {
+        GameMetrics metrics = new GameMetrics();
+        Game game = playGame(metrics);
+
+        assertEquals(4, metrics.getVotes());
+        assertEquals(1, metrics.getEliminations());
+        assertEquals(3, metrics.getRestaurants());
+        assertEquals(2, metrics.getPlayers());
+        for (StateType state : StateType.values()) {
+            if (state != StateType.QUIT)
+                assertEquals(state.name(), 1, metrics.getStateLatencies().get(state.name()).getCount());
+        }
+
+        // An undone elimination comes off the count, and its restaurant is back
+        assertTrue(game.undoElimination("Lisa"));
+        assertEquals(0, metrics.getEliminations());
+        assertEquals(4, metrics.getRestaurants());
+
+        game.changeState(StateType.VOTE);
+        game.back();
+        game.quit();
+        assertEquals(1, metrics.getRestarts());
+        assertEquals(1, metrics.getQuits());
+        assertEquals(0, metrics.getRestaurants());
+        assertEquals(0, metrics.getPlayers());
+
+        metrics.reset();
+        assertEquals(0, metrics.getVotes());
+        assertEquals(0, metrics.getStateLatencies().get(StateType.VOTE.name()).getCount());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testVotesComeOff() {
+        GameMetrics metrics = new GameMetrics();
+        Game game = new Game();
+        metrics.attach(game);
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Krusty Burger", "Lard Lad", "Thai Kitchen")));
+        game.setNumVotesPerPlayer(2);
+        game.setScoringRule(ScoringRule.BORDA);
+
+        // Borda points are not votes: each ballot is as many votes as it marks
+        game.submitBallot("Bart", Arrays.asList("Krusty Burger", "Lard Lad"));
+        game.submitBallot("Lisa", Arrays.asList("Thai Kitchen", "Krusty Burger"));
+        assertEquals(2 + 1, game.getVotesForRestaurant("Krusty Burger"));
+        assertEquals(4, metrics.getVotes());
+
+        assertTrue(game.retractBallot("Bart"));
+        assertEquals(2, metrics.getVotes());
+        // A removed restaurant takes its marks with it, and comes off the ballots
+        assertTrue(game.removeRestaurant("Krusty Burger"));
+        assertEquals(1, metrics.getVotes());
+        assertTrue(game.retractBallot("Lisa"));
+        assertEquals(0, metrics.getVotes());
+
+        game.submitBallot("Lisa", Arrays.asList("Thai Kitchen"));
+        assertEquals(1, metrics.getVotes());
+        game.resetVoting();
+        assertEquals(0, metrics.getVotes());
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRegisterMBean() throws Exception {
+        GameMetrics metrics = new GameMetrics();
+        playGame(metrics);
+        metrics.recordView(GameMetricsTest.class, 1000);
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        metrics.register(server);
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertEquals(4L, server.getAttribute(name, "Votes"));
+        TabularData states = (TabularData)server.getAttribute(name, "StateLatencies");
+        assertEquals(StateType.values().length, states.size());
+        TabularData views = (TabularData)server.getAttribute(name, "ViewLatencies");
+        assertEquals(1, views.size());
+
+        // Registering again replaces the earlier metrics
+        new GameMetrics().register(server);
+        assertEquals(0L, server.getAttribute(name, "Votes"));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+        LatencySummary summary = histogram.getSummary();
+
+        assertEquals(1000, summary.getCount());
+        assertEquals(500.5, summary.getMeanMicros(), 0.001);
+        assertEquals(1000.0, summary.getMaxMicros(), 0.001);
+        // Buckets are within 25% of their values
+        assertEquals(500.0, summary.getP50Micros(), 125.0);
+        assertEquals(900.0, summary.getP90Micros(), 225.0);
+        assertTrue(summary.getP99Micros() >= 990.0 && summary.getP99Micros() <= 1000.0);
+
+        histogram.reset();
+        assertEquals(0, histogram.getSummary().getCount());
+        assertEquals(0.0, histogram.getSummary().getP50Micros(), 0.0);
+    }
+}
@@ -0,0 +1,184 @@
+package org.getmarco.persist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.getmarco.Game;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.ScoringRule;
+import org.getmarco.tally.TallyType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.persist.GameSnapshot}.
+ */
+public class GameSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Game newGame() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(3);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's", "Moe's", "Café Ñ", "寿司")));
+        game.removeRestaurant("Saw's");
+        game.submitBallots(Arrays.asList(Arrays.asList("Zoes", "寿司"), Arrays.asList("Zoes", "Café Ñ")));
+        game.changeState(StateType.RESULTS);
+        return game;
+    }
+
+    private static byte[] save(Game game) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameSnapshot.save(game, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static void assertSameGame(Game expected, Game actual) {
+        assertEquals(expected.getStateType(), actual.getStateType());
+        assertEquals(expected.getNumPlayers(), actual.getNumPlayers());
+        assertEquals(expected.getNumRestaurantsPerPlayer(), actual.getNumRestaurantsPerPlayer());
+        assertEquals(expected.getPlayers(), actual.getPlayers());
+        assertEquals(expected.getRestaurants(), actual.getRestaurants());
+        assertEquals(expected.getVoteSortedRestaurants(), actual.getVoteSortedRestaurants());
+        assertEquals(expected.getMaxVoteCount(), actual.getMaxVoteCount());
+        assertEquals(expected.isWin(), actual.isWin());
+        for (String restaurant : expected.getRestaurants())
+            assertEquals(expected.getVotesForRestaurant(restaurant), actual.getVotesForRestaurant(restaurant));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Game game = newGame();
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(game, path);
+
+        for (TallyType tallyType : TallyType.values()) {
+            Game loaded = new Game(tallyType);
+            loaded.setNumPlayers(1);
+            loaded.setNumRestaurantsPerPlayer(1);
+            loaded.addRestaurants(new HashSet<>(Arrays.asList("Stale")));
+            GameSnapshot.load(path, loaded);
+            assertSameGame(game, loaded);
+            assertFalse(loaded.getRestaurants().contains("Stale"));
+
+            // The restored tally keeps working
+            loaded.vote("Panera");
+            loaded.vote("Panera");
+            assertEquals(Arrays.asList("Panera", "Zoes"), loaded.getVoteSortedRestaurants().subList(0, 2));
+            assertFalse(loaded.isWin());
+            loaded.addRestaurants(new HashSet<>(Arrays.asList("Arby's")));
+            assertEquals("Arby's", loaded.getRestaurants().iterator().next());
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testSaveAndLoadBallots() {
+        Game game = new Game();
+        game.setNumPlayers(3);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa", "Milhouse")));
+        game.setScoringRule(ScoringRule.BORDA);
+        game.setRankedChoice(true);
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's", "Moe's")));
+        game.submitBallot("Bart", Arrays.asList("Zoes", "Saw's", "Moe's"));
+        game.submitBallot("Lisa", Arrays.asList("Panera", "Zoes"));
+        game.submitBallot(Arrays.asList("Moe's"));
+        // Bart's ballot keeps Moe's in third place, worth one point
+        game.removeRestaurant("Saw's");
+        game.eliminateRestaurant("Milhouse", "Panera");
+
+        Game loaded = new Game();
+        GameSnapshot.load(Channels.newChannel(new ByteArrayInputStream(save(game))), loaded);
+        assertSameGame(game, loaded);
+        assertEquals(ScoringRule.BORDA, loaded.getScoringRule());
+        assertTrue(loaded.isRankedChoice());
+        assertEquals(game.getEliminations().keySet(), loaded.getEliminations().keySet());
+        assertEquals(5, loaded.getVotesForRestaurant("Zoes"));
+        assertEquals(4, loaded.getVotesForRestaurant("Moe's"));
+        assertEquals(3, loaded.startRunoff().getBallotsInPlay());
+
+        // The ballots are still there to take back and count again
+        assertTrue(loaded.retractBallot("Bart"));
+        assertEquals(2, loaded.getVotesForRestaurant("Zoes"));
+        assertEquals(3, loaded.getVotesForRestaurant("Moe's"));
+        assertTrue(loaded.undoElimination("Milhouse"));
+        assertEquals(3, loaded.getVotesForRestaurant("Panera"));
+        loaded.setScoringRule(ScoringRule.APPROVAL);
+        assertEquals(1, loaded.getVotesForRestaurant("Zoes"));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testSaveAndLoadScores() {
+        Game game = new Game();
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(1);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.setScoringRule(ScoringRule.SCORE);
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera")));
+        Map<String, Integer> scores = new HashMap<>();
+        scores.put("Zoes", 4);
+        scores.put("Panera", 0);
+        game.submitScores("Bart", scores);
+        game.submitScores(Collections.singletonMap("Panera", 2));
+
+        Game loaded = new Game();
+        GameSnapshot.load(Channels.newChannel(new ByteArrayInputStream(save(game))), loaded);
+        assertSameGame(game, loaded);
+        assertEquals(ScoringRule.SCORE, loaded.getScoringRule());
+        assertTrue(loaded.retractBallot("Bart"));
+        assertEquals(0, loaded.getVotesForRestaurant("Zoes"));
+        assertEquals(2, loaded.getVotesForRestaurant("Panera"));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testLargeGame() {
+        Game game = new Game();
+        game.setNumPlayers(1000);
+        game.setNumRestaurantsPerPlayer(100);
+        HashSet<String> restaurants = new HashSet<>();
+        for (int i = 0; i < 100000; i++)
+            restaurants.add("Restaurant " + i);
+        game.addRestaurants(restaurants);
+        for (int i = 0; i < 100000; i += 7)
+            game.vote("Restaurant " + i);
+
+        Game loaded = new Game();
+        GameSnapshot.load(Channels.newChannel(new ByteArrayInputStream(save(game))), loaded);
+        assertSameGame(game, loaded);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRejectNonSnapshot() {
+        GameSnapshot.load(Channels.newChannel(new ByteArrayInputStream(new byte[64])), new Game());
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testRejectTruncatedSnapshot() {
+        byte[] bytes = save(newGame());
+        GameSnapshot.load(Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))),
+          new Game());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRestoreRejectsUnsortedRestaurants() {
+        new Game().restoreRestaurants(new String[] {"Zoes", "Panera"}, new int[2], 2);
+    }
+}
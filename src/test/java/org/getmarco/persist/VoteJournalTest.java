@@ -0,0 +1,235 @@
+package org.getmarco.persist;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.getmarco.Game;
+import org.getmarco.tally.ScoringRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.persist.VoteJournal}.
+ */
+public class VoteJournalTest {
+    private static final int SMALL_SEGMENT = 32 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void play(Game game) {
+        game.setNumPlayers(2);
+        game.setNumRestaurantsPerPlayer(2);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa")));
+        game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Saw's", "Moe's")));
+        game.removeRestaurant("Saw's");
+        game.vote("Zoes");
+        game.vote(game.getRestaurantId("Panera"));
+        game.submitBallots(Arrays.asList(Arrays.asList("Zoes", "Moe's"), Arrays.asList("Zoes")));
+        // A replaced ballot journals its retraction
+        game.submitBallot("Bart", Arrays.asList("Panera", "Moe's"));
+        game.submitBallot("Bart", Arrays.asList("Moe's"));
+        // Eliminated restaurants keep their votes
+        game.eliminateRestaurant("Lisa", "Panera");
+        game.eliminateRestaurant("Bart", "Moe's");
+        game.undoElimination("Bart");
+    }
+
+    private static void assertSameGame(Game expected, Game actual) {
+        assertEquals(expected.getNumPlayers(), actual.getNumPlayers());
+        assertEquals(expected.getNumRestaurantsPerPlayer(), actual.getNumRestaurantsPerPlayer());
+        assertEquals(expected.getNumVotesPerPlayer(), actual.getNumVotesPerPlayer());
+        assertEquals(expected.getScoringRule(), actual.getScoringRule());
+        assertEquals(expected.isRankedChoice(), actual.isRankedChoice());
+        assertEquals(expected.getPlayers(), actual.getPlayers());
+        assertEquals(expected.getEliminations(), actual.getEliminations());
+        assertEquals(expected.getVoteSortedRestaurants(), actual.getVoteSortedRestaurants());
+        for (String restaurant : expected.getRestaurants()) {
+            assertEquals(expected.getVotesForRestaurant(restaurant), actual.getVotesForRestaurant(restaurant));
+            assertEquals(expected.getRestaurantId(restaurant), actual.getRestaurantId(restaurant));
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRecoverGame() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game)) {
+            play(game);
+        }
+
+        Game recovered = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, recovered)) {
+            assertSameGame(game, recovered);
+            assertEquals(3, recovered.getVotesForRestaurant("Zoes"));
+            assertFalse(recovered.getRestaurants().contains("Saw's"));
+            assertEquals(Collections.singleton("Lisa"), recovered.getEliminations().keySet());
+            assertEquals(0, recovered.getVotesForRestaurant("Panera"));
+
+            // Keeps journaling after recovery
+            assertTrue(recovered.undoElimination("Lisa"));
+            assertEquals(1, recovered.getVotesForRestaurant("Panera"));
+            recovered.vote("Moe's");
+            recovered.resetVoting();
+            recovered.vote("Panera");
+        }
+
+        Game replayed = new Game();
+        assertEquals(24, VoteJournal.replay(directory, replayed));
+        assertSameGame(recovered, replayed);
+        assertEquals(1, replayed.getVotesForRestaurant("Panera"));
+        assertEquals(0, replayed.getVotesForRestaurant("Zoes"));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRecoverBallots() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game)) {
+            game.setNumPlayers(3);
+            game.setNumRestaurantsPerPlayer(1);
+            game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa", "Milhouse")));
+            game.setNumVotesPerPlayer(2);
+            game.setScoringRule(ScoringRule.BORDA);
+            game.setRankedChoice(true);
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera", "Moe's")));
+            game.submitBallot("Bart", Arrays.asList("Zoes", "Moe's"));
+            game.submitBallot("Lisa", Arrays.asList("Panera", "Zoes"));
+            game.submitBallot(Arrays.asList("Moe's", "Panera"));
+            game.eliminateRestaurant("Milhouse", "Moe's");
+        }
+
+        Game recovered = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, recovered)) {
+            assertSameGame(game, recovered);
+            assertEquals(3, recovered.getVotesForRestaurant("Zoes"));
+            assertTrue(recovered.hasVote("Bart", "Zoes"));
+            assertEquals(3, recovered.startRunoff().getBallotsInPlay());
+
+            // The ballots are still there to take back and count again
+            assertTrue(recovered.retractBallot("Bart"));
+            assertEquals(1, recovered.getVotesForRestaurant("Zoes"));
+            recovered.setScoringRule(ScoringRule.PLURALITY);
+            assertEquals(2, recovered.getVotesForRestaurant("Panera"));
+        }
+
+        Game replayed = new Game();
+        VoteJournal.replay(directory, replayed);
+        assertSameGame(recovered, replayed);
+        assertFalse(replayed.hasBallot("Bart"));
+        assertTrue(replayed.hasBallot("Lisa"));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testSegmentRollover() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game, SMALL_SEGMENT, 1)) {
+            game.setNumPlayers(1);
+            game.setNumRestaurantsPerPlayer(2);
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes", "Panera")));
+            for (int i = 0; i < 20000; i++)
+                game.vote(i % 3 == 0 ? "Zoes" : "Panera");
+            journal.sync();
+        }
+        assertTrue(Files.exists(directory.resolve("journal-00000003.seg")));
+
+        Game replayed = new Game();
+        VoteJournal.replay(directory, replayed);
+        assertSameGame(game, replayed);
+        assertEquals(6667, replayed.getVotesForRestaurant("Zoes"));
+    }
+
+    @Test
+    public void testReplayStopsAtTornRecord() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game, SMALL_SEGMENT, 1)) {
+            game.setNumPlayers(1);
+            game.setNumRestaurantsPerPlayer(1);
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes")));
+            game.vote("Zoes");
+        }
+        // Simulate a crash in the middle of writing a name, the length runs past the end of the segment
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-00000000.seg").toFile(), "rw")) {
+            file.seek(SMALL_SEGMENT - 3);
+            file.write(new byte[] {5, 0x7f, 0x7f});
+        }
+
+        Game replayed = new Game();
+        VoteJournal.replay(directory, replayed);
+        assertSameGame(game, replayed);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRecoverTornRecord() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game, SMALL_SEGMENT, 1)) {
+            game.setNumPlayers(1);
+            game.setNumRestaurantsPerPlayer(1);
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes")));
+            for (int i = 0; i < 5; i++)
+                game.vote("Zoes");
+        }
+        // Tear the fourth vote (after two 9 byte setup records and one of 11 for the restaurant), after a rollover
+        Path first = directory.resolve("journal-00000000.seg");
+        Files.copy(first, directory.resolve("journal-00000001.seg"));
+        try (RandomAccessFile file = new RandomAccessFile(first.toFile(), "rw")) {
+            file.seek(9 + 9 + 11 + 9 * 3 + 8);
+            file.write(1);
+        }
+
+        // The votes after the tear are gone, not brought back by an append over it
+        Game recovered = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, recovered, SMALL_SEGMENT, 1)) {
+            assertEquals(3, recovered.getVotesForRestaurant("Zoes"));
+            assertFalse(Files.exists(directory.resolve("journal-00000001.seg")));
+            recovered.vote("Zoes");
+        }
+        Game again = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, again, SMALL_SEGMENT, 1)) {
+            assertSameGame(recovered, again);
+            assertEquals(4, again.getVotesForRestaurant("Zoes"));
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testRecoverFullSegment() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        Game game = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, game, SMALL_SEGMENT, 1)) {
+            game.setNumPlayers(1);
+            game.setNumRestaurantsPerPlayer(1);
+            game.addRestaurants(new HashSet<>(Arrays.asList("Zoes")));
+            game.addVoteCounts(new int[] {7});
+            // Fill the first segment up to its end marker
+            while (!Files.exists(directory.resolve("journal-00000001.seg")))
+                game.vote("Zoes");
+        }
+
+        // A closed segment isn't torn, recovery goes on to the next
+        Game recovered = new Game();
+        try (VoteJournal journal = VoteJournal.recover(directory, recovered, SMALL_SEGMENT, 1)) {
+            assertSameGame(game, recovered);
+            recovered.vote("Zoes");
+        }
+        Game replayed = new Game();
+        VoteJournal.replay(directory, replayed);
+        assertEquals(game.getVotesForRestaurant("Zoes") + 1, replayed.getVotesForRestaurant("Zoes"));
+    }
+}
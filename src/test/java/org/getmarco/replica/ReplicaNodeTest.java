@@ -0,0 +1,183 @@
+package org.getmarco.replica;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.getmarco.Game;
+import org.getmarco.GameListener;
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.replica.ReplicaNode} and {@link org.getmarco.replica.ReplicatedTally}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class ReplicaNodeTest {
+    private static final List<String> RESTAURANTS = Arrays.asList("Moe's", "Panera", "Zoes");
+
+    private static Game game() {
+        Game game = new Game();
+        game.setNumPlayers(3);
+        game.setNumRestaurantsPerPlayer(1);
+        game.setPlayers(new HashSet<>(Arrays.asList("Bart", "Lisa", "Maggie")));
+        game.addRestaurants(new HashSet<>(RESTAURANTS));
+        return game;
+    }
+
+    @Test
+    public void testMergeInAnyOrder() {
+        Random random = new Random(42);
+        String[] nodes = {"first floor", "second floor", "annex"};
+        List<ReplicaDelta> deltas = new ArrayList<>();
+        long[] expected = new long[RESTAURANTS.size()];
+        for (String node : nodes) {
+            ReplicatedTally tally = new ReplicatedTally(node);
+            for (int batch = 0; batch < 20; batch++) {
+                for (int v = 0; v < 5; v++) {
+                    int restaurant = random.nextInt(RESTAURANTS.size());
+                    tally.addVotes(RESTAURANTS.get(restaurant), 1);
+                    expected[restaurant]++;
+                    if (random.nextInt(4) == 0)
+                        expected[restaurant] -= tally.removeVotes(RESTAURANTS.get(restaurant), 1);
+                }
+                deltas.add(tally.takeDelta());
+            }
+        }
+
+        // Each replica sees every delta, shuffled and some twice
+        for (int replica = 0; replica < 3; replica++) {
+            List<ReplicaDelta> received = new ArrayList<>(deltas);
+            received.addAll(deltas.subList(0, deltas.size() / 2));
+            Collections.shuffle(received, random);
+            ReplicatedTally tally = new ReplicatedTally("replica " + replica);
+            for (ReplicaDelta delta : received)
+                tally.merge(delta);
+            for (int restaurant = 0; restaurant < expected.length; restaurant++)
+                assertEquals(expected[restaurant], tally.getVotes(RESTAURANTS.get(restaurant)));
+            assertFalse(tally.merge(tally.getState()));
+        }
+    }
+
+    @Test
+    public void testDeltaRoundTrip() throws Exception {
+        ReplicaDelta delta = new ReplicaDelta.Builder()
+          .add("first floor", "Zoes", 12, 1)
+          .add("annex", "Zoes", 3, 0)
+          .add("first floor", "Moe's", 7, 7)
+          .build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        delta.write(new DataOutputStream(bytes));
+        ReplicaDelta read = ReplicaDelta.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(delta.toString(), read.toString());
+        assertEquals(3, read.size());
+        assertEquals("annex", read.getNode(1));
+        assertEquals(7, read.getDecrements(2));
+    }
+
+    @Test
+    public void testGamesConverge() {
+        LoopbackNetwork network = new LoopbackNetwork();
+        Game first = game();
+        Game second = game();
+        ReplicaNode firstNode = new ReplicaNode("first", first, network.newTransport());
+        ReplicaNode secondNode = new ReplicaNode("second", second, network.newTransport());
+
+        first.vote("Zoes");
+        first.vote("Zoes");
+        second.vote("Panera");
+        second.submitBallot("Lisa", Arrays.asList("Zoes", "Moe's"));
+        firstNode.sync();
+        secondNode.sync();
+        firstNode.sync();
+        for (Game game : Arrays.asList(first, second)) {
+            assertEquals(3, game.getVotesForRestaurant("Zoes"));
+            assertEquals(1, game.getVotesForRestaurant("Panera"));
+            assertEquals(1, game.getVotesForRestaurant("Moe's"));
+            assertEquals("Zoes", game.getTopRestaurants(1).get(0));
+        }
+
+        // A retracted ballot is taken back everywhere, remote votes can't be
+        second.retractBallot("Lisa");
+        second.removeVotes(second.getRestaurantId("Zoes"), 2);
+        secondNode.sync();
+        firstNode.sync();
+        assertEquals(2, first.getVotesForRestaurant("Zoes"));
+        assertEquals(0, first.getVotesForRestaurant("Moe's"));
+        secondNode.sync();
+        assertEquals(2, second.getVotesForRestaurant("Zoes"));
+    }
+
+    @Test
+    public void testVoteDuringSync() {
+        LoopbackNetwork network = new LoopbackNetwork();
+        Game first = game();
+        Game second = game();
+        ReplicaNode firstNode = new ReplicaNode("first", first, network.newTransport());
+        ReplicaNode secondNode = new ReplicaNode("second", second, network.newTransport());
+
+        // A local vote cast while merged votes are applied is this node's own
+        second.addListener(new GameListener() {
+            private boolean voted;
+
+            @Override
+            public void votesAdded(int id, int votes) {
+                if (!this.voted) {
+                    this.voted = true;
+                    second.vote("Zoes");
+                }
+            }
+        });
+        first.vote("Zoes");
+        first.vote("Zoes");
+        firstNode.sync();
+        secondNode.sync();
+        assertEquals(3, second.getVotesForRestaurant("Zoes"));
+        assertEquals(1, secondNode.getTally().getVotes("Zoes") - firstNode.getTally().getVotes("Zoes"));
+        secondNode.sync();
+        firstNode.sync();
+        assertEquals(3, first.getVotesForRestaurant("Zoes"));
+        assertEquals(3, second.getVotesForRestaurant("Zoes"));
+    }
+
+    @Test
+    public void testCatchUpWithState() {
+        LoopbackNetwork network = new LoopbackNetwork();
+        Game first = game();
+        ReplicaNode firstNode = new ReplicaNode("first", first, network.newTransport());
+        network.setPaused(true);
+        first.vote("Panera");
+        firstNode.sync();
+        network.setPaused(false);
+
+        // A late node gets the counts from a full state, and a restaurant added later gets its votes then
+        Game late = new Game();
+        late.setNumPlayers(3);
+        late.setNumRestaurantsPerPlayer(1);
+        try (ReplicaNode lateNode = new ReplicaNode("late", late, network.newTransport())) {
+            firstNode.sendState();
+            lateNode.sync();
+            assertEquals(1, lateNode.getTally().getVotes("Panera"));
+            late.addRestaurants(new HashSet<>(RESTAURANTS));
+            lateNode.sync();
+            assertEquals(1, late.getVotesForRestaurant("Panera"));
+
+            // Resetting the voting takes back this node's votes only
+            late.vote("Zoes");
+            late.resetVoting();
+            lateNode.sync();
+            assertEquals(0, late.getVotesForRestaurant("Zoes"));
+            assertEquals(1, late.getVotesForRestaurant("Panera"));
+        }
+    }
+}
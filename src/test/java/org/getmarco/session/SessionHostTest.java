@@ -0,0 +1,148 @@
+package org.getmarco.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.getmarco.Game;
+import org.getmarco.engine.GameScript;
+import org.getmarco.engine.HeadlessFrontEnd;
+import org.getmarco.state.StateType;
+import org.getmarco.tally.TallyType;
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.session.SessionHost}.
+ */
+public class SessionHostTest {
+
+    private static GameScript script(String team) {
+        return new GameScript.Builder()
+          .setNumPlayers(2)
+          .setNumRestaurantsPerPlayer(1)
+          .addPlayer(team + " 1", "Zoes")
+          .addPlayer(team + " 2", "Panera")
+          .setBallot(team + " 1", "Zoes")
+          .setBallot(team + " 2", "Zoes")
+          .build();
+    }
+
+    /**
+     * Front end waiting for a latch before welcoming the players, quitting if interrupted.
+     */
+    private static class WaitingFrontEnd extends HeadlessFrontEnd {
+        private final CountDownLatch latch;
+
+        WaitingFrontEnd(GameScript script, CountDownLatch latch) {
+            super(script);
+            this.latch = latch;
+        }
+
+        @Override
+        public void start(Game game) {
+            try {
+                this.latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                game.quit();
+            }
+        }
+    }
+
+    /**
+     * Front end playing the script up to the results, then waiting for a latch (stopping if interrupted).
+     */
+    private static class ResultsWaitingFrontEnd extends HeadlessFrontEnd {
+        private final CountDownLatch reached = new CountDownLatch(1);
+        private final CountDownLatch latch;
+
+        ResultsWaitingFrontEnd(GameScript script, CountDownLatch latch) {
+            super(script);
+            this.latch = latch;
+        }
+
+        @Override
+        public void showResults(Game game) {
+            this.reached.countDown();
+            try {
+                this.latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testSessionsPlayIndependently() throws Exception {
+        try (SessionHost host = new SessionHost()) {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Session> sessions = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String id = "team-" + i;
+                Game game = new Game(TallyType.SEQUENTIAL, new WaitingFrontEnd(script(id), go));
+                sessions.add(host.open(id, game));
+            }
+            assertEquals(100, host.size());
+            assertSame(sessions.get(42), host.get("team-42"));
+
+            go.countDown();
+            for (Session session : sessions) {
+                Game game = session.getCompletion().get(1, TimeUnit.MINUTES);
+                assertEquals(StateType.QUIT, game.getStateType());
+                assertTrue(game.isWin());
+                assertEquals(2, game.getVotesForRestaurant("Zoes"));
+            }
+            assertEquals(0, host.size());
+        }
+    }
+
+    @Test
+    public void testCloseOneSession() throws Exception {
+        try (SessionHost host = new SessionHost()) {
+            CountDownLatch never = new CountDownLatch(1);
+            Session closing = host.open("closing", new Game(TallyType.SEQUENTIAL, new WaitingFrontEnd(script("a"), never)));
+            Session staying = host.open("staying", new Game(TallyType.SEQUENTIAL, new WaitingFrontEnd(script("b"), never)));
+
+            assertTrue(host.close("closing"));
+            assertTrue(closing.getCompletion().get(1, TimeUnit.MINUTES).isGameOver());
+            assertNull(host.get("closing"));
+            assertFalse(host.close("closing"));
+
+            assertTrue(staying.isRunning());
+            assertSame(staying, host.get("staying"));
+        }
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testCloseKeepsGame() throws Exception {
+        try (SessionHost host = new SessionHost()) {
+            ResultsWaitingFrontEnd frontEnd = new ResultsWaitingFrontEnd(script("a"), new CountDownLatch(1));
+            Session session = host.open("closing", new Game(TallyType.SEQUENTIAL, frontEnd));
+            assertTrue(frontEnd.reached.await(1, TimeUnit.MINUTES));
+            assertTrue(host.close("closing"));
+
+            // Stopped, not quit: the game still has its players and votes
+            Game game = session.getCompletion().get(1, TimeUnit.MINUTES);
+            assertNotEquals(StateType.QUIT, game.getStateType());
+            assertEquals(2, game.getPlayers().size());
+            assertEquals(2, game.getVotesForRestaurant("Zoes"));
+            assertTrue(game.isWin());
+        }
+    }
+
+    @Test(expected = java.lang.IllegalStateException.class)
+    public void testDenyDuplicateSessionId() {
+        try (SessionHost host = new SessionHost()) {
+            CountDownLatch never = new CountDownLatch(1);
+            host.open("team", new Game(TallyType.SEQUENTIAL, new WaitingFrontEnd(script("a"), never)));
+            host.open("team", new Game(TallyType.SEQUENTIAL, new WaitingFrontEnd(script("a"), never)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.getmarco.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.simulation.GameSimulator}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class GameSimulatorTest {
+
+    @Test
+    public void testSingleRestaurantAlwaysWins() {
+        SimulationConfig config = new SimulationConfig.Builder()
+          .setNumPlayers(3)
+          .setNumRestaurantsPerPlayer(2)
+          .setNumKnownRestaurants(1)
+          .build();
+        SimulationResult result = new GameSimulator().simulate(config, 1000, 1L);
+        assertEquals(1000, result.getNumGames());
+        assertEquals(0, result.getNumTies());
+        assertEquals(1, result.getMeanRestaurants(), 0);
+        // Every player votes once for the only restaurant
+        assertEquals(1000, result.getWinnerVotesCount(3));
+        assertEquals(3, result.getWinnerVotesPercentile(50));
+        assertEquals(3, result.getMeanMargin(), 0);
+    }
+
+    @Test
+    public void testTieRate() {
+        // Two players each suggest a different restaurant and vote for one at random: a tie half of the time
+        SimulationConfig config = new SimulationConfig.Builder()
+          .setNumPlayers(2)
+          .setNumRestaurantsPerPlayer(1)
+          .setNumVotesPerPlayer(1)
+          .setNumKnownRestaurants(1000000)
+          .build();
+        SimulationResult result = new GameSimulator().simulate(config, 20000, 7L);
+        assertEquals(0.5, result.getTieRate(), 0.02);
+        assertEquals(2, result.getMeanRestaurants(), 0.01);
+        assertEquals(2, result.getWinnerVotesPercentile(100));
+        assertEquals(2, result.getMeanWinnerVotes(), 0);
+    }
+
+    @Test
+    public void testSameResultOnAnyNumberOfThreads() {
+        SimulationConfig config = new SimulationConfig.Builder()
+          .setNumPlayers(8)
+          .setNumRestaurantsPerPlayer(2)
+          .setSkew(2)
+          .build();
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            SimulationResult expected = new GameSimulator(single, 100).simulate(config, 5000, 42L);
+            SimulationResult actual = new GameSimulator(several, 100).simulate(config, 5000, 42L);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getNumTies(), actual.getNumTies());
+            for (int votes = 0; votes <= 8; votes++)
+                assertEquals(expected.getWinnerVotesCount(votes), actual.getWinnerVotesCount(votes));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDenyInvalidConfig() {
+        new SimulationConfig.Builder().setNumPlayers(2).build();
+    }
+}
@@ -0,0 +1,140 @@
+package org.getmarco.tally;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.tally.InstantRunoff}.
+ */
+public class InstantRunoffTest {
+
+    private static BitSet candidates(int count) {
+        BitSet candidates = new BitSet();
+        candidates.set(0, count);
+        return candidates;
+    }
+
+    private static void add(InstantRunoff runoff, int... ids) {
+        runoff.addBallot(ids, 0, ids.length);
+    }
+
+    /**
+     * Recount every ballot from scratch each round
+     */
+    private static int naiveRunoff(List<int[]> ballots, BitSet candidates) {
+        BitSet surviving = (BitSet)candidates.clone();
+        while (true) {
+            int[] votes = new int[surviving.length()];
+            int inPlay = 0;
+            for (int[] ballot : ballots) {
+                for (int id : ballot) {
+                    if (surviving.get(id)) {
+                        votes[id]++;
+                        inPlay++;
+                        break;
+                    }
+                }
+            }
+            int leader = -1;
+            int fewest = Integer.MAX_VALUE;
+            for (int id = surviving.nextSetBit(0); id >= 0; id = surviving.nextSetBit(id + 1)) {
+                if (leader < 0 || votes[id] > votes[leader])
+                    leader = id;
+                fewest = Math.min(fewest, votes[id]);
+            }
+            if (leader < 0)
+                return -1;
+            if (surviving.cardinality() == 1 || votes[leader] * 2L > inPlay)
+                return leader;
+            if (fewest == votes[leader])
+                return -1;
+            for (int id = surviving.nextSetBit(0); id >= 0; id = surviving.nextSetBit(id + 1)) {
+                if (votes[id] == fewest)
+                    surviving.clear(id);
+            }
+        }
+    }
+
+    @Test
+    public void testMajorityInFirstRound() {
+        InstantRunoff runoff = new InstantRunoff();
+        add(runoff, 0, 1);
+        add(runoff, 0);
+        add(runoff, 1, 0);
+        assertEquals(0, runoff.run(candidates(3)));
+        assertEquals(0, runoff.getRound());
+        assertEquals(2, runoff.getVotes(0));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testTransfersDecideWinner() {
+        InstantRunoff runoff = new InstantRunoff();
+        // 0 leads on first choices, but 2's voters prefer 1
+        add(runoff, 0);
+        add(runoff, 0);
+        add(runoff, 1);
+        add(runoff, 1);
+        add(runoff, 2, 1);
+        runoff.start(candidates(3));
+        assertFalse(runoff.isDecided());
+        assertTrue(runoff.nextRound());
+        assertFalse(runoff.isSurviving(2));
+        assertEquals(3, runoff.getVotes(1));
+        assertTrue(runoff.isDecided());
+        assertEquals(1, runoff.getWinner());
+        assertFalse(runoff.nextRound());
+    }
+
+    @Test
+    public void testTieAndSkippedCandidates() {
+        InstantRunoff runoff = new InstantRunoff();
+        add(runoff, 2, 0);
+        add(runoff, 1);
+        // Restaurant 2 was eliminated from the game, its ballot goes to 0
+        BitSet candidates = new BitSet();
+        candidates.set(0);
+        candidates.set(1);
+        assertEquals(-1, runoff.run(candidates));
+        assertTrue(runoff.isDecided());
+        assertEquals(1, runoff.getVotes(0));
+        assertEquals(1, runoff.getVotes(1));
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testMatchesNaiveRecount() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            int numCandidates = 2 + random.nextInt(8);
+            InstantRunoff runoff = new InstantRunoff();
+            List<int[]> ballots = new ArrayList<>();
+            int numBallots = random.nextInt(60);
+            for (int b = 0; b < numBallots; b++) {
+                int[] order = new int[numCandidates];
+                for (int i = 0; i < numCandidates; i++)
+                    order[i] = i;
+                for (int i = numCandidates - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                }
+                int[] ballot = new int[1 + random.nextInt(Math.min(3, numCandidates))];
+                System.arraycopy(order, 0, ballot, 0, ballot.length);
+                ballots.add(ballot);
+                add(runoff, ballot);
+            }
+            BitSet candidates = candidates(numCandidates);
+            assertEquals("trial " + trial, naiveRunoff(ballots, candidates), runoff.run(candidates));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.getmarco.tally;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.tally.ScoringRule} and {@link org.getmarco.tally.BallotMatrix}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class ScoringRuleTest {
+
+    private static int ballot(BallotMatrix ballots, int... ids) {
+        int row = ballots.addBallot();
+        for (int i = 0; i < ids.length; i++)
+            ballots.mark(row, ids[i], i + 1);
+        return row;
+    }
+
+    @Test
+    public void testRankedRules() {
+        BallotMatrix ballots = new BallotMatrix();
+        ballot(ballots, 0, 1, 2);
+        ballot(ballots, 1, 0);
+        ballot(ballots, 2);
+        ballot(ballots);
+
+        assertArrayEquals(new int[] {2, 2, 2}, Arrays.copyOf(ScoringRule.PLURALITY.score(ballots, 3), 3));
+        assertArrayEquals(new int[] {2, 2, 2}, Arrays.copyOf(ScoringRule.APPROVAL.score(ballots, 3), 3));
+        // 3 points for a first choice, 2 for a second, 1 for a third
+        assertArrayEquals(new int[] {3 + 2, 2 + 3, 1 + 3}, Arrays.copyOf(ScoringRule.BORDA.score(ballots, 3), 3));
+    }
+
+    @Test
+    public void testScores() {
+        BallotMatrix ballots = new BallotMatrix();
+        int row = ballots.addBallot();
+        ballots.mark(row, 0, 5);
+        ballots.mark(row, 70, 2);
+        row = ballots.addBallot();
+        ballots.mark(row, 70, 4);
+
+        int[] totals = ScoringRule.SCORE.score(ballots, 3);
+        assertEquals(5, totals[0]);
+        assertEquals(6, totals[70]);
+        assertEquals(1, ScoringRule.APPROVAL.score(ballots, 3)[0]);
+        assertEquals(2, ScoringRule.APPROVAL.score(ballots, 3)[70]);
+    }
+
+    @Test
+    public void testMarks() {
+        BallotMatrix ballots = new BallotMatrix();
+        int first = ballot(ballots, 3, 1);
+        // Rows only hold the restaurants marked, whatever their ids
+        int second = ballot(ballots, 200);
+        assertEquals(1, ballots.getMark(first, 3));
+        assertEquals(2, ballots.getMark(first, 1));
+        assertEquals(0, ballots.getMark(first, 200));
+        assertEquals(1, ballots.getMark(second, 200));
+        assertEquals(0, ballots.getMark(second, 1000));
+        assertEquals(2, ballots.getNumMarks(first));
+        assertEquals(201, ballots.getWidth());
+
+        ballots.mark(first, 3, 0);
+        assertEquals(1, ballots.getNumMarks(first));
+        assertEquals(1, ballots.getMarkedId(first, 0));
+        assertEquals(2, ballots.getMarkAt(first, 0));
+        assertEquals(0, ScoringRule.PLURALITY.score(ballots, 3)[3]);
+        ballots.clearBallot(second);
+        assertEquals(0, ScoringRule.PLURALITY.score(ballots, 3)[200]);
+        assertEquals(2, ballots.getNumBallots());
+
+        // A removed ballot's row goes to the next ballot
+        ballots.removeBallot(first);
+        assertEquals(1, ballots.getNumBallots());
+        assertEquals(0, ScoringRule.PLURALITY.score(ballots, 3)[1]);
+        ballots.addMarks(ballots.addBallot(), new int[] {7, 4}, new int[] {1, 2}, 0, 2);
+        assertEquals(2, ballots.getMark(first, 4));
+        assertEquals(2, ballots.getNumBallots());
+
+        ballots.clear();
+        assertEquals(0, ballots.getNumBallots());
+        assertEquals(0, ballots.getMark(ballot(ballots), 1));
+    }
+
+    @Test
+    public void testTotalsMatchPointsPerBallot() {
+        Random random = new Random(42);
+        int numVotes = 3;
+        int numRestaurants = 150;
+        BallotMatrix ballots = new BallotMatrix();
+        int[][] rows = new int[2000][];
+        for (int b = 0; b < rows.length; b++) {
+            rows[b] = random.ints(0, numRestaurants).distinct().limit(random.nextInt(numVotes + 1)).toArray();
+            ballot(ballots, rows[b]);
+        }
+        for (ScoringRule rule : new ScoringRule[] {ScoringRule.PLURALITY, ScoringRule.BORDA, ScoringRule.APPROVAL}) {
+            int[] expected = new int[numRestaurants];
+            for (int[] row : rows) {
+                for (int i = 0; i < row.length; i++)
+                    expected[row[i]] += rule.points(i + 1, numVotes);
+            }
+            int[] totals = rule.score(ballots, numVotes);
+            for (int id = 0; id < numRestaurants; id++)
+                assertEquals(rule + " points for " + id, expected[id], totals[id]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDenyInvalidMark() {
+        BallotMatrix ballots = new BallotMatrix();
+        ballots.mark(ballots.addBallot(), 0, BallotMatrix.MAX_MARK + 1);
+    }
+}
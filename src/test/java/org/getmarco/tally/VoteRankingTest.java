@@ -0,0 +1,136 @@
+package org.getmarco.tally;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.tally.VoteRanking}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class VoteRankingTest {
+
+    private static void assertPages(VoteRanking ranking, RestaurantDictionary dictionary, int[] votes, boolean[] ranked) {
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 0; id < votes.length; id++) {
+            if (ranked[id])
+                expected.add(id);
+        }
+        expected.sort(Comparator.<Integer>comparingInt(id -> -votes[id]).thenComparing(dictionary::getName));
+        for (int offset : new int[] {0, 1, 7, expected.size() / 2, expected.size() - 1}) {
+            for (int limit : new int[] {1, 10, expected.size()}) {
+                int[] page = ranking.getRanked(offset, limit);
+                int from = Math.max(0, Math.min(offset, expected.size()));
+                List<Integer> expectedPage = expected.subList(from, Math.min(expected.size(), from + limit));
+                assertEquals("page " + offset + "+" + limit, expectedPage.size(), page.length);
+                for (int i = 0; i < page.length; i++)
+                    assertEquals("page " + offset + "+" + limit, (int)expectedPage.get(i), page[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testPagesStayOrdered() {
+        Random random = new Random(42);
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+        VoteRanking ranking = new VoteRanking(dictionary);
+        int n = 300;
+        int[] votes = new int[n];
+        boolean[] ranked = new boolean[n];
+        for (int id = 0; id < n; id++) {
+            // Names interned out of alphabetical order
+            assertEquals(id, dictionary.intern("Restaurant " + random.nextInt(1000000) + "-" + id));
+            ranking.add(id, 0);
+            ranked[id] = true;
+        }
+        assertPages(ranking, dictionary, votes, ranked);
+
+        for (int step = 0; step < 5000; step++) {
+            int id = random.nextInt(n);
+            int action = random.nextInt(10);
+            if (!ranked[id]) {
+                ranking.add(id, votes[id]);
+                ranked[id] = true;
+            } else if (action == 0) {
+                ranking.remove(id, votes[id]);
+                ranked[id] = false;
+            } else if (action == 1 && votes[id] > 0) {
+                int newVotes = random.nextInt(votes[id]);
+                ranking.drop(id, votes[id], newVotes);
+                votes[id] = newVotes;
+            } else if (action == 2) {
+                int newVotes = votes[id] + random.nextInt(5);
+                ranking.raise(id, votes[id], newVotes);
+                votes[id] = newVotes;
+            } else {
+                ranking.increment(id, votes[id]++);
+            }
+            // Read often, so pages come from partly sorted buckets as well as freshly sorted ones
+            if (step % 7 == 0)
+                assertPages(ranking, dictionary, votes, ranked);
+        }
+        assertPages(ranking, dictionary, votes, ranked);
+    }
+
+    @Test
+    public void testRebuild() {
+        String[] names = new String[200];
+        int[] votes = new int[names.length];
+        Random random = new Random(7);
+        for (int id = 0; id < names.length; id++) {
+            names[id] = String.format("Restaurant %03d", id);
+            votes[id] = random.nextInt(4);
+        }
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+        dictionary.load(names, names.length);
+        VoteRanking ranking = new VoteRanking(dictionary);
+        ranking.rebuild(votes, names.length);
+        boolean[] ranked = new boolean[names.length];
+        Arrays.fill(ranked, true);
+        assertPages(ranking, dictionary, votes, ranked);
+        ranking.increment(5, votes[5]++);
+        assertPages(ranking, dictionary, votes, ranked);
+    }
+
+    @Test
+    public void testLargeVoteCounts() {
+        RestaurantDictionary dictionary = new RestaurantDictionary();
+        VoteRanking ranking = new VoteRanking(dictionary);
+        int[] votes = {0, Integer.MAX_VALUE - 1, 1000000000, Integer.MAX_VALUE - 1};
+        boolean[] ranked = new boolean[votes.length];
+        for (int id = 0; id < votes.length; id++) {
+            dictionary.intern("Restaurant " + id);
+            ranking.add(id, 0);
+            ranking.raise(id, 0, votes[id]);
+            ranked[id] = true;
+        }
+        assertEquals(Integer.MAX_VALUE - 1, ranking.getMaxVotes());
+        assertFalse(ranking.isWin());
+        assertPages(ranking, dictionary, votes, ranked);
+
+        ranking.increment(3, votes[3]++);
+        assertTrue(ranking.isWin());
+        assertPages(ranking, dictionary, votes, ranked);
+        try {
+            ranking.increment(3, votes[3]);
+            fail("expected exception for too many votes");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        ranking.drop(3, votes[3], 5);
+        votes[3] = 5;
+        ranking.rebuild(votes, votes.length);
+        assertEquals(Integer.MAX_VALUE - 1, ranking.getMaxVotes());
+        assertTrue(ranking.isWin());
+        assertPages(ranking, dictionary, votes, ranked);
+    }
+}
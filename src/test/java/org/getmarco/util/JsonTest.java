@@ -0,0 +1,47 @@
+package org.getmarco.util;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.util.Json}.
+ */
+public class JsonTest {
+
+    @Test
+    public void testJson() {
+        String json = "{\"name\":\"Moe's \\\"Tavern\\\"\\n\",\"list\":[1,2.5,true,null,{}],\"empty\":[]}";
+        Object value = Json.parse(json);
+        assertEquals(json, Json.write(value));
+        assertEquals("\u00e9", Json.parse("\"\\u00e9\""));
+
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < Json.MAX_DEPTH; i++)
+            nested.append('[');
+        for (int i = 0; i < Json.MAX_DEPTH; i++)
+            nested.append(']');
+        Json.parse(nested.toString());
+        try {
+            Json.parse("[" + nested + "]");
+            fail("parsed JSON nested over the limit");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nested"));
+        }
+    }
+
+    @Test
+    public void testNumbers() {
+        assertEquals(Long.valueOf(-12), Json.parse("-12"));
+        assertEquals(Double.valueOf(2.7), Json.parse("2.7"));
+        assertEquals(Double.valueOf(1e3), Json.parse("1e3"));
+        try {
+            Json.parse("[1, 2,]");
+            fail("parsed a trailing comma");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
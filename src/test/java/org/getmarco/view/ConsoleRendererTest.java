@@ -0,0 +1,52 @@
+package org.getmarco.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+//CHECKSTYLE:OFF
+import static org.junit.Assert.*;
+//CHECKSTYLE:ON
+
+/**
+ * Tests for {@link org.getmarco.view.ConsoleRenderer}.
+ */
+public class ConsoleRendererTest {
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    @Test
+    public void testWritesInChunks() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] writes = new int[1];
+        PrintStream out = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes[0]++;
+                bytes.write(b, off, len);
+            }
+        }, true);
+        ConsoleRenderer renderer = new ConsoleRenderer(out, 100);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            renderer.append("Restaurant ").append(i).newline();
+            expected.append("Restaurant ").append(i).append(System.lineSeparator());
+        }
+        // Nothing is written until a chunk fills up
+        assertTrue(bytes.size() > 0);
+        assertTrue(bytes.size() < expected.length());
+        renderer.line("done");
+        renderer.flush();
+        renderer.flush();
+        expected.append("done").append(System.lineSeparator());
+        assertEquals(expected.toString(), bytes.toString());
+        assertTrue("too many writes: " + writes[0], writes[0] <= expected.length() / 100 + 1);
+    }
+}